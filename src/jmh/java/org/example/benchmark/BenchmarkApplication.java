@@ -0,0 +1,40 @@
+package org.example.benchmark;
+
+import org.example.ForeignLanguagesBookApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 以 H2 記憶體資料庫啟動完整的 Spring 容器 (不啟動 Web 伺服器)，
+ * 讓基準測試量到的是實際的 Service / Repository / Hibernate 路徑，而不是 Mock。
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param database H2 資料庫名稱，每個基準測試類別各自獨立
+     */
+    static ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(ForeignLanguagesBookApplication.class)
+                .web(WebApplicationType.NONE)
+                // 以命令列參數傳入：優先於 application.properties，確保不會連到正式資料庫
+                .run(
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:" + database
+                                + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        // 關閉 SQL 與安全性的除錯日誌，避免 I/O 成為量測對象
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.benchmark;
+
+import org.example.entity.Book;
+import org.example.entity.CartItem;
+import org.example.entity.Language;
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.UserRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基準測試用的固定資料 (每次產生的內容相同，結果才能跨版本比較)
+ */
+final class BenchmarkData {
+
+    private static final String[] TOPICS = {"Grammar", "Conversation", "Vocabulary", "Reading", "Listening", "Writing"};
+    private static final String[] LEVELS = {"Beginner", "Intermediate", "Advanced"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 依語言平均分配產生 count 本上架書籍，書名如 "Japanese Grammar for Beginner Vol. 12"
+     */
+    static List<Book> books(BookRepository bookRepository, int count, int stock) {
+        Language[] languages = Language.values();
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Language lang = languages[i % languages.length];
+            String language = lang.name().charAt(0) + lang.name().substring(1).toLowerCase();
+            Book book = new Book();
+            book.setTitle(language + " " + TOPICS[i % TOPICS.length] + " for " + LEVELS[i % LEVELS.length]
+                    + " Vol. " + (i / languages.length + 1));
+            book.setAuthor("Author " + (i % 97));
+            book.setIsbn(String.format("978%010d", i));
+            book.setPrice(new BigDecimal(200 + (i % 50) * 10));
+            book.setStock(stock);
+            book.setLang(lang);
+            book.setIsOnsale(true);
+            books.add(book);
+        }
+        return bookRepository.saveAll(books);
+    }
+
+    static User user(UserRepository userRepository, String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@bench.test");
+        user.setPassword("x");
+        user.setRole(Role.USER);
+        return userRepository.save(user);
+    }
+
+    /**
+     * 把前 lines 本書各 1 本放進會員購物車
+     */
+    static void fillCart(CartItemRepository cartItemRepository, User user, List<Book> books, int lines) {
+        List<CartItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            CartItem item = new CartItem();
+            item.setUser(user);
+            item.setBook(books.get(i));
+            item.setQuantity(1);
+            items.add(item);
+        }
+        cartItemRepository.saveAll(items);
+    }
+}
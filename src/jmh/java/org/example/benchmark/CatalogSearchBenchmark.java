@@ -0,0 +1,70 @@
+package org.example.benchmark;
+
+import org.example.dto.BookDetail;
+import org.example.repository.BookRepository;
+import org.example.service.BookService;
+import org.example.service.CatalogReadModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 前台關鍵字搜尋 (BookService.searchOnsaleBooks) 在不同目錄大小下的吞吐量，
+ * 以及取樣模式下的回應時間分布 (報表含 p99)，目錄規模涵蓋到 50 萬本
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogSearchBenchmark {
+
+    @Param({"1000", "20000", "500000"})
+    public int books;
+
+    @Param({"grammar", "japanese conversation", "vol. 7"})
+    public String keyword;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("bench_catalog_search");
+        BenchmarkData.books(context.getBean(BookRepository.class), books, 100);
+        // 直接寫入資料庫不會發出 BookChangedEvent，手動重建快照與索引
+        context.getBean(CatalogReadModel.class).rebuild();
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<BookDetail> searchFirstPage() {
+        return bookService.searchOnsaleBooks(keyword, 0, 20);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Page<BookDetail> searchFirstPageLatency() {
+        return bookService.searchOnsaleBooks(keyword, 0, 20);
+    }
+}
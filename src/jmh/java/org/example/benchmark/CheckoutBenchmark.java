@@ -0,0 +1,81 @@
+package org.example.benchmark;
+
+import org.example.dto.CheckoutRequest;
+import org.example.dto.CheckoutResponseDTO;
+import org.example.entity.Book;
+import org.example.entity.User;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.UserRepository;
+import org.example.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 結帳 (OrderService.checkout) 的單次耗時與購物車明細數量的關係。
+ * 每次呼叫前重新放入購物車 (Level.Invocation)，量測只包含結帳本身。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int cartLines;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private CartItemRepository cartItemRepository;
+    private List<Book> books;
+    private User buyer;
+    private CheckoutRequest request;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("bench_checkout");
+        // 庫存足夠整個量測期間使用，避免中途因售完而失敗
+        books = BenchmarkData.books(context.getBean(BookRepository.class), cartLines, 100_000_000);
+        buyer = BenchmarkData.user(context.getBean(UserRepository.class), "buyer");
+        orderService = context.getBean(OrderService.class);
+        cartItemRepository = context.getBean(CartItemRepository.class);
+
+        request = new CheckoutRequest();
+        request.setPaymentMethod("CREDIT_CARD");
+        request.setRecipientName("Bench");
+        request.setShippingAddress("Taipei");
+        request.setRecipientPhone("0912345678");
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCart() {
+        BenchmarkData.fillCart(cartItemRepository, buyer, books, cartLines);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CheckoutResponseDTO checkout() {
+        return orderService.checkout(buyer.getUserId(), request);
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.benchmark;
+
+import org.example.dto.CheckoutRequest;
+import org.example.dto.OrderDetailDTO;
+import org.example.dto.OrderListDTO;
+import org.example.entity.Book;
+import org.example.entity.User;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.UserRepository;
+import org.example.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 訂單查詢與 DTO 轉換：
+ * 會員訂單列表 (JPQL 投影直接產生 OrderListDTO) 與單筆訂單詳情 (JOIN FETCH 後 mapToDetailDTO)。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderQueryBenchmark {
+
+    @Param({"10", "200"})
+    public int orders;
+
+    @Param({"3", "20"})
+    public int itemsPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private User buyer;
+    private Long latestOrderId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("bench_order_query");
+        List<Book> books = BenchmarkData.books(context.getBean(BookRepository.class), itemsPerOrder, 1_000_000);
+        buyer = BenchmarkData.user(context.getBean(UserRepository.class), "history");
+        orderService = context.getBean(OrderService.class);
+        CartItemRepository cartItemRepository = context.getBean(CartItemRepository.class);
+
+        CheckoutRequest request = new CheckoutRequest();
+        request.setPaymentMethod("CREDIT_CARD");
+        request.setRecipientName("Bench");
+        request.setShippingAddress("Taipei");
+        request.setRecipientPhone("0912345678");
+        // 以正式結帳流程產生歷史訂單，資料形狀與線上相同
+        for (int i = 0; i < orders; i++) {
+            BenchmarkData.fillCart(cartItemRepository, buyer, books, itemsPerOrder);
+            latestOrderId = orderService.checkout(buyer.getUserId(), request).getOrderId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OrderListDTO> memberOrderList() {
+        return orderService.getOrdersByUserId(buyer.getUserId());
+    }
+
+    @Benchmark
+    public OrderDetailDTO orderDetail() {
+        return orderService.getOrderDetailByIdAndUserId(latestOrderId, buyer.getUserId());
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.loadtest;
+
+/**
+ * 負載測試模擬的操作，name 同時是 mix 參數、X-Load-Endpoint header 與報告中的名稱
+ */
+enum Endpoint {
+    BROWSE("browse"),             // GET  /api/public/books/lang/{lang}
+    SEARCH("search"),             // GET  /api/public/books/search?keyword=
+    ADD_TO_CART("add-to-cart"),   // POST /api/user/cart
+    CHECKOUT("checkout"),         // POST /api/user/orders/checkout
+    ADMIN_ORDERS("admin-orders"); // GET  /api/admin/orders
+
+    /**
+     * 驅動端在每個請求加上此 header，StatementCountingFilter 依此彙總 SQL 數量
+     */
+    static final String HEADER = "X-Load-Endpoint";
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+
+    static Endpoint fromLabel(String label) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.label.equals(label)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("未知的端點: " + label);
+    }
+}
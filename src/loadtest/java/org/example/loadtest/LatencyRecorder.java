@@ -0,0 +1,62 @@
+package org.example.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 記錄每個端點的回應時間 (奈秒) 與錯誤數。
+ * 每條工作執行緒各自一份，不需同步；量測結束後再 merge 成一份計算百分位數。
+ */
+class LatencyRecorder {
+
+    private final Map<Endpoint, long[]> samples = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> sizes = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> errors = new EnumMap<>(Endpoint.class);
+
+    void record(Endpoint endpoint, long nanos, boolean success) {
+        long[] values = samples.computeIfAbsent(endpoint, key -> new long[1024]);
+        int size = sizes.getOrDefault(endpoint, 0);
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            samples.put(endpoint, values);
+        }
+        values[size] = nanos;
+        sizes.put(endpoint, size + 1);
+        if (!success) {
+            errors.merge(endpoint, 1, Integer::sum);
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        other.samples.forEach((endpoint, values) -> {
+            int count = other.sizes.get(endpoint);
+            for (int i = 0; i < count; i++) {
+                record(endpoint, values[i], true);
+            }
+        });
+        other.errors.forEach((endpoint, count) -> errors.merge(endpoint, count, Integer::sum));
+    }
+
+    int count(Endpoint endpoint) {
+        return sizes.getOrDefault(endpoint, 0);
+    }
+
+    int errors(Endpoint endpoint) {
+        return errors.getOrDefault(endpoint, 0);
+    }
+
+    /**
+     * 第 percentile 百分位的回應時間 (毫秒)，採 nearest-rank；沒有樣本時為 0
+     */
+    double percentileMillis(Endpoint endpoint, double percentile) {
+        int count = count(endpoint);
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples.get(endpoint), count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+}
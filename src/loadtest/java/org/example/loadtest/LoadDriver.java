@@ -0,0 +1,161 @@
+package org.example.loadtest;
+
+import org.example.entity.Language;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 以 closed loop 方式送出混合流量：每條虛擬執行緒代表一位會員，
+ * 依權重挑選下一個操作，收到回應後才送出下一個請求。
+ */
+class LoadDriver {
+
+    private static final String CHECKOUT_BODY = "{\"paymentMethod\":\"CREDIT_CARD\",\"recipientName\":\"Load Test\","
+            + "\"shippingAddress\":\"Load Test Road 1\",\"recipientPhone\":\"0900000000\"}";
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final LoadTestOptions options;
+    private final SyntheticDataGenerator.Dataset dataset;
+    private final Endpoint[] weighted;
+
+    LoadDriver(URI baseUri, LoadTestOptions options, SyntheticDataGenerator.Dataset dataset) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUri = baseUri;
+        this.options = options;
+        this.dataset = dataset;
+        this.weighted = weightedEndpoints(options.mix());
+    }
+
+    /**
+     * 執行暖機與正式量測；onMeasurementStart 在暖機結束、開始計入統計時呼叫一次
+     * @return 正式量測期間的回應時間 (所有執行緒合併後)
+     */
+    LatencyRecorder run(Runnable onMeasurementStart) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long deadline = measureFrom + options.duration().toNanos();
+
+        List<Future<LatencyRecorder>> workers = new ArrayList<>(options.concurrency());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency(); i++) {
+                int worker = i;
+                workers.add(executor.submit(() -> session(worker, measureFrom, deadline)));
+            }
+            Thread.sleep(Duration.ofNanos(Math.max(0, measureFrom - System.nanoTime())));
+            onMeasurementStart.run();
+        }
+
+        LatencyRecorder merged = new LatencyRecorder();
+        for (Future<LatencyRecorder> worker : workers) {
+            try {
+                merged.merge(worker.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("負載測試執行緒失敗", e.getCause());
+            }
+        }
+        return merged;
+    }
+
+    private LatencyRecorder session(int worker, long measureFrom, long deadline) throws IOException, InterruptedException {
+        Random random = new Random(options.seed() + worker);
+        String token = dataset.userTokens().get(worker);
+        LatencyRecorder recorder = new LatencyRecorder();
+        int cartLines = 0;
+
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = weighted[random.nextInt(weighted.length)];
+            // 購物車是空的就無法結帳，先放一本書 (依然記為 add-to-cart)
+            if (endpoint == Endpoint.CHECKOUT && cartLines == 0) {
+                endpoint = Endpoint.ADD_TO_CART;
+            }
+
+            HttpRequest request = request(endpoint, random, token);
+            long begin = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            long end = System.nanoTime();
+
+            boolean success = response.statusCode() < 400;
+            if (success && endpoint == Endpoint.ADD_TO_CART) {
+                cartLines++;
+            } else if (success && endpoint == Endpoint.CHECKOUT) {
+                cartLines = 0;
+            }
+            if (begin >= measureFrom) {
+                recorder.record(endpoint, end - begin, success);
+            }
+        }
+        return recorder;
+    }
+
+    private HttpRequest request(Endpoint endpoint, Random random, String token) {
+        HttpRequest.Builder builder = switch (endpoint) {
+            case BROWSE -> {
+                Language[] languages = Language.values();
+                yield get("/api/public/books/lang/" + languages[random.nextInt(languages.length)].name());
+            }
+            case SEARCH -> get("/api/public/books/search?keyword="
+                    + URLEncoder.encode(keyword(random), StandardCharsets.UTF_8));
+            case ADD_TO_CART -> {
+                long bookId = dataset.bookIds().get(random.nextInt(dataset.bookIds().size()));
+                yield post("/api/user/cart", "{\"bookId\":" + bookId + ",\"quantity\":1}")
+                        .header("Authorization", "Bearer " + token);
+            }
+            case CHECKOUT -> post("/api/user/orders/checkout", CHECKOUT_BODY)
+                    .header("Authorization", "Bearer " + token);
+            case ADMIN_ORDERS -> get("/api/admin/orders")
+                    .header("Authorization", "Bearer " + dataset.adminToken());
+        };
+        return builder.header(Endpoint.HEADER, endpoint.label()).build();
+    }
+
+    // 一半是單一主題 (如 "grammar")，一半是語言 + 主題 (如 "japanese conversation")
+    private static String keyword(Random random) {
+        String topic = SyntheticDataGenerator.TOPICS[random.nextInt(SyntheticDataGenerator.TOPICS.length)].toLowerCase();
+        if (random.nextBoolean()) {
+            return topic;
+        }
+        Language[] languages = Language.values();
+        return languages[random.nextInt(languages.length)].name().toLowerCase() + " " + topic;
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    // 依權重展開成陣列，隨機取一個元素即為依權重抽樣
+    private static Endpoint[] weightedEndpoints(Map<Endpoint, Integer> mix) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                endpoints.add(endpoint);
+            }
+        });
+        return endpoints.toArray(Endpoint[]::new);
+    }
+}
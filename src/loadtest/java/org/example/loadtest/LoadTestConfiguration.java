@@ -0,0 +1,25 @@
+package org.example.loadtest;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * 負載測試額外註冊的 Bean。
+ * 刻意不加 @Configuration：org.example 底下的元件掃描不會在一般測試中載入，只由 LoadTestMain 明確加入。
+ */
+class LoadTestConfiguration {
+
+    @Bean
+    StatementCountingFilter statementCountingFilter() {
+        return new StatementCountingFilter();
+    }
+
+    @Bean
+    FilterRegistrationBean<StatementCountingFilter> statementCountingFilterRegistration(
+            StatementCountingFilter filter) {
+        FilterRegistrationBean<StatementCountingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.loadtest;
+
+import org.example.ForeignLanguagesBookApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 端對端負載測試：以記憶體資料庫在隨機埠啟動完整應用程式，產生合成資料後送出混合流量，
+ * 最後輸出各端點的吞吐量、回應時間百分位數與每個請求的 SQL 數。
+ * 執行方式見 pom.xml 的 loadtest profile，參數見 LoadTestOptions。
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        // devtools 在 classpath 上時會以 Spring 參數重新執行 main，負載測試參數會遺失
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // threading=both 時以相同的資料與流量依序跑平台執行緒、虛擬執行緒兩回合
+        List<LoadTestReport> reports = new ArrayList<>();
+        for (Boolean virtualThreads : options.threadingRuns()) {
+            reports.add(run(options, virtualThreads));
+        }
+        if (reports.size() > 1) {
+            LoadTestReport.printComparison(System.out, reports);
+        }
+    }
+
+    private static LoadTestReport run(LoadTestOptions options, Boolean virtualThreads) throws Exception {
+        // 命令列參數優先於 application.properties，不會連到正式資料庫
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                ForeignLanguagesBookApplication.class, LoadTestConfiguration.class)
+                .run(options.toSpringArgs(virtualThreads))) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            String threading = context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                    ? "virtual" : "platform";
+
+            long seeding = System.nanoTime();
+            SyntheticDataGenerator.Dataset dataset = new SyntheticDataGenerator(context, options).generate();
+            System.out.printf("合成資料：%d 本書、%d 位會員，耗時 %d ms%n", dataset.bookIds().size(),
+                    dataset.userTokens().size(), (System.nanoTime() - seeding) / 1_000_000);
+            System.out.printf("暖機 %d 秒、量測 %d 秒，並行數 %d，請求執行緒 %s%n", options.warmup().toSeconds(),
+                    options.duration().toSeconds(), options.concurrency(), threading);
+
+            StatementCountingFilter statements = context.getBean(StatementCountingFilter.class);
+            LatencyRecorder latencies = new LoadDriver(URI.create("http://localhost:" + port), options, dataset)
+                    .run(statements::reset);
+
+            LoadTestReport report = LoadTestReport.of(options, threading, latencies, statements);
+            report.print(System.out);
+            Path path = options.report(threading);
+            report.write(path);
+            System.out.println("報告已輸出到 " + path.toAbsolutePath());
+            return report;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 負載測試參數，格式皆為 --name=value。
+ * 名稱含 "." 的參數 (例如 --application.security.jwt.stateless=true) 原樣轉交給 Spring，
+ * 可覆寫預設的資料庫與日誌設定。
+ * 以 Maven 執行時：mvn -Ploadtest -DskipTests test-compile exec:exec -Dloadtest.args="--users=500 --duration=60"
+ *
+ * @param booksPerLanguage 每種語言的上架書籍數
+ * @param users            會員數，每個並行連線固定使用一位會員，因此不可少於 concurrency
+ * @param ordersPerUser    每位會員的歷史訂單數
+ * @param itemsPerOrder    每筆歷史訂單的明細數
+ * @param reviewsPerBook   每本書的評論數
+ * @param concurrency      同時發送請求的虛擬執行緒數 (closed loop：收到回應才送下一個)
+ * @param warmup           暖機時間，期間的請求不列入統計
+ * @param duration         正式量測時間
+ * @param mix              各端點的權重
+ * @param database         h2：一般 H2；postgres：H2 的 PostgreSQL 相容模式
+ * @param threading        default：沿用 spring.threads.virtual.enabled；platform / virtual：指定請求執行緒模式；
+ *                         both：以相同資料與流量依序各跑一次，比較兩種模式
+ * @param report           JSON 報告路徑
+ * @param seed             資料與流量的亂數種子，相同參數產生相同的資料集
+ * @param springArgs       轉交給 Spring 的設定
+ */
+record LoadTestOptions(int booksPerLanguage, int users, int ordersPerUser, int itemsPerOrder, int reviewsPerBook,
+                       int concurrency, Duration warmup, Duration duration, Map<Endpoint, Integer> mix,
+                       String database, String threading, Path report, long seed, Map<String, String> springArgs) {
+
+    private static final String DEFAULT_MIX = "browse=40,search=30,add-to-cart=15,checkout=5,admin-orders=10";
+    private static final Set<String> KNOWN = Set.of(
+            "books-per-language", "users", "orders-per-user", "items-per-order", "reviews-per-book",
+            "concurrency", "warmup", "duration", "mix", "database", "threading", "report", "seed");
+    private static final Set<String> THREADING = Set.of("default", "platform", "virtual", "both");
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> springArgs = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("參數格式應為 --name=value: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            (name.contains(".") ? springArgs : values).put(name, value);
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                intValue(values, "books-per-language", 100),
+                intValue(values, "users", 200),
+                intValue(values, "orders-per-user", 5),
+                intValue(values, "items-per-order", 3),
+                intValue(values, "reviews-per-book", 2),
+                intValue(values, "concurrency", 32),
+                Duration.ofSeconds(intValue(values, "warmup", 10)),
+                Duration.ofSeconds(intValue(values, "duration", 30)),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                values.getOrDefault("database", "h2"),
+                values.getOrDefault("threading", "default"),
+                Path.of(values.getOrDefault("report", "target/loadtest-report.json")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                springArgs);
+        values.keySet().removeAll(KNOWN);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("未知的參數: " + values.keySet());
+        }
+        if (options.concurrency() > options.users()) {
+            throw new IllegalArgumentException("users 不可少於 concurrency，每個並行連線需要各自的購物車");
+        }
+        if (!options.database().equals("h2") && !options.database().equals("postgres")) {
+            throw new IllegalArgumentException("database 只能是 h2 或 postgres: " + options.database());
+        }
+        if (!THREADING.contains(options.threading())) {
+            throw new IllegalArgumentException("threading 只能是 default、platform、virtual 或 both: " + options.threading());
+        }
+        return options;
+    }
+
+    /**
+     * 依 threading 決定要跑的回合：null 代表沿用應用程式設定，true / false 為指定是否使用虛擬執行緒
+     */
+    List<Boolean> threadingRuns() {
+        return switch (threading) {
+            case "platform" -> List.of(false);
+            case "virtual" -> List.of(true);
+            case "both" -> List.of(false, true);
+            default -> Collections.singletonList(null);
+        };
+    }
+
+    /**
+     * 該回合的報告路徑：比較兩種模式時在檔名後加上 -platform / -virtual
+     */
+    Path report(String mode) {
+        if (!threading.equals("both")) {
+            return report;
+        }
+        String name = report.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String suffixed = dot < 0 ? name + "-" + mode : name.substring(0, dot) + "-" + mode + name.substring(dot);
+        return report.resolveSibling(suffixed);
+    }
+
+    /**
+     * 啟動 Spring 的命令列參數：H2 記憶體資料庫、隨機埠、關閉 SQL 日誌，
+     * 並掛上 StatementCounter 計算每個請求送出的 SQL 數；使用者自訂的 Spring 參數最後套用
+     * @param virtualThreads 是否使用虛擬執行緒，null 代表沿用應用程式設定
+     */
+    String[] toSpringArgs(Boolean virtualThreads) {
+        String url = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER";
+        if (database.equals("postgres")) {
+            url += ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.datasource.url", url);
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        // 連線池需容納所有並行請求，否則量到的是排隊等連線的時間
+        properties.put("spring.datasource.hikari.maximum-pool-size", String.valueOf(Math.max(10, concurrency)));
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                StatementCounter.class.getName());
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql", "WARN");
+        properties.put("logging.level.org.springframework.security", "WARN");
+        if (virtualThreads != null) {
+            properties.put("spring.threads.virtual.enabled", virtualThreads.toString());
+        }
+        properties.putAll(springArgs);
+        return properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static int intValue(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    // 例如 browse=40,search=30,checkout=5；未列出的端點權重為 0
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("mix 格式應為 endpoint=weight: " + part);
+            }
+            weights.put(Endpoint.fromLabel(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("mix 的權重總和必須大於 0");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 負載測試結果：各端點的吞吐量、p50 / p99 / p999 回應時間 (毫秒) 與平均每個請求的 SQL 數
+ *
+ * @param threading 請求執行緒模式 (platform / virtual)
+ */
+record LoadTestReport(String database, String threading, int concurrency, long durationSeconds,
+                      double totalThroughput, List<EndpointResult> endpoints) {
+
+    record EndpointResult(String endpoint, int requests, int errors, double throughput,
+                          double p50Ms, double p99Ms, double p999Ms, double statementsPerRequest) {
+    }
+
+    static LoadTestReport of(LoadTestOptions options, String threading, LatencyRecorder latencies,
+                             StatementCountingFilter statements) {
+        double seconds = options.duration().toMillis() / 1000.0;
+        List<EndpointResult> endpoints = new ArrayList<>();
+        int total = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            int count = latencies.count(endpoint);
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            endpoints.add(new EndpointResult(endpoint.label(), count, latencies.errors(endpoint), count / seconds,
+                    latencies.percentileMillis(endpoint, 50),
+                    latencies.percentileMillis(endpoint, 99),
+                    latencies.percentileMillis(endpoint, 99.9),
+                    statements.statementsPerRequest(endpoint)));
+        }
+        return new LoadTestReport(options.database(), threading, options.concurrency(),
+                options.duration().toSeconds(), total / seconds, endpoints);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n負載測試結果 (database=%s, threading=%s, concurrency=%d, duration=%ds)%n",
+                database, threading, concurrency, durationSeconds);
+        out.printf("%-14s %9s %7s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "SQL/req");
+        for (EndpointResult result : endpoints) {
+            out.printf("%-14s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.endpoint(), result.requests(), result.errors(), result.throughput(),
+                    result.p50Ms(), result.p99Ms(), result.p999Ms(), result.statementsPerRequest());
+        }
+        out.printf("%-14s %28.1f%n", "total", totalThroughput);
+    }
+
+    /**
+     * 並列比較多個回合 (例如平台執行緒與虛擬執行緒) 各端點的吞吐量與 p99
+     */
+    static void printComparison(PrintStream out, List<LoadTestReport> reports) {
+        out.printf("%n執行緒模式比較 (req/s | p99 ms)%n");
+        out.printf("%-14s", "endpoint");
+        for (LoadTestReport report : reports) {
+            out.printf(" %22s", report.threading());
+        }
+        out.println();
+        for (Endpoint endpoint : Endpoint.values()) {
+            out.printf("%-14s", endpoint.label());
+            for (LoadTestReport report : reports) {
+                EndpointResult result = report.endpoints().stream()
+                        .filter(candidate -> candidate.endpoint().equals(endpoint.label()))
+                        .findFirst().orElse(null);
+                out.print(result == null ? String.format(" %22s", "-")
+                        : String.format(" %10.1f | %9.2f", result.throughput(), result.p99Ms()));
+            }
+            out.println();
+        }
+        out.printf("%-14s", "total");
+        for (LoadTestReport report : reports) {
+            out.printf(" %10.1f %11s", report.totalThroughput(), "");
+        }
+        out.println();
+    }
+
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), this);
+    }
+}
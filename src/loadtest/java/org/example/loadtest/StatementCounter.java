@@ -0,0 +1,23 @@
+package org.example.loadtest;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 計算目前執行緒經由 Hibernate 準備的 SQL 數量 (hibernate.session_factory.statement_inspector)。
+ * 一個 HTTP 請求從頭到尾在同一條執行緒上處理，StatementCountingFilter 在請求前後讀取差值即可。
+ * JDBC batch 只準備一次，計為一條；不經過 Hibernate 的 JdbcTemplate 查詢不計入。
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    static long current() {
+        return COUNT.get()[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 依 X-Load-Endpoint header 彙總每個端點的請求數與 SQL 數。
+ * 排在 Spring Security 之前，JWT 驗證時載入帳號的查詢也會算進該請求。
+ */
+class StatementCountingFilter extends OncePerRequestFilter {
+
+    private final Map<Endpoint, LongAdder> requests = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> statements = new EnumMap<>(Endpoint.class);
+
+    StatementCountingFilter() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            requests.put(endpoint, new LongAdder());
+            statements.put(endpoint, new LongAdder());
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String label = request.getHeader(Endpoint.HEADER);
+        if (label == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Endpoint endpoint = Endpoint.fromLabel(label);
+        long before = StatementCounter.current();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            statements.get(endpoint).add(StatementCounter.current() - before);
+            requests.get(endpoint).increment();
+        }
+    }
+
+    /**
+     * 暖機結束時歸零，只統計正式量測期間的請求
+     */
+    void reset() {
+        requests.values().forEach(LongAdder::reset);
+        statements.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * 平均每個請求的 SQL 數；該端點沒有請求時為 0
+     */
+    double statementsPerRequest(Endpoint endpoint) {
+        long count = requests.get(endpoint).sum();
+        return count == 0 ? 0 : (double) statements.get(endpoint).sum() / count;
+    }
+}
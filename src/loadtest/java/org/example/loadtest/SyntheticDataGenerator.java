@@ -0,0 +1,192 @@
+package org.example.loadtest;
+
+import org.example.entity.Book;
+import org.example.entity.Language;
+import org.example.entity.Order;
+import org.example.entity.OrderItem;
+import org.example.entity.OrderStatus;
+import org.example.entity.PaymentMethod;
+import org.example.entity.Review;
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.example.repository.BookRepository;
+import org.example.repository.OrderRepository;
+import org.example.repository.ReviewRepository;
+import org.example.repository.UserRepository;
+import org.example.service.CatalogReadModel;
+import org.example.service.JwtService;
+import org.example.service.RatingSummaryService;
+import org.springframework.context.ApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 依參數產生合成資料：各語言書籍、會員、歷史訂單與評論。
+ * 使用固定亂數種子，同一組參數每次產生相同的資料集，不同版本的結果才能互相比較。
+ */
+class SyntheticDataGenerator {
+
+    // 分批寫入，避免一次把整份歷史訂單留在同一個持久化內容中
+    private static final int CHUNK = 1000;
+    // 庫存足夠整段測試結帳，量到的不會是售完的錯誤回應
+    private static final int STOCK = 1_000_000;
+
+    static final String[] TOPICS = {"Grammar", "Conversation", "Vocabulary", "Reading", "Listening", "Writing"};
+    private static final String[] LEVELS = {"Beginner", "Intermediate", "Advanced"};
+    private static final OrderStatus[] HISTORY_STATUSES = {OrderStatus.PAID, OrderStatus.SHIPPED, OrderStatus.DONE};
+
+    /**
+     * 產生的資料中驅動端需要的部分：書籍 ID 與會員 / 管理員的 JWT
+     */
+    record Dataset(List<Long> bookIds, List<String> userTokens, String adminToken) {
+    }
+
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final ReviewRepository reviewRepository;
+    private final CatalogReadModel catalogReadModel;
+    private final RatingSummaryService ratingSummaryService;
+    private final JwtService jwtService;
+    private final LoadTestOptions options;
+    private final Random random;
+
+    SyntheticDataGenerator(ApplicationContext context, LoadTestOptions options) {
+        this.bookRepository = context.getBean(BookRepository.class);
+        this.userRepository = context.getBean(UserRepository.class);
+        this.orderRepository = context.getBean(OrderRepository.class);
+        this.reviewRepository = context.getBean(ReviewRepository.class);
+        this.catalogReadModel = context.getBean(CatalogReadModel.class);
+        this.ratingSummaryService = context.getBean(RatingSummaryService.class);
+        this.jwtService = context.getBean(JwtService.class);
+        this.options = options;
+        this.random = new Random(options.seed());
+    }
+
+    Dataset generate() {
+        List<Book> books = books();
+        List<User> users = users();
+        orders(users, books);
+        reviews(users, books);
+        // 書籍與評論直接寫入資料庫，沒有經過 Service 發出異動事件，需手動回填評分彙總並重建前台快照
+        ratingSummaryService.backfillMissing();
+        catalogReadModel.rebuild();
+
+        User admin = new User();
+        admin.setUsername("loadtest-admin");
+        admin.setEmail("loadtest-admin@load.test");
+        admin.setPassword("x");
+        admin.setRole(Role.ADMIN);
+        admin = userRepository.save(admin);
+
+        return new Dataset(
+                books.stream().map(Book::getBookId).toList(),
+                users.stream().map(jwtService::generateToken).toList(),
+                jwtService.generateToken(admin));
+    }
+
+    // 書名如 "Japanese Grammar for Beginner Vol. 12"，搜尋關鍵字取自同一組字彙
+    private List<Book> books() {
+        List<Book> books = new ArrayList<>();
+        int index = 0;
+        for (Language lang : Language.values()) {
+            String language = lang.name().charAt(0) + lang.name().substring(1).toLowerCase();
+            for (int i = 0; i < options.booksPerLanguage(); i++, index++) {
+                Book book = new Book();
+                book.setTitle(language + " " + TOPICS[i % TOPICS.length] + " for " + LEVELS[i % LEVELS.length]
+                        + " Vol. " + (i / TOPICS.length + 1));
+                book.setAuthor("Author " + random.nextInt(500));
+                book.setIsbn(String.format("979%010d", index));
+                book.setPrice(new BigDecimal(150 + random.nextInt(60) * 10));
+                book.setStock(STOCK);
+                book.setLang(lang);
+                book.setIsOnsale(true);
+                book.setDescription(language + " learning material, " + LEVELS[i % LEVELS.length].toLowerCase()
+                        + " level, focused on " + TOPICS[i % TOPICS.length].toLowerCase() + ".");
+                books.add(book);
+            }
+        }
+        List<Book> saved = new ArrayList<>(books.size());
+        for (int from = 0; from < books.size(); from += CHUNK) {
+            saved.addAll(bookRepository.saveAll(books.subList(from, Math.min(from + CHUNK, books.size()))));
+        }
+        return saved;
+    }
+
+    private List<User> users() {
+        List<User> users = new ArrayList<>(options.users());
+        for (int i = 0; i < options.users(); i++) {
+            User user = new User();
+            user.setUsername("loadtest" + i);
+            user.setEmail("loadtest" + i + "@load.test");
+            user.setPassword("x");
+            user.setRole(Role.USER);
+            users.add(user);
+        }
+        return userRepository.saveAll(users);
+    }
+
+    // 歷史訂單的建立時間分散在過去一年，後台列表的 keyset 分頁才有實際的資料分布
+    private void orders(List<User> users, List<Book> books) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Order> chunk = new ArrayList<>(CHUNK);
+        for (User user : users) {
+            for (int o = 0; o < options.ordersPerUser(); o++) {
+                Order order = new Order();
+                order.setUser(user);
+                order.setStatus(HISTORY_STATUSES[random.nextInt(HISTORY_STATUSES.length)]);
+                order.setPaymentMethod(random.nextBoolean() ? PaymentMethod.CREDIT_CARD : PaymentMethod.CASH_ON_DELIVERY);
+                order.setRecipientName(user.getUsername());
+                order.setShippingAddress("Load Test Road " + random.nextInt(1000));
+                order.setRecipientPhone("0900" + String.format("%06d", random.nextInt(1_000_000)));
+                order.setCreatedAt(now.minusMinutes(random.nextInt(365 * 24 * 60)));
+
+                List<OrderItem> items = new ArrayList<>(options.itemsPerOrder());
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i = 0; i < options.itemsPerOrder(); i++) {
+                    Book book = books.get(random.nextInt(books.size()));
+                    int quantity = 1 + random.nextInt(3);
+                    OrderItem item = new OrderItem();
+                    item.setOrder(order);
+                    item.setBook(book);
+                    item.setPrice(book.getPrice());
+                    item.setQuantity(quantity);
+                    item.setSubtotal(book.getPrice().multiply(BigDecimal.valueOf(quantity)));
+                    total = total.add(item.getSubtotal());
+                    items.add(item);
+                }
+                order.setItems(items);
+                order.setTotalPrice(total);
+                chunk.add(order);
+                if (chunk.size() == CHUNK) {
+                    orderRepository.saveAll(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        orderRepository.saveAll(chunk);
+    }
+
+    private void reviews(List<User> users, List<Book> books) {
+        List<Review> chunk = new ArrayList<>(CHUNK);
+        for (Book book : books) {
+            for (int r = 0; r < options.reviewsPerBook(); r++) {
+                chunk.add(Review.builder()
+                        .book(book)
+                        .user(users.get(random.nextInt(users.size())))
+                        .rating(1 + random.nextInt(5))
+                        .content("Synthetic review " + r + " for " + book.getTitle())
+                        .build());
+                if (chunk.size() == CHUNK) {
+                    reviewRepository.saveAll(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        reviewRepository.saveAll(chunk);
+    }
+}
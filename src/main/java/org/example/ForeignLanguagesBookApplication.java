@@ -2,6 +2,7 @@ package org.example;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 這是 Spring Boot 應用程式的啟動類。
@@ -11,8 +12,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * 2. @ComponentScan: 預設掃描 org.example package 及其所有子 package
  * (包括 entity, controller, service, repository, security 等) 下的所有 Spring 組件 (例如 @Component, @Service, @Controller)。
  * 3. @Configuration: 標記此類為配置類。
+ *
+ * @EnableScheduling: 啟用 @Scheduled 排程 (例如書籍目錄快照的定期重建)。
  */
 @SpringBootApplication
+@EnableScheduling
 public class ForeignLanguagesBookApplication {
 
     public static void main(String[] args) {
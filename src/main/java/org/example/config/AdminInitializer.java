@@ -1,5 +1,6 @@
 package org.example.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.example.entity.User;
 import org.example.entity.Role;
 import org.example.repository.UserRepository;
@@ -8,6 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+@Slf4j
 @Configuration
 public class AdminInitializer {
 
@@ -25,7 +27,7 @@ public class AdminInitializer {
                 admin.setRole(Role.ADMIN);
                 // created_at 和 is_active 由 Entity 的 @PrePersist 自動處理
                 repo.save(admin);
-                System.out.println("✅ 管理員帳號 admin@test.com (密碼: admin123) 已自動建立。");
+                log.info("管理員帳號 {} 已自動建立", adminEmail);
             }
         };
     }
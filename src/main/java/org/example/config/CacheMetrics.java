@@ -0,0 +1,72 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.security.PrincipalCache;
+import org.example.service.CatalogReadModel;
+import org.example.service.ReviewCache;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 記憶體快取的命中統計：
+ * bookstore.cache.requests{cache, result=hit|miss} 為累計次數，命中率以
+ * rate(hit) / rate(hit + miss) 計算；bookstore.cache.hit.ratio 為啟動以來的整體命中率。
+ * bookstore.cache.evictions{cache, cause=policy|invalidated} 區分容量 / TTL 淘汰與資料異動造成的逐出。
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final CatalogReadModel catalogReadModel;
+    private final PrincipalCache principalCache;
+    private final ReviewCache reviewCache;
+
+    public CacheMetrics(CatalogReadModel catalogReadModel, PrincipalCache principalCache, ReviewCache reviewCache) {
+        this.catalogReadModel = catalogReadModel;
+        this.principalCache = principalCache;
+        this.reviewCache = reviewCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "catalog", catalogReadModel,
+                catalog -> catalog.stats().getHits(), catalog -> catalog.stats().getMisses());
+        bind(registry, "principal", principalCache,
+                PrincipalCache::hitCount, PrincipalCache::missCount);
+        Gauge.builder("bookstore.cache.size", principalCache, PrincipalCache::size)
+                .tag("cache", "principal")
+                .register(registry);
+
+        bind(registry, "reviews", reviewCache,
+                cache -> cache.stats().hitCount(), cache -> cache.stats().missCount());
+        Gauge.builder("bookstore.cache.size", reviewCache, ReviewCache::size)
+                .tag("cache", "reviews")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cache.evictions", reviewCache, cache -> cache.stats().evictionCount())
+                .tags("cache", "reviews", "cause", "policy")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cache.evictions", reviewCache, ReviewCache::invalidationCount)
+                .tags("cache", "reviews", "cause", "invalidated")
+                .register(registry);
+    }
+
+    private static <T> void bind(MeterRegistry registry, String cache, T source,
+                                 ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        FunctionCounter.builder("bookstore.cache.requests", source, hits)
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("bookstore.cache.requests", source, misses)
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+        Gauge.builder("bookstore.cache.hit.ratio", source, value -> {
+                    double hit = hits.applyAsDouble(value);
+                    double total = hit + misses.applyAsDouble(value);
+                    return total == 0 ? 0 : hit / total;
+                })
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * 為每個請求設定關聯 ID (MDC correlationId)，同一請求的所有日誌都帶有相同 ID，並以 X-Request-Id 回傳給前端。
+ * 上游 (Gateway / 前端) 已帶 X-Request-Id 時沿用。
+ * 同時依 application.logging.debug-sample-rate 抽樣，被抽中的請求即使在正式環境也會輸出
+ * org.example 的 DEBUG 日誌 (見 SampledDebugFilter)。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String CORRELATION_ID = "correlationId";
+    public static final String DEBUG_SAMPLED = "debugSampled";
+
+    // 外部傳入的 ID 會寫進日誌，限制長度與字元避免日誌注入
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Value("${application.logging.debug-sample-rate:0}")
+    private double debugSampleRate = 0;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String correlationId = request.getHeader(HEADER);
+        if (correlationId == null || !VALID_ID.matcher(correlationId).matches()) {
+            // 不使用 UUID.randomUUID()：SecureRandom 在高併發下是不必要的成本
+            correlationId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        }
+        MDC.put(CORRELATION_ID, correlationId);
+        if (debugSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < debugSampleRate) {
+            MDC.put(DEBUG_SAMPLED, "true");
+        }
+        response.setHeader(HEADER, correlationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CORRELATION_ID);
+            MDC.remove(DEBUG_SAMPLED);
+        }
+    }
+}
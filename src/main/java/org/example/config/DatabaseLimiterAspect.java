@@ -0,0 +1,92 @@
+package org.example.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.example.service.DatabaseLimiter;
+import org.example.service.DatabaseLimiter.Priority;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * 在 repository 呼叫與 @Transactional 方法外層取得 DatabaseLimiter 的名額。
+ * 排在交易攔截器之前 (先取名額才向連線池要連線)；同一執行緒內巢狀的呼叫共用最外層的名額，
+ * 整個交易只佔一個名額。
+ * 優先順序依目前的 HTTP 請求判斷：結帳為 CHECKOUT，訂單匯出為 EXPORT，其餘為 BROWSE；
+ * 沒有 HTTP 請求的執行緒 (啟動、排程) 數量固定，不受限制。
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatabaseLimiterAspect {
+
+    private static final ThreadLocal<DatabaseLimiter.Permit> CURRENT = new ThreadLocal<>();
+
+    private final DatabaseLimiter limiter;
+
+    public DatabaseLimiterAspect(DatabaseLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Around("within(org.example..*) && (@within(org.springframework.transaction.annotation.Transactional)"
+            + " || @annotation(org.springframework.transaction.annotation.Transactional))"
+            + " || this(org.springframework.data.repository.Repository)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (CURRENT.get() != null) {
+            return joinPoint.proceed();
+        }
+        Priority priority = currentPriority();
+        if (priority == null) {
+            return joinPoint.proceed();
+        }
+        DatabaseLimiter.Permit permit = limiter.acquire(priority);
+        CURRENT.set(permit);
+        boolean overloaded = false;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            overloaded = isOverload(e);
+            throw e;
+        } finally {
+            CURRENT.remove();
+            permit.release(overloaded);
+        }
+    }
+
+    static Priority priorityOf(String method, String uri) {
+        if ("POST".equals(method) && uri.endsWith("/orders/checkout")) {
+            return Priority.CHECKOUT;
+        }
+        if (uri.startsWith("/api/admin/") && uri.endsWith("/export")) {
+            return Priority.EXPORT;
+        }
+        return Priority.BROWSE;
+    }
+
+    private static Priority currentPriority() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servlet)) {
+            return null;
+        }
+        HttpServletRequest request = servlet.getRequest();
+        return priorityOf(request.getMethod(), request.getRequestURI());
+    }
+
+    // 取不到連線 (Hikari connection-timeout) 或查詢逾時視為資料庫過載
+    private static boolean isOverload(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.config;
 
+import org.example.exception.DatabaseOverloadedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -29,10 +31,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
 
+    // 資料庫並行上限已滿 (DatabaseLimiter)：503，請前端稍後重試
+    @ExceptionHandler(DatabaseOverloadedException.class)
+    public ResponseEntity<Map<String, String>> handleDatabaseOverloaded(DatabaseOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", ex.getMessage()));
+    }
+
     // 攔截 OrderService.checkout 內部拋出的 RuntimeException (例如庫存不足、購物車為空)
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeExceptions(RuntimeException ex) {
         // 返回 400 和錯誤訊息
-        return new ResponseEntity<>(Map.of("message", ex.getMessage()), HttpStatus.BAD_REQUEST);
+        // 沒有訊息的例外 (例如 NullPointerException) 不能放進 Map.of，改回傳例外類別名稱
+        String message = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+        return new ResponseEntity<>(Map.of("message", message), HttpStatus.BAD_REQUEST);
     }
 }
@@ -0,0 +1,59 @@
+package org.example.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * 訂單與訂單明細由 IDENTITY 改為 pooled 序列後，既有資料庫中新建立的序列會從 1 開始，
+ * 與舊資料的主鍵衝突。啟動時 (Web 伺服器開始接受請求之前) 把序列推進到現有最大 ID 之後；
+ * 序列已經超前時不做任何事，多台實例同時啟動也不會把序列往回調。
+ */
+@Component
+public class IdSequenceInitializer {
+
+    // 序列名稱 -> (資料表, 主鍵欄位)，需與 Entity 上的 @SequenceGenerator 一致
+    private static final Map<String, String[]> SEQUENCES = Map.of(
+            "orders_seq", new String[]{"orders", "order_id"},
+            "order_items_seq", new String[]{"order_items", "order_item_id"}
+    );
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    // 注入 EntityManagerFactory 只為確保 ddl-auto 已建立好序列與資料表
+    public IdSequenceInitializer(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void alignSequences() throws SQLException {
+        // 測試用的 H2 每次都是 create-drop 的空資料庫，只有 PostgreSQL 需要對齊
+        if (!isPostgres()) {
+            return;
+        }
+        SEQUENCES.forEach((sequence, target) -> {
+            String table = target[0];
+            String column = target[1];
+            // pooled 配號：setval(max) 後下一次 nextval 取得 max + 50，Hibernate 使用 (max, max + 50] 區段
+            jdbcTemplate.queryForList(
+                    "SELECT setval('" + sequence + "', m.max_id) FROM "
+                            + "(SELECT MAX(" + column + ") AS max_id FROM " + table + ") m "
+                            + "WHERE m.max_id > (SELECT last_value FROM " + sequence + ")");
+        });
+    }
+
+    private boolean isPostgres() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package org.example.config;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.security.AuthenticatedUser;
+import org.example.security.PrincipalCache;
 import org.example.service.JwtService;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -21,12 +23,13 @@ import java.io.IOException;
 /**
  * JWT 驗證過濾器：在每個請求進入之前檢查 JWT 憑證
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     // 🚨 新增：定義公開路徑白名單 (必須是完整的 API 路徑前綴)
     private static final String AUTH_PATH_PREFIX = "/api/auth";
@@ -68,12 +71,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
 
-        // 2. 提取用戶 Email (可能因 Token 無效而拋出異常)
+        // 2. 驗證簽章與有效期限並取出 Claims (整個請求只解析這一次；無效或過期會拋出異常)
+        Claims claims = null;
         try {
-            userEmail = jwtService.extractUsername(jwt);
+            claims = jwtService.parseToken(jwt);
+            userEmail = claims.getSubject();
         } catch (Exception e) {
-            // 🚨 Token 無效或無法提取，打印除錯資訊後，Token 無效，但我們繼續讓請求進入 Filter Chain
-            System.out.println("DEBUG JWT EXCEPTION: Token extraction failed: " + e.getMessage());
+            // 🚨 Token 無效或無法提取，記錄除錯資訊後，Token 無效，但我們繼續讓請求進入 Filter Chain
+            log.debug("JWT 解析失敗: {}", e.getMessage());
 
             // 這裡不再調用 filterChain.doFilter(request, response);
             // 讓程式碼繼續執行到方法末尾，或讓 Spring Security 處理未認證的請求
@@ -82,17 +87,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 3. 檢查用戶 Email 是否有效，且當前 Spring Security 上下文中尚未認證
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = null;
-            try {
-                userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            } catch (UsernameNotFoundException e) {
-                System.out.println("DEBUG JWT: User not found: " + userEmail);
-                // 如果用戶在數據庫中不存在，則不會設置 context
+            // 無狀態模式直接由 Claims 授權；否則 (或舊版 Token) 查登入者快取，未命中才向資料庫載入
+            AuthenticatedUser userDetails = jwtService.statelessPrincipal(claims);
+            if (userDetails == null) {
+                try {
+                    userDetails = principalCache.load(userEmail);
+                } catch (UsernameNotFoundException e) {
+                    log.debug("JWT 帳號不存在: {}", userEmail);
+                    // 如果用戶在數據庫中不存在，則不會設置 context
+                }
             }
 
-            // 4. 驗證 Token 是否有效
-            if (userDetails != null && jwtService.isTokenValid(jwt, userDetails)) {
-                // 設置認證通過的 Token
+            // 4. 簽章與期限已在解析時驗證，這裡只需確認帳號仍為啟用狀態
+            if (userDetails != null && userDetails.isEnabled()) {
+                // 設置認證通過的 Token；principal 帶有 userId，Controller 不必再查詢資料庫
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -100,28 +108,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                System.out.println("DEBUG: User authenticated and setting context for: " + userDetails.getUsername());
-
                 SecurityContextHolder.getContext().setAuthentication(authToken);
-                // JwtAuthenticationFilter.java (在設置完 SecurityContextHolder 後)
-
-// ...
-                System.out.println("DEBUG: User authenticated and setting context for: " + userDetails.getUsername());
-
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                // =========================================================
-                // 🎯 最終偵錯程式碼：打印設置到 Context 中的實際權限
-                System.out.println("=================================================");
-                System.out.println("!!! FINAL CHECK Authorities in Context: " +
-                        SecurityContextHolder.getContext().getAuthentication().getAuthorities());
-                System.out.println("=================================================");
-                // =========================================================
+                log.debug("JWT 驗證通過: {} {}", userDetails.getUsername(), userDetails.getAuthorities());
             }  else if (userDetails != null) {
-                boolean isExpired = jwtService.isTokenExpired(jwt); // 假設您在 JwtService 中公開了這個方法
-                System.out.println("DEBUG: Token validation failed for user: " + userDetails.getUsername() +
-                        ". Expired: " + isExpired +
-                        ". Username match: " + userDetails.getUsername().equals(jwtService.extractUsername(jwt)));
+                log.debug("帳號已停用，略過驗證: {}", userDetails.getUsername());
             }
         }
 
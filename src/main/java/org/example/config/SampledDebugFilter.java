@@ -0,0 +1,30 @@
+package org.example.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Logback TurboFilter (於 logback-spring.xml 註冊)：正式環境 org.example 的日誌等級為 INFO，
+ * 但被 CorrelationIdFilter 抽樣到的請求放行 DEBUG 事件，不必全面開啟 DEBUG 就能觀察實際流量。
+ * 其餘情況一律 NEUTRAL，交回一般的等級判斷。
+ */
+public class SampledDebugFilter extends TurboFilter {
+
+    private static final String APPLICATION_PACKAGE = "org.example";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        // 先做最便宜的判斷：INFO 以上、或該 logger 本來就開著 DEBUG，都不需要介入
+        if (level == null || level.levelInt != Level.DEBUG_INT
+                || logger.getEffectiveLevel().levelInt <= Level.DEBUG_INT
+                || !logger.getName().startsWith(APPLICATION_PACKAGE)) {
+            return FilterReply.NEUTRAL;
+        }
+        return "true".equals(MDC.get(CorrelationIdFilter.DEBUG_SAMPLED)) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+}
@@ -52,6 +52,8 @@ public class SecurityConfig {
                         // 2. 公開路徑
                         .requestMatchers("/api/public/**").permitAll() // 涵蓋 /api/public/books/**
                         .requestMatchers("/api/auth/**").permitAll()
+                        // 監控：健康檢查與 Prometheus 抓取 (正式環境請以 management.server.port 隔離到內網)
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
 
                         // 3. ADMIN 權限路徑
                         .requestMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN")
@@ -97,7 +99,11 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
 
         // 🚨 修正 3: 允許的 Header
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With",
+                "Idempotency-Key"));
+
+        // 讓前端 JS 可以讀取分頁相關的自訂 Header，以及結帳受理後的進度查詢網址 (Location)
+        configuration.setExposedHeaders(List.of("X-Total-Count", "X-Next-Cursor", "Location"));
 
         // 🚨 修正 4: 很重要！你原本的 code 最後一行又把 AllowCredentials 設為 false，會蓋掉前面的設定
         // 如果前端 Axios 有設定 withCredentials: true，這裡就必須是 true
@@ -0,0 +1,90 @@
+package org.example.controller;
+
+import org.example.dto.AnalyticsRebuildStatusDTO;
+import org.example.dto.SalesRollupDTO;
+import org.example.dto.TopBookDTO;
+import org.example.entity.SalesRollup.Dimension;
+import org.example.service.SalesAnalyticsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 後台銷售分析：讀取伺服器端增量維護的彙總，不必再下載所有訂單在瀏覽器計算
+ */
+@RestController
+@RequestMapping("/api/admin/analytics") // 僅限 ADMIN 訪問
+public class AdminAnalyticsController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final SalesAnalyticsService salesAnalyticsService;
+
+    public AdminAnalyticsController(SalesAnalyticsService salesAnalyticsService) {
+        this.salesAnalyticsService = salesAnalyticsService;
+    }
+
+    // 1. 每日營收與銷售數量
+    // GET /api/admin/analytics/daily?from=2026-01-01&to=2026-01-31 (預設最近 30 天)
+    @GetMapping("/daily")
+    public ResponseEntity<List<SalesRollupDTO>> getDaily(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        return ResponseEntity.ok(salesAnalyticsService.getDaily(start, end));
+    }
+
+    // 2. 依書籍語言
+    // GET /api/admin/analytics/languages
+    @GetMapping("/languages")
+    public ResponseEntity<List<SalesRollupDTO>> getByLanguage() {
+        return ResponseEntity.ok(salesAnalyticsService.getByDimension(Dimension.LANGUAGE));
+    }
+
+    // 3. 依付款方式
+    // GET /api/admin/analytics/payment-methods
+    @GetMapping("/payment-methods")
+    public ResponseEntity<List<SalesRollupDTO>> getByPaymentMethod() {
+        return ResponseEntity.ok(salesAnalyticsService.getByDimension(Dimension.PAYMENT_METHOD));
+    }
+
+    // 4. 依訂單狀態 (含已取消訂單)
+    // GET /api/admin/analytics/statuses
+    @GetMapping("/statuses")
+    public ResponseEntity<List<SalesRollupDTO>> getByStatus() {
+        return ResponseEntity.ok(salesAnalyticsService.getByDimension(Dimension.STATUS));
+    }
+
+    // 5. 暢銷排行
+    // GET /api/admin/analytics/top-books?limit=10&by=units (by = units 或 revenue)
+    @GetMapping("/top-books")
+    public ResponseEntity<List<TopBookDTO>> getTopBooks(@RequestParam(defaultValue = "10") int limit,
+                                                        @RequestParam(defaultValue = "units") String by) {
+        boolean byRevenue = switch (by.trim().toLowerCase()) {
+            case "units" -> false;
+            case "revenue" -> true;
+            default -> throw new IllegalArgumentException("不支援的排序方式: " + by);
+        };
+        return ResponseEntity.ok(salesAnalyticsService.getTopBooks(limit, byRevenue));
+    }
+
+    // 6. 依歷史訂單重建彙總 (背景執行，進度以 GET 查詢)
+    // POST /api/admin/analytics/rebuild
+    @PostMapping("/rebuild")
+    public ResponseEntity<AnalyticsRebuildStatusDTO> rebuild() {
+        boolean started = salesAnalyticsService.startRebuild();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(salesAnalyticsService.getRebuildStatus());
+    }
+
+    // GET /api/admin/analytics/rebuild
+    @GetMapping("/rebuild")
+    public ResponseEntity<AnalyticsRebuildStatusDTO> getRebuildStatus() {
+        return ResponseEntity.ok(salesAnalyticsService.getRebuildStatus());
+    }
+}
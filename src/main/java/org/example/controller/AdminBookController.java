@@ -1,12 +1,22 @@
 package org.example.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.dto.BookImportReportDTO;
+import org.example.dto.BookPatchRequest;
 import org.example.dto.BookRequest;
+import org.example.dto.CatalogStatsDTO;
+import org.example.dto.CursorPage;
+import org.example.dto.InventoryStatusDTO;
 import org.example.entity.Book;
+import org.example.service.BookImportService;
 import org.example.service.BookService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -15,17 +25,20 @@ import java.util.List;
 public class AdminBookController {
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
 
-    public AdminBookController(BookService bookService) {
+    public AdminBookController(BookService bookService, BookImportService bookImportService) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
     }
 
     // 1. 書籍列表瀏覽 (Read All)
-    // GET /api/admin/books
+    // GET /api/admin/books?cursor={cursor}&size=50
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<Book>> getAllBooks(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size) {
+        CursorPage<Book> books = bookService.getAllBooks(cursor, size);
+        return PageResponses.ok(books);
     }
 
     // 2. 新增書籍 (Create)
@@ -67,4 +80,88 @@ public class AdminBookController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    // 4-1. 批次修改價格 / 庫存增減量 / 上架狀態 (只更新有填的欄位，回傳每本書的結果)
+    // PATCH /api/admin/books  [{"bookId":1,"price":320},{"bookId":2,"stockDelta":50,"isOnsale":true}]
+    @PatchMapping
+    public ResponseEntity<?> patchBooks(@RequestBody List<BookPatchRequest> patches) {
+        try {
+            return ResponseEntity.ok(bookService.patchBooks(patches));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 5. 前台書籍快照統計 (命中/未命中/重建耗時)
+    // GET /api/admin/books/catalog/stats
+    @GetMapping("/catalog/stats")
+    public ResponseEntity<CatalogStatsDTO> getCatalogStats() {
+        return ResponseEntity.ok(bookService.getCatalogStats());
+    }
+
+    // 6. 熱門書籍分桶庫存 (限時搶購時分散同一本書的庫存鎖)
+    // GET    /api/admin/books/{id}/inventory
+    // PUT    /api/admin/books/{id}/inventory/buckets?count=8   開啟或重新設定分桶數
+    // DELETE /api/admin/books/{id}/inventory/buckets           關閉分桶，庫存併回書籍
+    @GetMapping("/{id}/inventory")
+    public ResponseEntity<?> getInventoryStatus(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(bookService.getInventoryStatus(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}/inventory/buckets")
+    public ResponseEntity<?> enableStockBuckets(@PathVariable Long id, @RequestParam int count) {
+        try {
+            InventoryStatusDTO status = bookService.enableStockBuckets(id, count);
+            return ResponseEntity.ok(status);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}/inventory/buckets")
+    public ResponseEntity<?> disableStockBuckets(@PathVariable Long id) {
+        try {
+            InventoryStatusDTO status = bookService.disableStockBuckets(id);
+            return ResponseEntity.ok(status);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 7. 批次匯入書籍 (請求本體即為檔案內容，Content-Type 為 text/csv 或 application/x-ndjson)
+    // POST /api/admin/books/import?format=csv|ndjson&mode=insert|upsert
+    // GET  /api/admin/books/import              最近的匯入 (匯入進行中可輪詢進度)
+    // GET  /api/admin/books/import/{importId}   單次匯入的結果與錯誤明細
+    @PostMapping("/import")
+    public ResponseEntity<?> importBooks(@RequestParam(defaultValue = "csv") String format,
+                                         @RequestParam(defaultValue = "insert") String mode,
+                                         HttpServletRequest request) {
+        try {
+            // 直接讀取請求串流，不經過 multipart 暫存整個檔案
+            BookImportReportDTO report = bookImportService.importBooks(request.getInputStream(),
+                    BookImportService.Format.of(format), BookImportService.Mode.of(mode));
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            // 檔案格式錯誤 (缺少標題列、引號未結束) 或格式 / 模式參數不正確
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/import")
+    public ResponseEntity<List<BookImportReportDTO>> getRecentImports() {
+        return ResponseEntity.ok(bookImportService.getRecentImports());
+    }
+
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<BookImportReportDTO> getImport(@PathVariable String importId) {
+        return bookImportService.getImport(importId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
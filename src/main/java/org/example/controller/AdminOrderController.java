@@ -1,18 +1,25 @@
 package org.example.controller;
 
+import org.example.dto.CursorPage;
 import org.example.dto.OrderDetailDTO;
 import org.example.dto.OrderListDTO;
 import org.example.entity.Order;
 import org.example.repository.UserRepository;
+import org.example.service.OrderExportService;
 import org.example.service.OrderService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
-import java.util.Collection;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 
@@ -21,28 +28,26 @@ import java.util.Map;
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
     private UserRepository userRepository;
-    public AdminOrderController(OrderService orderService) {
+
+    // 匯出串流的逾時時間，只套用在匯出請求上 (其他非同步請求沿用預設逾時)
+    @Value("${application.export.timeout-ms:1800000}")
+    private long exportTimeoutMs = 1800000;
+
+    public AdminOrderController(OrderService orderService, OrderExportService orderExportService) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
     }
 
     // 1. 訂單清單瀏覽 (Read All)
-    // GET /api/admin/orders
+    // GET /api/admin/orders?cursor={cursor}&size=50
+    // 由新到舊，下一頁游標放在 X-Next-Cursor header
     @GetMapping
-    public ResponseEntity<List<OrderListDTO>> getAllOrders() {
-        // =========================================================
-        // 🎯 偵錯程式碼：請將此段加入並重新啟動伺服器
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-
-        // 這行會將結果打印在伺服器控制台/日誌中
-        System.out.println("=================================================");
-        System.out.println("!!! DEBUG authorities for admin@test.com: " + authorities);
-        System.out.println("=================================================");
-        // =========================================================
-
-        List<OrderListDTO> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<OrderListDTO>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        CursorPage<OrderListDTO> orders = orderService.getAllOrders(cursor, size);
+        return PageResponses.ok(orders);
     }
 
     // 2. 訂單狀態更新
@@ -81,4 +86,27 @@ public class AdminOrderController {
 
         return ResponseEntity.ok(detailDTO);
     }
+
+    // 4. 訂單匯出 (財務對帳)，以串流方式逐列輸出，不會把全部訂單載入記憶體
+    // GET /api/admin/orders/export?format=csv|ndjson&from=2024-01-01&to=2024-01-31&status=PAID
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            HttpServletRequest request) {
+        // 參數在開始串流前驗證，錯誤時仍能回傳 400
+        OrderExportService.Format exportFormat = OrderExportService.Format.of(format);
+        OrderExportService.Filter filter = OrderExportService.Filter.of(from, to, status, ZoneId.systemDefault());
+
+        StreamingResponseBody body = out -> orderExportService.export(filter, exportFormat, out);
+        // 大量匯出可能需要數分鐘：只延長這個請求的非同步逾時，串流開始時才會套用
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeoutMs);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + exportFormat.extension() + "\"")
+                .body(body);
+    }
 }
@@ -1,6 +1,7 @@
 package org.example.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.dto.CursorPage;
 import org.example.dto.UserResponse; // 剛才建立的 DTO
 import org.example.service.UserService;
 import org.springframework.http.ResponseEntity;
@@ -17,14 +18,17 @@ public class AdminUserController {
     private final UserService userService;
 
     /**
-     * 1. 獲取所有會員列表 (後台管理用)
-     * GET /api/admin/users
+     * 1. 獲取會員列表 (後台管理用，Keyset 分頁)
+     * GET /api/admin/users?cursor={cursor}&size=50
+     * 下一頁游標放在 X-Next-Cursor header
      */
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
+    public ResponseEntity<List<UserResponse>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer size) {
         // 這裡可以參考你 AdminOrderController 的 Debug 模式，
         // 確認目前的身份是否有 ROLE_ADMIN
-        return ResponseEntity.ok(userService.getAllUsers());
+        CursorPage<UserResponse> users = userService.getAllUsers(cursor, size);
+        return PageResponses.ok(users);
     }
 
     /**
@@ -1,10 +1,17 @@
 package org.example.controller;
 
-import org.example.entity.Book;
+import org.example.dto.BookDetail;
+import org.example.dto.BookSummary;
 import org.example.service.BookService;
+import org.example.service.CatalogPages;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/public/books")
@@ -16,26 +23,91 @@ public class BookController {
         this.bookService = bookService;
     }
 
-    // GET /api/public/books/lang/{lang}
+    // GET /api/public/books/lang/{lang}?cursor={cursor}&size=20
+    // 回傳精簡的 BookSummary 陣列 (不含描述)，直接輸出預先序列化的 JSON；
+    // 前端支援 gzip 時一律回傳 gzip (預設每頁筆數的頁已預先壓縮，其餘即時壓縮)
+    // 下一頁游標放在 X-Next-Cursor header；ETag 為目錄快照版本，If-None-Match 相同時回 304
     @GetMapping("/lang/{lang}")
-    public ResponseEntity<List<Book>> getBooksByLang(@PathVariable String lang) {
-        List<Book> books = bookService.getOnsaleBooksByLang(lang);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<byte[]> getBooksByLang(@PathVariable String lang,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                 String acceptEncoding,
+                                                 WebRequest request) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // 壓縮與未壓縮是不同的表示法，ETag 也要不同；ETag 標示 gzip 時回應一定是 gzip
+        String etag = ConditionalResponses.etag(gzip ? "catalog-gzip" : "catalog", bookService.getCatalogVersion());
+        return ConditionalResponses.ifNoneMatch(request, etag, HttpHeaders.ACCEPT_ENCODING, () -> {
+            CatalogPages.Page page = bookService.getOnsaleBookSummariesByLang(lang, cursor, size);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+            if (page.nextCursor() != null) {
+                builder.header(PageResponses.NEXT_CURSOR_HEADER, page.nextCursor());
+            }
+            if (gzip) {
+                return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(page.gzipped());
+            }
+            return builder.body(page.json());
+        });
     }
 
-    // GET /api/public/books/search?keyword={keyword}
+    // GET /api/public/books/search?keyword={keyword}&page=0&size=20
+    // 結果依相關度排序 (精簡的 BookSummary)，總筆數放在 X-Total-Count header
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam String keyword) {
-        List<Book> books = bookService.searchOnsaleBooks(keyword);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookSummary>> searchBooks(@RequestParam String keyword,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         WebRequest request) {
+        String etag = ConditionalResponses.etag("catalog", bookService.getCatalogVersion());
+        return ConditionalResponses.ifNoneMatch(request, etag, () -> {
+            Page<BookDetail> result = bookService.searchOnsaleBooks(keyword, page, size);
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(result.getTotalElements()))
+                    .body(result.getContent().stream().map(BookSummary::from).toList());
+        });
     }
 
     // GET /api/public/books/{id}
+    // ETag 為該書最後一次變動時的快照版本，其他書籍異動不影響
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
-        return bookService.getOnsaleBookById(id)
+    public ResponseEntity<BookDetail> getBookById(@PathVariable Long id, WebRequest request) {
+        String etag = ConditionalResponses.etag("book" + id, bookService.getBookVersion(id));
+        return ConditionalResponses.ifNoneMatch(request, etag, () -> bookService.getOnsaleBookById(id)
                 // 修正：使用 Lambda 表達式避免方法引用歧義
                 .map(book -> ResponseEntity.ok(book))
-                .orElseGet(() -> ResponseEntity.notFound().build());
+                .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    // Accept-Encoding 逐項解析 (RFC 9110)：gzip / x-gzip 的 q 值大於 0 才回傳 gzip，q=0 表示明確拒絕；
+    // 沒有列出 gzip 時依 "*" 的 q 值決定
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String item : acceptEncoding.split(",")) {
+            String[] parts = item.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && Character.toLowerCase(param.charAt(0)) == 'q' && param.charAt(1) == '=') {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
     }
 }
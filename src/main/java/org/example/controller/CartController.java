@@ -1,16 +1,16 @@
 package org.example.controller;
 
+import lombok.extern.slf4j.Slf4j;
 import org.example.dto.CartItemRequest;
 import org.example.entity.CartItem;
-import org.example.entity.User;
 import org.example.repository.UserRepository;
 import org.example.service.CartService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/user/cart") // 僅限 MEMBER 或 ADMIN 訪問
 public class CartController {
@@ -25,14 +25,8 @@ public class CartController {
 
     // 輔助方法：從 Security Context 獲取當前登入者的 User ID
     private Long getCurrentUserId() {
-        // 獲取 JWT 中的 email (sub/name)
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        // 根據 email 查找 user 實體以獲取 ID
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("無法獲取登入會員資訊"));
-
-        return user.getUserId();
+        // 登入者 ID 已由 JWT 過濾器放在 principal 中，不必再查詢資料庫
+        return CurrentUser.id(userRepository);
     }
 
     // GET /api/user/cart
@@ -48,7 +42,7 @@ public class CartController {
     // 新增或更新購物車商品 (Add/Update)
     @PostMapping
     public ResponseEntity<?> addOrUpdateItem(@RequestBody CartItemRequest req) {
-        System.out.println("DEBUG: Request received for adding Book ID: " + req.getBookId());
+        log.debug("加入購物車 bookId={}", req.getBookId());
         try {
             Long userId = getCurrentUserId();
             CartItem updatedItem = cartService.addOrUpdateCartItem(userId, req);
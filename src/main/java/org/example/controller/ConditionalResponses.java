@@ -0,0 +1,62 @@
+package org.example.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 前台查詢的 HTTP 條件式請求 (ETag / If-None-Match)。
+ * ETag 由伺服器端的版本號組成，並帶上本實例啟動時產生的 ID：版本號只在單一實例內有意義，
+ * 重啟或打到其他實例時 ETag 一律不同，只會多回一次 200，不會誤回 304。
+ */
+final class ConditionalResponses {
+
+    // 瀏覽器 / CDN 可以保存，但每次使用前都要帶 If-None-Match 重新驗證
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    private static final String INSTANCE_ID = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private ConditionalResponses() {
+    }
+
+    static String etag(String kind, long version) {
+        return INSTANCE_ID + "-" + kind + "-" + version;
+    }
+
+    /**
+     * If-None-Match 命中時直接回 304，不產生回應內容 (不讀取資料、不經過 Jackson)；未命中才呼叫 response。
+     * 版本號必須在讀取資料「之前」取得：資料只可能比 ETag 新，最多讓下一次請求多回一次 200。
+     * ETag header 由 checkNotModified 寫入，回應本身只補上 Cache-Control。
+     */
+    static <T> ResponseEntity<T> ifNoneMatch(WebRequest request, String etag, Supplier<ResponseEntity<T>> response) {
+        return ifNoneMatch(request, etag, null, response);
+    }
+
+    /**
+     * 同 {@link #ifNoneMatch(WebRequest, String, Supplier)}，回應內容依 vary 指定的 request header 而不同時
+     * (例如 Accept-Encoding)，304 與 200 都帶上相同的 Vary，共用快取才會依該 header 分開保存
+     */
+    static <T> ResponseEntity<T> ifNoneMatch(WebRequest request, String etag, String vary,
+                                             Supplier<ResponseEntity<T>> response) {
+        if (request.checkNotModified(etag)) {
+            ResponseEntity.BodyBuilder notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(REVALIDATE);
+            if (vary != null) {
+                notModified.varyBy(vary);
+            }
+            return notModified.build();
+        }
+        ResponseEntity<T> full = response.get();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(full.getStatusCode())
+                .headers(full.getHeaders())
+                .cacheControl(REVALIDATE);
+        if (vary != null) {
+            builder.varyBy(vary);
+        }
+        return builder.body(full.getBody());
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.controller;
+
+import org.example.entity.User;
+import org.example.repository.UserRepository;
+import org.example.security.AuthenticatedUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 取得當前登入者 ID：JWT 過濾器放入的 AuthenticatedUser 已帶有 userId，直接使用；
+ * 其他來源的 principal (沒有 userId) 才以 email 查詢資料庫。
+ */
+final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    static Long id(UserRepository userRepository) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user && user.getUserId() != null) {
+            return user.getUserId();
+        }
+        return userRepository.findByEmail(authentication.getName())
+                .map(User::getUserId)
+                .orElseThrow(() -> new RuntimeException("無法獲取登入會員資訊"));
+    }
+}
@@ -1,55 +1,66 @@
 package org.example.controller;
 
+import lombok.extern.slf4j.Slf4j;
 import org.example.dto.CheckoutRequest;
 import org.example.dto.CheckoutResponseDTO;
+import org.example.dto.CheckoutStatusDTO;
 import org.example.dto.OrderDetailDTO;
 import org.example.dto.OrderListDTO;
-import org.example.entity.Order;
-import org.example.entity.OrderStatus;
-import org.example.entity.PaymentMethod;
-import org.example.entity.User;
+import org.example.exception.IdempotencyKeyConflictException;
 import org.example.exception.OrderNotFoundException;
-import org.example.repository.OrderRepository;
 import org.example.repository.UserRepository;
+import org.example.service.CheckoutPipeline;
 import org.example.service.OrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.security.Principal; // 引入 Principal
+@Slf4j
 @RestController
 @RequestMapping("/api/user/orders") // 僅限 MEMBER 或 ADMIN 訪問
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final OrderService orderService;
+    private final CheckoutPipeline checkoutPipeline;
     private final UserRepository userRepository;
-    private final OrderRepository orderRepository;
-    public OrderController(OrderService orderService, UserRepository userRepository, OrderRepository orderRepository) {
+    public OrderController(OrderService orderService, CheckoutPipeline checkoutPipeline,
+                           UserRepository userRepository) {
         this.orderService = orderService;
+        this.checkoutPipeline = checkoutPipeline;
         this.userRepository = userRepository;
-        this.orderRepository = orderRepository;
     }
 
     // 輔助方法：獲取當前登入者 ID
     private Long getCurrentUserId() {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("無法獲取登入會員資訊"));
-        return user.getUserId();
+        // 登入者 ID 已由 JWT 過濾器放在 principal 中，不必再查詢資料庫
+        return CurrentUser.id(userRepository);
     }
 
     // 🎯 附帶檢查：修改 getMyOrderDetail 也使用 Principal，更標準
 
     // 1. 結帳 (Create Order)
     // POST /api/user/orders/checkout
+    // 帶 Idempotency-Key header 時：受理後回傳 202 (訂單明細非同步建立，進度見 Location)，
+    // 以相同 key 重送會得到第一次的結果，不會重複扣庫存
     @PostMapping("/checkout")
-    public ResponseEntity<CheckoutResponseDTO> checkout(@Valid @RequestBody CheckoutRequest req) {
+    public ResponseEntity<CheckoutResponseDTO> checkout(
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @Valid @RequestBody CheckoutRequest req) {
         Long userId = getCurrentUserId();
 
+        if (idempotencyKey != null) {
+            CheckoutResponseDTO accepted = checkoutPipeline.submit(userId, idempotencyKey, req);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/user/orders/checkout/" + idempotencyKey))
+                    .body(accepted);
+        }
+
         // 🎯 2. 確認變數類型為 CheckoutResponseDTO
         CheckoutResponseDTO responseDTO = orderService.checkout(userId, req);
 
@@ -57,6 +68,13 @@ public class OrderController {
         return new ResponseEntity<>(responseDTO, HttpStatus.CREATED);
     }
 
+    // 1-1. 查詢帶 Idempotency-Key 結帳的處理進度
+    // GET /api/user/orders/checkout/{idempotencyKey}
+    @GetMapping("/checkout/{idempotencyKey}")
+    public ResponseEntity<CheckoutStatusDTO> getCheckoutStatus(@PathVariable String idempotencyKey) {
+        return ResponseEntity.ok(checkoutPipeline.status(getCurrentUserId(), idempotencyKey));
+    }
+
     // 2. 查詢會員所有訂單
     // GET /api/user/orders
     @GetMapping
@@ -92,23 +110,19 @@ public class OrderController {
         return Map.of("message", ex.getMessage());
     }
 
+    // 同一個 Idempotency-Key 用在內容不同的結帳：422
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public Map<String, String> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        return Map.of("message", ex.getMessage());
+    }
+
+    // 狀態變更與 outbox 事件在 OrderService 的同一個交易內寫入
     @PatchMapping("/{orderId}/complete-payment")
-    @Transactional // 🌟 務必確保有這個註解，否則 save 有可能不生效
     public ResponseEntity<?> completePayment(@PathVariable Long orderId) {
-        return orderRepository.findById(orderId).map(order -> {
-            // 1. 確保狀態變更
-            order.setStatus(OrderStatus.PAID);
-
-            // 🌟 2. 這是關鍵！強制把付款方式更新為 CREDIT_CARD
-            // 這樣明細頁抓出來的資料就會是正確的
-            order.setPaymentMethod(PaymentMethod.valueOf("CREDIT_CARD"));
-
-            orderRepository.save(order);
-
-            // 加個 Log 給自己看，確認有執行到
-            System.out.println("訂單 " + orderId + " 已更新：PAID 且 CREDIT_CARD");
-
-            return ResponseEntity.ok("付款成功");
-        }).orElse(ResponseEntity.notFound().build());
+        if (!orderService.completePayment(orderId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok("付款成功");
     }
 }
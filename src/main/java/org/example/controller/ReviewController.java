@@ -1,27 +1,50 @@
 package org.example.controller;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.CursorPage;
+import org.example.dto.RatingSummaryDTO;
 import org.example.dto.ReviewResponse;
 import org.example.entity.Review;
+import org.example.service.RatingSummaryService;
 import org.example.service.ReviewService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final RatingSummaryService ratingSummaryService;
 
+    // GET /api/public/books/{bookId}/reviews?cursor={cursor}&size=20
+    // 由新到舊，下一頁游標放在 X-Next-Cursor header；ETag 為該書評論的版本，新增評論後才改變
     @GetMapping("/public/books/{bookId}/reviews")
-    public ResponseEntity<List<ReviewResponse>> getReviews(@PathVariable Integer bookId) {
-        return ResponseEntity.ok(reviewService.getReviewsByBookId(bookId));
+    public ResponseEntity<List<ReviewResponse>> getReviews(@PathVariable Integer bookId,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size,
+                                                           WebRequest request) {
+        String etag = ConditionalResponses.etag("reviews" + bookId, reviewService.getReviewsVersion(bookId));
+        return ConditionalResponses.ifNoneMatch(request, etag, () -> {
+            CursorPage<ReviewResponse> reviews = reviewService.getReviewsByBookId(bookId, cursor, size);
+            return PageResponses.ok(reviews);
+        });
+    }
+
+    // GET /api/public/books/{bookId}/rating
+    // 評論數、平均評分與 1~5 星分布 (預先彙總，不必載入評論)
+    @GetMapping("/public/books/{bookId}/rating")
+    public ResponseEntity<RatingSummaryDTO> getRatingSummary(@PathVariable Long bookId) {
+        return ResponseEntity.ok(ratingSummaryService.getSummary(bookId));
     }
 
     @PostMapping("/user/reviews")
@@ -29,8 +52,7 @@ public class ReviewController {
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestBody Map<String, Object> payload
     ) {
-        // 🌟 在這裡加一行，去後端控制台 (IntelliJ Console) 看
-        System.out.println("收到評論請求: " + payload);
+        log.debug("收到評論請求: {}", payload);
         reviewService.addReview(
                 userDetails.getUsername(),
                 (Integer) payload.get("bookId"),
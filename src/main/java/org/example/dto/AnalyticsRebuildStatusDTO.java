@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+/**
+ * 銷售彙總重建的進度
+ */
+@Data
+@Builder
+public class AnalyticsRebuildStatusDTO {
+
+    private boolean running;
+    private long processedOrders;    // 已重新計算的訂單數
+    private OffsetDateTime startedAt;
+    private OffsetDateTime finishedAt;
+    private String error;            // 失敗時的訊息
+}
@@ -0,0 +1,33 @@
+package org.example.dto;
+
+import org.example.entity.Book;
+import org.example.entity.Language;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 前台書籍詳情：目錄快照保存的不可變書籍資料，建立後不會被任何請求修改。
+ * 欄位名稱與 Book 的 JSON 相同 (不含分桶庫存等內部欄位)，前端不需改寫。
+ */
+public record BookDetail(Long bookId,
+                         String title,
+                         String author,
+                         String isbn,
+                         BigDecimal price,
+                         Integer stock,
+                         Long ratingCount,
+                         Double ratingAverage,
+                         String description,
+                         Language lang,
+                         String imageUrl,
+                         Boolean isOnsale,
+                         LocalDate publishedDate) {
+
+    public static BookDetail from(Book book) {
+        return new BookDetail(book.getBookId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getPrice(), book.getStock(), book.getRatingCount(), book.getRatingAverage(),
+                book.getDescription(), book.getLang(), book.getImageUrl(), book.getIsOnsale(),
+                book.getPublishedDate());
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * 書籍批次匯入的進度與結果
+ */
+@Data
+@Builder
+public class BookImportReportDTO {
+
+    private String importId;
+    private String format;
+    private String mode;
+    private String status;           // RUNNING / COMPLETED / FAILED
+    private long rowsRead;           // 已讀取的資料列數
+    private long inserted;
+    private long updated;
+    private long failed;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime finishedAt;
+    private String error;            // 整批中止時的訊息
+    private List<BookImportRowError> errors;   // 列表查詢時為 null
+    private boolean errorsTruncated;  // 錯誤超過 max-errors 筆時只保留前面的明細
+}
@@ -0,0 +1,11 @@
+package org.example.dto;
+
+/**
+ * 批次匯入中未寫入的一筆資料
+ *
+ * @param row     資料列號 (CSV 不含標題列，JSON Lines 為行號)
+ * @param isbn    該筆的 ISBN，無法解析時為 null
+ * @param message 錯誤訊息 (與新增書籍 API 相同)
+ */
+public record BookImportRowError(long row, String isbn, String message) {
+}
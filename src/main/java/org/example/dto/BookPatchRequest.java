@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 後台批次修改的一本書：只更新有填的欄位
+ */
+@Data
+public class BookPatchRequest {
+
+    private Long bookId;
+    private BigDecimal price;
+    private Integer stockDelta;   // 庫存增減量 (進貨為正、盤損為負)
+    private Boolean isOnsale;
+}
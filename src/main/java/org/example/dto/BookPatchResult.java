@@ -0,0 +1,22 @@
+package org.example.dto;
+
+/**
+ * 後台批次修改中一本書的結果
+ *
+ * @param bookId  書籍 ID
+ * @param status  處理結果
+ * @param message 未更新時的原因
+ */
+public record BookPatchResult(Long bookId, Status status, String message) {
+
+    public enum Status {
+        UPDATED,
+        INVALID,
+        NOT_FOUND,
+        INSUFFICIENT_STOCK
+    }
+
+    public static BookPatchResult updated(Long bookId) {
+        return new BookPatchResult(bookId, Status.UPDATED, null);
+    }
+}
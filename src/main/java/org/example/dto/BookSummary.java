@@ -0,0 +1,37 @@
+package org.example.dto;
+
+import org.example.entity.Book;
+import org.example.entity.Language;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 前台書籍列表用的精簡書籍資料：不含 description 等只有詳情頁需要的大欄位，
+ * 欄位名稱與 Book 的 JSON 相同，前端不需改寫。
+ */
+public record BookSummary(Long bookId,
+                          String title,
+                          String author,
+                          String isbn,
+                          BigDecimal price,
+                          Integer stock,
+                          Language lang,
+                          String imageUrl,
+                          Boolean isOnsale,
+                          LocalDate publishedDate,
+                          Long ratingCount,
+                          Double ratingAverage) {
+
+    public static BookSummary from(Book book) {
+        return new BookSummary(book.getBookId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getPrice(), book.getStock(), book.getLang(), book.getImageUrl(), book.getIsOnsale(),
+                book.getPublishedDate(), book.getRatingCount(), book.getRatingAverage());
+    }
+
+    public static BookSummary from(BookDetail book) {
+        return new BookSummary(book.bookId(), book.title(), book.author(), book.isbn(), book.price(),
+                book.stock(), book.lang(), book.imageUrl(), book.isOnsale(), book.publishedDate(),
+                book.ratingCount(), book.ratingAverage());
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+/**
+ * 前台書籍讀取模型的統計資訊 (供後台監控使用)
+ */
+@Data
+@Builder
+public class CatalogStatsDTO {
+
+    private long version;          // 快照版本，每次替換 +1
+    private int bookCount;         // 快照內的上架書籍數
+    private long hits;             // 查詢命中次數
+    private long misses;           // 查詢未命中次數 (書籍不存在或已下架)
+    private long rebuildCount;     // 快照重建次數 (含增量更新)
+    private long lastRebuildMillis;   // 最近一次重建耗時
+    private long totalRebuildMillis;  // 累計重建耗時
+    private OffsetDateTime lastRebuiltAt;
+}
@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 帶 Idempotency-Key 結帳的處理狀態 (前端輪詢用)
+ */
+@Data
+@Builder
+public class CheckoutStatusDTO {
+
+    private String idempotencyKey;
+    private String status;        // ACCEPTED / COMPLETED / FAILED
+    private Long orderId;         // 受理即失敗時為 null
+    private String orderStatus;   // 訂單本身的狀態 (ACCEPTED → PENDING，失敗時 CANCELLED)
+    private String message;       // 受理時的回應訊息
+    private String failureReason; // 失敗原因
+}
@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 書籍庫存分桶狀態 (後台查詢用)
+ */
+@Data
+@Builder
+public class InventoryStatusDTO {
+
+    private Long bookId;
+    private boolean striped;         // 是否開啟分桶庫存
+    private int bucketCount;         // 子計數器數量
+    private int totalStock;          // 總庫存 (書籍列 + 所有子計數器)
+    private List<Integer> buckets;   // 各子計數器目前庫存，依桶號排序
+}
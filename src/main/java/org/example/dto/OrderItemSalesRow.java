@@ -0,0 +1,11 @@
+package org.example.dto;
+
+import org.example.entity.Language;
+
+import java.math.BigDecimal;
+
+/**
+ * 銷售彙總用的 JPQL 建構式投影：某張訂單中一本書的數量與小計 (同一本書已合併)
+ */
+public record OrderItemSalesRow(Long orderId, Long bookId, Language lang, Long quantity, BigDecimal subtotal) {
+}
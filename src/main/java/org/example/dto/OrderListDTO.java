@@ -1,12 +1,15 @@
 package org.example.dto;// src/main/java/org/example/dto/OrderListDTO.java
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.entity.OrderStatus;
+import org.example.entity.PaymentMethod;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 
 @Data
+@NoArgsConstructor
 public class OrderListDTO {
     private Long orderId;
     private String status;
@@ -15,5 +18,17 @@ public class OrderListDTO {
     // ... 根據列表頁需求添加其他基本屬性
 // 🌟 補上這個欄位
     private String paymentMethod;
-    // 構造函數, Getters, Setters...
+
+    /**
+     * 供 JPQL 建構式投影 (SELECT new ...) 使用：直接由欄位組成 DTO，不載入 Order 實體
+     */
+    public OrderListDTO(Long orderId, OrderStatus status, BigDecimal totalPrice,
+                        OffsetDateTime createdAt, PaymentMethod paymentMethod) {
+        this.orderId = orderId;
+        this.status = status != null ? status.name() : null;
+        this.totalPrice = totalPrice;
+        this.createdAt = createdAt;
+        // 🌟 加上這個防護：如果付款方式是空，就給一個預設值，避免 500 錯誤
+        this.paymentMethod = paymentMethod != null ? paymentMethod.name() : "UNKNOWN";
+    }
 }
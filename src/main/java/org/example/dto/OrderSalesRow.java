@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import org.example.entity.OrderStatus;
+import org.example.entity.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * 銷售彙總用的 JPQL 建構式投影：訂單主檔
+ */
+public record OrderSalesRow(Long orderId, OrderStatus status, PaymentMethod paymentMethod, BigDecimal totalPrice,
+                            OffsetDateTime createdAt) {
+}
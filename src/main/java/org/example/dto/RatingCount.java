@@ -0,0 +1,7 @@
+package org.example.dto;
+
+/**
+ * 評分對帳用的 JPQL 建構式投影：某本書某個星等的評論數
+ */
+public record RatingCount(Long bookId, Integer rating, Long total) {
+}
@@ -0,0 +1,35 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import org.example.entity.BookRatingSummary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Builder
+public class RatingSummaryDTO {
+
+    private Long bookId;
+    private long reviewCount;
+    private Double average;               // 平均評分 (小數兩位)，沒有評論時為 null
+    private Map<Integer, Long> histogram; // 星等 (1~5) -> 評論數
+
+    public static RatingSummaryDTO from(BookRatingSummary summary) {
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        histogram.put(1, summary.getStars1());
+        histogram.put(2, summary.getStars2());
+        histogram.put(3, summary.getStars3());
+        histogram.put(4, summary.getStars4());
+        histogram.put(5, summary.getStars5());
+        Double average = summary.getReviewCount() == 0 ? null
+                : Math.round(summary.getRatingSum() * 100.0 / summary.getReviewCount()) / 100.0;
+        return RatingSummaryDTO.builder()
+                .bookId(summary.getBookId())
+                .reviewCount(summary.getReviewCount())
+                .average(average)
+                .histogram(histogram)
+                .build();
+    }
+}
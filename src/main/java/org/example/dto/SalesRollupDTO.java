@@ -0,0 +1,29 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import org.example.entity.SalesRollup;
+
+import java.math.BigDecimal;
+
+/**
+ * 單一維度值的銷售彙總 (每日、語言、付款方式、訂單狀態)
+ */
+@Data
+@Builder
+public class SalesRollupDTO {
+
+    private String key;          // 維度值，例如 2026-01-31、ENGLISH、CREDIT_CARD、PAID
+    private long orders;         // 訂單數
+    private long units;          // 銷售數量
+    private BigDecimal revenue;  // 營收
+
+    public static SalesRollupDTO from(SalesRollup rollup) {
+        return SalesRollupDTO.builder()
+                .key(rollup.getDimKey())
+                .orders(rollup.getOrderCount())
+                .units(rollup.getUnits())
+                .revenue(rollup.getRevenue())
+                .build();
+    }
+}
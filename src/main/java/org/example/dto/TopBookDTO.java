@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 暢銷排行中的一本書 (不含已取消訂單)
+ */
+@Data
+@Builder
+public class TopBookDTO {
+
+    private int rank;
+    private Long bookId;
+    private String title;        // 書籍已刪除時為 null
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+}
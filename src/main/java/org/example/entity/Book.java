@@ -1,5 +1,6 @@
 package org.example.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -29,7 +30,27 @@ public class Book {
     @Column(precision = 10, scale = 2)
     private BigDecimal price;
 
-    private Integer stock; // 庫存量
+    private Integer stock; // 庫存量 (分桶模式下為 0，實際庫存在 book_stock_buckets)
+
+    // 熱門書籍分桶庫存：null 或 0 代表關閉，N 代表庫存拆成 N 個子計數器 (見 InventoryService)
+    // 內部欄位不輸出到 JSON，後台查看分桶狀態請用庫存狀態 API (InventoryStatusDTO)
+    @Column(name = "stock_buckets")
+    @JsonIgnore
+    private Integer stockBuckets;
+
+    // 分桶模式下各子計數器的加總，不是資料表欄位：
+    // 只在需要總庫存的讀取路徑由 BookRepository 查出 (findOnsaleWithTotals、loadBucketStock 等)
+    @Transient
+    @JsonIgnore
+    private Integer bucketStock;
+
+    // 評分彙總 (book_rating_summaries)，同樣不是資料表欄位，
+    // 前台快照與後台列表讀取書籍時以 LEFT JOIN 一併帶出，其他路徑 (結帳、購物車) 不會查詢
+    @Transient
+    private Long ratingCount;
+
+    @Transient
+    private Double ratingAverage;
 
     @Column(columnDefinition = "TEXT")
     private String description;
@@ -48,4 +69,28 @@ public class Book {
 
     @Column(name = "published_date")
     private LocalDate publishedDate;
+
+    @JsonIgnore
+    public boolean isStockStriped() {
+        return stockBuckets != null && stockBuckets > 0;
+    }
+
+    /**
+     * books 資料列上的庫存欄位本身 (不含子計數器)，供庫存服務搬移庫存時使用
+     */
+    @JsonIgnore
+    public Integer getBaseStock() {
+        return stock;
+    }
+
+    /**
+     * 對外一律回傳總庫存：分桶模式下 = 書籍列上的庫存 + 所有子計數器
+     * (子計數器加總需先由 BookRepository 帶入，否則只有書籍列上的庫存)
+     */
+    public Integer getStock() {
+        if (isStockStriped() && bucketStock != null) {
+            return (stock == null ? 0 : stock) + bucketStock;
+        }
+        return stock;
+    }
 }
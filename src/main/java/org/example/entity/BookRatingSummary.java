@@ -0,0 +1,84 @@
+package org.example.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 每本書的評分彙總 (評論數、評分總和、1~5 星分布)。
+ * 新增評論時由 RatingSummaryService 增量更新，另有定期對帳依 reviews 重新計算；
+ * 與 books 分開存放，評論寫入不必去搶結帳扣庫存時的 books 列鎖。
+ */
+@Entity
+@Table(name = "book_rating_summaries")
+@Data
+@NoArgsConstructor
+public class BookRatingSummary {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "stars_1", nullable = false)
+    private long stars1;
+
+    @Column(name = "stars_2", nullable = false)
+    private long stars2;
+
+    @Column(name = "stars_3", nullable = false)
+    private long stars3;
+
+    @Column(name = "stars_4", nullable = false)
+    private long stars4;
+
+    @Column(name = "stars_5", nullable = false)
+    private long stars5;
+
+    public BookRatingSummary(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    /**
+     * 在記憶體中累加某個星等的評論數 (對帳重新計算時使用)
+     */
+    public void add(int rating, long count) {
+        reviewCount += count;
+        ratingSum += rating * count;
+        switch (rating) {
+            case 1 -> stars1 += count;
+            case 2 -> stars2 += count;
+            case 3 -> stars3 += count;
+            case 4 -> stars4 += count;
+            case 5 -> stars5 += count;
+            default -> throw new IllegalArgumentException("評分必須在 1 到 5 之間");
+        }
+    }
+
+    /**
+     * 以另一份彙總覆寫計數，回傳是否有差異
+     */
+    public boolean copyCountsFrom(BookRatingSummary other) {
+        if (reviewCount == other.reviewCount && ratingSum == other.ratingSum
+                && stars1 == other.stars1 && stars2 == other.stars2 && stars3 == other.stars3
+                && stars4 == other.stars4 && stars5 == other.stars5) {
+            return false;
+        }
+        reviewCount = other.reviewCount;
+        ratingSum = other.ratingSum;
+        stars1 = other.stars1;
+        stars2 = other.stars2;
+        stars3 = other.stars3;
+        stars4 = other.stars4;
+        stars5 = other.stars5;
+        return true;
+    }
+}
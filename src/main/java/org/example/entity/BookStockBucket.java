@@ -0,0 +1,36 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 熱門書籍的庫存子計數器。
+ * 開啟分桶後，一本書的庫存拆成多列，並發結帳各自扣不同列，不再全部排隊等同一列 books 的鎖。
+ */
+@Entity
+@Table(name = "book_stock_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_book_stock_bucket", columnNames = {"book_id", "bucket_no"}))
+@Data
+@NoArgsConstructor
+public class BookStockBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long bucketId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "bucket_no", nullable = false)
+    private Integer bucketNo;
+
+    @Column(nullable = false)
+    private Integer stock;
+
+    public BookStockBucket(Long bookId, Integer bucketNo, Integer stock) {
+        this.bookId = bookId;
+        this.bucketNo = bucketNo;
+        this.stock = stock;
+    }
+}
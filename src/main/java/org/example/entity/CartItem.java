@@ -1,5 +1,6 @@
 package org.example.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -19,6 +20,7 @@ public class CartItem {
     // 外鍵：連結 users.user_id
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore // 購物車一定屬於目前登入者，不輸出會員資料
     private User user;
 
     // 外鍵：連結 books.book_id
@@ -0,0 +1,88 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 帶 Idempotency-Key 的結帳請求 (同一會員的同一個 key 只會處理一次)。
+ * 受理 (ACCEPTED) 時已扣庫存並建立訂單主檔，回應內容 (orderId + message) 存在這裡，重送時原樣回傳；
+ * 非同步階段完成訂單明細與清空購物車後為 COMPLETED，失敗 (庫存已回補、訂單取消) 為 FAILED。
+ */
+@Entity
+@Table(name = "checkout_attempts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_checkout_attempts_user_key",
+                columnNames = {"user_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_checkout_attempts_status_updated", columnList = "status, updated_at"))
+@Data
+@NoArgsConstructor
+public class CheckoutAttempt {
+
+    public enum Status {
+        ACCEPTED,   // 已扣庫存、已建立訂單主檔，等待非同步階段
+        COMPLETED,  // 訂單明細已建立、購物車已清空
+        FAILED,     // 受理時即失敗 (orderId 為 null)，或非同步階段失敗後已回補庫存
+        NEEDS_ATTENTION // 非同步階段失敗時訂單已付款：保留訂單與已扣的庫存，待人工補建明細或退款，不會被定期清除
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long attemptId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    // 請求內容的雜湊：同一個 key 搭配不同內容視為誤用
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    // 受理時回傳給前端的訊息；受理即失敗時為錯誤訊息
+    @Column(length = 500)
+    private String message;
+
+    // 受理即失敗時為 CheckoutException.Reason；非同步階段失敗時為失敗說明
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    @ElementCollection
+    @CollectionTable(name = "checkout_attempt_lines", joinColumns = @JoinColumn(name = "attempt_id"))
+    private List<CheckoutLine> lines = new ArrayList<>();
+
+    @Column(name = "created_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime updatedAt;
+
+    public CheckoutAttempt(Long userId, String idempotencyKey, String requestHash, Status status) {
+        this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.status = status;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = OffsetDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = OffsetDateTime.now();
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 已扣庫存的購物車明細快照：非同步階段依此建立訂單明細、清空購物車，失敗時依此回補庫存
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutLine {
+
+    @Column(name = "cart_item_id", nullable = false)
+    private Long cartItemId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal price; // 結帳當下的單價
+}
@@ -9,14 +9,18 @@ import java.time.OffsetDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// 後台訂單列表依 (created_at, order_id) 做 Keyset 分頁
+@Table(name = "orders", indexes = @Index(name = "idx_orders_created_at_id", columnList = "created_at, order_id"))
 @Data
 @NoArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // 移除 "items" 可能導致前端無法看到訂單明細
 public class Order {
 
+    // 序列 + pooled 配號：一次向資料庫取 50 個 ID，INSERT 才能延到 flush 時以 JDBC batch 送出
+    // (IDENTITY 必須逐筆 INSERT 取回主鍵，Hibernate 無法批次)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long orderId;
 
     @Enumerated(EnumType.STRING)
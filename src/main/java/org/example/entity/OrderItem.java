@@ -11,8 +11,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @NoArgsConstructor
 public class OrderItem {
 
+    // 與 Order 相同改用 pooled 序列，結帳時所有明細在同一個 batch 中寫入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long orderItemId;
 
     // 外鍵：連結 orders.order_id
@@ -4,6 +4,7 @@ public enum OrderStatus {
     PENDING, // 待付款
     AWAITING_PAYMENT, // 👈 關鍵新增：待支付確認（信用卡跳轉中）
     PROCESSING,       // 👈 建議新增：金流處理中（對接銀行驗證中）
+    ACCEPTED, // 結帳已受理、已扣庫存，訂單明細尚在非同步建立中 (帶 Idempotency-Key 的結帳)
     PAID,    // 已付款
     SHIPPED, // 已出貨
     DELIVERED, // 👈 新增這個
@@ -0,0 +1,60 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * 交易式 outbox：與訂單 / 庫存異動寫在同一個交易內，交易回滾時事件一併消失。
+ * 由 OutboxRelay 依 eventId 順序批次轉送給各個 OutboxSink，轉送成功後刪除。
+ * eventId 由序列逐一配號，代表各實例寫入事件的先後，但不等於提交順序：
+ * 並發的交易可能較大的 eventId 先提交、先被轉送。消費端應依 payload 判斷 (例如狀態變更的 from / to)，
+ * 不可假設到達順序即為發生順序。
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    // 每筆事件各自向序列取號 (allocationSize 1)：pooled 配號時每個實例各持有一段號碼，
+    // 不同實例的事件順序會被號碼段打亂。INSERT 仍在 flush 時以 JDBC batch 送出。
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 1)
+    private Long eventId;
+
+    // 聚合類型：ORDER / BOOK
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    // 事件類型：ORDER_PLACED / ORDER_STATUS_CHANGED / STOCK_RESERVED / STOCK_RELEASED
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    // JSON 內容
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+
+    public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = OffsetDateTime.now();
+        }
+    }
+}
@@ -10,7 +10,8 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+// 書籍評論依 (book_id, created_at, review_id) 做 Keyset 分頁
+@Table(name = "reviews", indexes = @Index(name = "idx_reviews_book_created_at_id", columnList = "book_id, created_at, review_id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,49 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 每張訂單目前已計入 sales_rollups 的內容。
+ * 訂單異動時重新讀取訂單、與這裡比較後只把差額套用到彙總，重複或亂序的事件都不會重複計算。
+ */
+@Entity
+@Table(name = "sales_order_facts")
+@Data
+@NoArgsConstructor
+public class SalesOrderFact {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    // 下單日；舊資料沒有建立時間時為 null，不計入每日彙總
+    @Column(name = "order_date")
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", length = 32)
+    private PaymentMethod paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private OrderStatus status;
+
+    @Column(name = "total_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalPrice = BigDecimal.ZERO;
+
+    // 依書籍合併的明細
+    @ElementCollection
+    @CollectionTable(name = "sales_order_fact_lines", joinColumns = @JoinColumn(name = "order_id"))
+    private List<SalesFactLine> lines = new ArrayList<>();
+
+    public SalesOrderFact(Long orderId) {
+        this.orderId = orderId;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 銷售彙總 (後台分析用)：每個維度值一列，累計訂單數、銷售數量與營收。
+ * 由 SalesAnalyticsService 依 sales_order_facts 的差異增量更新，不必每次掃過所有訂單。
+ */
+@Entity
+@Table(name = "sales_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollups_dimension_key",
+                columnNames = {"dimension", "dim_key"}),
+        indexes = @Index(name = "idx_sales_rollups_dimension_units", columnList = "dimension, units"))
+@Data
+@NoArgsConstructor
+public class SalesRollup {
+
+    public enum Dimension {
+        DAY,            // 下單日 (yyyy-MM-dd，伺服器時區)，不含已取消訂單
+        LANGUAGE,       // 書籍語言，營收為該語言明細小計，不含已取消訂單
+        PAYMENT_METHOD, // 付款方式，不含已取消訂單
+        STATUS,         // 目前的訂單狀態，含已取消訂單
+        BOOK            // 書籍 ID (排行榜)，營收為明細小計，不含已取消訂單
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Dimension dimension;
+
+    @Column(name = "dim_key", nullable = false, length = 32)
+    private String dimKey;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public SalesRollup(Dimension dimension, String dimKey, long orderCount, long units, BigDecimal revenue) {
+        this.dimension = dimension;
+        this.dimKey = dimKey;
+        this.orderCount = orderCount;
+        this.units = units;
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 書籍資料異動事件：由 BookService 的寫入方法在交易內發布，
+ * 於交易提交 (AFTER_COMMIT) 後才由讀取模型處理，回滾的交易不會影響快照。
+ *
+ * @param bookIds     本次異動的書籍 ID
+ * @param fullRefresh 為 true 時代表異動範圍過大，讀取模型應整份重建
+ */
+public record BookChangedEvent(List<Long> bookIds, boolean fullRefresh) {
+
+    public BookChangedEvent {
+        bookIds = bookIds.stream().filter(Objects::nonNull).toList();
+    }
+
+    public static BookChangedEvent of(Long bookId) {
+        return new BookChangedEvent(bookId == null ? List.of() : List.of(bookId), false);
+    }
+
+    public static BookChangedEvent of(Collection<Long> bookIds) {
+        return new BookChangedEvent(new ArrayList<>(bookIds), false);
+    }
+
+    public static BookChangedEvent all() {
+        return new BookChangedEvent(List.of(), true);
+    }
+}
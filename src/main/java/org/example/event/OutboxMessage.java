@@ -0,0 +1,30 @@
+package org.example.event;
+
+import java.time.OffsetDateTime;
+
+/**
+ * 由 OutboxRelay 轉送出去的訂單 / 庫存事件 (outbox_events 的一列)。
+ * 轉送為至少一次 (at-least-once)：轉送後、刪除前失敗的批次會再送一次，接收端以 eventId 去重。
+ *
+ * @param eventId       遞增的事件 ID，同一個聚合的事件依此順序送達
+ * @param aggregateType ORDER 或 BOOK
+ * @param aggregateId   訂單 ID 或書籍 ID
+ * @param eventType     事件類型 (見本類別的常數)
+ * @param payload       JSON 內容
+ * @param createdAt     事件寫入時間 (即異動的交易時間)
+ */
+public record OutboxMessage(Long eventId, String aggregateType, Long aggregateId, String eventType,
+                            String payload, OffsetDateTime createdAt) {
+
+    public static final String ORDER = "ORDER";
+    public static final String BOOK = "BOOK";
+
+    // 訂單成立 (含明細)：{orderId, userId, status, paymentMethod, totalPrice, createdAt, items[{bookId, lang, quantity, price, subtotal}]}
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+    // 訂單狀態變更：{orderId, userId, from, to, paymentMethod, totalPrice, createdAt}
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+    // 結帳扣除庫存：{bookId, orderId, quantity}
+    public static final String STOCK_RESERVED = "STOCK_RESERVED";
+    // 取消訂單回補庫存：{bookId, orderId, quantity}
+    public static final String STOCK_RELEASED = "STOCK_RELEASED";
+}
@@ -0,0 +1,10 @@
+package org.example.event;
+
+/**
+ * 書籍評論異動事件：由 ReviewService 在交易內發布，
+ * 交易提交 (AFTER_COMMIT) 後才逐出該書的評論快取，回滾的交易不會影響快取。
+ *
+ * @param bookId 評論所屬的書籍 ID
+ */
+public record ReviewChangedEvent(Long bookId) {
+}
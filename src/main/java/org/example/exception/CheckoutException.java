@@ -0,0 +1,27 @@
+package org.example.exception;
+
+/**
+ * 結帳失敗。reason 用於指標 (bookstore.checkout 的 reason 標籤)，訊息則直接回傳給前端。
+ * 繼承 RuntimeException，GlobalExceptionHandler 一樣轉成 400。
+ */
+public class CheckoutException extends RuntimeException {
+
+    public enum Reason {
+        USER_NOT_FOUND,
+        EMPTY_CART,
+        INVALID_ITEM,       // 購物車引用了不存在的書籍
+        OFF_SALE,
+        INSUFFICIENT_STOCK  // 預先檢查不足，或條件式扣庫存時被其他訂單搶先
+    }
+
+    private final Reason reason;
+
+    public CheckoutException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.exception;
+
+/**
+ * 資料庫並行上限已滿且排隊逾時 (見 DatabaseLimiter)。GlobalExceptionHandler 轉成 503 並帶 Retry-After，
+ * 前端與行動裝置應稍後重試，而不是把請求堆在伺服器上等連線。
+ */
+public class DatabaseOverloadedException extends RuntimeException {
+
+    public DatabaseOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.exception;
+
+/**
+ * 同一個 Idempotency-Key 搭配了與第一次不同的結帳內容。OrderController 轉成 422，
+ * 前端應為新的結帳產生新的 key。
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
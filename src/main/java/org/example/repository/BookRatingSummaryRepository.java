@@ -0,0 +1,33 @@
+package org.example.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.entity.BookRatingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookRatingSummaryRepository extends JpaRepository<BookRatingSummary, Long> {
+
+    // 單一 UPDATE 原子地增減彙總 (delta = 1 新增、-1 刪除)，回傳 0 代表這本書還沒有彙總列
+    @Modifying
+    @Query("UPDATE BookRatingSummary s SET " +
+            "s.reviewCount = s.reviewCount + :delta, " +
+            "s.ratingSum = s.ratingSum + :delta * :rating, " +
+            "s.stars1 = s.stars1 + CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+            "s.stars2 = s.stars2 + CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+            "s.stars3 = s.stars3 + CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+            "s.stars4 = s.stars4 + CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+            "s.stars5 = s.stars5 + CASE WHEN :rating = 5 THEN :delta ELSE 0 END " +
+            "WHERE s.bookId = :bookId")
+    int apply(@Param("bookId") Long bookId, @Param("rating") int rating, @Param("delta") int delta);
+
+    // 對帳前依 bookId 順序鎖定整批彙總列，期間的增量更新會等對帳提交後才套用
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BookRatingSummary s WHERE s.bookId IN :bookIds ORDER BY s.bookId")
+    List<BookRatingSummary> lockAllById(@Param("bookIds") Collection<Long> bookIds);
+}
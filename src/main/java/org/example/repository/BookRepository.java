@@ -2,15 +2,19 @@ package org.example.repository;
 
 import org.example.entity.Book;
 import org.example.entity.Language;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
     /**
      * 檢查 ISBN 是否已存在於資料庫中
@@ -24,10 +28,23 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByLangAndIsOnsaleTrue(Language lang);
 
     /**
-     * 新增：根據關鍵字模糊查詢書籍標題或作者，且書籍必須是上架狀態
-     * @param keyword 查詢關鍵字
-     * @return 匹配的書籍列表
+     * 鎖定書籍列 (SELECT ... FOR UPDATE)，切換分桶庫存時避免與結帳同時搬移庫存
      */
-    @Query("SELECT b FROM Book b WHERE b.isOnsale = true AND (LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(b.author) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    List<Book> searchBooks(@Param("keyword") String keyword);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.bookId = :bookId")
+    Optional<Book> lockById(@Param("bookId") Long bookId);
+
+    /**
+     * 評分對帳用：依 bookId 遞增分批取出書籍 ID
+     */
+    @Query("SELECT b.bookId FROM Book b WHERE b.bookId > :afterId ORDER BY b.bookId")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * 評分回填用：只取還沒有評分彙總列的書籍 ID
+     */
+    @Query("SELECT b.bookId FROM Book b WHERE b.bookId > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM BookRatingSummary s WHERE s.bookId = b.bookId) " +
+            "ORDER BY b.bookId")
+    List<Long> findIdsWithoutRatingSummaryAfter(@Param("afterId") Long afterId, Limit limit);
 }
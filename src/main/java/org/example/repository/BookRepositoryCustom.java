@@ -0,0 +1,85 @@
+package org.example.repository;
+
+import org.example.entity.Book;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 庫存異動的自訂查詢 (由 {@link BookRepositoryCustomImpl} 以 JDBC 批次實作)。
+ * 庫存一律在資料庫端以單一 UPDATE 原子加減，不在 Java 端「讀取 → 計算 → 存回」，避免並發結帳時超賣。
+ * 另有需要評分彙總或分桶總庫存的讀取路徑 (Book 上的這幾個欄位不是資料表欄位，一般的 findById 不會帶出)。
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * 條件式扣除庫存：只有在上架中且庫存足夠時才會扣除
+     * @param quantities bookId → 扣除數量
+     * @return 因庫存不足或已下架而未扣除的 bookId (空清單代表全部成功)
+     */
+    List<Long> decrementStock(Map<Long, Integer> quantities);
+
+    /**
+     * 回補庫存 (取消訂單時使用)
+     * @param quantities bookId → 回補數量
+     */
+    void incrementStock(Map<Long, Integer> quantities);
+
+    /**
+     * 書籍列上的庫存欄位
+     * @param stock   books.stock (分桶模式下不含子計數器)，null 視為 0
+     * @param buckets 分桶數，0 代表未分桶
+     */
+    record StockRow(int stock, int buckets) {
+    }
+
+    /**
+     * 依 bookId 順序鎖定書籍列 (SELECT ... FOR UPDATE) 並讀取庫存欄位，後台批次修改前使用
+     * @return bookId → 庫存欄位，不存在的書籍不會出現在結果中
+     */
+    Map<Long, StockRow> lockStockRows(Collection<Long> bookIds);
+
+    // --- 後台批次修改：每個欄位一條 UPDATE ... SET 欄位 = CASE book_id WHEN ? THEN ? ... END，
+    //     不論有幾種不同的值都只送出一條 SQL (呼叫前應已以 lockStockRows 鎖定書籍列) ---
+
+    /**
+     * @param prices bookId → 新價格
+     */
+    void updatePrices(Map<Long, BigDecimal> prices);
+
+    /**
+     * @param onsale bookId → 上架 / 下架
+     */
+    void updateOnsale(Map<Long, Boolean> onsale);
+
+    /**
+     * 調整庫存，只套用到未分桶的書籍 (分桶書籍改由 InventoryService 調整子計數器)
+     * @param deltas bookId → 增減量，呼叫端需先確認調整後不為負數
+     */
+    void addStock(Map<Long, Integer> deltas);
+
+    // --- 讀取路徑：評分彙總以 LEFT JOIN book_rating_summaries 一併查出，
+    //     分桶書籍另以一條 GROUP BY 查詢帶入子計數器加總 (只查分桶中的書籍) ---
+
+    /**
+     * 所有上架書籍，用於建立前台記憶體快照
+     */
+    List<Book> findOnsaleWithTotals();
+
+    /**
+     * 指定的書籍 (前台快照局部更新)，不存在的書籍不會出現在結果中
+     */
+    List<Book> findAllWithTotalsById(Collection<Long> bookIds);
+
+    /**
+     * 後台書籍列表 (Keyset 分頁)：依 bookId 遞增，從 afterId 之後開始
+     */
+    List<Book> findPageWithTotals(long afterId, int limit);
+
+    /**
+     * 只帶入分桶書籍的子計數器加總，讓 getStock() 回傳總庫存 (加入購物車、結帳前檢查庫存時使用)
+     */
+    void loadBucketStock(Collection<Book> books);
+}
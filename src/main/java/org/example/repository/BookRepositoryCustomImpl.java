@@ -0,0 +1,187 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.entity.Book;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE books SET stock = stock - ? WHERE book_id = ? AND stock >= ? AND is_onsale = true";
+    private static final String INCREMENT_SQL =
+            "UPDATE books SET stock = stock + ? WHERE book_id = ?";
+    // 與結帳扣庫存相同依 bookId 順序上鎖，避免死結
+    private static final String LOCK_STOCK_SQL =
+            "SELECT book_id, stock, stock_buckets FROM books WHERE book_id IN (:bookIds) ORDER BY book_id FOR UPDATE";
+    // 書籍連同評分彙總：沒有彙總列的書籍評論數與評分總和為 null
+    private static final String WITH_RATING_JPQL =
+            "SELECT b, s.reviewCount, s.ratingSum FROM Book b LEFT JOIN BookRatingSummary s ON s.bookId = b.bookId ";
+    private static final String BUCKET_STOCK_JPQL =
+            "SELECT s.bookId, SUM(s.stock) FROM BookStockBucket s WHERE s.bookId IN :bookIds GROUP BY s.bookId";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // 讀取路徑用 JPQL：查詢前會先 flush 同一交易內尚未寫出的異動 (例如剛重新分配的子計數器)
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        // 依 bookId 排序後再更新：所有交易以相同順序鎖定書籍列，避免兩筆結帳互相等待造成死結
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+            ps.setInt(3, row.getValue());
+        })[0];
+
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                rejected.add(rows.get(i).getKey());
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public void incrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        });
+    }
+
+    @Override
+    public Map<Long, StockRow> lockStockRows(Collection<Long> bookIds) {
+        Map<Long, StockRow> rows = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return rows;
+        }
+        namedJdbcTemplate.query(LOCK_STOCK_SQL, Map.of("bookIds", bookIds), (RowCallbackHandler) rs ->
+                rows.put(rs.getLong("book_id"), new StockRow(rs.getInt("stock"), rs.getInt("stock_buckets"))));
+        return rows;
+    }
+
+    @Override
+    public void updatePrices(Map<Long, BigDecimal> prices) {
+        updateByCase("price = ", prices, "");
+    }
+
+    @Override
+    public void updateOnsale(Map<Long, Boolean> onsale) {
+        updateByCase("is_onsale = ", onsale, "");
+    }
+
+    @Override
+    public void addStock(Map<Long, Integer> deltas) {
+        updateByCase("stock = COALESCE(stock, 0) + ", deltas,
+                " AND (stock_buckets IS NULL OR stock_buckets = 0)");
+    }
+
+    // UPDATE books SET <assignment> CASE book_id WHEN ? THEN ? ... END WHERE book_id IN (?, ...) <condition>
+    private void updateByCase(String assignment, Map<Long, ?> values, String condition) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Map<Long, ?> sorted = new TreeMap<>(values);
+        StringBuilder sql = new StringBuilder("UPDATE books SET ").append(assignment).append("CASE book_id");
+        List<Object> args = new ArrayList<>(sorted.size() * 3);
+        sorted.forEach((bookId, value) -> {
+            sql.append(" WHEN ? THEN ?");
+            args.add(bookId);
+            args.add(value);
+        });
+        sql.append(" END WHERE book_id IN (").append(String.join(", ", Collections.nCopies(sorted.size(), "?")))
+                .append(')').append(condition);
+        args.addAll(sorted.keySet());
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    @Override
+    public List<Book> findOnsaleWithTotals() {
+        return withTotals(entityManager.createQuery(WITH_RATING_JPQL + "WHERE b.isOnsale = true", Object[].class)
+                .getResultList());
+    }
+
+    @Override
+    public List<Book> findAllWithTotalsById(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return List.of();
+        }
+        return withTotals(entityManager.createQuery(WITH_RATING_JPQL + "WHERE b.bookId IN :bookIds", Object[].class)
+                .setParameter("bookIds", bookIds)
+                .getResultList());
+    }
+
+    @Override
+    public List<Book> findPageWithTotals(long afterId, int limit) {
+        return withTotals(entityManager.createQuery(
+                        WITH_RATING_JPQL + "WHERE b.bookId > :afterId ORDER BY b.bookId", Object[].class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    @Override
+    public void loadBucketStock(Collection<Book> books) {
+        Map<Long, Book> striped = new HashMap<>();
+        for (Book book : books) {
+            if (book.isStockStriped()) {
+                striped.put(book.getBookId(), book);
+            }
+        }
+        if (striped.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> sums = new HashMap<>();
+        for (Object[] row : entityManager.createQuery(BUCKET_STOCK_JPQL, Object[].class)
+                .setParameter("bookIds", striped.keySet())
+                .getResultList()) {
+            sums.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        striped.forEach((bookId, book) -> book.setBucketStock(sums.getOrDefault(bookId, 0)));
+    }
+
+    // 每列為 [Book, 評論數, 評分總和]：平均取到小數第二位，沒有評論時為 null
+    private List<Book> withTotals(List<Object[]> rows) {
+        List<Book> books = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Book book = (Book) row[0];
+            long count = row[1] == null ? 0 : (Long) row[1];
+            book.setRatingCount(count);
+            book.setRatingAverage(count == 0 ? null : BigDecimal.valueOf((Long) row[2])
+                    .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
+                    .doubleValue());
+            books.add(book);
+        }
+        loadBucketStock(books);
+        return books;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.entity.BookStockBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface BookStockBucketRepository extends JpaRepository<BookStockBucket, Long> {
+
+    // 條件式扣除單一子計數器，回傳 0 代表此桶庫存不足
+    @Modifying
+    @Query("UPDATE BookStockBucket b SET b.stock = b.stock - :quantity " +
+            "WHERE b.bookId = :bookId AND b.bucketNo = :bucketNo AND b.stock >= :quantity")
+    int take(@Param("bookId") Long bookId, @Param("bucketNo") int bucketNo, @Param("quantity") int quantity);
+
+    // 回補單一子計數器，回傳 0 代表分桶已被關閉
+    @Modifying
+    @Query("UPDATE BookStockBucket b SET b.stock = b.stock + :quantity " +
+            "WHERE b.bookId = :bookId AND b.bucketNo = :bucketNo")
+    int give(@Param("bookId") Long bookId, @Param("bucketNo") int bucketNo, @Param("quantity") int quantity);
+
+    // 依桶號順序鎖定所有子計數器 (跨桶扣除、重新分配、關閉分桶時使用)，固定順序避免死結
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BookStockBucket b WHERE b.bookId = :bookId ORDER BY b.bucketNo")
+    List<BookStockBucket> lockAllByBookId(@Param("bookId") Long bookId);
+
+    // 不加鎖的子計數器加總，用來在鎖定全部子計數器前先排除已售完的情況
+    @Query("SELECT COALESCE(SUM(b.stock), 0) FROM BookStockBucket b WHERE b.bookId = :bookId")
+    int sumStockByBookId(@Param("bookId") Long bookId);
+
+    List<BookStockBucket> findByBookIdOrderByBucketNoAsc(Long bookId);
+}
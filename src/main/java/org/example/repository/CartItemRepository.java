@@ -2,6 +2,11 @@ package org.example.repository;
 
 import org.example.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +15,15 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     // 獲取某一會員的購物車所有明細
     List<CartItem> findByUserUserId(Long userId);
 
+    // 購物車列表與結帳用：一次連同書籍載入，避免逐筆 lazy 載入 Book
+    @Query("SELECT c FROM CartItem c JOIN FETCH c.book WHERE c.user.userId = :userId")
+    List<CartItem> findWithBookByUserId(@Param("userId") Long userId);
+
+    // 結帳後以一條 DELETE 清空已結帳的明細 (限定 ID，結帳期間新加入購物車的商品不會被誤刪)
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user.userId = :userId AND c.cartItemId IN :cartItemIds")
+    int deleteCheckedOut(@Param("userId") Long userId, @Param("cartItemIds") Collection<Long> cartItemIds);
+
     // 檢查某一會員是否已將某一本書加入購物車
     Optional<CartItem> findByUserUserIdAndBookBookId(Long userId, Long bookId);
 
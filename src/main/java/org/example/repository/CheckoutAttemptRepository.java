@@ -0,0 +1,51 @@
+package org.example.repository;
+
+import org.example.entity.CheckoutAttempt;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CheckoutAttemptRepository extends JpaRepository<CheckoutAttempt, Long> {
+
+    Optional<CheckoutAttempt> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // 取消尚未建立明細的訂單時，依受理時的明細快照回補庫存
+    Optional<CheckoutAttempt> findByOrderId(Long orderId);
+
+    /**
+     * 以條件式 UPDATE 搶下狀態轉換：只有仍為 from 的那一次會成功 (回傳 1)，
+     * 結帳請求觸發與復原排程同時處理同一筆時，另一方在列鎖釋放後看到 0 而略過
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CheckoutAttempt a SET a.status = :to, a.updatedAt = :now "
+            + "WHERE a.attemptId = :attemptId AND a.status = :from")
+    int transition(@Param("attemptId") Long attemptId,
+                   @Param("from") CheckoutAttempt.Status from,
+                   @Param("to") CheckoutAttempt.Status to,
+                   @Param("now") OffsetDateTime now);
+
+    // 受理後長時間未完成 (例如實例在非同步階段前停機) 的結帳，由復原排程重新處理
+    @Query("SELECT a.attemptId FROM CheckoutAttempt a WHERE a.status = :status AND a.updatedAt < :before "
+            + "ORDER BY a.updatedAt")
+    List<Long> findIdsByStatusUpdatedBefore(@Param("status") CheckoutAttempt.Status status,
+                                            @Param("before") OffsetDateTime before, Limit limit);
+
+    // 清除超過保留期限、已結束的 key (ACCEPTED 仍待處理，不刪)
+    @Modifying
+    @Query(value = "DELETE FROM checkout_attempt_lines WHERE attempt_id IN "
+            + "(SELECT attempt_id FROM checkout_attempts WHERE status IN ('COMPLETED', 'FAILED') AND created_at < :before)",
+            nativeQuery = true)
+    int deleteExpiredLines(@Param("before") OffsetDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM CheckoutAttempt a WHERE a.status IN :finished AND a.createdAt < :before")
+    int deleteExpired(@Param("finished") Collection<CheckoutAttempt.Status> finished,
+                      @Param("before") OffsetDateTime before);
+}
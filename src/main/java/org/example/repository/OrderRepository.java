@@ -1,17 +1,33 @@
 package org.example.repository;
 
+import org.example.dto.OrderItemSalesRow;
+import org.example.dto.OrderListDTO;
+import org.example.dto.OrderSalesRow;
 import org.example.entity.Order;
+import org.example.entity.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    // 列表頁只需要純量欄位：以建構式投影直接組成 DTO，
+    // 不建立 Order 實體 (沒有 lazy proxy、也不進入 dirty checking)，整個列表只有一條 SQL
+    String ORDER_LIST_PROJECTION = "SELECT new org.example.dto.OrderListDTO(" +
+            "o.orderId, o.status, o.totalPrice, o.createdAt, o.paymentMethod) FROM Order o ";
+
     // 會員查看自己的所有訂單 (前台功能)
-    List<Order> findByUserUserIdOrderByCreatedAtDesc(Long userId);
+    @Query(ORDER_LIST_PROJECTION +
+            "WHERE o.user.userId = :userId " +
+            "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<OrderListDTO> findListByUserId(@Param("userId") Long userId);
 
     // 🎯 2. 修復當前錯誤 (確保 OrderId 和 UserUserId 兩個條件都包含)
     boolean existsByOrderIdAndUserUserId(Long orderId, Long userId);
@@ -33,4 +49,44 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             "LEFT JOIN FETCH oi.book b " +
             "WHERE o.orderId = :orderId")
     Optional<Order> findByIdWithDetails(@Param("orderId") Long orderId);
+
+    // 後台訂單列表 (Keyset 分頁)：依 (createdAt, orderId) 由新到舊，
+    // 下一頁從上一頁最後一筆之後開始，搭配 idx_orders_created_at_id 不需掃過前面的資料
+    @Query(ORDER_LIST_PROJECTION + "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<OrderListDTO> findLatest(Limit limit);
+
+    // 以 row value 比較 (createdAt, orderId) < (?, ?)：可直接作為索引範圍條件；
+    // 展開成 createdAt < ? OR (createdAt = ? AND orderId < ?) 時 OR 會讓規劃器放棄索引改掃全表
+    @Query(ORDER_LIST_PROJECTION +
+            "WHERE (o.createdAt, o.orderId) < (:createdAt, :orderId) " +
+            "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<OrderListDTO> findLatestBefore(@Param("createdAt") OffsetDateTime createdAt,
+                                 @Param("orderId") Long orderId,
+                                 Limit limit);
+
+    // 以條件式 UPDATE 轉換訂單狀態：只有仍為 from 時才會成功 (回傳 1)，
+    // 已被付款或取消的訂單不會被覆蓋回 to (呼叫前不可已載入該訂單，否則持久化內容中的狀態會過期)
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to WHERE o.orderId = :orderId AND o.status = :from")
+    int transitionStatus(@Param("orderId") Long orderId, @Param("from") OrderStatus from,
+                         @Param("to") OrderStatus to);
+
+    // 銷售彙總：依 orderId 分批讀取 (一般讀取，不加鎖)
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > :afterId ORDER BY o.orderId")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // 銷售彙總回填用：只取還沒有 sales_order_facts 的訂單 ID
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId > :afterId " +
+            "AND NOT EXISTS (SELECT 1 FROM SalesOrderFact f WHERE f.orderId = o.orderId) " +
+            "ORDER BY o.orderId")
+    List<Long> findIdsWithoutSalesFactAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new org.example.dto.OrderSalesRow(o.orderId, o.status, o.paymentMethod, o.totalPrice, " +
+            "o.createdAt) FROM Order o WHERE o.orderId IN :orderIds")
+    List<OrderSalesRow> findSalesRows(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT new org.example.dto.OrderItemSalesRow(i.order.orderId, b.bookId, b.lang, " +
+            "SUM(i.quantity), SUM(i.subtotal)) FROM OrderItem i JOIN i.book b " +
+            "WHERE i.order.orderId IN :orderIds GROUP BY i.order.orderId, b.bookId, b.lang")
+    List<OrderItemSalesRow> findItemSalesRows(@Param("orderIds") Collection<Long> orderIds);
 }
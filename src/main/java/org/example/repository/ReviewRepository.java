@@ -1,11 +1,37 @@
 package org.example.repository;
 
+import org.example.dto.RatingCount;
 import org.example.entity.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
 
-    // 🎯 核心功能：根據書本 ID 找出所有評論，並按時間倒序排列（最新的在上面）
-    List<Review> findByBook_BookIdOrderByCreatedAtDesc(Integer bookId);
+    // 🎯 核心功能：根據書本 ID 找出評論，並按時間倒序排列（最新的在上面）
+    // Keyset 分頁：依 (createdAt, reviewId) 由新到舊，同時 JOIN FETCH 評論者避免逐筆載入 User；
+    // 下一頁以 row value 比較，(book_id, created_at, review_id) 索引可直接定位到上一頁最後一筆
+    @Query("SELECT r FROM Review r LEFT JOIN FETCH r.user " +
+            "WHERE r.book.bookId = :bookId " +
+            "ORDER BY r.createdAt DESC, r.reviewId DESC")
+    List<Review> findLatestByBookId(@Param("bookId") Long bookId, Limit limit);
+
+    @Query("SELECT r FROM Review r LEFT JOIN FETCH r.user " +
+            "WHERE r.book.bookId = :bookId " +
+            "AND (r.createdAt, r.reviewId) < (:createdAt, :reviewId) " +
+            "ORDER BY r.createdAt DESC, r.reviewId DESC")
+    List<Review> findLatestByBookIdBefore(@Param("bookId") Long bookId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("reviewId") Integer reviewId,
+                                          Limit limit);
+
+    // 評分對帳：一次統計整批書籍各星等的評論數
+    @Query("SELECT new org.example.dto.RatingCount(r.book.bookId, r.rating, COUNT(r)) FROM Review r " +
+            "WHERE r.book.bookId IN :bookIds GROUP BY r.book.bookId, r.rating")
+    List<RatingCount> countByBookIdAndRating(@Param("bookIds") Collection<Long> bookIds);
 }
@@ -0,0 +1,29 @@
+package org.example.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.entity.SalesOrderFact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SalesOrderFactRepository extends JpaRepository<SalesOrderFact, Long> {
+
+    // 依 orderId 順序鎖定 (只鎖彙總用的資料，不鎖 orders)，同一張訂單的同步互斥
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM SalesOrderFact f WHERE f.orderId IN :orderIds ORDER BY f.orderId")
+    List<SalesOrderFact> lockAllById(@Param("orderIds") Collection<Long> orderIds);
+
+    // 重建前清空：先刪明細 (element collection 沒有 JPQL 實體)，再刪主檔
+    @Modifying
+    @Query(value = "DELETE FROM sales_order_fact_lines", nativeQuery = true)
+    int deleteAllLines();
+
+    @Modifying
+    @Query("DELETE FROM SalesOrderFact f")
+    int deleteAllFacts();
+}
@@ -0,0 +1,31 @@
+package org.example.repository;
+
+import org.example.entity.SalesRollup;
+import org.example.entity.SalesRollup.Dimension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    // 單一 UPDATE 原子地套用差額，回傳 0 代表這個維度值還沒有彙總列
+    @Modifying
+    @Query("UPDATE SalesRollup r SET r.orderCount = r.orderCount + :orders, r.units = r.units + :units, " +
+            "r.revenue = r.revenue + :revenue WHERE r.dimension = :dimension AND r.dimKey = :dimKey")
+    int apply(@Param("dimension") Dimension dimension, @Param("dimKey") String dimKey,
+              @Param("orders") long orders, @Param("units") long units, @Param("revenue") BigDecimal revenue);
+
+    List<SalesRollup> findByDimensionOrderByDimKey(Dimension dimension);
+
+    // DAY 的 key 為 yyyy-MM-dd，字串比較即為日期比較
+    List<SalesRollup> findByDimensionAndDimKeyBetweenOrderByDimKey(Dimension dimension, String from, String to);
+
+    List<SalesRollup> findByDimensionOrderByUnitsDescDimKeyAsc(Dimension dimension, Limit limit);
+
+    List<SalesRollup> findByDimensionOrderByRevenueDescDimKeyAsc(Dimension dimension, Limit limit);
+}
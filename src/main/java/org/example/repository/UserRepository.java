@@ -1,7 +1,10 @@
 package org.example.repository;
 
 import org.example.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -11,4 +14,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     // 註冊檢查用：確認 email 是否已存在
     boolean existsByEmail(String email);
+
+    // 後台會員列表 (Keyset 分頁)：依 userId 遞增，從上一頁最後一筆之後開始
+    List<User> findByUserIdGreaterThanOrderByUserIdAsc(Long userId, Limit limit);
 }
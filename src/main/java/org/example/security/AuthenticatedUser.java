@@ -0,0 +1,77 @@
+package org.example.security;
+
+import org.example.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 放進 SecurityContext 的登入者資訊 (不可變)。
+ * 只保留授權需要的欄位 (userId、email、角色、啟用狀態)，不含密碼雜湊，
+ * Controller 可直接取得 userId，不必再用 email 查一次資料庫。
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long userId;
+    private final String email;
+    private final List<GrantedAuthority> authorities;
+    private final boolean enabled;
+
+    public AuthenticatedUser(Long userId, String email, Collection<? extends GrantedAuthority> authorities,
+                             boolean enabled) {
+        this.userId = userId;
+        this.email = email;
+        this.authorities = List.copyOf(authorities);
+        this.enabled = enabled;
+    }
+
+    /**
+     * 由 UserDetailsService 載入的結果轉換；非本系統 User 實體時 userId 為 null
+     */
+    public static AuthenticatedUser from(UserDetails details) {
+        Long userId = details instanceof User user ? user.getUserId() : null;
+        return new AuthenticatedUser(userId, details.getUsername(), details.getAuthorities(), details.isEnabled());
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    // JWT 已完成驗證，不在記憶體中保留密碼雜湊
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.security;
+
+import org.example.service.StaleLoadGuard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已驗證登入者的短期快取 (以 email 為 key)。
+ * JWT 過濾器每個請求都需要確認帳號仍存在、角色與啟用狀態，命中快取時不必查詢資料庫。
+ * 帳號狀態、角色或密碼變更時由 UserService 逐出；快取只存在單一實例記憶體中，
+ * 其他實例最多落後一個 TTL。
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(AuthenticatedUser user, long expiresAt) {
+    }
+
+    private final UserDetailsService userDetailsService;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // 載入期間若發生逐出，載入結果可能是舊資料，不寫回快取
+    private final StaleLoadGuard staleLoads = new StaleLoadGuard();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Value("${application.security.principal-cache.ttl-ms:60000}")
+    private long ttlMs = 60000;
+
+    @Value("${application.security.principal-cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    public PrincipalCache(UserDetailsService userDetailsService) {
+        this.userDetailsService = userDetailsService;
+    }
+
+    /**
+     * 取得登入者資訊，快取未命中或已過期時向資料庫載入
+     * @throws UsernameNotFoundException 帳號不存在
+     */
+    public AuthenticatedUser load(String email) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null && entry.expiresAt() > now) {
+            hits.increment();
+            return entry.user();
+        }
+        misses.increment();
+
+        long loadedAt = staleLoads.beforeLoad();
+        AuthenticatedUser user = AuthenticatedUser.from(userDetailsService.loadUserByUsername(email));
+        if (staleLoads.unchangedSince(loadedAt) && hasRoom(now)) {
+            entries.put(email, new Entry(user, now + ttlMs));
+        }
+        return user;
+    }
+
+    /**
+     * 立即逐出；若在交易中，交易結束後再逐出一次，
+     * 避免提交前有其他請求讀到舊資料並重新放回快取
+     */
+    public void evict(String email) {
+        invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(email);
+                }
+            });
+        }
+    }
+
+    // --- 統計 (供 CacheMetrics 匯出) ---
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void invalidate(String email) {
+        staleLoads.invalidated();
+        entries.remove(email);
+    }
+
+    // 達到上限時先清掉過期項目；仍然滿的話這次就不快取，直接回傳 DB 結果
+    private boolean hasRoom(long now) {
+        if (entries.size() < maxSize) {
+            return true;
+        }
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        return entries.size() < maxSize;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.service;
+
+import org.example.event.OutboxMessage;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 程序內的接收端：逐筆以 ApplicationEvent 發布，同一個 JVM 內以 @EventListener(OutboxMessage) 接收。
+ * 監聽器在轉送的交易內同步執行：寫入同一個資料庫的結果與 outbox 刪除一起提交，拋出的例外會讓整批重送。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ApplicationEventOutboxSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String name() {
+        return "in-process";
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> batch) {
+        batch.forEach(eventPublisher::publishEvent);
+    }
+}
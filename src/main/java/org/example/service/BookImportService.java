@@ -0,0 +1,662 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.BookImportReportDTO;
+import org.example.dto.BookImportRowError;
+import org.example.dto.BookRequest;
+import org.example.entity.Book;
+import org.example.event.BookChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 後台書籍批次匯入 (CSV 或 JSON Lines)。
+ * 邊讀邊處理：每讀滿 batch-size 筆有效資料就寫入一次，記憶體用量與檔案大小無關。
+ * 每一批在一個交易內：以一次 IN 查詢找出已存在的 ISBN，再以 JDBC batch 新增 (INSERT) 或更新 (UPSERT 模式)。
+ * 驗證規則與 BookService.createBook 相同，不合格的資料列記入錯誤明細後略過，不影響其他資料列；
+ * 某一批寫入失敗 (例如同時有人新增了相同 ISBN) 時改為逐筆重試，找出真正有問題的資料列。
+ * 匯入在請求執行緒上同步進行，進行中可由 {@link #getRecentImports()} / {@link #getImport(String)} 輪詢進度；
+ * 長時間佔用連線，與訂單匯出相同以 EXPORT 優先順序向 DatabaseLimiter 取得名額 (每批一次)。
+ */
+@Slf4j
+@Service
+public class BookImportService {
+
+    private static final int MAX_RECENT_IMPORTS = 20;
+
+    private static final String INSERT_SQL = "INSERT INTO books "
+            + "(title, author, isbn, price, stock, description, image_url, lang, is_onsale, published_date) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // 更新既有書籍時，空白的選填欄位保留原值；分桶庫存的書籍不改庫存 (請用庫存 API 重新分配)
+    private static final String UPDATE_SQL = "UPDATE books SET title = ?, author = COALESCE(?, author), "
+            + "price = COALESCE(?, price), "
+            + "stock = CASE WHEN stock_buckets > 0 THEN stock ELSE COALESCE(?, stock) END, "
+            + "description = COALESCE(?, description), image_url = COALESCE(?, image_url), lang = ?, "
+            + "is_onsale = COALESCE(?, is_onsale), published_date = COALESCE(?, published_date) "
+            + "WHERE isbn = ?";
+
+    // 與 books 資料表的欄位長度一致，超過的資料列直接回報，不讓整批寫入失敗
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_AUTHOR_LENGTH = 100;
+    private static final int MAX_ISBN_LENGTH = 20;
+
+    // 單筆資料 (CSV 一筆紀錄或 JSON 一行) 的字元上限，超過時停止匯入，不把整份檔案讀進記憶體
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        public static Format of(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支援的匯入格式: " + value);
+            }
+        }
+    }
+
+    /**
+     * INSERT：ISBN 已存在的資料列記為錯誤；UPSERT：依 ISBN 更新既有書籍
+     */
+    public enum Mode {
+        INSERT,
+        UPSERT;
+
+        public static Mode of(String value) {
+            try {
+                return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支援的匯入模式: " + value);
+            }
+        }
+    }
+
+    private final BookService bookService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate batchTx;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final DatabaseLimiter databaseLimiter;
+    private final int batchSize;
+    private final int maxErrors;
+
+    private final ReentrantLock importsLock = new ReentrantLock();
+    // 最近的匯入 (依開始時間)，只在持有 importsLock 時讀寫
+    private final LinkedHashMap<String, ImportJob> imports = new LinkedHashMap<>();
+
+    public BookImportService(BookService bookService, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                             DatabaseLimiter databaseLimiter,
+                             @Value("${application.book-import.batch-size:500}") int batchSize,
+                             @Value("${application.book-import.max-errors:1000}") int maxErrors) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("book-import.batch-size 必須大於 0");
+        }
+        this.bookService = bookService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.databaseLimiter = databaseLimiter;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * 讀取整個輸入串流並寫入書籍；有寫入任何資料時，結束後整份重建前台快照一次
+     * @return 匯入結果 (含錯誤明細)
+     * @throws IllegalArgumentException 檔案格式錯誤 (例如 CSV 缺少必要欄位)，已寫入的批次不會回復
+     */
+    public BookImportReportDTO importBooks(InputStream in, Format format, Mode mode) {
+        ImportJob job = register(format, mode);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            RowSource source = format == Format.CSV ? new CsvRowSource(reader) : new NdjsonRowSource(reader);
+            Map<String, PendingRow> batch = new LinkedHashMap<>();
+            List<PendingRow> withoutIsbn = new ArrayList<>();
+            SourceRow row;
+            while ((row = source.next()) != null) {
+                job.rowRead();
+                PendingRow pending = validate(row, job);
+                if (pending == null) {
+                    continue;
+                }
+                String isbn = pending.book().getIsbn();
+                if (isbn == null) {
+                    withoutIsbn.add(pending);
+                } else {
+                    PendingRow previous = batch.putIfAbsent(isbn, pending);
+                    if (previous != null) {
+                        job.rowFailed(row.row(), isbn, "ISBN 與第 " + previous.row() + " 筆重複");
+                        continue;
+                    }
+                }
+                if (batch.size() + withoutIsbn.size() >= batchSize) {
+                    flush(batch, withoutIsbn, mode, job);
+                }
+            }
+            flush(batch, withoutIsbn, mode, job);
+            job.finish(null);
+        } catch (IOException e) {
+            job.finish("讀取匯入檔案失敗: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            job.finish(e.getMessage());
+            throw e;
+        } finally {
+            if (job.written() > 0) {
+                // 交易提交後才由讀取模型處理
+                batchTx.executeWithoutResult(status -> eventPublisher.publishEvent(BookChangedEvent.all()));
+            }
+        }
+        BookImportReportDTO report = job.report(true);
+        log.info("書籍匯入完成 importId={} 讀取 {} 筆、新增 {} 筆、更新 {} 筆、失敗 {} 筆", report.getImportId(),
+                report.getRowsRead(), report.getInserted(), report.getUpdated(), report.getFailed());
+        return report;
+    }
+
+    /**
+     * 單次匯入的進度與錯誤明細
+     */
+    public Optional<BookImportReportDTO> getImport(String importId) {
+        importsLock.lock();
+        try {
+            return Optional.ofNullable(imports.get(importId)).map(job -> job.report(true));
+        } finally {
+            importsLock.unlock();
+        }
+    }
+
+    /**
+     * 最近的匯入 (新的在前，不含錯誤明細)
+     */
+    public List<BookImportReportDTO> getRecentImports() {
+        importsLock.lock();
+        try {
+            List<BookImportReportDTO> reports = new ArrayList<>(imports.size());
+            imports.values().forEach(job -> reports.add(0, job.report(false)));
+            return reports;
+        } finally {
+            importsLock.unlock();
+        }
+    }
+
+    private ImportJob register(Format format, Mode mode) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), format, mode);
+        importsLock.lock();
+        try {
+            imports.put(job.id, job);
+            Iterator<ImportJob> oldest = imports.values().iterator();
+            while (imports.size() > MAX_RECENT_IMPORTS && oldest.hasNext()) {
+                if (!oldest.next().isRunning()) {
+                    oldest.remove();
+                }
+            }
+        } finally {
+            importsLock.unlock();
+        }
+        return job;
+    }
+
+    // 與 createBook 相同的欄位驗證；回傳 null 代表該列已記入錯誤
+    private PendingRow validate(SourceRow row, ImportJob job) {
+        BookRequest request = row.request();
+        String isbn = request == null ? null : blankToNull(request.getIsbn());
+        if (row.error() != null) {
+            job.rowFailed(row.row(), isbn, row.error());
+            return null;
+        }
+        try {
+            request.setIsbn(isbn);
+            bookService.validateNewBook(request);
+            checkLength(request.getTitle(), MAX_TITLE_LENGTH, "書名");
+            checkLength(request.getAuthor(), MAX_AUTHOR_LENGTH, "作者");
+            checkLength(isbn, MAX_ISBN_LENGTH, "ISBN");
+            return new PendingRow(row.row(), request, bookService.toNewBook(request));
+        } catch (RuntimeException e) {
+            job.rowFailed(row.row(), isbn, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void checkLength(String value, int max, String name) {
+        if (value != null && value.length() > max) {
+            throw new RuntimeException(name + "長度不可超過 " + max + " 個字");
+        }
+    }
+
+    private void flush(Map<String, PendingRow> batch, List<PendingRow> withoutIsbn, Mode mode, ImportJob job) {
+        if (batch.isEmpty() && withoutIsbn.isEmpty()) {
+            return;
+        }
+        List<PendingRow> rows = new ArrayList<>(batch.values());
+        rows.addAll(withoutIsbn);
+        batch.clear();
+        withoutIsbn.clear();
+
+        DatabaseLimiter.Permit permit = databaseLimiter.acquire(DatabaseLimiter.Priority.EXPORT);
+        boolean overloaded = false;
+        try {
+            try {
+                job.apply(writeBatch(rows, mode));
+            } catch (DataIntegrityViolationException e) {
+                // 整批已回滾：逐筆各自一個交易重試，只有違反限制的資料列記為錯誤
+                log.warn("書籍匯入批次寫入失敗，改為逐筆寫入 importId={}: {}", job.id, e.getMessage());
+                for (PendingRow row : rows) {
+                    try {
+                        job.apply(writeBatch(List.of(row), mode));
+                    } catch (DataIntegrityViolationException rowError) {
+                        job.rowFailed(row.row(), row.book().getIsbn(), "資料寫入失敗: "
+                                + rowError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        } catch (CannotCreateTransactionException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            permit.release(overloaded);
+        }
+    }
+
+    private BatchResult writeBatch(List<PendingRow> rows, Mode mode) {
+        return batchTx.execute(status -> {
+            Set<String> existing = findExistingIsbns(rows);
+            List<PendingRow> inserts = new ArrayList<>(rows.size());
+            List<PendingRow> updates = new ArrayList<>();
+            List<BookImportRowError> errors = new ArrayList<>();
+            for (PendingRow row : rows) {
+                String isbn = row.book().getIsbn();
+                if (isbn == null || !existing.contains(isbn)) {
+                    inserts.add(row);
+                } else if (mode == Mode.UPSERT) {
+                    updates.add(row);
+                } else {
+                    errors.add(new BookImportRowError(row.row(), isbn, BookService.DUPLICATE_ISBN));
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), BookImportService::bindInsert);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), BookImportService::bindUpdate);
+            }
+            return new BatchResult(inserts.size(), updates.size(), errors);
+        });
+    }
+
+    private Set<String> findExistingIsbns(List<PendingRow> rows) {
+        List<String> isbns = rows.stream()
+                .map(row -> row.book().getIsbn())
+                .filter(isbn -> isbn != null)
+                .toList();
+        if (isbns.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList("SELECT isbn FROM books WHERE isbn IN (:isbns)",
+                Map.of("isbns", isbns), String.class));
+    }
+
+    private static void bindInsert(PreparedStatement ps, PendingRow row) throws SQLException {
+        Book book = row.book();
+        ps.setString(1, book.getTitle());
+        ps.setString(2, book.getAuthor());
+        ps.setString(3, book.getIsbn());
+        ps.setBigDecimal(4, book.getPrice());
+        setInteger(ps, 5, book.getBaseStock());
+        ps.setString(6, book.getDescription());
+        ps.setString(7, book.getImageUrl());
+        ps.setString(8, book.getLang().name());
+        ps.setBoolean(9, book.getIsOnsale());
+        ps.setObject(10, book.getPublishedDate());
+    }
+
+    // 更新時使用原始請求：未填的上架狀態與出版日保留原值，而不是套用新增時的預設值
+    private static void bindUpdate(PreparedStatement ps, PendingRow row) throws SQLException {
+        Book book = row.book();
+        BookRequest request = row.request();
+        ps.setString(1, book.getTitle());
+        ps.setString(2, book.getAuthor());
+        ps.setBigDecimal(3, book.getPrice());
+        setInteger(ps, 4, book.getBaseStock());
+        ps.setString(5, book.getDescription());
+        ps.setString(6, book.getImageUrl());
+        ps.setString(7, book.getLang().name());
+        if (request.getIsOnsale() == null) {
+            ps.setNull(8, Types.BOOLEAN);
+        } else {
+            ps.setBoolean(8, request.getIsOnsale());
+        }
+        if (request.getPublishedDate() == null) {
+            ps.setNull(9, Types.DATE);
+        } else {
+            ps.setObject(9, request.getPublishedDate());
+        }
+        ps.setString(10, book.getIsbn());
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * 解析後的一筆資料，無法解析時 request 為 null、error 為原因
+     */
+    private record SourceRow(long row, BookRequest request, String error) {
+    }
+
+    private record PendingRow(long row, BookRequest request, Book book) {
+    }
+
+    private record BatchResult(int inserted, int updated, List<BookImportRowError> errors) {
+    }
+
+    private interface RowSource {
+
+        /**
+         * @return 下一筆資料，檔案結束時為 null
+         */
+        SourceRow next() throws IOException;
+    }
+
+    /**
+     * 第一列為標題列，欄位名稱不分大小寫，底線與空白可省略 (image_url = imageUrl)；未知的欄位忽略
+     */
+    private static final class CsvRowSource implements RowSource {
+
+        private static final Set<String> COLUMNS = Set.of("title", "author", "isbn", "price", "stock", "lang",
+                "description", "imageurl", "isonsale", "publisheddate");
+
+        private final CsvRecordReader records;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long row;
+
+        CsvRowSource(BufferedReader reader) throws IOException {
+            this.records = new CsvRecordReader(reader, MAX_RECORD_LENGTH);
+            List<String> header = records.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV 缺少標題列");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).replace("\uFEFF", "").replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT);
+                if (COLUMNS.contains(name)) {
+                    columns.putIfAbsent(name, i);
+                }
+            }
+            for (String required : List.of("title", "lang")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException("CSV 標題列缺少欄位: " + required);
+                }
+            }
+        }
+
+        @Override
+        public SourceRow next() throws IOException {
+            List<String> fields;
+            do {
+                try {
+                    fields = records.next();
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("第 " + (row + 1) + " 筆: " + e.getMessage());
+                }
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+            row++;
+
+            BookRequest request = new BookRequest();
+            request.setTitle(value(fields, "title"));
+            request.setAuthor(value(fields, "author"));
+            request.setIsbn(value(fields, "isbn"));
+            request.setLang(value(fields, "lang"));
+            request.setDescription(value(fields, "description"));
+            request.setImageUrl(value(fields, "imageurl"));
+            try {
+                String price = value(fields, "price");
+                request.setPrice(price == null ? null : new BigDecimal(price));
+            } catch (NumberFormatException e) {
+                return new SourceRow(row, request, "價格格式錯誤: " + value(fields, "price"));
+            }
+            try {
+                String stock = value(fields, "stock");
+                request.setStock(stock == null ? null : Integer.valueOf(stock));
+            } catch (NumberFormatException e) {
+                return new SourceRow(row, request, "庫存格式錯誤: " + value(fields, "stock"));
+            }
+            String onsale = value(fields, "isonsale");
+            if (onsale != null) {
+                switch (onsale.toLowerCase(Locale.ROOT)) {
+                    case "true", "1", "y", "yes" -> request.setIsOnsale(true);
+                    case "false", "0", "n", "no" -> request.setIsOnsale(false);
+                    default -> {
+                        return new SourceRow(row, request, "上架狀態格式錯誤: " + onsale);
+                    }
+                }
+            }
+            try {
+                String publishedDate = value(fields, "publisheddate");
+                request.setPublishedDate(publishedDate == null ? null : LocalDate.parse(publishedDate));
+            } catch (DateTimeParseException e) {
+                return new SourceRow(row, request, "出版日期格式錯誤 (yyyy-MM-dd): " + value(fields, "publisheddate"));
+            }
+            return new SourceRow(row, request, null);
+        }
+
+        private String value(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * 每行一個 BookRequest 的 JSON 物件；空白行略過，資料列號為行號
+     */
+    private final class NdjsonRowSource implements RowSource {
+
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public SourceRow next() throws IOException {
+            String text;
+            do {
+                text = readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+            try {
+                return new SourceRow(line, objectMapper.readValue(text, BookRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new SourceRow(line, null, "JSON 格式錯誤: " + e.getOriginalMessage());
+            }
+        }
+
+        // 與 BufferedReader.readLine 相同 (\n 或 \r\n 結尾)，但超過字元上限就停止讀取
+        private String readLine() throws IOException {
+            StringBuilder text = new StringBuilder();
+            int c;
+            while ((c = reader.read()) != -1 && c != '\n') {
+                if (text.length() == MAX_RECORD_LENGTH) {
+                    throw new IllegalArgumentException("第 " + (line + 1) + " 行超過 " + MAX_RECORD_LENGTH + " 字元上限");
+                }
+                text.append((char) c);
+            }
+            if (c == -1 && text.isEmpty()) {
+                return null;
+            }
+            int end = text.length() - 1;
+            if (end >= 0 && text.charAt(end) == '\r') {
+                text.setLength(end);
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * 一次匯入的進度：由匯入執行緒更新，輪詢進度的請求只讀取
+     */
+    private final class ImportJob {
+
+        private final String id;
+        private final Format format;
+        private final Mode mode;
+        private final OffsetDateTime startedAt = OffsetDateTime.now();
+        private final ReentrantLock lock = new ReentrantLock();
+        // 以下欄位只在持有 lock 時讀寫
+        private final List<BookImportRowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long failed;
+        private OffsetDateTime finishedAt;
+        private String error;
+
+        ImportJob(String id, Format format, Mode mode) {
+            this.id = id;
+            this.format = format;
+            this.mode = mode;
+        }
+
+        void rowRead() {
+            lock.lock();
+            try {
+                rowsRead++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void rowFailed(long row, String isbn, String message) {
+            lock.lock();
+            try {
+                failed++;
+                if (errors.size() < maxErrors) {
+                    errors.add(new BookImportRowError(row, isbn, message));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void apply(BatchResult result) {
+            result.errors().forEach(e -> rowFailed(e.row(), e.isbn(), e.message()));
+            lock.lock();
+            try {
+                inserted += result.inserted();
+                updated += result.updated();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long written() {
+            lock.lock();
+            try {
+                return inserted + updated;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isRunning() {
+            lock.lock();
+            try {
+                return finishedAt == null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void finish(String error) {
+            lock.lock();
+            try {
+                this.finishedAt = OffsetDateTime.now();
+                this.error = error;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        BookImportReportDTO report(boolean withErrors) {
+            lock.lock();
+            try {
+                return BookImportReportDTO.builder()
+                        .importId(id)
+                        .format(format.name())
+                        .mode(mode.name())
+                        .status(finishedAt == null ? "RUNNING" : error == null ? "COMPLETED" : "FAILED")
+                        .rowsRead(rowsRead)
+                        .inserted(inserted)
+                        .updated(updated)
+                        .failed(failed)
+                        .startedAt(startedAt)
+                        .finishedAt(finishedAt)
+                        .error(error)
+                        .errors(withErrors ? List.copyOf(errors) : null)
+                        .errorsTruncated(failed > errors.size())
+                        .build();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
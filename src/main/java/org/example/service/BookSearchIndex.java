@@ -0,0 +1,406 @@
+package org.example.service;
+
+import org.example.dto.BookDetail;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 上架書籍的記憶體倒排索引 (Inverted Index)，取代 LIKE '%kw%' 全表掃描。
+ * <p>
+ * 索引欄位為書名、作者、ISBN 與簡介，各欄位權重不同；每個 term 對應一份依 bookId 排序的
+ * posting list (不可變陣列)。整份索引狀態發布後不再修改，更新時在複本上套用異動再一次替換，
+ * 查詢端不需加鎖，也不會看到同步到一半的索引。
+ * 多個查詢詞之間為 AND，最後一個詞額外做前綴比對，支援邊打字邊搜尋。
+ */
+@Component
+public class BookSearchIndex {
+
+    static final float TITLE_WEIGHT = 3.0f;
+    static final float AUTHOR_WEIGHT = 2.0f;
+    static final float ISBN_WEIGHT = 5.0f;
+    static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // 前綴展開的最大 term 數 (保留文件數最多的)，避免單一字元查詢展開出上萬個 term
+    private static final int MAX_PREFIX_EXPANSION = 64;
+    // 前綴展開命中的分數打折，讓完整比對排在前面
+    private static final float PREFIX_FACTOR = 0.7f;
+
+    private final SearchTokenizer tokenizer = new SearchTokenizer();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile IndexState state = IndexState.empty();
+
+    /** 查詢結果：當頁的 bookId (依分數排序) 與符合條件的總筆數 */
+    public record SearchHits(List<Long> bookIds, int total) {
+        static final SearchHits EMPTY = new SearchHits(List.of(), 0);
+    }
+
+    // 發布後唯讀，只透過 volatile 的 state 整份替換
+    private record IndexState(NavigableMap<String, Postings> terms,
+                              Map<Long, Map<String, Float>> docs) {
+        static IndexState empty() {
+            return new IndexState(new TreeMap<>(), new HashMap<>());
+        }
+    }
+
+    // --- 查詢 ---
+
+    public SearchHits search(String query, int offset, int limit) {
+        IndexState current = state;
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenizer.tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0 || offset < 0) {
+            return SearchHits.EMPTY;
+        }
+
+        int docCount = current.docs().size();
+        List<Clause> clauses = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean last = i == tokens.size() - 1;
+            Clause clause = clauseFor(current, tokens.get(i), last, docCount);
+            if (clause == null) {
+                return SearchHits.EMPTY; // AND 語意：任何一個詞沒有命中就沒有結果
+            }
+            clauses.add(clause);
+        }
+        // 從最短的 posting list 開始走訪，其他條件以二分搜尋檢查
+        clauses.sort(Comparator.comparingInt(Clause::size));
+
+        // 以 long 相加，避免 offset 很大時溢位成負數
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Hit> top = new PriorityQueue<>(Hit.WORST_FIRST);
+        int total = 0;
+        for (long doc : clauses.get(0).docIds()) {
+            float score = 0f;
+            boolean matched = true;
+            for (Clause clause : clauses) {
+                float s = clause.score(doc);
+                if (s < 0) {
+                    matched = false;
+                    break;
+                }
+                score += s;
+            }
+            if (!matched) {
+                continue;
+            }
+            total++;
+            if (top.size() < wanted) {
+                top.add(new Hit(doc, score));
+            } else if (score >= top.peek().score()) {
+                Hit hit = new Hit(doc, score);
+                if (Hit.WORST_FIRST.compare(top.peek(), hit) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+        }
+
+        Hit[] ranked = top.toArray(new Hit[0]);
+        Arrays.sort(ranked, Hit.WORST_FIRST.reversed());
+        List<Long> page = new ArrayList<>(Math.max(0, Math.min(limit, ranked.length - offset)));
+        for (int i = offset; i < ranked.length; i++) {
+            page.add(ranked[i].bookId());
+        }
+        return new SearchHits(page, total);
+    }
+
+    private Clause clauseFor(IndexState current, String token, boolean prefix, int docCount) {
+        List<Postings> postings = new ArrayList<>();
+        List<Float> idfs = new ArrayList<>();
+        if (prefix) {
+            // 完整比對的詞一定保留；其餘依文件數保留最多的幾個 (字典序在後的常用詞不會被罕見詞擠掉)
+            Postings exact = current.terms().get(token);
+            if (exact != null) {
+                postings.add(exact);
+                idfs.add(idf(exact.size(), docCount));
+            }
+            int room = MAX_PREFIX_EXPANSION - postings.size();
+            PriorityQueue<Postings> widest = new PriorityQueue<>(room, Comparator.comparingInt(Postings::size));
+            for (Postings candidate : current.terms()
+                    .subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                if (widest.size() < room) {
+                    widest.add(candidate);
+                } else if (candidate.size() > widest.peek().size()) {
+                    widest.poll();
+                    widest.add(candidate);
+                }
+            }
+            for (Postings expanded : widest) {
+                postings.add(expanded);
+                idfs.add(idf(expanded.size(), docCount) * PREFIX_FACTOR);
+            }
+        } else {
+            Postings exact = current.terms().get(token);
+            if (exact != null) {
+                postings.add(exact);
+                idfs.add(idf(exact.size(), docCount));
+            }
+        }
+        return postings.isEmpty() ? null : new Clause(postings, idfs);
+    }
+
+    /** BM25 形式的 idf，越罕見的詞分數越高 */
+    private static float idf(int df, int docCount) {
+        return (float) Math.log(1.0 + (docCount - df + 0.5) / (df + 0.5));
+    }
+
+    public int size() {
+        return state.docs().size();
+    }
+
+    // --- 更新 ---
+
+    /**
+     * 依新舊快照的差異同步索引。
+     * @param scope 本次異動的 bookId；為 null 時比對整份快照
+     */
+    public void sync(CatalogSnapshot previous, CatalogSnapshot next, Collection<Long> scope) {
+        writeLock.lock();
+        try {
+            List<BookDetail> upserts = new ArrayList<>();
+            List<Long> removals = new ArrayList<>();
+            if (scope != null) {
+                for (Long id : scope) {
+                    BookDetail book = next.findById(id);
+                    if (book == null) {
+                        removals.add(id);
+                    } else if (indexedFieldsChanged(previous.findById(id), book)) {
+                        upserts.add(book);
+                    }
+                }
+            } else {
+                for (BookDetail book : next.all()) {
+                    if (indexedFieldsChanged(previous.findById(book.bookId()), book)) {
+                        upserts.add(book);
+                    }
+                }
+                for (BookDetail book : previous.all()) {
+                    if (next.findById(book.bookId()) == null) {
+                        removals.add(book.bookId());
+                    }
+                }
+            }
+
+            // 索引為空 (啟動時) 或異動量大時，整份重建比逐筆 copy-on-write 便宜
+            int changes = upserts.size() + removals.size();
+            if (state.docs().isEmpty() || changes > Math.max(1000, next.size() / 10)) {
+                rebuild(next.all());
+                return;
+            }
+            if (changes == 0) {
+                return;
+            }
+            // 在複本上套用整批異動再替換：同一批的刪除與新增對查詢端是同時生效的
+            IndexState current = state;
+            IndexState copy = new IndexState(new TreeMap<>(current.terms()), new HashMap<>(current.docs()));
+            removals.forEach(id -> remove(copy, id));
+            upserts.forEach(book -> upsert(copy, book));
+            state = copy;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 整份重建：在新的結構上建好後一次替換，查詢端不會看到半成品
+     */
+    public void rebuild(Collection<BookDetail> books) {
+        writeLock.lock();
+        try {
+            List<BookDetail> sorted = new ArrayList<>(books);
+            sorted.sort(Comparator.comparing(BookDetail::bookId));
+
+            Map<String, PostingsBuilder> builders = new HashMap<>();
+            Map<Long, Map<String, Float>> docs = new HashMap<>();
+            for (BookDetail book : sorted) {
+                Map<String, Float> weights = weigh(book);
+                docs.put(book.bookId(), weights);
+                weights.forEach((term, w) ->
+                        builders.computeIfAbsent(term, t -> new PostingsBuilder()).add(book.bookId(), w));
+            }
+            NavigableMap<String, Postings> terms = new TreeMap<>();
+            builders.forEach((term, builder) -> terms.put(term, builder.build()));
+            state = new IndexState(terms, docs);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // upsert / remove 只用在尚未發布的複本上
+    private void upsert(IndexState current, BookDetail book) {
+        Long id = book.bookId();
+        Map<String, Float> weights = weigh(book);
+        Map<String, Float> old = current.docs().get(id);
+        if (weights.equals(old)) {
+            return;
+        }
+        if (old != null) {
+            old.keySet().stream()
+                    .filter(term -> !weights.containsKey(term))
+                    .forEach(term -> removePosting(current, term, id));
+        }
+        weights.forEach((term, w) -> current.terms().merge(term, Postings.single(id, w),
+                (existing, ignored) -> existing.with(id, w)));
+        current.docs().put(id, weights);
+    }
+
+    private static void remove(IndexState current, Long id) {
+        Map<String, Float> old = current.docs().remove(id);
+        if (old != null) {
+            old.keySet().forEach(term -> removePosting(current, term, id));
+        }
+    }
+
+    private static void removePosting(IndexState current, String term, long id) {
+        current.terms().computeIfPresent(term, (t, postings) -> {
+            Postings next = postings.without(id);
+            return next.size() == 0 ? null : next;
+        });
+    }
+
+    /**
+     * 計算單本書各 term 的權重：Σ 欄位權重 × (1 + ln(tf))
+     */
+    private Map<String, Float> weigh(BookDetail book) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, book.title(), TITLE_WEIGHT);
+        addField(weights, book.author(), AUTHOR_WEIGHT);
+        addField(weights, book.isbn(), ISBN_WEIGHT);
+        addField(weights, book.description(), DESCRIPTION_WEIGHT);
+        return weights;
+    }
+
+    private void addField(Map<String, Float> weights, String text, float fieldWeight) {
+        Map<String, Integer> tf = new HashMap<>();
+        for (String token : tokenizer.tokenize(text)) {
+            tf.merge(token, 1, Integer::sum);
+        }
+        tf.forEach((term, count) ->
+                weights.merge(term, fieldWeight * (1.0f + (float) Math.log(count)), Float::sum));
+    }
+
+    private static boolean indexedFieldsChanged(BookDetail before, BookDetail after) {
+        return before == null
+                || !Objects.equals(before.title(), after.title())
+                || !Objects.equals(before.author(), after.author())
+                || !Objects.equals(before.isbn(), after.isbn())
+                || !Objects.equals(before.description(), after.description());
+    }
+
+    // --- 內部資料結構 ---
+
+    private record Hit(long bookId, float score) {
+        // 分數低的排前面 (min-heap)；同分時 bookId 大的視為較差，讓結果順序穩定
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingLong(Hit::bookId).reversed());
+    }
+
+    /** 單一查詢詞：可能因前綴展開而對應多份 posting list，取其中最高分 */
+    private record Clause(List<Postings> postings, List<Float> idfs) {
+
+        int size() {
+            return postings.stream().mapToInt(Postings::size).sum();
+        }
+
+        long[] docIds() {
+            if (postings.size() == 1) {
+                return postings.get(0).docIds();
+            }
+            return postings.stream().flatMapToLong(p -> Arrays.stream(p.docIds())).sorted().distinct().toArray();
+        }
+
+        float score(long doc) {
+            float best = -1f;
+            for (int i = 0; i < postings.size(); i++) {
+                float w = postings.get(i).weightOf(doc);
+                if (w >= 0) {
+                    best = Math.max(best, w * idfs.get(i));
+                }
+            }
+            return best;
+        }
+    }
+
+    /** 依 bookId 排序的不可變 posting list */
+    private record Postings(long[] docIds, float[] weights) {
+
+        static Postings single(long doc, float weight) {
+            return new Postings(new long[]{doc}, new float[]{weight});
+        }
+
+        int size() {
+            return docIds.length;
+        }
+
+        float weightOf(long doc) {
+            int i = Arrays.binarySearch(docIds, doc);
+            return i >= 0 ? weights[i] : -1f;
+        }
+
+        Postings with(long doc, float weight) {
+            int i = Arrays.binarySearch(docIds, doc);
+            if (i >= 0) {
+                float[] w = weights.clone();
+                w[i] = weight;
+                return new Postings(docIds, w);
+            }
+            int at = -i - 1;
+            long[] d = new long[docIds.length + 1];
+            float[] w = new float[weights.length + 1];
+            System.arraycopy(docIds, 0, d, 0, at);
+            System.arraycopy(weights, 0, w, 0, at);
+            d[at] = doc;
+            w[at] = weight;
+            System.arraycopy(docIds, at, d, at + 1, docIds.length - at);
+            System.arraycopy(weights, at, w, at + 1, weights.length - at);
+            return new Postings(d, w);
+        }
+
+        Postings without(long doc) {
+            int i = Arrays.binarySearch(docIds, doc);
+            if (i < 0) {
+                return this;
+            }
+            long[] d = new long[docIds.length - 1];
+            float[] w = new float[weights.length - 1];
+            System.arraycopy(docIds, 0, d, 0, i);
+            System.arraycopy(weights, 0, w, 0, i);
+            System.arraycopy(docIds, i + 1, d, i, docIds.length - i - 1);
+            System.arraycopy(weights, i + 1, w, i, weights.length - i - 1);
+            return new Postings(d, w);
+        }
+    }
+
+    /** 整份重建時使用的可成長陣列，依 bookId 遞增順序 append */
+    private static final class PostingsBuilder {
+        private long[] docIds = new long[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(long doc, float weight) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docIds[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        Postings build() {
+            return new Postings(Arrays.copyOf(docIds, size), Arrays.copyOf(weights, size));
+        }
+    }
+}
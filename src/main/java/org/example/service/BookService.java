@@ -1,24 +1,65 @@
 package org.example.service;
 
+import io.micrometer.core.annotation.Timed;
+import org.example.dto.BookDetail;
+import org.example.dto.BookPatchRequest;
+import org.example.dto.BookPatchResult;
 import org.example.dto.BookRequest;
+import org.example.dto.CatalogStatsDTO;
+import org.example.dto.CursorPage;
+import org.example.dto.InventoryStatusDTO;
 import org.example.entity.Book;
 import org.example.entity.Language;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookRepository;
+import org.example.repository.BookRepositoryCustom.StockRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Timed("bookstore.service")
 public class BookService {
 
+    static final String DUPLICATE_ISBN = "ISBN 國際標準書號已存在";
+
     private final BookRepository bookRepository;
+    private final CatalogReadModel catalog;
+    private final CatalogPageCache catalogPages;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryService inventoryService;
+
+    // 所有列表 API 每頁筆數的上限
+    @Value("${application.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    // 關鍵字搜尋最多可翻到的結果筆數
+    @Value("${application.pagination.max-search-results:10000}")
+    private int maxSearchResults = 10000;
+
+    // 批次修改一次最多的書籍數
+    @Value("${application.book-patch.max-size:5000}")
+    private int maxPatchSize = 5000;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, CatalogReadModel catalog, CatalogPageCache catalogPages,
+                       ApplicationEventPublisher eventPublisher, InventoryService inventoryService) {
         this.bookRepository = bookRepository;
+        this.catalog = catalog;
+        this.catalogPages = catalogPages;
+        this.eventPublisher = eventPublisher;
+        this.inventoryService = inventoryService;
     }
 
     private Language parseLanguage(String langString) {
@@ -32,33 +73,88 @@ public class BookService {
         }
     }
 
-    // --- 前台查詢邏輯 ---
+    // --- 前台查詢邏輯 (一律讀取記憶體快照，不經過資料庫) ---
 
-    public List<Book> getOnsaleBooksByLang(String lang) {
+    /**
+     * 依語言查詢上架書籍 (Keyset 分頁，依 bookId 遞增)，回傳預先序列化的 BookSummary JSON 陣列
+     * @param cursor 上一頁回傳的游標，第一頁為 null
+     * @param size   每頁筆數，上限為 application.pagination.max-page-size
+     */
+    public CatalogPages.Page getOnsaleBookSummariesByLang(String lang, String cursor, Integer size) {
         Language language = parseLanguage(lang);
-        return bookRepository.findByLangAndIsOnsaleTrue(language);
+        int pageSize = PageCursor.pageSize(size, maxPageSize);
+        long afterId = cursor == null ? 0L : PageCursor.decodeId(cursor);
+        return catalogPages.current().page(language, afterId, pageSize);
     }
 
-    public List<Book> searchOnsaleBooks(String keyword) {
-        return bookRepository.searchBooks(keyword);
+    /**
+     * 全文檢索上架書籍，結果依相關度排序並分頁
+     * @param page 頁碼 (從 0 開始)
+     * @param size 每頁筆數，上限為 application.pagination.max-page-size
+     * @throws RuntimeException 超過 application.pagination.max-search-results 的頁碼
+     */
+    public Page<BookDetail> searchOnsaleBooks(String keyword, int page, int size) {
+        int pageSize = PageCursor.pageSize(size, maxPageSize);
+        int pageNumber = Math.max(page, 0);
+        // 以 long 計算，極大的頁碼不會溢位成負數
+        if ((long) pageNumber * pageSize + pageSize > maxSearchResults) {
+            throw new RuntimeException("搜尋結果最多只能瀏覽前 " + maxSearchResults + " 筆");
+        }
+        return catalog.search(keyword, pageNumber, pageSize);
     }
 
-    public Optional<Book> getOnsaleBookById(Long id) {
-        Optional<Book> book = bookRepository.findById(id);
-        if (book.isPresent() && book.get().getIsOnsale()) {
-            return book;
-        }
-        return Optional.empty();
+    public Optional<BookDetail> getOnsaleBookById(Long id) {
+        // 快照只收錄上架書籍，下架或不存在都會回傳 empty
+        return catalog.findById(id);
+    }
+
+    /**
+     * 前台目錄的版本 (HTTP ETag 用)：快照內容有變動才會遞增
+     */
+    public long getCatalogVersion() {
+        return catalog.current().version();
+    }
+
+    /**
+     * 單本書最後一次變動時的快照版本 (HTTP ETag 用)，下架或不存在時為 0
+     */
+    public long getBookVersion(Long id) {
+        return catalog.current().bookVersion(id);
+    }
+
+    public CatalogStatsDTO getCatalogStats() {
+        return catalog.stats();
     }
 
     // --- 後台管理邏輯 ---
 
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    /**
+     * 後台書籍列表 (含下架書籍，Keyset 分頁，依 bookId 遞增)
+     */
+    public CursorPage<Book> getAllBooks(String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size, maxPageSize);
+        long afterId = cursor == null ? 0L : PageCursor.decodeId(cursor);
+        List<Book> books = bookRepository.findPageWithTotals(afterId, pageSize + 1);
+        return PageCursor.page(books, pageSize, book -> PageCursor.encode(book.getBookId()), book -> book);
     }
 
     @Transactional
     public Book createBook(BookRequest request) {
+        validateNewBook(request);
+        if (bookRepository.existsByIsbn(request.getIsbn())) {
+            throw new RuntimeException(DUPLICATE_ISBN);
+        }
+
+        Book saved = bookRepository.save(toNewBook(request));
+        // 交易提交後才會更新前台快照
+        eventPublisher.publishEvent(BookChangedEvent.of(saved.getBookId()));
+        return saved;
+    }
+
+    /**
+     * 新增書籍的欄位驗證 (ISBN 是否重複由呼叫端檢查；批次匯入以 IN 查詢一次檢查一批)
+     */
+    void validateNewBook(BookRequest request) {
         // 標題驗證
         if (request.getTitle() == null || request.getTitle().trim().isEmpty()) {
             throw new RuntimeException("書名不可為空");
@@ -67,10 +163,12 @@ public class BookService {
         if (request.getPrice() != null && request.getPrice().compareTo(BigDecimal.ZERO) < 0) {
             throw new RuntimeException("價格不可為負數");
         }
-        if (bookRepository.existsByIsbn(request.getIsbn())) {
-            throw new RuntimeException("ISBN 國際標準書號已存在");
-        }
+    }
 
+    /**
+     * 依請求建立尚未保存的書籍 (未填的上架狀態為下架、出版日為今天)
+     */
+    Book toNewBook(BookRequest request) {
         Language bookLang = parseLanguage(request.getLang());
 
         Book newBook = new Book();
@@ -85,8 +183,7 @@ public class BookService {
 
         newBook.setIsOnsale(request.getIsOnsale() != null ? request.getIsOnsale() : false);
         newBook.setPublishedDate(request.getPublishedDate() != null ? request.getPublishedDate() : LocalDate.now());
-
-        return bookRepository.save(newBook);
+        return newBook;
     }
 
     @Transactional
@@ -100,7 +197,8 @@ public class BookService {
             throw new RuntimeException("價格不可為負數");
         }
 
-        Book book = bookRepository.findById(id)
+        // 鎖定書籍列再修改：存回時會寫入整列 (含庫存)，不鎖定的話會蓋掉讀取後才提交的結帳扣庫存
+        Book book = bookRepository.lockById(id)
                 .orElseThrow(() -> new RuntimeException("書籍 ID: " + id + " 未找到"));
 
         Language bookLang = parseLanguage(request.getLang());
@@ -108,22 +206,151 @@ public class BookService {
         book.setTitle(request.getTitle());
         book.setAuthor(request.getAuthor());
         book.setPrice(request.getPrice());
-        book.setStock(request.getStock());
+        if (book.isStockStriped() && request.getStock() != null) {
+            // 分桶庫存：依新的總庫存重新分配到各子計數器
+            inventoryService.resetStock(id, request.getStock());
+        } else {
+            book.setStock(request.getStock());
+        }
         book.setDescription(request.getDescription());
         book.setLang(bookLang);
         book.setImageUrl(request.getImageUrl());
         book.setPublishedDate(request.getPublishedDate());
         book.setIsOnsale(request.getIsOnsale() != null ? request.getIsOnsale() : book.getIsOnsale());
 
-        return bookRepository.save(book);
+        bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.of(id));
+        return reloadWithTotals(id);
     }
 
     @Transactional
     public Book updateBookStatus(Long id, boolean onsale) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("書籍 ID: " + id + " 未找到"));
+        if (!bookRepository.existsById(id)) {
+            throw new RuntimeException("書籍 ID: " + id + " 未找到");
+        }
+        // 只更新 is_onsale 欄位，不載入後整列存回 (否則會把讀取後才提交的結帳扣庫存蓋回去)
+        bookRepository.updateOnsale(Map.of(id, onsale));
+        eventPublisher.publishEvent(BookChangedEvent.of(id));
+        return reloadWithTotals(id);
+    }
+
+    /**
+     * 回傳給後台的書籍帶上評分彙總與分桶總庫存 (同一交易內，先寫出剛才的異動再查詢)
+     */
+    private Book reloadWithTotals(Long id) {
+        return bookRepository.findAllWithTotalsById(List.of(id)).get(0);
+    }
+
+    /**
+     * 批次修改價格、庫存 (增減量) 與上架狀態，每本書只更新有填的欄位。
+     * 先依 bookId 順序鎖定書籍列逐本檢查，再每個欄位送出一條 UPDATE ... SET 欄位 = CASE book_id WHEN ... END，
+     * 不逐本載入與存回。每本書各自成功或失敗 (庫存不足時該本的其他欄位也不修改)；
+     * 分桶庫存的書籍由 InventoryService 調整子計數器。整批只發布一次 BookChangedEvent。
+     * @return 依請求順序的每本書結果
+     */
+    @Transactional
+    public List<BookPatchResult> patchBooks(List<BookPatchRequest> patches) {
+        if (patches == null || patches.isEmpty()) {
+            throw new RuntimeException("未指定要更新的書籍");
+        }
+        if (patches.size() > maxPatchSize) {
+            throw new RuntimeException("一次最多更新 " + maxPatchSize + " 本書");
+        }
+
+        BookPatchResult[] results = new BookPatchResult[patches.size()];
+        Map<Long, Integer> indexById = new LinkedHashMap<>();
+        for (int i = 0; i < patches.size(); i++) {
+            BookPatchRequest patch = patches.get(i);
+            String invalid = validatePatch(patch);
+            if (invalid == null && indexById.putIfAbsent(patch.getBookId(), i) != null) {
+                invalid = "書籍 ID: " + patch.getBookId() + " 重複";
+            }
+            if (invalid != null) {
+                results[i] = new BookPatchResult(patch == null ? null : patch.getBookId(),
+                        BookPatchResult.Status.INVALID, invalid);
+            }
+        }
+
+        Map<Long, StockRow> rows = bookRepository.lockStockRows(indexById.keySet());
+        Map<Long, Integer> stripedDeltas = new HashMap<>();
+        Map<Long, Integer> bucketCounts = new HashMap<>();
+        indexById.forEach((id, i) -> {
+            StockRow row = rows.get(id);
+            Integer delta = patches.get(i).getStockDelta();
+            if (row == null) {
+                results[i] = new BookPatchResult(id, BookPatchResult.Status.NOT_FOUND, "書籍 ID: " + id + " 未找到");
+            } else if (delta != null && row.buckets() > 0) {
+                stripedDeltas.put(id, delta);
+                bucketCounts.put(id, row.buckets());
+            } else if (delta != null && (long) row.stock() + delta < 0) {
+                results[i] = new BookPatchResult(id, BookPatchResult.Status.INSUFFICIENT_STOCK,
+                        "庫存不足，目前庫存 " + row.stock());
+            } else if (delta != null && (long) row.stock() + delta > Integer.MAX_VALUE) {
+                results[i] = new BookPatchResult(id, BookPatchResult.Status.INVALID, "調整後庫存超出上限");
+            }
+        });
+        // 分桶書籍先調整庫存，扣不到的整本不更新
+        for (Long id : inventoryService.adjustStripedStock(stripedDeltas, bucketCounts)) {
+            results[indexById.get(id)] = new BookPatchResult(id, BookPatchResult.Status.INSUFFICIENT_STOCK, "庫存不足");
+        }
+
+        // 每個欄位一條 CASE UPDATE，不因不同的值數量而增加 SQL
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        Map<Long, Integer> stockDeltas = new HashMap<>();
+        Map<Long, Boolean> onsale = new HashMap<>();
+        List<Long> updatedIds = new ArrayList<>();
+        indexById.forEach((id, i) -> {
+            if (results[i] != null) {
+                return;
+            }
+            BookPatchRequest patch = patches.get(i);
+            if (patch.getPrice() != null) {
+                prices.put(id, patch.getPrice());
+            }
+            if (patch.getStockDelta() != null && !stripedDeltas.containsKey(id)) {
+                stockDeltas.put(id, patch.getStockDelta());
+            }
+            if (patch.getIsOnsale() != null) {
+                onsale.put(id, patch.getIsOnsale());
+            }
+            results[i] = BookPatchResult.updated(id);
+            updatedIds.add(id);
+        });
+        bookRepository.updatePrices(prices);
+        bookRepository.addStock(stockDeltas);
+        bookRepository.updateOnsale(onsale);
+
+        if (!updatedIds.isEmpty()) {
+            // 交易提交後才會更新前台快照 (一批一次)
+            eventPublisher.publishEvent(BookChangedEvent.of(updatedIds));
+        }
+        return Arrays.asList(results);
+    }
+
+    private static String validatePatch(BookPatchRequest patch) {
+        if (patch == null || patch.getBookId() == null) {
+            return "書籍 ID 不可為空";
+        }
+        if (patch.getPrice() == null && patch.getStockDelta() == null && patch.getIsOnsale() == null) {
+            return "未指定要更新的欄位 (price、stockDelta、isOnsale)";
+        }
+        if (patch.getPrice() != null && patch.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            return "價格不可為負數";
+        }
+        return null;
+    }
+
+    // --- 熱門書籍分桶庫存 ---
+
+    public InventoryStatusDTO enableStockBuckets(Long id, int buckets) {
+        return inventoryService.enableBuckets(id, buckets);
+    }
+
+    public InventoryStatusDTO disableStockBuckets(Long id) {
+        return inventoryService.disableBuckets(id);
+    }
 
-        book.setIsOnsale(onsale);
-        return bookRepository.save(book);
+    public InventoryStatusDTO getInventoryStatus(Long id) {
+        return inventoryService.getStatus(id);
     }
 }
@@ -0,0 +1,40 @@
+package org.example.service;
+
+import org.example.event.OutboxMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 轉送到訊息佇列 (目前為 LocalMessageBroker)，主題為 bookstore.{aggregateType}，例如 bookstore.order
+ */
+@Component
+@ConditionalOnProperty(name = "application.outbox.broker.enabled", havingValue = "true")
+public class BrokerOutboxSink implements OutboxSink {
+
+    static final String TOPIC_PREFIX = "bookstore.";
+
+    private final LocalMessageBroker broker;
+
+    public BrokerOutboxSink(LocalMessageBroker broker) {
+        this.broker = broker;
+    }
+
+    public static String topicOf(String aggregateType) {
+        return TOPIC_PREFIX + aggregateType.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String name() {
+        return "broker";
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> batch) {
+        for (OutboxMessage message : batch) {
+            broker.publish(topicOf(message.aggregateType()), message);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.example.dto.CartItemRequest;
 import org.example.entity.Book;
 import org.example.entity.CartItem;
@@ -13,6 +14,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("bookstore.service")
 public class CartService {
 
     private final CartItemRepository cartItemRepository;
@@ -30,10 +32,10 @@ public class CartService {
     /**
      * 獲取會員的購物車內容
      * @param userId 會員 ID
-     * @return 購物車明細列表
+     * @return 購物車明細列表 (連同書籍一次載入，回應序列化時不需 lazy 載入)
      */
     public List<CartItem> getCartItems(Long userId) {
-        return cartItemRepository.findByUserUserId(userId);
+        return cartItemRepository.findWithBookByUserId(userId);
     }
 
     /**
@@ -53,6 +55,7 @@ public class CartService {
 
         Book book = bookRepository.findById(req.getBookId())
                 .orElseThrow(() -> new RuntimeException("書籍不存在"));
+        bookRepository.loadBucketStock(List.of(book));
 
         // 檢查庫存
         if (req.getQuantity() > book.getStock()) {
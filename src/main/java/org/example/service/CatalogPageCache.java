@@ -0,0 +1,40 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.dto.BookSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 保存目前目錄快照對應的 {@link CatalogPages}。
+ * 由 CatalogReadModel 在發布新快照之前 (寫入端，持有重建鎖) 呼叫 {@link #sync} 建好，
+ * 讀取的請求不會觸發重建，也完全無鎖。
+ */
+@Component
+public class CatalogPageCache {
+
+    private final ObjectWriter writer;
+
+    private volatile CatalogPages pages = CatalogPages.EMPTY;
+
+    // 預先切頁使用的每頁筆數，與列表 API 未指定 size 時的預設值相同
+    @Value("${application.pagination.max-page-size:100}")
+    private int pageSize = 100;
+
+    public CatalogPageCache(ObjectMapper objectMapper) {
+        // 使用 Spring 設定好的 ObjectMapper，輸出格式 (日期等) 與一般 API 相同
+        this.writer = objectMapper.writerFor(BookSummary.class);
+    }
+
+    public CatalogPages current() {
+        return pages;
+    }
+
+    /**
+     * 依新快照重建，只由 CatalogReadModel 在重建鎖內呼叫
+     */
+    void sync(CatalogSnapshot next) {
+        pages = CatalogPages.build(next, pages, writer, pageSize);
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.dto.BookDetail;
+import org.example.dto.BookSummary;
+import org.example.entity.Language;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 前台語言列表的預先序列化結果，對應某一版 {@link CatalogSnapshot}，建好後不再修改。
+ * 每本書的 BookSummary JSON 只在該書內容變動 (書籍版本改變) 時重新序列化；
+ * 依預設每頁筆數切好的各頁 JSON 與 gzip 壓縮結果也預先產生，請求時只需複製位元組。
+ */
+public final class CatalogPages {
+
+    /**
+     * 一頁已序列化的 BookSummary JSON 陣列
+     * @param json       未壓縮的 JSON
+     * @param gzip       gzip 壓縮後的 JSON，只有預先切好的頁才有，其餘為 null
+     * @param nextCursor 下一頁游標，null 代表已經是最後一頁
+     */
+    public record Page(byte[] json, byte[] gzip, String nextCursor) {
+
+        /**
+         * gzip 壓縮後的 JSON：預先切好的頁直接回傳，其餘即時壓縮
+         */
+        public byte[] gzipped() {
+            return gzip != null ? gzip : CatalogPages.gzip(json);
+        }
+    }
+
+    private record Fragment(long version, byte[] json) {
+    }
+
+    static final CatalogPages EMPTY = new CatalogPages(CatalogSnapshot.EMPTY, 0, Map.of(), Map.of());
+
+    private final CatalogSnapshot snapshot;
+    private final int pageSize;
+    private final Map<Long, Fragment> fragments;
+    // 語言 -> (上一頁最後一筆的 bookId -> 預先切好的頁)
+    private final Map<Language, Map<Long, Page>> pages;
+
+    private CatalogPages(CatalogSnapshot snapshot, int pageSize, Map<Long, Fragment> fragments,
+                         Map<Language, Map<Long, Page>> pages) {
+        this.snapshot = snapshot;
+        this.pageSize = pageSize;
+        this.fragments = fragments;
+        this.pages = pages;
+    }
+
+    /**
+     * 依快照建立，上一版中書籍版本相同的 JSON 片段直接沿用；
+     * 書籍清單與各書 JSON 片段都沒變的語言，直接沿用上一版切好的頁 (不重新串接與壓縮)
+     */
+    static CatalogPages build(CatalogSnapshot snapshot, CatalogPages previous, ObjectWriter writer, int pageSize) {
+        Map<Long, Fragment> fragments = new HashMap<>();
+        for (BookDetail book : snapshot.all()) {
+            long version = snapshot.bookVersion(book.bookId());
+            Fragment old = previous.fragments.get(book.bookId());
+            fragments.put(book.bookId(), old != null && old.version() == version
+                    ? old : new Fragment(version, serialize(writer, book)));
+        }
+
+        Map<Language, Map<Long, Page>> pages = new EnumMap<>(Language.class);
+        for (Language lang : Language.values()) {
+            List<BookDetail> books = snapshot.findByLang(lang);
+            if (pageSize == previous.pageSize && unchanged(books, previous.snapshot.findByLang(lang),
+                    fragments, previous.fragments)) {
+                pages.put(lang, previous.pages.get(lang));
+                continue;
+            }
+            Map<Long, Page> byAfterId = new HashMap<>();
+            for (int from = 0; from < books.size(); from += pageSize) {
+                int to = Math.min(books.size(), from + pageSize);
+                long afterId = from == 0 ? 0L : books.get(from - 1).bookId();
+                byte[] json = join(fragments, books.subList(from, to));
+                String next = to < books.size() ? PageCursor.encode(books.get(to - 1).bookId()) : null;
+                byAfterId.put(afterId, new Page(json, gzip(json), next));
+            }
+            pages.put(lang, byAfterId);
+        }
+        return new CatalogPages(snapshot, pageSize, fragments, Collections.unmodifiableMap(pages));
+    }
+
+    CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // 同一語言的書籍順序相同，且每本書都沿用上一版的 JSON 片段
+    private static boolean unchanged(List<BookDetail> books, List<BookDetail> previousBooks,
+                                     Map<Long, Fragment> fragments, Map<Long, Fragment> previousFragments) {
+        if (books.size() != previousBooks.size()) {
+            return false;
+        }
+        for (int i = 0; i < books.size(); i++) {
+            Long id = books.get(i).bookId();
+            if (!id.equals(previousBooks.get(i).bookId()) || fragments.get(id) != previousFragments.get(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 指定語言中 bookId 大於 afterId 的一頁 (Keyset 分頁)。
+     * 預設每頁筆數且游標落在頁界時回傳預先切好的頁，否則以各書的 JSON 片段即時串接 (不經過 Jackson)
+     */
+    public Page page(Language lang, long afterId, int size) {
+        if (size == pageSize) {
+            Page prepared = pages.getOrDefault(lang, Map.of()).get(afterId);
+            if (prepared != null) {
+                return prepared;
+            }
+        }
+        List<BookDetail> books = snapshot.findByLangAfter(lang, afterId, size + 1);
+        boolean hasNext = books.size() > size;
+        List<BookDetail> rows = hasNext ? books.subList(0, size) : books;
+        String next = hasNext ? PageCursor.encode(rows.get(rows.size() - 1).bookId()) : null;
+        return new Page(join(fragments, rows), null, next);
+    }
+
+    private static byte[] serialize(ObjectWriter writer, BookDetail book) {
+        try {
+            return writer.writeValueAsBytes(BookSummary.from(book));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("書籍 " + book.bookId() + " 序列化失敗", e);
+        }
+    }
+
+    private static byte[] join(Map<Long, Fragment> fragments, List<BookDetail> books) {
+        int length = 2 + Math.max(0, books.size() - 1);
+        for (BookDetail book : books) {
+            length += fragments.get(book.bookId()).json().length;
+        }
+        byte[] out = new byte[length];
+        int pos = 0;
+        out[pos++] = '[';
+        for (int i = 0; i < books.size(); i++) {
+            if (i > 0) {
+                out[pos++] = ',';
+            }
+            byte[] json = fragments.get(books.get(i).bookId()).json();
+            System.arraycopy(json, 0, out, pos, json.length);
+            pos += json.length;
+        }
+        out[pos] = ']';
+        return out;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
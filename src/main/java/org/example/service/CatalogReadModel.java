@@ -0,0 +1,220 @@
+package org.example.service;
+
+import org.example.dto.BookDetail;
+import org.example.dto.CatalogStatsDTO;
+import org.example.entity.Book;
+import org.example.entity.Language;
+import org.example.event.BookChangedEvent;
+import org.example.event.ReviewChangedEvent;
+import org.example.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 前台書籍目錄的記憶體讀取模型 (Read Model)。
+ * 前台查詢一律讀取 {@link CatalogSnapshot}，不再經過資料庫；
+ * 書籍寫入交易提交後，依 {@link BookChangedEvent} 增量重建快照並原子替換，
+ * 同時把差異同步到 {@link BookSearchIndex} 與 {@link CatalogPageCache}。
+ */
+@Service
+public class CatalogReadModel {
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex searchIndex;
+    private final CatalogPageCache pageCache;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    // 寫入端 (重建) 互斥，讀取端完全無鎖
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong rebuildCount = new AtomicLong();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+    private final AtomicLong totalRebuildMillis = new AtomicLong();
+    private volatile OffsetDateTime lastRebuiltAt;
+
+    public CatalogReadModel(BookRepository bookRepository, BookSearchIndex searchIndex, CatalogPageCache pageCache) {
+        this.bookRepository = bookRepository;
+        this.searchIndex = searchIndex;
+        this.pageCache = pageCache;
+    }
+
+    // --- 查詢 ---
+
+    public Optional<BookDetail> findById(Long id) {
+        return record(snapshot.get().findById(id));
+    }
+
+    public Optional<BookDetail> findByIsbn(String isbn) {
+        return record(snapshot.get().findByIsbn(isbn));
+    }
+
+    public List<BookDetail> findByLang(Language lang) {
+        List<BookDetail> books = snapshot.get().findByLang(lang);
+        (books.isEmpty() ? misses : hits).increment();
+        return books;
+    }
+
+    /**
+     * 全文檢索：透過倒排索引取得依相關度排序的 bookId，再從快照取出書籍
+     * @param page 頁碼 (從 0 開始)
+     * @param size 每頁筆數
+     */
+    public Page<BookDetail> search(String keyword, int page, int size) {
+        CatalogSnapshot current = snapshot.get();
+        BookSearchIndex.SearchHits searchHits = searchIndex.search(keyword, page * size, size);
+        List<BookDetail> books = new ArrayList<>(searchHits.bookIds().size());
+        for (Long id : searchHits.bookIds()) {
+            BookDetail book = current.findById(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        (books.isEmpty() ? misses : hits).increment();
+        return new PageImpl<>(books, PageRequest.of(page, size), searchHits.total());
+    }
+
+    public CatalogSnapshot current() {
+        return snapshot.get();
+    }
+
+    private Optional<BookDetail> record(BookDetail book) {
+        (book == null ? misses : hits).increment();
+        return Optional.ofNullable(book);
+    }
+
+    // --- 重建 ---
+
+    /**
+     * 啟動完成後載入完整快照
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定期整份重建：庫存會被結帳流程直接修改，藉此限制快照中庫存數字的落後時間
+     */
+    @Scheduled(initialDelayString = "${application.catalog.refresh-interval-ms:60000}",
+            fixedDelayString = "${application.catalog.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        rebuild();
+    }
+
+    /**
+     * 書籍寫入交易提交後才套用異動，交易回滾時不會觸發
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.fullRefresh()) {
+            rebuild();
+        } else {
+            refresh(event.bookIds());
+        }
+    }
+
+    /**
+     * 評論提交後重新讀取該書，讓快照中的評分彙總 (ratingCount / ratingAverage) 跟著更新
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        refresh(List.of(event.bookId()));
+    }
+
+    /**
+     * 從資料庫讀取全部上架書籍，建立新的快照
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            List<Book> books = bookRepository.findOnsaleWithTotals();
+            CatalogSnapshot current = snapshot.get();
+            CatalogSnapshot next = CatalogSnapshot.of(books, current.version() + 1, current);
+            if (next.hasChanges()) {
+                swap(current, next, null, start);
+            } else {
+                // 內容完全相同時保留原快照與版本，定期重建不會讓前端持有的 ETag 全部失效
+                recordRebuild(start);
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 只重新讀取指定的書籍，並以目前快照為基礎產生新版本
+     */
+    public void refresh(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            Set<Long> changedIds = new HashSet<>(bookIds);
+            List<Book> reloaded = bookRepository.findAllWithTotalsById(changedIds);
+            CatalogSnapshot current = snapshot.get();
+            swap(current, current.withChanges(reloaded, changedIds, current.version() + 1), changedIds, start);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 替換快照並依差異同步全文索引與預先序列化的列表頁
+     * @param scope 本次異動的 bookId，null 代表整份比對
+     */
+    private void swap(CatalogSnapshot previous, CatalogSnapshot next, Set<Long> scope, long startNanos) {
+        // 先同步索引與列表頁再發布快照：讀到新版本號時，搜尋結果與列表一定也是新的 (ETag 不會標在舊內容上)；
+        // 列表頁的序列化與壓縮都在寫入端完成，不落在快照替換後的第一個讀取請求上
+        searchIndex.sync(previous, next, scope);
+        pageCache.sync(next);
+        snapshot.set(next);
+        recordRebuild(startNanos);
+    }
+
+    private void recordRebuild(long startNanos) {
+        long elapsed = (System.nanoTime() - startNanos) / 1_000_000;
+        rebuildCount.incrementAndGet();
+        lastRebuildMillis.set(elapsed);
+        totalRebuildMillis.addAndGet(elapsed);
+        lastRebuiltAt = OffsetDateTime.now();
+    }
+
+    // --- 統計 ---
+
+    public CatalogStatsDTO stats() {
+        CatalogSnapshot current = snapshot.get();
+        return CatalogStatsDTO.builder()
+                .version(current.version())
+                .bookCount(current.size())
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .rebuildCount(rebuildCount.get())
+                .lastRebuildMillis(lastRebuildMillis.get())
+                .totalRebuildMillis(totalRebuildMillis.get())
+                .lastRebuiltAt(lastRebuiltAt)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.service;
+
+import org.example.dto.BookDetail;
+import org.example.entity.Book;
+import org.example.entity.Language;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 上架書籍的不可變快照 (Immutable Snapshot)。
+ * 書籍以不可變的 {@link BookDetail} 保存 (建立時由 Book 實體複製)，前台直接輸出也不會被改動；
+ * 建好之後所有索引都不會再被修改，讀取端不需要任何鎖；
+ * 異動時由 {@link CatalogReadModel} 建立新的快照並以原子方式替換。
+ * 每本書記錄最後一次內容變動時的快照版本，供 HTTP ETag 判斷單本書是否改變。
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(List.of(), 0L, null);
+
+    private static final Comparator<BookDetail> BY_ID = Comparator.comparing(BookDetail::bookId);
+
+    private final Map<Long, BookDetail> byId;
+    private final Map<Language, List<BookDetail>> byLang;
+    private final Map<String, BookDetail> byIsbn;
+    private final List<BookDetail> all;
+    private final long version;
+    private final Map<Long, Long> bookVersions;
+    private final boolean changed;
+
+    /**
+     * @param previous 上一版快照，內容相同 (equals) 的書籍沿用上一版的書籍版本；null 代表全部視為新書
+     */
+    private CatalogSnapshot(Collection<BookDetail> books, long version, CatalogSnapshot previous) {
+        Map<Long, BookDetail> idIndex = new HashMap<>();
+        Map<Long, Long> versionIndex = new HashMap<>();
+        Map<String, BookDetail> isbnIndex = new HashMap<>();
+        Map<Language, List<BookDetail>> langIndex = new EnumMap<>(Language.class);
+
+        List<BookDetail> sorted = new ArrayList<>();
+        for (BookDetail book : books) {
+            // 只收錄上架中的書籍，下架書籍對前台而言等同不存在
+            if (book.bookId() == null || !Boolean.TRUE.equals(book.isOnsale())) {
+                continue;
+            }
+            sorted.add(book);
+        }
+        sorted.sort(BY_ID);
+
+        boolean anyChanged = previous == null || sorted.size() != previous.size();
+        for (BookDetail book : sorted) {
+            idIndex.put(book.bookId(), book);
+            BookDetail old = previous == null ? null : previous.byId.get(book.bookId());
+            if (old != null && old.equals(book)) {
+                versionIndex.put(book.bookId(), previous.bookVersions.get(book.bookId()));
+            } else {
+                versionIndex.put(book.bookId(), version);
+                anyChanged = true;
+            }
+            if (book.isbn() != null) {
+                isbnIndex.put(book.isbn(), book);
+            }
+            if (book.lang() != null) {
+                langIndex.computeIfAbsent(book.lang(), l -> new ArrayList<>()).add(book);
+            }
+        }
+        langIndex.replaceAll((lang, list) -> Collections.unmodifiableList(list));
+
+        this.byId = Collections.unmodifiableMap(idIndex);
+        this.byIsbn = Collections.unmodifiableMap(isbnIndex);
+        this.byLang = Collections.unmodifiableMap(langIndex);
+        this.all = Collections.unmodifiableList(sorted);
+        this.version = version;
+        this.bookVersions = Collections.unmodifiableMap(versionIndex);
+        this.changed = anyChanged;
+    }
+
+    static CatalogSnapshot of(Collection<Book> books, long version) {
+        return new CatalogSnapshot(details(books), version, null);
+    }
+
+    static CatalogSnapshot of(Collection<Book> books, long version, CatalogSnapshot previous) {
+        return new CatalogSnapshot(details(books), version, previous);
+    }
+
+    private static List<BookDetail> details(Collection<Book> books) {
+        return books.stream().map(BookDetail::from).toList();
+    }
+
+    /**
+     * 以目前快照為基礎套用增量異動，產生新的快照 (原快照不受影響)。
+     * @param reloaded   從資料庫重新讀取的書籍 (可能已下架)
+     * @param changedIds 本次異動的 ID，若不在 reloaded 中代表已被刪除
+     */
+    CatalogSnapshot withChanges(Collection<Book> reloaded, Set<Long> changedIds, long newVersion) {
+        Map<Long, BookDetail> merged = new HashMap<>(byId);
+        changedIds.forEach(merged::remove);
+        for (Book book : reloaded) {
+            merged.put(book.getBookId(), BookDetail.from(book));
+        }
+        return new CatalogSnapshot(merged.values(), newVersion, this);
+    }
+
+    public BookDetail findById(Long id) {
+        return byId.get(id);
+    }
+
+    public BookDetail findByIsbn(String isbn) {
+        return byIsbn.get(isbn);
+    }
+
+    public List<BookDetail> findByLang(Language lang) {
+        return byLang.getOrDefault(lang, List.of());
+    }
+
+    /**
+     * 指定語言中 bookId 大於 afterId 的前 limit 本 (Keyset 分頁)。
+     * 各語言清單本來就依 bookId 排序，直接二分搜尋定位起點
+     */
+    public List<BookDetail> findByLangAfter(Language lang, long afterId, int limit) {
+        List<BookDetail> books = findByLang(lang);
+        int low = 0;
+        int high = books.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (books.get(mid).bookId() <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return books.subList(low, Math.min(books.size(), low + limit));
+    }
+
+    /** 依 bookId 遞增排序的全部上架書籍 */
+    public List<BookDetail> all() {
+        return all;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 該書最後一次內容變動時的快照版本，不在快照中 (下架或不存在) 時為 0
+     */
+    public long bookVersion(Long id) {
+        return bookVersions.getOrDefault(id, 0L);
+    }
+
+    /**
+     * 與建立時傳入的上一版相比是否有任何書籍新增、移除或內容變動
+     */
+    boolean hasChanges() {
+        return changed;
+    }
+}
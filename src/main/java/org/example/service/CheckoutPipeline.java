@@ -0,0 +1,219 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.CheckoutRequest;
+import org.example.dto.CheckoutResponseDTO;
+import org.example.dto.CheckoutStatusDTO;
+import org.example.entity.CheckoutAttempt;
+import org.example.exception.CheckoutException;
+import org.example.exception.DatabaseOverloadedException;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.OrderNotFoundException;
+import org.example.repository.CheckoutAttemptRepository;
+import org.example.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * 帶 Idempotency-Key 的結帳：行動裝置逾時重送時，同一個 key 只會扣一次庫存、成立一張訂單。
+ * <ol>
+ *   <li>受理 (同步，OrderService.acceptCheckout)：寫入結帳紀錄、扣庫存、建立 ACCEPTED 訂單主檔，
+ *       立即回傳 orderId；</li>
+ *   <li>成立 (非同步，applicationTaskExecutor)：建立訂單明細、清空購物車、通知，失敗則回補庫存並取消訂單。</li>
+ * </ol>
+ * 重送的請求直接回傳第一次的 CheckoutResponseDTO (受理即失敗的則回傳相同錯誤)，處理進度以
+ * {@link #status} 輪詢。受理後未完成的紀錄 (例如實例在非同步階段前停機) 由 {@link #recoverStalled} 重新處理。
+ */
+@Slf4j
+@Service
+public class CheckoutPipeline {
+
+    // 與 X-Request-Id 相同的限制：會寫進資料庫與日誌
+    private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+    private static final int RECOVERY_BATCH_SIZE = 100;
+
+    private final OrderService orderService;
+    private final CheckoutAttemptRepository checkoutAttemptRepository;
+    private final OrderRepository orderRepository;
+    private final TaskExecutor taskExecutor;
+    private final DatabaseLimiter databaseLimiter;
+
+    @Value("${application.checkout.recovery-after-ms:60000}")
+    private long recoveryAfterMs = 60000;
+
+    @Value("${application.checkout.key-retention-hours:24}")
+    private long keyRetentionHours = 24;
+
+    public CheckoutPipeline(OrderService orderService, CheckoutAttemptRepository checkoutAttemptRepository,
+                            OrderRepository orderRepository,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                            DatabaseLimiter databaseLimiter) {
+        this.orderService = orderService;
+        this.checkoutAttemptRepository = checkoutAttemptRepository;
+        this.orderRepository = orderRepository;
+        this.taskExecutor = taskExecutor;
+        this.databaseLimiter = databaseLimiter;
+    }
+
+    /**
+     * 受理結帳；同一會員的同一個 key 重送時回傳第一次的結果
+     * @throws IdempotencyKeyConflictException key 已用於內容不同的結帳
+     * @throws CheckoutException 受理失敗 (重送時回傳與第一次相同的失敗)
+     */
+    public CheckoutResponseDTO submit(Long userId, String idempotencyKey, CheckoutRequest req) {
+        validateKey(idempotencyKey);
+        String requestHash = fingerprint(req);
+
+        CheckoutAttempt existing = checkoutAttemptRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElse(null);
+        if (existing != null) {
+            return replay(existing, requestHash);
+        }
+
+        CheckoutAttempt accepted;
+        try {
+            accepted = orderService.acceptCheckout(userId, idempotencyKey, requestHash, req);
+        } catch (CheckoutException e) {
+            try {
+                orderService.recordRejectedCheckout(userId, idempotencyKey, requestHash, e);
+            } catch (DataIntegrityViolationException duplicate) {
+                // 同一 key 的另一個請求已先完成受理，以它為準
+                return replay(reload(userId, idempotencyKey, duplicate), requestHash);
+            }
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            // 同一 key 的請求同時抵達：唯一鍵讓後到者等先到者提交後失敗，改回傳先到者的結果
+            return replay(reload(userId, idempotencyKey, e), requestHash);
+        }
+
+        Long attemptId = accepted.getAttemptId();
+        taskExecutor.execute(() -> materialize(attemptId));
+        return response(accepted);
+    }
+
+    /**
+     * 查詢結帳處理進度 (只能查自己的 key)
+     */
+    @Transactional(readOnly = true)
+    public CheckoutStatusDTO status(Long userId, String idempotencyKey) {
+        validateKey(idempotencyKey);
+        CheckoutAttempt attempt = checkoutAttemptRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElseThrow(() -> new OrderNotFoundException("找不到此結帳請求: " + idempotencyKey));
+        String orderStatus = attempt.getOrderId() == null ? null : orderRepository.findById(attempt.getOrderId())
+                .map(order -> order.getStatus().name())
+                .orElse(null);
+        return CheckoutStatusDTO.builder()
+                .idempotencyKey(attempt.getIdempotencyKey())
+                .status(attempt.getStatus().name())
+                .orderId(attempt.getOrderId())
+                .orderStatus(orderStatus)
+                .message(attempt.getMessage())
+                .failureReason(attempt.getFailureReason())
+                .build();
+    }
+
+    /**
+     * 重新處理受理後超過 recovery-after-ms 仍未完成的結帳，並清除超過保留期限的 key
+     */
+    @Scheduled(initialDelayString = "${application.checkout.recovery-interval-ms:60000}",
+            fixedDelayString = "${application.checkout.recovery-interval-ms:60000}")
+    public void recoverStalled() {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Long> stalled = checkoutAttemptRepository.findIdsByStatusUpdatedBefore(CheckoutAttempt.Status.ACCEPTED,
+                now.minus(Duration.ofMillis(recoveryAfterMs)), Limit.of(RECOVERY_BATCH_SIZE));
+        if (!stalled.isEmpty()) {
+            log.warn("重新處理未完成的結帳 {} 筆", stalled.size());
+            stalled.forEach(this::materialize);
+        }
+        orderService.purgeExpiredCheckouts(now.minusHours(keyRetentionHours));
+    }
+
+    // 非同步執行緒不經過 DatabaseLimiterAspect 的請求判斷，這裡自行以結帳優先順序取得名額；
+    // 資料庫過載被拒絕時紀錄維持 ACCEPTED，由復原排程稍後再試
+    void materialize(Long attemptId) {
+        DatabaseLimiter.Permit permit;
+        try {
+            permit = databaseLimiter.acquire(DatabaseLimiter.Priority.CHECKOUT);
+        } catch (DatabaseOverloadedException e) {
+            log.warn("資料庫忙碌，結帳稍後由復原排程處理 attemptId={}", attemptId);
+            return;
+        }
+        try {
+            if (orderService.materializeCheckout(attemptId)) {
+                notifyPlaced(attemptId);
+            }
+        } catch (RuntimeException e) {
+            log.error("結帳非同步階段失敗，回補庫存並取消訂單 attemptId={}", attemptId, e);
+            try {
+                orderService.abandonCheckout(attemptId, "訂單成立失敗，已取消並回補庫存");
+            } catch (RuntimeException compensation) {
+                // 紀錄仍為 ACCEPTED，由復原排程再試
+                log.error("結帳補償失敗 attemptId={}", attemptId, compensation);
+            }
+        } finally {
+            permit.release(false);
+        }
+    }
+
+    // 通知出口：目前只寫日誌
+    private void notifyPlaced(Long attemptId) {
+        log.info("訂單成立 attemptId={}", attemptId);
+    }
+
+    private CheckoutResponseDTO replay(CheckoutAttempt attempt, String requestHash) {
+        if (!attempt.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyConflictException("Idempotency-Key 已用於內容不同的結帳，請為新的結帳產生新的 key");
+        }
+        if (attempt.getOrderId() == null) {
+            throw new CheckoutException(CheckoutException.Reason.valueOf(attempt.getFailureReason()),
+                    attempt.getMessage());
+        }
+        return response(attempt);
+    }
+
+    private CheckoutAttempt reload(Long userId, String idempotencyKey, DataIntegrityViolationException cause) {
+        return checkoutAttemptRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElseThrow(() -> cause);
+    }
+
+    private static CheckoutResponseDTO response(CheckoutAttempt attempt) {
+        CheckoutResponseDTO response = new CheckoutResponseDTO();
+        response.setOrderId(attempt.getOrderId());
+        response.setMessage(attempt.getMessage());
+        return response;
+    }
+
+    private static void validateKey(String idempotencyKey) {
+        if (idempotencyKey == null || !VALID_KEY.matcher(idempotencyKey).matches()) {
+            throw new IllegalArgumentException("Idempotency-Key 格式不正確 (1~64 個英數字或 . _ : -)");
+        }
+    }
+
+    static String fingerprint(CheckoutRequest req) {
+        String canonical = String.join("\n", Objects.toString(req.getPaymentMethod(), ""),
+                Objects.toString(req.getRecipientName(), ""), Objects.toString(req.getShippingAddress(), ""),
+                Objects.toString(req.getRecipientPhone(), ""));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
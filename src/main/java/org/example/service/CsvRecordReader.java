@@ -0,0 +1,94 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 的逐筆讀取：一次只解析一筆紀錄，不會把整個檔案載入記憶體。
+ * 欄位以逗號分隔，含逗號、引號或換行的欄位以雙引號包住，內部引號重複一次；
+ * 換行可為 \n 或 \r\n。與 OrderExportService 的 CSV 輸出格式相同。
+ * 單筆紀錄有字元上限，引號未結束或沒有換行的檔案不會整份讀進記憶體。
+ */
+final class CsvRecordReader {
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private int pushback = NONE;
+    private int length;
+
+    CsvRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * @return 下一筆紀錄的各欄位，檔案結束時為 null
+     * @throws IllegalArgumentException 引號未結束就到了檔案結尾，或紀錄超過字元上限
+     */
+    List<String> next() throws IOException {
+        length = 0;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (quoted) {
+                    throw new IllegalArgumentException("CSV 格式錯誤：引號未結束");
+                }
+                if (empty) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            empty = false;
+            if (quoted) {
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        pushback = n;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n') {
+                        pushback = n;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushback != NONE) {
+            int c = pushback;
+            pushback = NONE;
+            return c;
+        }
+        if (++length > maxRecordLength) {
+            throw new IllegalArgumentException("CSV 單筆紀錄超過 " + maxRecordLength + " 字元上限");
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.exception.DatabaseOverloadedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 資料庫並行上限 (位於 repository 之前，見 DatabaseLimiterAspect)：同時進行的資料庫工作數不超過 limit，
+ * limit 依觀察到的延遲以 AIMD 自動調整：
+ * 回應時間超過 latency-threshold 或取不到連線時乘上 backoff-ratio (每一輪只降一次)，
+ * 其餘成功時在使用量接近上限的情況下每 limit 次成功加 1，回到 max-limit 為止。
+ * 超過上限的請求依優先順序排隊 (結帳 > 瀏覽 > 後台匯出)，每條隊伍有長度與等待時間上限，
+ * 超過就立即拒絕 (DatabaseOverloadedException，回應 503)，不再堆在連線池裡等 connection-timeout。
+ * 匯出一次佔用連線數分鐘，最多只能使用一半的 limit，也不納入延遲取樣。
+ */
+@Component
+public class DatabaseLimiter {
+
+    public enum Priority {
+        CHECKOUT,
+        BROWSE,
+        EXPORT
+    }
+
+    /**
+     * 單一優先順序的排隊設定
+     * @param maxQueue 最多排隊的請求數
+     * @param maxWaitNanos 最多等待時間，0 表示不排隊
+     * @param share 最多可使用 limit 的比例
+     */
+    record Lane(int maxQueue, long maxWaitNanos, double share) {
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Map<Priority, Lane> lanes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, Condition> turns = new EnumMap<>(Priority.class);
+    // 以下欄位只在持有 lock 時讀寫
+    private final int[] inFlight = new int[PRIORITIES.length];
+    private final int[] waiting = new int[PRIORITIES.length];
+    // 已讓出但等待者尚未取走的名額 (釋放時直接轉交，避免新到的請求插隊)
+    private final int[] granted = new int[PRIORITIES.length];
+    private int totalInFlight;
+    private double limit;
+    private long lastBackoffNanos;
+
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+
+    @Autowired
+    public DatabaseLimiter(@Value("${application.db-limiter.enabled:true}") boolean enabled,
+                           @Value("${application.db-limiter.min-limit:2}") int minLimit,
+                           @Value("${application.db-limiter.max-limit:${spring.datasource.hikari.maximum-pool-size:10}}") int maxLimit,
+                           @Value("${application.db-limiter.latency-threshold-ms:500}") long latencyThresholdMs,
+                           @Value("${application.db-limiter.backoff-ratio:0.9}") double backoffRatio,
+                           @Value("${application.db-limiter.max-queue:200}") int maxQueue,
+                           @Value("${application.db-limiter.checkout-max-wait-ms:5000}") long checkoutMaxWaitMs,
+                           @Value("${application.db-limiter.browse-max-wait-ms:2000}") long browseMaxWaitMs,
+                           @Value("${application.db-limiter.export-max-wait-ms:10000}") long exportMaxWaitMs,
+                           MeterRegistry meterRegistry) {
+        this(enabled, minLimit, maxLimit, TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs), backoffRatio, Map.of(
+                Priority.CHECKOUT, new Lane(maxQueue, TimeUnit.MILLISECONDS.toNanos(checkoutMaxWaitMs), 1.0),
+                Priority.BROWSE, new Lane(maxQueue, TimeUnit.MILLISECONDS.toNanos(browseMaxWaitMs), 1.0),
+                Priority.EXPORT, new Lane(Math.max(1, maxQueue / 50), TimeUnit.MILLISECONDS.toNanos(exportMaxWaitMs), 0.5)));
+        bindTo(meterRegistry);
+    }
+
+    DatabaseLimiter(boolean enabled, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio,
+                    Map<Priority, Lane> lanes) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("db-limiter 上下限設定錯誤: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.lanes = new EnumMap<>(lanes);
+        this.limit = maxLimit;
+        this.lastBackoffNanos = System.nanoTime();
+        for (Priority priority : PRIORITIES) {
+            turns.put(priority, lock.newCondition());
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    /**
+     * 取得一個名額，取得後必須呼叫 {@link Permit#release(boolean)}
+     * @throws DatabaseOverloadedException 隊伍已滿或等待逾時
+     */
+    public Permit acquire(Priority priority) {
+        if (!enabled) {
+            return new Permit(priority, System.nanoTime(), false);
+        }
+        int p = priority.ordinal();
+        Lane lane = lanes.get(priority);
+        lock.lock();
+        try {
+            if (!hasPendingAtOrAbove(p) && hasRoom(p)) {
+                take(p);
+                return new Permit(priority, System.nanoTime(), true);
+            }
+            if (waiting[p] - granted[p] >= lane.maxQueue() || lane.maxWaitNanos() <= 0) {
+                throw reject(priority);
+            }
+            waiting[p]++;
+            try {
+                long nanos = lane.maxWaitNanos();
+                while (granted[p] == 0) {
+                    if (nanos <= 0) {
+                        throw reject(priority);
+                    }
+                    nanos = turns.get(priority).awaitNanos(nanos);
+                }
+                // 名額在 dispatch 時已計入 inFlight
+                granted[p]--;
+                return new Permit(priority, System.nanoTime(), true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(priority);
+            } finally {
+                waiting[p]--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit, boolean overloaded) {
+        long now = System.nanoTime();
+        int p = permit.priority.ordinal();
+        lock.lock();
+        try {
+            inFlight[p]--;
+            totalInFlight--;
+            if (permit.priority != Priority.EXPORT || overloaded) {
+                adjust(permit.startNanos, now, overloaded);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // AIMD：開始時間早於上次退讓的請求不再觸發退讓，避免同一波慢請求把 limit 連續砍到底
+    private void adjust(long startNanos, long now, boolean overloaded) {
+        if (overloaded || now - startNanos > latencyThresholdNanos) {
+            if (startNanos - lastBackoffNanos >= 0) {
+                limit = Math.max(minLimit, Math.floor(limit * backoffRatio));
+                lastBackoffNanos = now;
+            }
+        } else if (totalInFlight + 1 >= limit / 2) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    // 有空位時依優先順序把名額轉交給排隊中的請求
+    private void dispatch() {
+        for (Priority priority : PRIORITIES) {
+            int p = priority.ordinal();
+            while (waiting[p] - granted[p] > 0 && hasRoom(p)) {
+                take(p);
+                granted[p]++;
+                turns.get(priority).signal();
+            }
+            if (waiting[p] - granted[p] > 0 && totalInFlight >= (int) limit) {
+                // 高優先的請求仍在等待時，不讓較低優先的請求搶走之後空出的名額
+                return;
+            }
+        }
+    }
+
+    private boolean hasPendingAtOrAbove(int p) {
+        for (int i = 0; i <= p; i++) {
+            if (waiting[i] - granted[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasRoom(int p) {
+        int current = (int) limit;
+        if (totalInFlight >= current) {
+            return false;
+        }
+        int laneLimit = Math.max(1, (int) (current * lanes.get(PRIORITIES[p]).share()));
+        return inFlight[p] < laneLimit;
+    }
+
+    private void take(int p) {
+        inFlight[p]++;
+        totalInFlight++;
+    }
+
+    private DatabaseOverloadedException reject(Priority priority) {
+        rejected.get(priority).increment();
+        return new DatabaseOverloadedException("系統忙碌中，請稍後再試");
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return totalInFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued(Priority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()] - granted[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejectedCount(Priority priority) {
+        return rejected.get(priority).sum();
+    }
+
+    /**
+     * bookstore.db.limiter.limit / in.flight 為目前上限與使用中名額；
+     * bookstore.db.limiter.queue{priority} 為排隊數，bookstore.db.limiter.rejected{priority} 為累計拒絕次數
+     */
+    private void bindTo(MeterRegistry registry) {
+        Gauge.builder("bookstore.db.limiter.limit", this, DatabaseLimiter::limit).register(registry);
+        Gauge.builder("bookstore.db.limiter.in.flight", this, DatabaseLimiter::inFlight).register(registry);
+        for (Priority priority : PRIORITIES) {
+            String tag = priority.name().toLowerCase();
+            Gauge.builder("bookstore.db.limiter.queue", this, limiter -> limiter.queued(priority))
+                    .tag("priority", tag)
+                    .register(registry);
+            FunctionCounter.builder("bookstore.db.limiter.rejected", this, limiter -> limiter.rejectedCount(priority))
+                    .tag("priority", tag)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 已取得的名額
+     */
+    public final class Permit {
+
+        private final Priority priority;
+        private final long startNanos;
+        private final boolean counted;
+        private boolean released;
+
+        private Permit(Priority priority, long startNanos, boolean counted) {
+            this.priority = priority;
+            this.startNanos = startNanos;
+            this.counted = counted;
+        }
+
+        /**
+         * 釋放名額並回報這次工作的結果
+         * @param overloaded 是否因資料庫過載失敗 (取不到連線、查詢逾時)，會使 limit 立即下修
+         */
+        public void release(boolean overloaded) {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (counted) {
+                DatabaseLimiter.this.release(this, overloaded);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.service;
+
+import org.example.dto.InventoryStatusDTO;
+import org.example.entity.Book;
+import org.example.entity.BookStockBucket;
+import org.example.repository.BookRepository;
+import org.example.repository.BookStockBucketRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 庫存扣除與回補。
+ * 一般書籍直接以條件式 UPDATE 加減 books.stock；
+ * 熱門書籍可由管理員開啟「分桶庫存」，把庫存拆成 N 個子計數器 (book_stock_buckets)，
+ * 結帳時隨機挑一桶扣除、不夠再換下一桶，並發結帳就不會全部排隊等待同一列 books 的鎖。
+ * 所有搬移都在資料庫交易內完成，總庫存 (books.stock + 各桶加總) 永遠精確。
+ */
+@Service
+public class InventoryService {
+
+    private final BookRepository bookRepository;
+    private final BookStockBucketRepository bucketRepository;
+
+    @Value("${application.inventory.max-buckets:64}")
+    private int maxBuckets = 64;
+
+    public InventoryService(BookRepository bookRepository, BookStockBucketRepository bucketRepository) {
+        this.bookRepository = bookRepository;
+        this.bucketRepository = bucketRepository;
+    }
+
+    // --- 結帳 / 取消訂單 ---
+
+    /**
+     * 扣除庫存 (需在呼叫端的交易內執行，失敗時由呼叫端拋出例外回滾)
+     * @param quantities   bookId → 扣除數量
+     * @param bucketCounts 開啟分桶的書籍：bookId → 子計數器數量
+     * @return 庫存不足或已下架而未扣除的 bookId
+     */
+    @Transactional
+    public List<Long> reserve(Map<Long, Integer> quantities, Map<Long, Integer> bucketCounts) {
+        Map<Long, Integer> plain = new HashMap<>();
+        Map<Long, Integer> striped = new TreeMap<>();
+        quantities.forEach((bookId, quantity) ->
+                (bucketCounts.containsKey(bookId) ? striped : plain).put(bookId, quantity));
+
+        List<Long> rejected = new ArrayList<>(bookRepository.decrementStock(plain));
+        striped.forEach((bookId, quantity) -> {
+            if (!takeFromBuckets(bookId, quantity, bucketCounts.get(bookId))) {
+                rejected.add(bookId);
+            }
+        });
+        return rejected;
+    }
+
+    /**
+     * 回補庫存 (取消訂單時使用)
+     */
+    @Transactional
+    public void release(Map<Long, Integer> quantities, Map<Long, Integer> bucketCounts) {
+        Map<Long, Integer> plain = new HashMap<>();
+        quantities.forEach((bookId, quantity) -> {
+            Integer buckets = bucketCounts.get(bookId);
+            int bucketNo = buckets == null ? -1 : ThreadLocalRandom.current().nextInt(buckets);
+            // 分桶已被關閉 (該桶不存在) 時改回補到書籍列
+            if (buckets == null || bucketRepository.give(bookId, bucketNo, quantity) == 0) {
+                plain.put(bookId, quantity);
+            }
+        });
+        bookRepository.incrementStock(plain);
+    }
+
+    /**
+     * 後台調整分桶書籍的庫存 (需在呼叫端的交易內執行)：增加時與取消訂單相同補到隨機一桶，減少時與結帳相同由子計數器扣除
+     * @param deltas       bookId → 增減量
+     * @param bucketCounts bookId → 子計數器數量
+     * @return 庫存不足而未扣除的 bookId
+     */
+    @Transactional
+    public List<Long> adjustStripedStock(Map<Long, Integer> deltas, Map<Long, Integer> bucketCounts) {
+        Map<Long, Integer> increments = new HashMap<>();
+        List<Long> rejected = new ArrayList<>();
+        new TreeMap<>(deltas).forEach((bookId, delta) -> {
+            if (delta >= 0) {
+                increments.put(bookId, delta);
+            } else if (!takeFromBuckets(bookId, -delta, bucketCounts.get(bookId))) {
+                rejected.add(bookId);
+            }
+        });
+        release(increments, bucketCounts);
+        return rejected;
+    }
+
+    private boolean takeFromBuckets(Long bookId, int quantity, int bucketCount) {
+        // 快速路徑：從隨機的桶開始，找到第一個庫存足夠的桶直接扣除
+        int start = ThreadLocalRandom.current().nextInt(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            if (bucketRepository.take(bookId, (start + i) % bucketCount, quantity) == 1) {
+                return true;
+            }
+        }
+
+        // 只買一本時每一桶都扣不到代表已售完，不需要跨桶；
+        // 加總不足時也直接回絕。搶購售完時大量結帳會走到這裡，不能讓它們都去鎖全部子計數器
+        // (部分資料庫在條件不成立的 UPDATE 後仍保留列鎖，隨機起點的快速路徑加上依序鎖定會形成死結)
+        if (quantity == 1 || bucketRepository.sumStockByBookId(bookId) < quantity) {
+            return false;
+        }
+
+        // 沒有任何一桶單獨足夠 (庫存已零散)：依桶號鎖定全部子計數器後跨桶扣除
+        List<BookStockBucket> buckets = bucketRepository.lockAllByBookId(bookId);
+        int available = buckets.stream().mapToInt(BookStockBucket::getStock).sum();
+        if (available < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (BookStockBucket bucket : buckets) {
+            int taken = Math.min(bucket.getStock(), remaining);
+            bucket.setStock(bucket.getStock() - taken);
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        bucketRepository.saveAll(buckets);
+        return true;
+    }
+
+    // --- 後台切換分桶 ---
+
+    /**
+     * 開啟 (或重新設定) 分桶庫存：把目前總庫存平均分配到 bucketCount 個子計數器
+     */
+    @Transactional
+    public InventoryStatusDTO enableBuckets(Long bookId, int bucketCount) {
+        if (bucketCount < 2 || bucketCount > maxBuckets) {
+            throw new RuntimeException("分桶數量必須介於 2 到 " + maxBuckets + " 之間");
+        }
+        Book book = lockBook(bookId);
+        int total = collapseBuckets(book);
+        splitIntoBuckets(book, total, bucketCount);
+        return getStatus(bookId);
+    }
+
+    /**
+     * 關閉分桶庫存：把所有子計數器加回書籍列
+     */
+    @Transactional
+    public InventoryStatusDTO disableBuckets(Long bookId) {
+        Book book = lockBook(bookId);
+        if (!book.isStockStriped()) {
+            throw new RuntimeException("書籍 ID: " + bookId + " 未開啟分桶庫存");
+        }
+        book.setStock(collapseBuckets(book));
+        book.setStockBuckets(null);
+        bookRepository.save(book);
+        return getStatus(bookId);
+    }
+
+    /**
+     * 後台修改總庫存：分桶模式下依新的總數重新分配，否則直接寫入書籍列
+     */
+    @Transactional
+    public void resetStock(Long bookId, int totalStock) {
+        Book book = lockBook(bookId);
+        if (book.isStockStriped()) {
+            int bucketCount = book.getStockBuckets();
+            collapseBuckets(book);
+            splitIntoBuckets(book, totalStock, bucketCount);
+        } else {
+            book.setStock(totalStock);
+            bookRepository.save(book);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public InventoryStatusDTO getStatus(Long bookId) {
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new RuntimeException("書籍 ID: " + bookId + " 未找到"));
+        List<Integer> buckets = bucketRepository.findByBookIdOrderByBucketNoAsc(bookId).stream()
+                .map(BookStockBucket::getStock)
+                .toList();
+        int base = book.getBaseStock() == null ? 0 : book.getBaseStock();
+        return InventoryStatusDTO.builder()
+                .bookId(bookId)
+                .striped(book.isStockStriped())
+                .bucketCount(buckets.size())
+                .totalStock(base + buckets.stream().mapToInt(Integer::intValue).sum())
+                .buckets(buckets)
+                .build();
+    }
+
+    private Book lockBook(Long bookId) {
+        return bookRepository.lockById(bookId)
+                .orElseThrow(() -> new RuntimeException("書籍 ID: " + bookId + " 未找到"));
+    }
+
+    /**
+     * 鎖定並刪除所有子計數器，回傳「書籍列 + 子計數器」的總庫存
+     */
+    private int collapseBuckets(Book book) {
+        int total = book.getBaseStock() == null ? 0 : book.getBaseStock();
+        List<BookStockBucket> buckets = bucketRepository.lockAllByBookId(book.getBookId());
+        for (BookStockBucket bucket : buckets) {
+            total += bucket.getStock();
+        }
+        bucketRepository.deleteAllInBatch(buckets);
+        return total;
+    }
+
+    private void splitIntoBuckets(Book book, int total, int bucketCount) {
+        List<BookStockBucket> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            // 餘數分給前面幾桶，確保加總剛好等於總庫存
+            int share = total / bucketCount + (i < total % bucketCount ? 1 : 0);
+            buckets.add(new BookStockBucket(book.getBookId(), i, share));
+        }
+        bucketRepository.saveAll(buckets);
+        book.setStock(0);
+        book.setStockBuckets(bucketCount);
+        bookRepository.save(book);
+    }
+}
@@ -1,33 +1,57 @@
 package org.example.service;
 
 import org.example.entity.User;
+import org.example.security.AuthenticatedUser;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+@Slf4j
 @Service
 public class JwtService {
 
+    static final String ROLE_CLAIM = "role";
+    static final String USER_ID_CLAIM = "uid";
+
+    /**
+     * 解碼後的簽章金鑰與驗證用的 JwtParser (不可變、執行緒安全)，第一次使用時建立後重複使用；
+     * 以 secret 字串為 key，設定被替換時 (例如測試) 會自動重建
+     */
+    private record Verifier(String secret, Key key, JwtParser parser) {
+    }
+
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
+    // 無狀態模式：直接以 Token 內的 uid / role 授權，不查詢資料庫 (停權、改角色要等 Token 過期才生效)
+    @Value("${application.security.jwt.stateless:false}")
+    private boolean stateless = false;
+
+    private volatile Verifier verifier;
+
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("role", user.getRole());
-        System.out.println("DEBUG JWT Expiration (ms): " + jwtExpiration);
+        claims.put(ROLE_CLAIM, user.getRole());
+        claims.put(USER_ID_CLAIM, user.getUserId());
+        log.debug("簽發 JWT: {} (有效 {} ms)", user.getEmail(), jwtExpiration);
         return buildToken(claims, user.getEmail(), jwtExpiration);
     }
 
@@ -48,7 +72,33 @@ public class JwtService {
 
     public String extractRole(String token) {
         final Claims claims = extractAllClaims(token);
-        return (String) claims.get("role");
+        return (String) claims.get(ROLE_CLAIM);
+    }
+
+    /**
+     * 驗證簽章與有效期限並取出 Claims。每個請求只呼叫一次，之後的判斷都讀取回傳的 Claims
+     * @throws io.jsonwebtoken.JwtException Token 無效、簽章錯誤或已過期
+     */
+    @Timed(value = "bookstore.jwt.verify", histogram = true)
+    public Claims parseToken(String token) {
+        return verifier().parser().parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * 無狀態模式下直接由 Claims 建立登入者；未開啟或舊版 Token (沒有 uid / role) 回傳 null，
+     * 由呼叫端改走登入者快取
+     */
+    public AuthenticatedUser statelessPrincipal(Claims claims) {
+        if (!stateless) {
+            return null;
+        }
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId.longValue(), claims.getSubject(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())), true);
     }
 
     // 驗證 Token 是否有效
@@ -84,16 +134,21 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseToken(token);
     }
 
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return verifier().key();
+    }
+
+    private Verifier verifier() {
+        Verifier current = verifier;
+        if (current == null || !current.secret().equals(secretKey)) {
+            byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+            Key key = Keys.hmacShaKeyFor(keyBytes);
+            current = new Verifier(secretKey, key, Jwts.parserBuilder().setSigningKey(key).build());
+            verifier = current;
+        }
+        return current;
     }
 }
@@ -0,0 +1,89 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.event.OutboxMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 訊息佇列的本機替身 (尚未導入 Kafka / RabbitMQ 前使用)：依主題 (topic) 訂閱，
+ * 發布後放進有界佇列，由獨立的派送執行緒依發布順序交給訂閱者，發布端不等待訂閱者處理。
+ * 與真正的 broker 相同，訂閱者拋出的例外不會回傳給發布端 (只寫日誌)。
+ */
+@Slf4j
+@Component
+public class LocalMessageBroker {
+
+    private record Envelope(String topic, OutboxMessage message) {
+    }
+
+    private final BlockingQueue<Envelope> queue;
+    private final long publishTimeoutMs;
+    private final Map<String, List<Consumer<OutboxMessage>>> subscribers = new ConcurrentHashMap<>();
+    private final Thread dispatcher;
+
+    public LocalMessageBroker(@Value("${application.outbox.broker.capacity:10000}") int capacity,
+                              @Value("${application.outbox.broker.publish-timeout-ms:1000}") long publishTimeoutMs) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.publishTimeoutMs = publishTimeoutMs;
+        this.dispatcher = new Thread(this::dispatch, "local-broker");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public void subscribe(String topic, Consumer<OutboxMessage> subscriber) {
+        subscribers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    /**
+     * 發布到主題；佇列已滿且等待 publish-timeout-ms 後仍無空位時拋出例外 (視同 broker 無法使用)
+     */
+    public void publish(String topic, OutboxMessage message) {
+        try {
+            if (!queue.offer(new Envelope(topic, message), publishTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("本機訊息佇列已滿: " + topic);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("發布訊息時被中斷: " + topic, e);
+        }
+    }
+
+    public int backlog() {
+        return queue.size();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Envelope envelope;
+            try {
+                envelope = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (Consumer<OutboxMessage> subscriber : subscribers.getOrDefault(envelope.topic(), List.of())) {
+                try {
+                    subscriber.accept(envelope.message());
+                } catch (RuntimeException e) {
+                    log.error("訂閱者處理訊息失敗 topic={} eventId={}", envelope.topic(),
+                            envelope.message().eventId(), e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.interrupt();
+    }
+}
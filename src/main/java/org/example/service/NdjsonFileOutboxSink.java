@@ -0,0 +1,73 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.event.OutboxMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 將事件逐行附加到 NDJSON 檔 (一行一個事件，payload 原樣內嵌)，供離線分析或重播。
+ * 每批寫完後 fsync，確認落盤後 outbox 才會刪除這批事件。
+ */
+@Component
+@ConditionalOnProperty(name = "application.outbox.file.enabled", havingValue = "true")
+public class NdjsonFileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public NdjsonFileOutboxSink(ObjectMapper objectMapper,
+                                @Value("${application.outbox.file.path:outbox/events.ndjson}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Path.of(path);
+    }
+
+    @Override
+    public String name() {
+        return "ndjson-file";
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> batch) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                    StandardCharsets.UTF_8));
+            JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            for (OutboxMessage message : batch) {
+                json.writeStartObject();
+                json.writeNumberField("eventId", message.eventId());
+                json.writeStringField("aggregateType", message.aggregateType());
+                json.writeNumberField("aggregateId", message.aggregateId());
+                json.writeStringField("eventType", message.eventType());
+                json.writeStringField("createdAt", message.createdAt().toString());
+                json.writeFieldName("payload");
+                json.writeRawValue(message.payload());
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+            json.flush();
+            writer.flush();
+            channel.force(false);
+        }
+    }
+}
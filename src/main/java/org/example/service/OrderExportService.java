@@ -0,0 +1,290 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entity.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 後台訂單匯出 (財務對帳用)。
+ * 不經過 JPA：以 JDBC 單向游標 (forward-only) 搭配 fetch size 逐批讀取，
+ * 每讀一列就直接寫進 HTTP 回應，記憶體用量與訂單總數無關。
+ * 匯出在非同步執行緒上長時間佔用連線，以最低優先順序 (EXPORT) 向 DatabaseLimiter 取得名額。
+ */
+@Service
+public class OrderExportService {
+
+    private static final String COLUMNS =
+            "order_id, user_id, status, payment_method, total_price, created_at";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支援的匯出格式: " + value);
+            }
+        }
+    }
+
+    /**
+     * 匯出條件：建立時間區間 [from, to) 與訂單狀態，皆為選填
+     */
+    public record Filter(OffsetDateTime from, OffsetDateTime to, OrderStatus status) {
+
+        /**
+         * 以日期指定區間 (兩端皆包含)，依伺服器時區換算成時間點
+         */
+        public static Filter of(LocalDate fromDate, LocalDate toDate, String status, ZoneId zone) {
+            if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+                throw new IllegalArgumentException("起始日期不可晚於結束日期");
+            }
+            OffsetDateTime from = fromDate == null ? null : fromDate.atStartOfDay(zone).toOffsetDateTime();
+            OffsetDateTime to = toDate == null ? null : toDate.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
+            return new Filter(from, to, parseStatus(status));
+        }
+
+        private static OrderStatus parseStatus(String status) {
+            if (status == null || status.isBlank()) {
+                return null;
+            }
+            try {
+                return OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支援的訂單狀態: " + status);
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    private final DatabaseLimiter databaseLimiter;
+
+    public OrderExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper, DatabaseLimiter databaseLimiter,
+                              @Value("${application.export.fetch-size:1000}") int fetchSize) {
+        // 專用的 JdbcTemplate：設定 fetch size，讓驅動程式分批向資料庫取資料而非一次載入整個結果集
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL 只有在關閉 autocommit (交易中) 時才會使用伺服器端游標，否則 fetch size 無效
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.databaseLimiter = databaseLimiter;
+    }
+
+    /**
+     * 將符合條件的訂單依 (created_at, order_id) 排序寫入輸出串流
+     * @return 匯出的筆數
+     */
+    public long export(Filter filter, Format format, OutputStream out) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM orders WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.from() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(filter.from());
+        }
+        if (filter.to() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(filter.to());
+        }
+        if (filter.status() != null) {
+            sql.append(" AND status = ?");
+            args.add(filter.status().name());
+        }
+        sql.append(" ORDER BY created_at, order_id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        DatabaseLimiter.Permit permit = databaseLimiter.acquire(DatabaseLimiter.Priority.EXPORT);
+        boolean overloaded = false;
+        try {
+            Long count = readOnlyTx.execute(status -> {
+                rowWriter.start();
+                long[] rows = {0};
+                jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> {
+                    rowWriter.write(rs);
+                    rows[0]++;
+                }, args.toArray());
+                rowWriter.finish();
+                return rows[0];
+            });
+            return count == null ? 0 : count;
+        } catch (CannotCreateTransactionException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            permit.release(overloaded);
+        }
+    }
+
+    /**
+     * 單列輸出格式。I/O 例外包成 UncheckedIOException，讓前端中斷下載時交易與游標能立即釋放
+     */
+    private abstract static class RowWriter {
+
+        protected final Writer writer;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        void start() {
+        }
+
+        abstract void write(ResultSet rs) throws SQLException;
+
+        void finish() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+
+        CsvRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void start() {
+            try {
+                writer.write("order_id,user_id,status,payment_method,total_price,created_at\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException {
+            try {
+                writer.write(String.valueOf(rs.getLong("order_id")));
+                writer.write(',');
+                writer.write(String.valueOf(rs.getLong("user_id")));
+                writer.write(',');
+                writer.write(escape(rs.getString("status")));
+                writer.write(',');
+                writer.write(escape(rs.getString("payment_method")));
+                writer.write(',');
+                BigDecimal total = rs.getBigDecimal("total_price");
+                writer.write(total == null ? "" : total.toPlainString());
+                writer.write(',');
+                OffsetDateTime createdAt = rs.getObject("created_at", OffsetDateTime.class);
+                writer.write(createdAt == null ? "" : createdAt.toString());
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // RFC 4180：含逗號、引號或換行的欄位以雙引號包住，內部引號重複一次
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final class NdjsonRowWriter extends RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) {
+            super(writer);
+            try {
+                this.generator = objectMapper.getFactory().createGenerator(writer);
+                // 每列之間自行補換行，不使用預設的空白分隔
+                this.generator.setRootValueSeparator(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("orderId", rs.getLong("order_id"));
+                generator.writeNumberField("userId", rs.getLong("user_id"));
+                generator.writeStringField("status", rs.getString("status"));
+                generator.writeStringField("paymentMethod", rs.getString("payment_method"));
+                BigDecimal total = rs.getBigDecimal("total_price");
+                if (total == null) {
+                    generator.writeNullField("totalPrice");
+                } else {
+                    generator.writeNumberField("totalPrice", total);
+                }
+                OffsetDateTime createdAt = rs.getObject("created_at", OffsetDateTime.class);
+                generator.writeStringField("createdAt", createdAt == null ? null : createdAt.toString());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void finish() {
+            try {
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            super.finish();
+        }
+    }
+}
@@ -2,30 +2,59 @@ package org.example.service;
 
 import org.example.dto.*;
 import org.example.entity.*;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.CheckoutException;
+import org.example.exception.CheckoutException.Reason;
 import org.example.exception.OrderNotFoundException;
 import org.example.repository.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
+@Timed("bookstore.service")
 public class OrderService {
 
+    // 結帳結果計數：outcome = success / failure，reason = CheckoutException.Reason (成功時為 none)
+    static final String CHECKOUT_COUNTER = "bookstore.checkout";
+
     private final OrderRepository orderRepository;
     private final CartItemRepository cartItemRepository;
-    private final BookRepository bookRepository;
+    private final InventoryService inventoryService;
     private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final CheckoutAttemptRepository checkoutAttemptRepository;
+    private final OutboxService outboxService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
 
     public OrderService(OrderRepository orderRepository, CartItemRepository cartItemRepository,
-                        BookRepository bookRepository, UserRepository userRepository) {
+                        InventoryService inventoryService, UserRepository userRepository,
+                        BookRepository bookRepository, CheckoutAttemptRepository checkoutAttemptRepository,
+                        OutboxService outboxService, MeterRegistry meterRegistry) {
         this.orderRepository = orderRepository;
         this.cartItemRepository = cartItemRepository;
-        this.bookRepository = bookRepository;
+        this.inventoryService = inventoryService;
         this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.checkoutAttemptRepository = checkoutAttemptRepository;
+        this.outboxService = outboxService;
+        this.meterRegistry = meterRegistry;
     }
 
     // --- 核心業務：結帳流程 ---
@@ -35,17 +64,48 @@ public class OrderService {
      * @param userId 當前會員 ID
      * @param req 結帳請求資訊
      * @return 創建的 Order 實體
+     * @throws CheckoutException 購物車為空、商品已下架或庫存不足等，reason 標示失敗原因
      */
     @Transactional // 確保訂單創建和庫存扣除是原子操作
     public CheckoutResponseDTO checkout(Long userId, CheckoutRequest req) {
+        PreparedOrder prepared = prepare(userId, req);
 
+        // 4. 設置訂單明細並保存 Order
+        Order order = prepared.order();
+        order.setItems(prepared.items());
+        Order savedOrder = orderRepository.save(order);
+        outboxService.orderPlaced(savedOrder, prepared.items());
+        outboxService.stockReserved(savedOrder.getOrderId(), prepared.reservations());
+
+        // 5. 清空購物車 (結帳成功後)：單一 DELETE，而非逐筆載入再刪除
+        cartItemRepository.deleteCheckedOut(userId, prepared.cartItemIds());
+
+        // 🎯 核心修正 2: 創建並返回 DTO
+        CheckoutResponseDTO response = new CheckoutResponseDTO();
+        response.setOrderId(savedOrder.getOrderId());
+        response.setMessage("結帳成功！訂單 ID: " + savedOrder.getOrderId());
+
+        meterRegistry.counter(CHECKOUT_COUNTER, "outcome", "success", "reason", "none").increment();
+        return response;
+    }
+
+    /**
+     * 結帳前半段 (同步結帳與帶 Idempotency-Key 的結帳共用)：載入會員與購物車、檢查商品並扣除庫存
+     * @return 尚未保存的訂單主檔 (含總價)、訂單明細與已結帳的購物車明細 ID
+     */
+    private PreparedOrder prepare(Long userId, CheckoutRequest req) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("會員不存在"));
+                .orElseThrow(() -> checkoutFailure(Reason.USER_NOT_FOUND, "會員不存在"));
 
-        List<CartItem> cartItems = cartItemRepository.findByUserUserId(userId);
+        List<CartItem> cartItems = cartItemRepository.findWithBookByUserId(userId);
         if (cartItems.isEmpty()) {
-            throw new RuntimeException("購物車是空的，無法結帳");
+            throw checkoutFailure(Reason.EMPTY_CART, "購物車是空的，無法結帳");
         }
+        // 分桶書籍的預先檢查需要子計數器加總 (購物車中沒有分桶書籍時不會多一條查詢)
+        bookRepository.loadBucketStock(cartItems.stream()
+                .map(CartItem::getBook)
+                .filter(Objects::nonNull)
+                .toList());
 
         Order order = new Order();
         order.setUser(user);
@@ -57,21 +117,27 @@ public class OrderService {
         order.setRecipientPhone(req.getRecipientPhone());
         BigDecimal total = BigDecimal.ZERO;
         List<OrderItem> orderItems = new ArrayList<>();
+        Map<Long, Integer> reservations = new HashMap<>();
+        Map<Long, Integer> bucketCounts = new HashMap<>();
+        Map<Long, String> titles = new HashMap<>();
 
         // 1. 處理購物車明細，檢查庫存，並創建 OrderItem
         for (CartItem cartItem : cartItems) {
             Book book = cartItem.getBook();
             if (book == null) {
                 // 如果購物車中引用了不存在的書籍，拋出清晰的錯誤
-                System.err.println("!!! 追蹤: 購物車中存在無效的 Book ID，CartItem ID: " + cartItem.getCartItemId());
-                throw new RuntimeException("購物車中存在無效商品，請移除後重試。");
+                log.warn("購物車中存在無效的書籍，cartItemId={}", cartItem.getCartItemId());
+                throw checkoutFailure(Reason.INVALID_ITEM, "購物車中存在無效商品，請移除後重試。");
             }
             Integer quantity = cartItem.getQuantity();
 
-            // 庫存檢查 (雙重檢查，確保在交易內最新)
-            if (!book.getIsOnsale() || quantity > book.getStock()) {
-                throw new RuntimeException(
-                        book.getTitle() + " 庫存不足或已下架，無法結帳。庫存: " + book.getStock());
+            // 庫存預先檢查 (快速失敗並提供清楚訊息；真正的保證在下方的條件式 UPDATE)
+            if (!book.getIsOnsale()) {
+                throw checkoutFailure(Reason.OFF_SALE, book.getTitle() + " 已下架，無法結帳。");
+            }
+            if (quantity > book.getStock()) {
+                throw checkoutFailure(Reason.INSUFFICIENT_STOCK,
+                        book.getTitle() + " 庫存不足，無法結帳。庫存: " + book.getStock());
             }
 
             // 2. 創建 OrderItem
@@ -87,25 +153,170 @@ public class OrderService {
             orderItems.add(orderItem);
             total = total.add(subtotal);
 
-            // 3. 扣除庫存並保存 Book (核心步驟)
-            book.setStock(book.getStock() - quantity);
-            bookRepository.save(book);
+            // 3. 記錄要扣除的數量 (同一本書合併)
+            reservations.merge(book.getBookId(), quantity, Integer::sum);
+            titles.put(book.getBookId(), book.getTitle());
+            if (book.isStockStriped()) {
+                bucketCounts.put(book.getBookId(), book.getStockBuckets());
+            }
+        }
+
+        // 🎯 核心步驟：以條件式 UPDATE 扣除庫存 (stock >= 數量才會扣；熱門書籍改扣分桶子計數器)。
+        // 不再讀出 Book 改數字後 save，否則兩筆並發結帳會都看到舊庫存而超賣
+        List<Long> rejected = inventoryService.reserve(reservations, bucketCounts);
+        if (!rejected.isEmpty()) {
+            // 拋出例外讓整筆交易回滾，已扣除的其他書籍庫存也會一併復原
+            throw checkoutFailure(Reason.INSUFFICIENT_STOCK,
+                    titles.get(rejected.get(0)) + " 庫存不足或已下架，無法結帳。");
         }
 
-        // 4. 設置訂單總價並保存 Order
         order.setTotalPrice(total);
-        order.setItems(orderItems);
+        return new PreparedOrder(order, orderItems, cartItems.stream().map(CartItem::getCartItemId).toList(),
+                reservations);
+    }
+
+    private record PreparedOrder(Order order, List<OrderItem> items, List<Long> cartItemIds,
+                                 Map<Long, Integer> reservations) {
+    }
+
+    // --- 帶 Idempotency-Key 的結帳 (由 CheckoutPipeline 呼叫，各階段各自一個交易) ---
+
+    /**
+     * 受理階段：先寫入 (userId, key) 的結帳紀錄 (唯一鍵，同一 key 的並發請求在此等待後失敗)，
+     * 再扣庫存並建立狀態為 ACCEPTED 的訂單主檔；訂單明細與清空購物車留給 {@link #materializeCheckout}。
+     * @throws CheckoutException 與同步結帳相同的失敗原因，整個交易 (含結帳紀錄) 回滾
+     * @throws org.springframework.dao.DataIntegrityViolationException 同一 key 已被其他請求寫入
+     */
+    @Transactional
+    public CheckoutAttempt acceptCheckout(Long userId, String idempotencyKey, String requestHash,
+                                          CheckoutRequest req) {
+        CheckoutAttempt attempt = checkoutAttemptRepository.saveAndFlush(
+                new CheckoutAttempt(userId, idempotencyKey, requestHash, CheckoutAttempt.Status.ACCEPTED));
+
+        PreparedOrder prepared = prepare(userId, req);
+        Order order = prepared.order();
+        order.setStatus(OrderStatus.ACCEPTED);
+        order.setItems(new ArrayList<>());
         Order savedOrder = orderRepository.save(order);
+        outboxService.orderPlaced(savedOrder, prepared.items());
+        outboxService.stockReserved(savedOrder.getOrderId(), prepared.reservations());
+
+        List<CheckoutLine> lines = new ArrayList<>();
+        for (int i = 0; i < prepared.items().size(); i++) {
+            OrderItem item = prepared.items().get(i);
+            lines.add(new CheckoutLine(prepared.cartItemIds().get(i), item.getBook().getBookId(),
+                    item.getQuantity(), item.getPrice()));
+        }
+        attempt.setOrderId(savedOrder.getOrderId());
+        attempt.setMessage("結帳已受理！訂單 ID: " + savedOrder.getOrderId());
+        attempt.setLines(lines);
 
-        // 5. 清空購物車 (結帳成功後)
-        cartItemRepository.deleteAll(cartItems);
+        meterRegistry.counter(CHECKOUT_COUNTER, "outcome", "success", "reason", "none").increment();
+        return attempt;
+    }
 
-        // 🎯 核心修正 2: 創建並返回 DTO
-        CheckoutResponseDTO response = new CheckoutResponseDTO();
-        response.setOrderId(savedOrder.getOrderId());
-        response.setMessage("結帳成功！訂單 ID: " + savedOrder.getOrderId());
+    /**
+     * 受理即失敗的結帳也記下來，同一 key 重送時回傳相同的錯誤而不再扣一次庫存
+     */
+    @Transactional
+    public CheckoutAttempt recordRejectedCheckout(Long userId, String idempotencyKey, String requestHash,
+                                                  CheckoutException failure) {
+        CheckoutAttempt attempt = new CheckoutAttempt(userId, idempotencyKey, requestHash,
+                CheckoutAttempt.Status.FAILED);
+        attempt.setMessage(failure.getMessage());
+        attempt.setFailureReason(failure.getReason().name());
+        return checkoutAttemptRepository.saveAndFlush(attempt);
+    }
 
-        return response;
+    /**
+     * 非同步階段：依受理時的快照建立訂單明細、清空已結帳的購物車明細，訂單由 ACCEPTED 轉為 PENDING。
+     * 以條件式 UPDATE 搶下 ACCEPTED → COMPLETED，重複觸發 (復原排程) 時不會重建明細；
+     * 受理後回應已帶 orderId，訂單可能先被付款 (PAID)，此時只建立明細、不改狀態
+     * @return 是否由這次呼叫完成
+     */
+    @Transactional
+    public boolean materializeCheckout(Long attemptId) {
+        if (checkoutAttemptRepository.transition(attemptId, CheckoutAttempt.Status.ACCEPTED,
+                CheckoutAttempt.Status.COMPLETED, OffsetDateTime.now()) == 0) {
+            return false;
+        }
+        CheckoutAttempt attempt = checkoutAttemptRepository.findById(attemptId).orElseThrow();
+        // 先以條件式 UPDATE 推進狀態再載入訂單，載入的訂單即為最新狀態
+        boolean placed = orderRepository.transitionStatus(attempt.getOrderId(), OrderStatus.ACCEPTED,
+                OrderStatus.PENDING) == 1;
+        Order order = orderRepository.findById(attempt.getOrderId())
+                .orElseThrow(() -> new OrderNotFoundException(attempt.getOrderId()));
+
+        List<Long> cartItemIds = new ArrayList<>();
+        for (CheckoutLine line : attempt.getLines()) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setBook(bookRepository.getReferenceById(line.getBookId()));
+            item.setQuantity(line.getQuantity());
+            item.setPrice(line.getPrice());
+            item.setSubtotal(line.getPrice().multiply(new BigDecimal(line.getQuantity())));
+            order.getItems().add(item);
+            cartItemIds.add(line.getCartItemId());
+        }
+        if (placed) {
+            outboxService.orderStatusChanged(order, OrderStatus.ACCEPTED);
+        }
+        cartItemRepository.deleteCheckedOut(attempt.getUserId(), cartItemIds);
+        return true;
+    }
+
+    /**
+     * 非同步階段失敗的補償：訂單仍為 ACCEPTED 時取消訂單、回補受理時扣除的庫存，結帳紀錄轉為 FAILED。
+     * 訂單已不是 ACCEPTED (受理回應已帶回 orderId，會員可能已付款) 時不取消也不回補，
+     * 結帳紀錄轉為 NEEDS_ATTENTION 待人工處理
+     */
+    @Transactional
+    public void abandonCheckout(Long attemptId, String failureReason) {
+        if (checkoutAttemptRepository.transition(attemptId, CheckoutAttempt.Status.ACCEPTED,
+                CheckoutAttempt.Status.FAILED, OffsetDateTime.now()) == 0) {
+            return;
+        }
+        CheckoutAttempt attempt = checkoutAttemptRepository.findById(attemptId).orElseThrow();
+        // 條件式取消：與付款互斥，已付款的訂單不會被蓋成 CANCELLED
+        if (orderRepository.transitionStatus(attempt.getOrderId(), OrderStatus.ACCEPTED,
+                OrderStatus.CANCELLED) == 0) {
+            attempt.setStatus(CheckoutAttempt.Status.NEEDS_ATTENTION);
+            attempt.setFailureReason("訂單明細建立失敗，但訂單已不是受理狀態 (可能已付款)，需人工補建明細或退款");
+            log.error("結帳非同步階段失敗且訂單已付款，需人工處理 attemptId={} orderId={}",
+                    attemptId, attempt.getOrderId());
+            return;
+        }
+        attempt.setFailureReason(failureReason);
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        attempt.getLines().forEach(line -> quantities.merge(line.getBookId(), line.getQuantity(), Integer::sum));
+        Map<Long, Integer> bucketCounts = new HashMap<>();
+        for (Book book : bookRepository.findAllById(quantities.keySet())) {
+            if (book.isStockStriped()) {
+                bucketCounts.put(book.getBookId(), book.getStockBuckets());
+            }
+        }
+        inventoryService.release(quantities, bucketCounts);
+        outboxService.stockReleased(attempt.getOrderId(), quantities);
+        orderRepository.findById(attempt.getOrderId())
+                .ifPresent(order -> outboxService.orderStatusChanged(order, OrderStatus.ACCEPTED));
+    }
+
+    /**
+     * 清除建立時間早於 before、已結束 (COMPLETED / FAILED) 的結帳紀錄；之後同一個 key 會被視為新的結帳
+     */
+    @Transactional
+    public int purgeExpiredCheckouts(OffsetDateTime before) {
+        checkoutAttemptRepository.deleteExpiredLines(before);
+        return checkoutAttemptRepository.deleteExpired(
+                List.of(CheckoutAttempt.Status.COMPLETED, CheckoutAttempt.Status.FAILED), before);
+    }
+
+    // 記錄失敗原因後回傳例外，由呼叫端 throw
+    private CheckoutException checkoutFailure(Reason reason, String message) {
+        meterRegistry.counter(CHECKOUT_COUNTER, "outcome", "failure", "reason", reason.name().toLowerCase())
+                .increment();
+        return new CheckoutException(reason, message);
     }
 
     // --- 會員前台訂單查詢 ---
@@ -115,47 +326,39 @@ public class OrderService {
      */
 
     public List<OrderListDTO> getOrdersByUserId(Long userId) {
-        List<Order> orders = orderRepository.findByUserUserIdOrderByCreatedAtDesc(userId);
-
-        // 🎯 核心修正：在這裡將實體列表轉換為 DTO 列表
-        return orders.stream()
-                .map(this::mapToOrderListDTO)
-                .collect(Collectors.toList());
+        // 🎯 核心修正：直接以投影查詢取得 DTO，不載入 Order 實體
+        return orderRepository.findListByUserId(userId);
     }
 
-    private OrderListDTO mapToOrderListDTO(Order order) {
-        OrderListDTO dto = new OrderListDTO();
-        dto.setOrderId(order.getOrderId());
-        dto.setStatus(order.getStatus().name());
-        dto.setTotalPrice(order.getTotalPrice());
-        dto.setCreatedAt(order.getCreatedAt());
-        // 🌟 補上這一行，否則後台列表永遠拿不到付款方式！
-        dto.setPaymentMethod(order.getPaymentMethod().name());
-        // 🌟 加上這個防護：如果付款方式是空，就給一個預設值，避免 500 錯誤
-        if (order.getPaymentMethod() != null) {
-            dto.setPaymentMethod(order.getPaymentMethod().name());
-        } else {
-            dto.setPaymentMethod("UNKNOWN"); // 或者 "CASH_ON_DELIVERY"
-        }
-        return dto;
-    }
     /**
      * 會員查詢單筆訂單詳情 (需確認所有權)
      */
     // --- 管理員後台訂單管理 ---
 
     /**
-     * 管理員查詢所有訂單
+     * 管理員查詢所有訂單 (Keyset 分頁，由新到舊)
+     * @param cursor 上一頁回傳的游標 (createdAt + orderId)，第一頁為 null
+     * @param size   每頁筆數，上限為 application.pagination.max-page-size
      */
-    public List<OrderListDTO> getAllOrders() {
-        // 雖然 orderRepository.findAll() 會執行 N+1 查詢，但在 Service 層轉換 DTO 仍然是解決序列化問題的關鍵。
-        List<Order> orders = orderRepository.findAll();
-
-        // 🎯 修正 2: 執行 Order 實體到 OrderListDTO 的轉換
-        return orders.stream()
-                // 使用您已定義的列表 DTO 轉換方法
-                .map(this::mapToOrderListDTO)
-                .collect(Collectors.toList());
+    public CursorPage<OrderListDTO> getAllOrders(String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size, maxPageSize);
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<OrderListDTO> orders;
+        if (cursor == null) {
+            orders = orderRepository.findLatest(limit);
+        } else {
+            String[] keys = PageCursor.decode(cursor, 2);
+            orders = orderRepository.findLatestBefore(
+                    PageCursor.parseKey(keys[0], OffsetDateTime::parse),
+                    PageCursor.parseKey(keys[1], Long::valueOf),
+                    limit);
+        }
+
+        // 查詢已直接回傳 OrderListDTO (建構式投影)，不需要再逐筆轉換實體
+        return PageCursor.page(orders, pageSize,
+                order -> PageCursor.encode(order.getCreatedAt(), order.getOrderId()),
+                order -> order);
     }
 
     /**
@@ -179,7 +382,9 @@ public class OrderService {
             restoreStock(order);
         }
 
+        OrderStatus previous = order.getStatus();
         order.setStatus(nextStatus);
+        outboxService.orderStatusChanged(order, previous);
 
         return orderRepository.save(order);
     }
@@ -265,34 +470,96 @@ public class OrderService {
             restoreStock(order);
         }
 
+        OrderStatus previous = order.getStatus();
         order.setStatus(nextStatus);
+        outboxService.orderStatusChanged(order, previous);
         orderRepository.save(order);
 
         return mapToDetailDTO(order);
     }
 
+    /**
+     * 會員完成信用卡付款：訂單轉為 PAID，付款方式改為 CREDIT_CARD
+     * @return 訂單不存在時為 false
+     */
+    @Transactional
+    public boolean completePayment(Long orderId) {
+        return orderRepository.findById(orderId).map(order -> {
+            OrderStatus previous = order.getStatus();
+            order.setStatus(OrderStatus.PAID);
+            // 明細頁依此顯示付款方式
+            order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+            outboxService.orderStatusChanged(order, previous);
+            orderRepository.save(order);
+            log.info("訂單 {} 已更新：PAID 且 CREDIT_CARD", orderId);
+            return true;
+        }).orElse(false);
+    }
+
     /**
      * 💡 新增私有輔助方法：統一處理庫存回補
      */
     private void restoreStock(Order order) {
+        if (order.getItems().isEmpty()) {
+            restoreAcceptedStock(order);
+            return;
+        }
+        // 與結帳相同，以 UPDATE stock = stock + ? 原子回補，避免覆蓋掉同時間其他結帳扣除的庫存
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Integer> bucketCounts = new HashMap<>();
         for (OrderItem item : order.getItems()) {
             Book book = item.getBook();
             if (book != null) {
-                int updatedStock = book.getStock() + item.getQuantity();
-                book.setStock(updatedStock);
-                bookRepository.save(book);
-                System.out.println("成功回補庫存 - 書籍: " + book.getTitle() + ", 加回數量: " + item.getQuantity());
+                quantities.merge(book.getBookId(), item.getQuantity(), Integer::sum);
+                if (book.isStockStriped()) {
+                    bucketCounts.put(book.getBookId(), book.getStockBuckets());
+                }
+                log.debug("回補庫存 bookId={} quantity={}", book.getBookId(), item.getQuantity());
             }
         }
+        inventoryService.release(quantities, bucketCounts);
+        outboxService.stockReleased(order.getOrderId(), quantities);
+    }
+
+    /**
+     * 取消尚未建立明細的訂單 (帶 Idempotency-Key 的結帳受理後、非同步階段前)：
+     * 先把結帳紀錄由 ACCEPTED 轉為 FAILED，非同步階段之後不會再建立明細；
+     * 再依結帳紀錄的明細快照回補受理時扣除的庫存。
+     * 若非同步階段已先失敗 (FAILED)，庫存已由 {@link #abandonCheckout} 回補，這裡不再重複回補；
+     * 待人工處理 (NEEDS_ATTENTION) 的結帳沒有回補過，取消時照常回補
+     */
+    private void restoreAcceptedStock(Order order) {
+        CheckoutAttempt attempt = checkoutAttemptRepository.findByOrderId(order.getOrderId()).orElse(null);
+        if (attempt == null) {
+            return;
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        attempt.getLines().forEach(line -> quantities.merge(line.getBookId(), line.getQuantity(), Integer::sum));
+        Long attemptId = attempt.getAttemptId();
+        // transition 會清空持久化內容，之後重新載入結帳紀錄
+        if (checkoutAttemptRepository.transition(attemptId, CheckoutAttempt.Status.ACCEPTED,
+                CheckoutAttempt.Status.FAILED, OffsetDateTime.now()) == 1) {
+            checkoutAttemptRepository.findById(attemptId).ifPresent(failed -> failed.setFailureReason("訂單已取消"));
+        } else if (checkoutAttemptRepository.findById(attemptId)
+                .map(current -> current.getStatus() == CheckoutAttempt.Status.FAILED).orElse(true)) {
+            return;
+        }
+        Map<Long, Integer> bucketCounts = new HashMap<>();
+        for (Book book : bookRepository.findAllById(quantities.keySet())) {
+            if (book.isStockStriped()) {
+                bucketCounts.put(book.getBookId(), book.getStockBuckets());
+            }
+        }
+        inventoryService.release(quantities, bucketCounts);
+        outboxService.stockReleased(order.getOrderId(), quantities);
     }
 
     /**
      * 🎯 管理員專用：根據訂單 ID 獲取詳情 (不限用戶)
      */
     public OrderDetailDTO getOrderDetailByOrderIdOnly(Long orderId) {
-        // 建議使用帶有 Fetch Join 的 Repository 方法以優化效能
-        // 如果沒有自定義方法，暫時使用 findById
-        Order order = orderRepository.findById(orderId)
+        // 連同明細與書籍一次載入 (不在交易內，之後無法 lazy 載入)
+        Order order = orderRepository.findByIdWithDetails(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("找不到訂單：" + orderId));
 
         // 🌟 修正點：將 convertToDetailDTO 改為 mapToDetailDTO
@@ -0,0 +1,116 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.OutboxEvent;
+import org.example.event.OutboxMessage;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * 將 outbox_events 依 eventId 順序批次轉送給所有 OutboxSink：
+ * 每批在一個交易內鎖定最舊的 batch-size 筆、交給各 sink、刪除，失敗則整批回滾留待下次。
+ * 鎖定而非略過 (SKIP LOCKED) 已鎖定的列，多個實例同時轉送也不會打亂順序。
+ * 尚未提交的事件此時看不到，提交後會在之後的批次送出，所以送出順序是 eventId 順序而非嚴格的提交順序。
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate batchTx;
+    private final Counter relayed;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.outbox.batch-size:200}")
+    private int batchSize = 200;
+
+    // 單次排程最多處理的批數，積壓很多時分散到之後的排程，不長時間佔用排程執行緒
+    @Value("${application.outbox.max-batches-per-run:50}")
+    private int maxBatchesPerRun = 50;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, List<OutboxSink> sinks,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = List.copyOf(sinks);
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.relayed = Counter.builder("bookstore.outbox.relayed").register(meterRegistry);
+        log.info("outbox 轉送目的地: {}", this.sinks.stream().map(OutboxSink::name).toList());
+    }
+
+    @Scheduled(initialDelayString = "${application.outbox.relay-interval-ms:1000}",
+            fixedDelayString = "${application.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        drain();
+    }
+
+    /**
+     * 轉送目前積壓的事件 (最多 max-batches-per-run 批)
+     * @return 轉送的事件數
+     */
+    public int drain() {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int count;
+            try {
+                count = relayBatch();
+            } catch (RuntimeException e) {
+                log.warn("outbox 轉送失敗，下次排程重送: {}", e.toString());
+                break;
+            }
+            total += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int relayBatch() {
+        Integer count = batchTx.execute(status -> {
+            List<OutboxEvent> batch = outboxEventRepository.lockOldest(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            List<OutboxMessage> messages = batch.stream()
+                    .map(event -> new OutboxMessage(event.getEventId(), event.getAggregateType(),
+                            event.getAggregateId(), event.getEventType(), event.getPayload(), event.getCreatedAt()))
+                    .toList();
+            for (OutboxSink sink : sinks) {
+                deliver(sink, messages);
+            }
+            outboxEventRepository.deleteByEventIdIn(messages.stream().map(OutboxMessage::eventId).toList());
+            return messages.size();
+        });
+        relayed.increment(count);
+        return count;
+    }
+
+    private void deliver(OutboxSink sink, List<OutboxMessage> messages) {
+        try {
+            sink.deliver(messages);
+        } catch (IOException e) {
+            countFailure(sink);
+            throw new UncheckedIOException("outbox 轉送到 " + sink.name() + " 失敗", e);
+        } catch (RuntimeException e) {
+            countFailure(sink);
+            throw e;
+        }
+    }
+
+    private void countFailure(OutboxSink sink) {
+        meterRegistry.counter("bookstore.outbox.relay.failures", "sink", sink.name()).increment();
+    }
+}
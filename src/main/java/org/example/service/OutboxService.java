@@ -0,0 +1,120 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entity.Book;
+import org.example.entity.Order;
+import org.example.entity.OrderItem;
+import org.example.entity.OrderStatus;
+import org.example.entity.OutboxEvent;
+import org.example.event.OutboxMessage;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 寫入 outbox 事件。必須在異動訂單 / 庫存的交易內呼叫，事件與異動一起提交或一起回滾；
+ * 轉送由 OutboxRelay 負責。
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 訂單成立；帶 Idempotency-Key 的結帳在受理時訂單尚無明細，明細由 items 傳入
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderPlaced(Order order, List<OrderItem> items) {
+        List<Map<String, Object>> lines = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            Book book = item.getBook();
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("bookId", book.getBookId());
+            line.put("lang", book.getLang());
+            line.put("quantity", item.getQuantity());
+            line.put("price", item.getPrice());
+            line.put("subtotal", item.getSubtotal());
+            lines.add(line);
+        }
+        Map<String, Object> payload = orderFields(order);
+        payload.put("status", order.getStatus());
+        payload.put("items", lines);
+        append(OutboxMessage.ORDER, order.getOrderId(), OutboxMessage.ORDER_PLACED, payload);
+    }
+
+    /**
+     * 訂單狀態變更，狀態未改變時不寫入
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Order order, OrderStatus from) {
+        if (from == order.getStatus()) {
+            return;
+        }
+        Map<String, Object> payload = orderFields(order);
+        payload.put("from", from);
+        payload.put("to", order.getStatus());
+        append(OutboxMessage.ORDER, order.getOrderId(), OutboxMessage.ORDER_STATUS_CHANGED, payload);
+    }
+
+    /**
+     * 結帳扣除的庫存，每本書一筆 (聚合為書籍，供目錄快取、搜尋等依書籍更新)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockReserved(Long orderId, Map<Long, Integer> quantities) {
+        appendStock(OutboxMessage.STOCK_RESERVED, orderId, quantities);
+    }
+
+    /**
+     * 取消訂單回補的庫存，每本書一筆
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockReleased(Long orderId, Map<Long, Integer> quantities) {
+        appendStock(OutboxMessage.STOCK_RELEASED, orderId, quantities);
+    }
+
+    private void appendStock(String eventType, Long orderId, Map<Long, Integer> quantities) {
+        // 依書籍 ID 排序，重送或對帳時事件順序固定
+        quantities.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    Map<String, Object> payload = new LinkedHashMap<>();
+                    payload.put("bookId", entry.getKey());
+                    payload.put("orderId", orderId);
+                    payload.put("quantity", entry.getValue());
+                    append(OutboxMessage.BOOK, entry.getKey(), eventType, payload);
+                });
+    }
+
+    private static Map<String, Object> orderFields(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getOrderId());
+        payload.put("userId", order.getUserId());
+        payload.put("paymentMethod", order.getPaymentMethod());
+        payload.put("totalPrice", order.getTotalPrice());
+        payload.put("createdAt", order.getCreatedAt());
+        return payload;
+    }
+
+    private void append(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox 事件序列化失敗: " + eventType, e);
+        }
+        outboxEventRepository.save(new OutboxEvent(aggregateType, aggregateId, eventType, json));
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.service;
+
+import org.example.event.OutboxMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * OutboxRelay 的轉送目的地。每批事件依 eventId 順序交給所有啟用的 sink，
+ * 任一 sink 失敗時整批保留在 outbox 下次重送，已成功的 sink 會再收到一次 (接收端以 eventId 去重)。
+ */
+public interface OutboxSink {
+
+    /**
+     * 指標與日誌中使用的名稱
+     */
+    String name();
+
+    /**
+     * 依序交付一批事件，回傳即代表已交付完成 (例如已寫入檔案)
+     */
+    void deliver(List<OutboxMessage> batch) throws IOException;
+}
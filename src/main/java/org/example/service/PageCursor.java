@@ -0,0 +1,90 @@
+package org.example.service;
+
+import org.example.dto.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) 分頁的游標工具。
+ * 游標內容是上一頁最後一筆的排序鍵 (例如 createdAt + id)，以 Base64URL 編碼讓前端視為不透明字串；
+ * 下一頁直接用 WHERE (key) &lt; (cursor) 走索引定位，第 N 頁與第 1 頁成本相同，不像 OFFSET 需要掃過前面所有列。
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PageCursor() {
+    }
+
+    public static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keys[i]);
+        }
+        return ENCODER.encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解開游標並檢查排序鍵數量，格式不符一律視為無效游標 (400)
+     */
+    public static String[] decode(String cursor, int keyCount) {
+        String raw;
+        try {
+            raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("無效的分頁游標", e);
+        }
+        String[] keys = raw.split("\\" + SEPARATOR, -1);
+        if (keys.length != keyCount) {
+            throw new IllegalArgumentException("無效的分頁游標");
+        }
+        return keys;
+    }
+
+    /**
+     * 解析單一數值鍵的游標 (bookId / userId 等)
+     */
+    public static long decodeId(String cursor) {
+        return parseKey(decode(cursor, 1)[0], Long::parseLong);
+    }
+
+    /**
+     * 將游標中的排序鍵轉回原型別 (時間、ID)，解析失敗視為無效游標
+     */
+    public static <T> T parseKey(String key, Function<String, T> parser) {
+        try {
+            return parser.apply(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("無效的分頁游標", e);
+        }
+    }
+
+    /**
+     * 將請求的每頁筆數限制在 1 ~ maxSize 之間，未指定時使用 maxSize
+     */
+    public static int pageSize(Integer requested, int maxSize) {
+        if (requested == null) {
+            return maxSize;
+        }
+        return Math.min(Math.max(requested, 1), maxSize);
+    }
+
+    /**
+     * 查詢時多取一筆 (size + 1) 判斷是否還有下一頁，再以本頁最後一筆產生游標
+     */
+    public static <T, R> CursorPage<R> page(List<T> fetched, int size,
+                                            Function<T, String> cursorOf, Function<T, R> mapper) {
+        boolean hasNext = fetched.size() > size;
+        List<T> rows = hasNext ? fetched.subList(0, size) : fetched;
+        String next = hasNext ? cursorOf.apply(rows.get(rows.size() - 1)) : null;
+        return new CursorPage<>(rows.stream().map(mapper).toList(), next);
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.RatingCount;
+import org.example.dto.RatingSummaryDTO;
+import org.example.entity.BookRatingSummary;
+import org.example.repository.BookRatingSummaryRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 書籍評分彙總 (book_rating_summaries) 的維護：
+ * 新增 / 刪除評論時在同一個交易內增量更新；另以批次對帳依 reviews 重新計算，
+ * 啟動時回填還沒有彙總的書籍，並定期全面對帳修正漂移。
+ */
+@Slf4j
+@Service
+public class RatingSummaryService {
+
+    private final BookRatingSummaryRepository summaryRepository;
+    private final ReviewRepository reviewRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate batchTx;
+
+    @Value("${application.rating-summary.reconcile-batch-size:500}")
+    private int batchSize = 500;
+
+    public RatingSummaryService(BookRatingSummaryRepository summaryRepository, ReviewRepository reviewRepository,
+                                BookRepository bookRepository, PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.reviewRepository = reviewRepository;
+        this.bookRepository = bookRepository;
+        this.batchTx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 評論寫入後增量更新彙總，必須在寫入評論的交易內、評論列寫入之後呼叫
+     * @param delta 1 為新增評論，-1 為刪除評論
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Long bookId, int rating, int delta) {
+        if (summaryRepository.apply(bookId, rating, delta) > 0) {
+            return;
+        }
+        // 尚無彙總列 (新書或尚未回填)：鎖定書籍列，避免兩筆首次評論同時建立彙總
+        bookRepository.lockById(bookId);
+        if (summaryRepository.apply(bookId, rating, delta) > 0) {
+            return;
+        }
+        // 本交易寫入的評論已在 reviews 中，直接整本重新計算即可
+        summaryRepository.save(recompute(List.of(bookId)).get(bookId));
+    }
+
+    @Transactional(readOnly = true)
+    public RatingSummaryDTO getSummary(Long bookId) {
+        return RatingSummaryDTO.from(summaryRepository.findById(bookId)
+                .orElseGet(() -> new BookRatingSummary(bookId)));
+    }
+
+    /**
+     * 啟動完成後回填還沒有彙總列的書籍
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        reconcile(bookRepository::findIdsWithoutRatingSummaryAfter);
+    }
+
+    /**
+     * 定期全面對帳：依 reviews 重新計算每本書的彙總，修正與增量更新之間的漂移
+     */
+    @Scheduled(cron = "${application.rating-summary.reconcile-cron:0 30 3 * * *}")
+    public void reconcileAll() {
+        reconcile(bookRepository::findIdsAfter);
+    }
+
+    private interface IdBatchQuery {
+        List<Long> next(Long afterId, Limit limit);
+    }
+
+    /**
+     * 依 bookId 分批對帳，每批一個交易，不會長時間鎖住大量彙總列
+     * @return 新建或修正的彙總筆數
+     */
+    private int reconcile(IdBatchQuery query) {
+        int corrected = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> bookIds = query.next(afterId, Limit.of(batchSize));
+            if (bookIds.isEmpty()) {
+                break;
+            }
+            afterId = bookIds.get(bookIds.size() - 1);
+            try {
+                corrected += batchTx.execute(status -> reconcileBatch(bookIds));
+            } catch (DataAccessException e) {
+                // 與首次評論同時建立彙總而衝突：略過本批，下次對帳再處理
+                log.warn("評分彙總對帳失敗，略過 bookId {} 之前的批次: {}", afterId, e.getMessage());
+            }
+        }
+        if (corrected > 0) {
+            log.info("評分彙總對帳完成，新建或修正 {} 筆", corrected);
+        }
+        return corrected;
+    }
+
+    private int reconcileBatch(List<Long> bookIds) {
+        // 先鎖彙總列再統計 reviews：並發的增量更新若已提交會被統計到，否則會等本批提交後才套用
+        Map<Long, BookRatingSummary> existing = summaryRepository.lockAllById(bookIds).stream()
+                .collect(Collectors.toMap(BookRatingSummary::getBookId, Function.identity()));
+        int corrected = 0;
+        for (BookRatingSummary actual : recompute(bookIds).values()) {
+            BookRatingSummary current = existing.get(actual.getBookId());
+            if (current == null) {
+                summaryRepository.save(actual);
+                corrected++;
+            } else if (current.copyCountsFrom(actual)) {
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    private Map<Long, BookRatingSummary> recompute(List<Long> bookIds) {
+        Map<Long, BookRatingSummary> summaries = new HashMap<>();
+        for (Long bookId : bookIds) {
+            summaries.put(bookId, new BookRatingSummary(bookId));
+        }
+        for (RatingCount count : reviewRepository.countByBookIdAndRating(bookIds)) {
+            summaries.get(count.bookId()).add(count.rating(), count.total());
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.dto.ReviewResponse;
+import org.example.event.ReviewChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 書籍頁的評論快取 (以 bookId 為 key)：保存每本書最新的一段評論，第一頁 (不帶游標) 的請求直接由此切出，
+ * 之後的翻頁仍走 keyset 查詢。
+ * 使用 Caffeine (W-TinyLFU)：容量以「快取中的評論總筆數」計重，冷門書不會把熱門書擠出去。
+ * 新增評論的交易提交後 (AFTER_COMMIT) 才逐出該書；載入期間若發生逐出，載入結果可能是舊資料，不寫回快取 (StaleLoadGuard)。
+ * 載入 (資料庫查詢) 刻意不放在 Cache.get(key, loader) 內：那會在 ConcurrentHashMap 的 synchronized 區塊中等待 I/O，
+ * 虛擬執行緒模式下會釘住 (pin) 載體執行緒。
+ * 每次載入都配發新的版本號，作為評論列表的 HTTP ETag：逐出或過期重新載入後版本一定不同。
+ * ReviewChangedEvent 只在寫入評論的實例上發布：多實例部署時，其他實例的書籍頁要等 TTL 到期才會出現新評論，
+ * 評論者被導到其他實例時可能暫時看不到自己剛發的評論；評分彙總不經過此快取，不受影響。
+ */
+@Component
+public class ReviewCache {
+
+    /**
+     * @param version 這次載入的版本號
+     * @param reviews 最新的評論 (由新到舊)
+     */
+    public record LatestReviews(long version, List<ReviewResponse> reviews) {
+    }
+
+    private final Cache<Long, LatestReviews> latest;
+    private final AtomicLong versions = new AtomicLong();
+    private final StaleLoadGuard staleLoads = new StaleLoadGuard();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ReviewCache(@Value("${application.review-cache.max-reviews:50000}") long maxReviews,
+                       @Value("${application.review-cache.ttl-ms:300000}") long ttlMs) {
+        this.latest = Caffeine.newBuilder()
+                .maximumWeight(maxReviews)
+                .weigher((Long bookId, LatestReviews entry) -> entry.reviews().size() + 1)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 取得某本書最新的評論 (由新到舊)，未命中時以 loader 載入
+     * 回傳的清單與其中的 DTO 由所有請求共用，呼叫端不可修改
+     */
+    public LatestReviews latest(Long bookId, Function<Long, List<ReviewResponse>> loader) {
+        LatestReviews cached = latest.getIfPresent(bookId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = staleLoads.beforeLoad();
+        LatestReviews loaded = new LatestReviews(versions.incrementAndGet(), List.copyOf(loader.apply(bookId)));
+        // compute 內只做比對，與 evict 的 invalidate 互斥：比對通過後才發生的逐出一定會把這筆移除
+        latest.asMap().compute(bookId, (id, current) -> staleLoads.unchangedSince(loadedAt) ? loaded : current);
+        return loaded;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReviewChanged(ReviewChangedEvent event) {
+        evict(event.bookId());
+    }
+
+    public void evict(Long bookId) {
+        if (bookId != null) {
+            staleLoads.invalidated();
+            latest.invalidate(bookId);
+            invalidations.increment();
+        }
+    }
+
+    public CacheStats stats() {
+        return latest.stats();
+    }
+
+    /** 因新增評論而主動逐出的次數；容量或 TTL 造成的淘汰見 stats().evictionCount() */
+    public long invalidationCount() {
+        return invalidations.sum();
+    }
+
+    public long size() {
+        return latest.estimatedSize();
+    }
+}
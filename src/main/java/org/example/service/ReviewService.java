@@ -1,50 +1,99 @@
 package org.example.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.CursorPage;
 import org.example.dto.ReviewResponse;
 import org.example.entity.Book;
 import org.example.entity.Review;
 import org.example.entity.User;
+import org.example.event.ReviewChangedEvent;
 import org.example.repository.BookRepository;
 import org.example.repository.ReviewRepository;
 import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
+@Timed("bookstore.service")
 @RequiredArgsConstructor
 public class ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final ReviewCache reviewCache;
+    private final RatingSummaryService ratingSummaryService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
 
     // ReviewService.java
-    @Transactional(readOnly = true)
-    public List<ReviewResponse> getReviewsByBookId(Integer bookId) {
-        // 1. 從資料庫抓出 Entity 列表
-        List<Review> reviews = reviewRepository.findByBook_BookIdOrderByCreatedAtDesc(bookId);
-
-        // 2. 將 Entity 轉換為 ReviewResponse DTO
-        return reviews.stream().map(review -> {
-            ReviewResponse dto = new ReviewResponse();
-            dto.setReviewId(review.getReviewId());
-            dto.setContent(review.getContent());
-            dto.setRating(review.getRating());
-
-            // 🌟 關鍵修正：從關聯的 User 物件中取出真正的名字 (getRealName)
-            if (review.getUser() != null) {
-                dto.setUsername(review.getUser().getRealName());
-            } else {
-                dto.setUsername("匿名讀者");
-            }
-
-            dto.setCreatedAt(review.getCreatedAt());
-            return dto;
-        }).collect(Collectors.toList());
+    /**
+     * 查詢書籍評論 (Keyset 分頁，由新到舊)
+     * 第一頁由 ReviewCache 中該書最新的 max-page-size + 1 筆切出，翻頁才查詢資料庫
+     * @param cursor 上一頁回傳的游標 (createdAt + reviewId)，第一頁為 null
+     * @param size   每頁筆數，上限為 application.pagination.max-page-size
+     */
+    public CursorPage<ReviewResponse> getReviewsByBookId(Integer bookId, String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size, maxPageSize);
+
+        List<ReviewResponse> reviews;
+        if (cursor == null) {
+            List<ReviewResponse> latest = reviewCache.latest(Long.valueOf(bookId), this::loadLatest).reviews();
+            reviews = latest.subList(0, Math.min(latest.size(), pageSize + 1));
+        } else {
+            String[] keys = PageCursor.decode(cursor, 2);
+            reviews = reviewRepository.findLatestByBookIdBefore(Long.valueOf(bookId),
+                    PageCursor.parseKey(keys[0], LocalDateTime::parse),
+                    PageCursor.parseKey(keys[1], Integer::valueOf),
+                    Limit.of(pageSize + 1)).stream()
+                    .map(this::toResponse)
+                    .toList();
+        }
+
+        return PageCursor.page(reviews, pageSize,
+                review -> PageCursor.encode(review.getCreatedAt(), review.getReviewId()),
+                Function.identity());
+    }
+
+    /**
+     * 評論列表目前的版本 (HTTP ETag 用)：與第一頁共用同一份快取，新增評論提交後即改變
+     */
+    public long getReviewsVersion(Integer bookId) {
+        return reviewCache.latest(Long.valueOf(bookId), this::loadLatest).version();
+    }
+
+    private List<ReviewResponse> loadLatest(Long bookId) {
+        return reviewRepository.findLatestByBookId(bookId, Limit.of(maxPageSize + 1)).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    // 將 Entity 轉換為 ReviewResponse DTO
+    private ReviewResponse toResponse(Review review) {
+        ReviewResponse dto = new ReviewResponse();
+        dto.setReviewId(review.getReviewId());
+        dto.setContent(review.getContent());
+        dto.setRating(review.getRating());
+
+        // 🌟 關鍵修正：從關聯的 User 物件中取出真正的名字 (getRealName)
+        if (review.getUser() != null) {
+            dto.setUsername(review.getUser().getRealName());
+        } else {
+            dto.setUsername("匿名讀者");
+        }
+
+        dto.setCreatedAt(review.getCreatedAt());
+        return dto;
     }
 
     // 新增評論（包含商業邏輯檢查）
@@ -71,6 +120,10 @@ public class ReviewService {
                 .content(content)
                 .build();
 
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        ratingSummaryService.apply(book.getBookId(), rating, 1);
+        // 交易提交後才逐出該書的評論快取 (ReviewCache)
+        eventPublisher.publishEvent(new ReviewChangedEvent(book.getBookId()));
+        return saved;
     }
 }
@@ -0,0 +1,438 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.AnalyticsRebuildStatusDTO;
+import org.example.dto.OrderItemSalesRow;
+import org.example.dto.OrderSalesRow;
+import org.example.dto.SalesRollupDTO;
+import org.example.dto.TopBookDTO;
+import org.example.entity.Book;
+import org.example.entity.OrderStatus;
+import org.example.entity.SalesFactLine;
+import org.example.entity.SalesOrderFact;
+import org.example.entity.SalesRollup;
+import org.example.entity.SalesRollup.Dimension;
+import org.example.event.OutboxMessage;
+import org.example.exception.DatabaseOverloadedException;
+import org.example.repository.BookRepository;
+import org.example.repository.OrderRepository;
+import org.example.repository.SalesOrderFactRepository;
+import org.example.repository.SalesRollupRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 後台銷售分析：維護 sales_rollups (每日、語言、付款方式、訂單狀態、書籍排行)。
+ * <ul>
+ *   <li>增量：接收 outbox 的訂單事件 (在 OutboxRelay 的交易內)，重新讀取該訂單並與 sales_order_facts 比較，
+ *       只把差額套用到彙總；事件重送或亂序都不會重複計算。</li>
+ *   <li>回填：啟動時為還沒有 facts 的訂單補上彙總；後台可清空後依 orderId 分批全部重建。
+ *       每批一個短交易，只鎖 facts 與彙總列，orders 只做一般讀取。</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class SalesAnalyticsService {
+
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private record RollupKey(Dimension dimension, String key) implements Comparable<RollupKey> {
+
+        private static final Comparator<RollupKey> ORDER =
+                Comparator.comparing(RollupKey::dimension).thenComparing(RollupKey::key);
+
+        @Override
+        public int compareTo(RollupKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final class Delta {
+        long orders;
+        long units;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        boolean isZero() {
+            return orders == 0 && units == 0 && revenue.signum() == 0;
+        }
+    }
+
+    private interface IdBatchQuery {
+        List<Long> next(Long afterId, Limit limit);
+    }
+
+    private final SalesRollupRepository rollupRepository;
+    private final SalesOrderFactRepository factRepository;
+    private final OrderRepository orderRepository;
+    private final BookRepository bookRepository;
+    private final DatabaseLimiter databaseLimiter;
+    private final TaskExecutor taskExecutor;
+    private final TransactionTemplate batchTx;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong rebuildProcessed = new AtomicLong();
+    private volatile OffsetDateTime rebuildStartedAt;
+    private volatile OffsetDateTime rebuildFinishedAt;
+    private volatile String rebuildError;
+
+    @Value("${application.analytics.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${application.analytics.top-books-max:100}")
+    private int topBooksMax = 100;
+
+    public SalesAnalyticsService(SalesRollupRepository rollupRepository, SalesOrderFactRepository factRepository,
+                                 OrderRepository orderRepository, BookRepository bookRepository,
+                                 DatabaseLimiter databaseLimiter,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                 PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.factRepository = factRepository;
+        this.orderRepository = orderRepository;
+        this.bookRepository = bookRepository;
+        this.databaseLimiter = databaseLimiter;
+        this.taskExecutor = taskExecutor;
+        this.batchTx = new TransactionTemplate(transactionManager);
+    }
+
+    // --- 增量更新 ---
+
+    /**
+     * 訂單事件：與 OutboxRelay 同一個交易，彙總與 outbox 刪除一起提交，失敗時整批事件重送
+     */
+    @EventListener
+    @Transactional
+    public void onOutboxMessage(OutboxMessage message) {
+        if (OutboxMessage.ORDER.equals(message.aggregateType())) {
+            sync(List.of(message.aggregateId()));
+        }
+    }
+
+    /**
+     * 依訂單目前的內容更新 facts，並把與上次計入內容的差額套用到彙總
+     * @return 有差異的訂單數
+     */
+    private int sync(Collection<Long> orderIds) {
+        Map<Long, SalesOrderFact> facts = factRepository.lockAllById(orderIds).stream()
+                .collect(Collectors.toMap(SalesOrderFact::getOrderId, Function.identity()));
+        Map<Long, SalesOrderFact> current = load(orderIds);
+
+        Map<RollupKey, Delta> deltas = new TreeMap<>();
+        int changed = 0;
+        for (Long orderId : orderIds) {
+            SalesOrderFact previous = facts.get(orderId);
+            SalesOrderFact next = current.get(orderId);
+            if (sameContribution(previous, next)) {
+                continue;
+            }
+            contribute(previous, -1, deltas);
+            contribute(next, 1, deltas);
+            if (next == null) {
+                factRepository.delete(previous);
+            } else if (previous == null) {
+                factRepository.save(next);
+            } else {
+                previous.setDay(next.getDay());
+                previous.setPaymentMethod(next.getPaymentMethod());
+                previous.setStatus(next.getStatus());
+                previous.setTotalPrice(next.getTotalPrice());
+                previous.getLines().clear();
+                previous.getLines().addAll(next.getLines());
+            }
+            changed++;
+        }
+        // 依 (維度, key) 固定順序更新，減少與同時執行的批次互相等待 (死結時由資料庫中止其中一方，呼叫端重試)
+        deltas.forEach((key, delta) -> {
+            if (delta.isZero()) {
+                return;
+            }
+            if (rollupRepository.apply(key.dimension(), key.key(), delta.orders, delta.units, delta.revenue) == 0) {
+                // 第一次出現的維度值；與另一個交易同時建立時唯一鍵衝突，由呼叫端重試
+                rollupRepository.save(new SalesRollup(key.dimension(), key.key(), delta.orders, delta.units,
+                        delta.revenue));
+            }
+        });
+        return changed;
+    }
+
+    // 讀取訂單目前的內容 (不加鎖)，轉成 facts 的形式；已刪除的訂單不在結果中
+    private Map<Long, SalesOrderFact> load(Collection<Long> orderIds) {
+        Map<Long, List<OrderItemSalesRow>> items = orderRepository.findItemSalesRows(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderItemSalesRow::orderId));
+        Map<Long, SalesOrderFact> facts = new HashMap<>();
+        for (OrderSalesRow row : orderRepository.findSalesRows(orderIds)) {
+            SalesOrderFact fact = new SalesOrderFact(row.orderId());
+            fact.setDay(row.createdAt() == null ? null : row.createdAt().atZoneSameInstant(zone).toLocalDate());
+            fact.setPaymentMethod(row.paymentMethod());
+            fact.setStatus(row.status() == null ? OrderStatus.PENDING : row.status());
+            fact.setTotalPrice(Objects.requireNonNullElse(row.totalPrice(), BigDecimal.ZERO));
+            for (OrderItemSalesRow item : items.getOrDefault(row.orderId(), List.of())) {
+                fact.getLines().add(new SalesFactLine(item.bookId(), item.lang(), item.quantity().intValue(),
+                        Objects.requireNonNullElse(item.subtotal(), BigDecimal.ZERO)));
+            }
+            fact.getLines().sort(Comparator.comparing(SalesFactLine::getBookId));
+            facts.put(row.orderId(), fact);
+        }
+        return facts;
+    }
+
+    private static boolean sameContribution(SalesOrderFact a, SalesOrderFact b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Objects.equals(a.getDay(), b.getDay())
+                && a.getPaymentMethod() == b.getPaymentMethod()
+                && a.getStatus() == b.getStatus()
+                && a.getTotalPrice().compareTo(b.getTotalPrice()) == 0
+                && sameLines(a.getLines(), b.getLines());
+    }
+
+    private static boolean sameLines(List<SalesFactLine> a, List<SalesFactLine> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            SalesFactLine x = a.get(i);
+            SalesFactLine y = b.get(i);
+            if (!x.getBookId().equals(y.getBookId()) || x.getLang() != y.getLang()
+                    || x.getQuantity() != y.getQuantity() || x.getSubtotal().compareTo(y.getSubtotal()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 一張訂單對各維度的貢獻；sign = -1 為撤銷上次計入的內容
+    private static void contribute(SalesOrderFact fact, int sign, Map<RollupKey, Delta> deltas) {
+        if (fact == null) {
+            return;
+        }
+        long units = fact.getLines().stream().mapToLong(SalesFactLine::getQuantity).sum();
+        add(deltas, Dimension.STATUS, fact.getStatus().name(), sign, units, fact.getTotalPrice());
+        if (fact.getStatus() == OrderStatus.CANCELLED) {
+            return;
+        }
+        if (fact.getDay() != null) {
+            add(deltas, Dimension.DAY, fact.getDay().toString(), sign, units, fact.getTotalPrice());
+        }
+        add(deltas, Dimension.PAYMENT_METHOD,
+                fact.getPaymentMethod() == null ? UNKNOWN : fact.getPaymentMethod().name(),
+                sign, units, fact.getTotalPrice());
+
+        Map<String, long[]> unitsByLang = new HashMap<>();
+        Map<String, BigDecimal> revenueByLang = new HashMap<>();
+        for (SalesFactLine line : fact.getLines()) {
+            add(deltas, Dimension.BOOK, line.getBookId().toString(), sign, line.getQuantity(), line.getSubtotal());
+            String lang = line.getLang() == null ? UNKNOWN : line.getLang().name();
+            unitsByLang.computeIfAbsent(lang, key -> new long[1])[0] += line.getQuantity();
+            revenueByLang.merge(lang, line.getSubtotal(), BigDecimal::add);
+        }
+        unitsByLang.forEach((lang, langUnits) ->
+                add(deltas, Dimension.LANGUAGE, lang, sign, langUnits[0], revenueByLang.get(lang)));
+    }
+
+    private static void add(Map<RollupKey, Delta> deltas, Dimension dimension, String key, int sign, long units,
+                            BigDecimal revenue) {
+        Delta delta = deltas.computeIfAbsent(new RollupKey(dimension, key), k -> new Delta());
+        delta.orders += sign;
+        delta.units += sign * units;
+        delta.revenue = delta.revenue.add(sign > 0 ? revenue : revenue.negate());
+    }
+
+    // --- 回填與重建 ---
+
+    /**
+     * 啟動完成後為還沒有 facts 的訂單補上彙總 (例如導入分析功能前的歷史訂單)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        long synced = runBatches(orderRepository::findIdsWithoutSalesFactAfter, new AtomicLong());
+        if (synced > 0) {
+            log.info("銷售彙總回填 {} 張訂單", synced);
+        }
+    }
+
+    /**
+     * 在背景清空彙總並依所有訂單重建
+     * @return 是否已開始 (已有重建在執行時為 false)
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildProcessed.set(0);
+        rebuildStartedAt = OffsetDateTime.now();
+        rebuildFinishedAt = null;
+        rebuildError = null;
+        try {
+            taskExecutor.execute(this::rebuild);
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public AnalyticsRebuildStatusDTO getRebuildStatus() {
+        return AnalyticsRebuildStatusDTO.builder()
+                .running(rebuilding.get())
+                .processedOrders(rebuildProcessed.get())
+                .startedAt(rebuildStartedAt)
+                .finishedAt(rebuildFinishedAt)
+                .error(rebuildError)
+                .build();
+    }
+
+    private void rebuild() {
+        try {
+            batchTx.executeWithoutResult(status -> {
+                factRepository.deleteAllLines();
+                factRepository.deleteAllFacts();
+                rollupRepository.deleteAllInBatch();
+            });
+            // 清空後到掃描到之前異動的訂單會由增量更新先建立 facts，掃描時比較結果相同即略過
+            runBatches(orderRepository::findIdsAfter, rebuildProcessed);
+            log.info("銷售彙總重建完成，共 {} 張訂單", rebuildProcessed.get());
+        } catch (RuntimeException e) {
+            log.error("銷售彙總重建失敗", e);
+            rebuildError = e.getMessage();
+        } finally {
+            rebuildFinishedAt = OffsetDateTime.now();
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 依 orderId 分批同步，每批一個交易；每批以最低優先順序 (EXPORT) 取得資料庫名額，不影響前台
+     * @param processed 累加已處理的訂單數 (供查詢進度)
+     * @return 處理的訂單數
+     */
+    private long runBatches(IdBatchQuery query, AtomicLong processed) {
+        long afterId = 0;
+        while (true) {
+            List<Long> orderIds = query.next(afterId, Limit.of(batchSize));
+            if (orderIds.isEmpty()) {
+                return processed.get();
+            }
+            afterId = orderIds.get(orderIds.size() - 1);
+            syncBatch(orderIds);
+            processed.addAndGet(orderIds.size());
+        }
+    }
+
+    // 與增量更新同時建立同一個維度值 (唯一鍵衝突) 或互相等待時整批重試
+    private void syncBatch(List<Long> orderIds) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                DatabaseLimiter.Permit permit = databaseLimiter.acquire(DatabaseLimiter.Priority.EXPORT);
+                try {
+                    batchTx.executeWithoutResult(status -> sync(orderIds));
+                    return;
+                } finally {
+                    permit.release(false);
+                }
+            } catch (DataAccessException | DatabaseOverloadedException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("銷售彙總批次失敗，重試 ({}/{}): {}", attempt, MAX_ATTEMPTS, e.getMessage());
+                try {
+                    Thread.sleep(200L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // --- 查詢 ---
+
+    /**
+     * 每日營收與銷售數量 (兩端皆包含)，沒有訂單的日期不列出
+     */
+    @Transactional(readOnly = true)
+    public List<SalesRollupDTO> getDaily(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("起始日期不可晚於結束日期");
+        }
+        return rollupRepository.findByDimensionAndDimKeyBetweenOrderByDimKey(Dimension.DAY,
+                        from.toString(), to.toString()).stream()
+                .filter(rollup -> rollup.getOrderCount() > 0)
+                .map(SalesRollupDTO::from)
+                .toList();
+    }
+
+    /**
+     * 單一維度 (LANGUAGE / PAYMENT_METHOD / STATUS) 的彙總
+     */
+    @Transactional(readOnly = true)
+    public List<SalesRollupDTO> getByDimension(Dimension dimension) {
+        return rollupRepository.findByDimensionOrderByDimKey(dimension).stream()
+                .filter(rollup -> rollup.getOrderCount() > 0)
+                .map(SalesRollupDTO::from)
+                .toList();
+    }
+
+    /**
+     * 暢銷排行
+     * @param byRevenue true 依營收排序，否則依銷售數量
+     */
+    @Transactional(readOnly = true)
+    public List<TopBookDTO> getTopBooks(int limit, boolean byRevenue) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("排行筆數必須大於 0");
+        }
+        Limit top = Limit.of(Math.min(limit, topBooksMax));
+        List<SalesRollup> rollups = (byRevenue
+                ? rollupRepository.findByDimensionOrderByRevenueDescDimKeyAsc(Dimension.BOOK, top)
+                : rollupRepository.findByDimensionOrderByUnitsDescDimKeyAsc(Dimension.BOOK, top)).stream()
+                .filter(rollup -> rollup.getOrderCount() > 0)
+                .toList();
+        Map<Long, String> titles = bookRepository.findAllById(rollups.stream()
+                        .map(rollup -> Long.valueOf(rollup.getDimKey())).toList()).stream()
+                .collect(Collectors.toMap(Book::getBookId, Book::getTitle));
+
+        List<TopBookDTO> result = new ArrayList<>(rollups.size());
+        for (SalesRollup rollup : rollups) {
+            Long bookId = Long.valueOf(rollup.getDimKey());
+            result.add(TopBookDTO.builder()
+                    .rank(result.size() + 1)
+                    .bookId(bookId)
+                    .title(titles.get(bookId))
+                    .orders(rollup.getOrderCount())
+                    .units(rollup.getUnits())
+                    .revenue(rollup.getRevenue())
+                    .build());
+        }
+        return result;
+    }
+}
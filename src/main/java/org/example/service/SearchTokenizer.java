@@ -0,0 +1,184 @@
+package org.example.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 全文檢索用的斷詞器。書目混雜中、日、韓、泰、阿拉伯文與各種拉丁語系，因此依文字系統分段處理：
+ * <ul>
+ *     <li>中日韓 (漢字、平假名、片假名、韓文) 與泰文：文字之間沒有空白，切成相鄰兩字的 bigram</li>
+ *     <li>拉丁語系：轉小寫、去除重音符號，並做輕量的英文字尾還原 (stemming)</li>
+ *     <li>阿拉伯文：去除母音符號並統一 alef 寫法</li>
+ *     <li>ISBN 等「數字-數字」格式：去掉連字號合併為單一 token</li>
+ * </ul>
+ * 索引與查詢使用同一套規則，因此查詢 "978-4-384" 與 "9784384" 會得到相同結果。
+ */
+public final class SearchTokenizer {
+
+    private enum Kind { NONE, WORD, CJK, THAI }
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * 將文字切成 token (可能重複，由呼叫端決定是否計算詞頻)
+     */
+    public List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        // NFKC：全形英數轉半形、半形片假名轉全形
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+
+        StringBuilder run = new StringBuilder();
+        Kind runKind = Kind.NONE;
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            int len = Character.charCount(cp);
+            Kind kind = kindOf(cp);
+
+            // 「數字-數字」視為同一個 token (ISBN)
+            if (cp == '-' && runKind == Kind.WORD && endsWithDigit(run)
+                    && i + 1 < normalized.length() && Character.isDigit(normalized.charAt(i + 1))) {
+                i += len;
+                continue;
+            }
+            // 組合用附加符號 (重音、泰文母音/聲調、阿拉伯母音) 跟隨前一個字元
+            if (kind == Kind.NONE && isMark(cp) && runKind != Kind.NONE) {
+                if (runKind != Kind.WORD) {
+                    run.appendCodePoint(cp);
+                }
+                i += len;
+                continue;
+            }
+            if (kind != runKind) {
+                flush(run, runKind, tokens);
+                runKind = kind;
+            }
+            if (kind != Kind.NONE) {
+                run.appendCodePoint(cp);
+            }
+            i += len;
+        }
+        flush(run, runKind, tokens);
+        return tokens;
+    }
+
+    private static Kind kindOf(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        switch (script) {
+            case HAN, HIRAGANA, KATAKANA, HANGUL:
+                return Kind.CJK;
+            case THAI:
+                return isMark(cp) ? Kind.NONE : Kind.THAI;
+            default:
+                if (cp == 'ー') { // 長音符號屬於片假名詞彙的一部分
+                    return Kind.CJK;
+                }
+                return Character.isLetterOrDigit(cp) ? Kind.WORD : Kind.NONE;
+        }
+    }
+
+    private static boolean isMark(int cp) {
+        int type = Character.getType(cp);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+
+    private static boolean endsWithDigit(StringBuilder run) {
+        return !run.isEmpty() && Character.isDigit(run.charAt(run.length() - 1));
+    }
+
+    private void flush(StringBuilder run, Kind kind, List<String> tokens) {
+        if (run.isEmpty()) {
+            return;
+        }
+        switch (kind) {
+            case WORD -> {
+                String word = normalizeWord(run.toString());
+                if (!word.isEmpty()) {
+                    tokens.add(word);
+                }
+            }
+            case CJK, THAI -> bigrams(run.toString(), tokens);
+            default -> { }
+        }
+        run.setLength(0);
+    }
+
+    /**
+     * 相鄰兩個「字」組成 bigram；泰文的母音/聲調符號附著在前一個字上一起計算
+     */
+    private static void bigrams(String run, List<String> tokens) {
+        List<String> units = new ArrayList<>();
+        int i = 0;
+        while (i < run.length()) {
+            int start = i;
+            i += Character.charCount(run.codePointAt(i));
+            while (i < run.length() && isMark(run.codePointAt(i))) {
+                i += Character.charCount(run.codePointAt(i));
+            }
+            units.add(run.substring(start, i));
+        }
+        if (units.size() == 1) {
+            tokens.add(units.get(0));
+            return;
+        }
+        for (int u = 0; u + 1 < units.size(); u++) {
+            tokens.add(units.get(u) + units.get(u + 1));
+        }
+    }
+
+    private static String normalizeWord(String word) {
+        if (isArabic(word)) {
+            return word.replace('أ', 'ا').replace('إ', 'ا').replace('آ', 'ا').replace("ـ", "");
+        }
+        if (isAsciiLetters(word)) {
+            return stem(word);
+        }
+        // 去除重音：français -> francais, español -> espanol
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(word, Normalizer.Form.NFD)).replaceAll("");
+        return isAsciiLetters(folded) ? stem(folded) : folded;
+    }
+
+    private static boolean isArabic(String word) {
+        return Character.UnicodeScript.of(word.codePointAt(0)) == Character.UnicodeScript.ARABIC;
+    }
+
+    private static boolean isAsciiLetters(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 輕量英文字尾還原：只處理複數與常見的 -ing / -ed，寧可少還原也不要誤傷短字
+     */
+    static String stem(String w) {
+        int n = w.length();
+        if (n > 4 && w.endsWith("ies")) {
+            return w.substring(0, n - 3) + "y";
+        }
+        if (n > 5 && w.endsWith("ing")) {
+            return w.substring(0, n - 3);
+        }
+        if (n > 5 && w.endsWith("ed")) {
+            return w.substring(0, n - 2);
+        }
+        if (n > 4 && (w.endsWith("ches") || w.endsWith("shes") || w.endsWith("xes") || w.endsWith("sses"))) {
+            return w.substring(0, n - 2);
+        }
+        if (n > 3 && w.endsWith("s") && !w.endsWith("ss") && !w.endsWith("us") && !w.endsWith("is")) {
+            return w.substring(0, n - 1);
+        }
+        return w;
+    }
+}
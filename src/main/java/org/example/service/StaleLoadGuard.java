@@ -0,0 +1,35 @@
+package org.example.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 快取載入與逐出的競爭檢查：每次逐出就遞增世代，載入前記下世代、寫回前比對，
+ * 載入期間發生過逐出時，載入結果可能是逐出前的舊資料，不應寫回快取。
+ * 只判斷「是否發生過逐出」，不分 key；逐出頻率低的快取用一個計數器即可。
+ */
+public final class StaleLoadGuard {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 載入前呼叫
+     * @return 目前的世代，寫回前交給 {@link #unchangedSince(long)} 比對
+     */
+    public long beforeLoad() {
+        return generation.get();
+    }
+
+    /**
+     * @return 從 beforeLoad 到現在沒有發生逐出，可以寫回
+     */
+    public boolean unchangedSince(long loadedAt) {
+        return generation.get() == loadedAt;
+    }
+
+    /**
+     * 逐出快取項目前呼叫
+     */
+    public void invalidated() {
+        generation.incrementAndGet();
+    }
+}
@@ -3,12 +3,14 @@ import org.example.dto.*;
 import org.example.entity.Role;
 import org.example.entity.User;
 import org.example.repository.UserRepository;
+import org.example.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class UserService {
@@ -16,11 +18,17 @@ public class UserService {
     private final UserRepository userRepo;
     private final PasswordEncoder encoder;
     private final JwtService jwtService;
+    private final PrincipalCache principalCache;
 
-    public UserService(UserRepository userRepo, PasswordEncoder encoder, JwtService jwtService) {
+    @Value("${application.pagination.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    public UserService(UserRepository userRepo, PasswordEncoder encoder, JwtService jwtService,
+                       PrincipalCache principalCache) {
         this.userRepo = userRepo;
         this.encoder = encoder;
         this.jwtService = jwtService;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -135,15 +143,22 @@ public class UserService {
 
         // 4. 儲存變更。在 @Transactional 註解下，方法結束時會自動提交變更。
         userRepo.save(user);
+        // 停用後立即生效：逐出登入者快取，下一個請求就會被拒絕
+        principalCache.evict(user.getEmail());
 
         // ⚠️ 備註：如果是管理員執行此操作，可能需要記錄操作日誌 (Auditing)
     }
     /**
-     * 🎯 管理員專用：獲取所有會員清單
-     * 將所有 User 實體轉換為 UserResponse DTO，隱藏敏感資訊
+     * 🎯 管理員專用：獲取會員清單 (Keyset 分頁，依 userId 遞增)
+     * 將 User 實體轉換為 UserResponse DTO，隱藏敏感資訊
+     * @param cursor 上一頁回傳的游標，第一頁為 null
+     * @param size   每頁筆數，上限為 application.pagination.max-page-size
      */
-    public List<UserResponse> getAllUsers() {
-        return userRepo.findAll().stream().map(user -> {
+    public CursorPage<UserResponse> getAllUsers(String cursor, Integer size) {
+        int pageSize = PageCursor.pageSize(size, maxPageSize);
+        long afterId = cursor == null ? 0L : PageCursor.decodeId(cursor);
+        List<User> users = userRepo.findByUserIdGreaterThanOrderByUserIdAsc(afterId, Limit.of(pageSize + 1));
+        return PageCursor.page(users, pageSize, user -> PageCursor.encode(user.getUserId()), user -> {
             UserResponse dto = new UserResponse();
             dto.setUserId(Math.toIntExact(user.getUserId()));
             // ❌ 這裡原本寫了兩次 setUsername
@@ -157,7 +172,7 @@ public class UserService {
             dto.setRole(String.valueOf(user.getRole()));
             dto.setIsActive(user.getIsActive());
             return dto;
-        }).collect(Collectors.toList());
+        });
     }
 
     /**
@@ -172,6 +187,7 @@ public class UserService {
         // 直接反轉狀態
         user.setIsActive(!user.getIsActive());
         userRepo.save(user);
+        principalCache.evict(user.getEmail());
     }
 
     /**
@@ -189,6 +205,7 @@ public class UserService {
             Role role = Role.valueOf(newRoleName.toUpperCase());
             user.setRole(role);
             userRepo.save(user);
+            principalCache.evict(user.getEmail());
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("無效的角色名稱: " + newRoleName);
         }
@@ -212,5 +229,6 @@ public class UserService {
         // 3. 加密並更新新密碼
         user.setPassword(encoder.encode(newPassword));
         userRepo.save(user);
+        principalCache.evict(email);
     }
 }
@@ -0,0 +1,75 @@
+package org.example.config;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    @DisplayName("沿用上游傳入的 X-Request-Id，請求期間放在 MDC，結束後清除")
+    void testReusesIncomingRequestId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/books/1");
+        request.addHeader(CorrelationIdFilter.HEADER, "gateway-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> seen = new AtomicReference<>();
+
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                seen.set(MDC.get(CorrelationIdFilter.CORRELATION_ID));
+            }
+        });
+
+        assertEquals("gateway-42", seen.get());
+        assertEquals("gateway-42", response.getHeader(CorrelationIdFilter.HEADER));
+        assertNull(MDC.get(CorrelationIdFilter.CORRELATION_ID));
+    }
+
+    @Test
+    @DisplayName("沒有或含非法字元的 X-Request-Id：改為自行產生，避免日誌注入")
+    void testGeneratesIdForMissingOrUnsafeHeader() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/books/1");
+        request.addHeader(CorrelationIdFilter.HEADER, "bad\nid");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        String generated = response.getHeader(CorrelationIdFilter.HEADER);
+        assertNotNull(generated);
+        assertNotEquals("bad\nid", generated);
+        assertTrue(generated.matches("[0-9a-f]{1,16}"));
+    }
+
+    @Test
+    @DisplayName("抽樣率 1：每個請求都標記為輸出 DEBUG 日誌；預設 0 則不標記")
+    void testDebugSampling() throws Exception {
+        AtomicReference<String> sampled = new AtomicReference<>();
+        MockFilterChain capture = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                sampled.set(MDC.get(CorrelationIdFilter.DEBUG_SAMPLED));
+            }
+        };
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), capture);
+        assertNull(sampled.get());
+
+        ReflectionTestUtils.setField(filter, "debugSampleRate", 1.0);
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), capture);
+        assertEquals("true", sampled.get());
+        assertNull(MDC.get(CorrelationIdFilter.DEBUG_SAMPLED));
+    }
+}
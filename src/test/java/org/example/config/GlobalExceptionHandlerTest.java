@@ -1,8 +1,10 @@
 package org.example.config;
 
+import org.example.exception.DatabaseOverloadedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -41,6 +43,17 @@ class GlobalExceptionHandlerTest {
         assertEquals(errorMessage, response.getBody().get("message"));
     }
 
+    @Test
+    @DisplayName("資料庫過載：應回傳 503 與 Retry-After")
+    void testHandleDatabaseOverloaded() {
+        ResponseEntity<Map<String, String>> response =
+                exceptionHandler.handleDatabaseOverloaded(new DatabaseOverloadedException("系統忙碌中，請稍後再試"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("系統忙碌中，請稍後再試", response.getBody().get("message"));
+    }
+
     @Test
     @DisplayName("處理驗證錯誤：應回傳 400 與欄位錯誤細節")
     void testHandleValidationExceptions() {
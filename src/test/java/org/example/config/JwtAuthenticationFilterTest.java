@@ -1,9 +1,13 @@
 package org.example.config;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.security.AuthenticatedUser;
+import org.example.security.PrincipalCache;
 import org.example.service.JwtService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +18,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,7 +35,7 @@ class JwtAuthenticationFilterTest {
     @Mock
     private JwtService jwtService;
     @Mock
-    private UserDetailsService userDetailsService;
+    private PrincipalCache principalCache;
     @Mock
     private HttpServletRequest request;
     @Mock
@@ -66,7 +69,7 @@ class JwtAuthenticationFilterTest {
         verify(filterChain, times(1)).doFilter(request, response);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verifyNoInteractions(jwtService);
-        verifyNoInteractions(userDetailsService);
+        verifyNoInteractions(principalCache);
     }
 
     @Test
@@ -89,12 +92,11 @@ class JwtAuthenticationFilterTest {
         // Arrange
         String token = "valid.jwt.token";
         String userEmail = "test@example.com";
-        UserDetails userDetails = new User(userEmail, "password", Collections.emptyList());
+        AuthenticatedUser userDetails = new AuthenticatedUser(7L, userEmail, Collections.emptyList(), true);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(userEmail);
-        when(userDetailsService.loadUserByUsername(userEmail)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(true);
+        when(jwtService.parseToken(token)).thenReturn(Jwts.claims().setSubject(userEmail));
+        when(principalCache.load(userEmail)).thenReturn(userDetails);
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -103,6 +105,56 @@ class JwtAuthenticationFilterTest {
         verify(filterChain, times(1)).doFilter(request, response);
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         assertEquals(userEmail, SecurityContextHolder.getContext().getAuthentication().getName());
+        // principal 帶有 userId，Controller 不必再查詢資料庫
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(7L, principal.getUserId());
+        // 整個請求只驗證一次簽章
+        verify(jwtService, times(1)).parseToken(token);
+        verify(jwtService, never()).extractUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("過濾器測試：無狀態模式直接由 Claims 授權，不查詢登入者快取")
+    void testDoFilterInternal_StatelessToken() throws ServletException, IOException {
+        // Arrange
+        String token = "valid.jwt.token";
+        String userEmail = "test@example.com";
+        var claims = Jwts.claims().setSubject(userEmail);
+        AuthenticatedUser userDetails = new AuthenticatedUser(7L, userEmail,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), true);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtService.parseToken(token)).thenReturn(claims);
+        when(jwtService.statelessPrincipal(claims)).thenReturn(userDetails);
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertSame(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verifyNoInteractions(principalCache);
+    }
+
+    @Test
+    @DisplayName("過濾器測試：帳號已停用，即使 Token 有效也不應設定 SecurityContext")
+    void testDoFilterInternal_DisabledUser() throws ServletException, IOException {
+        // Arrange
+        String token = "valid.jwt.token";
+        String userEmail = "test@example.com";
+        AuthenticatedUser userDetails = new AuthenticatedUser(7L, userEmail,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), false);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtService.parseToken(token)).thenReturn(Jwts.claims().setSubject(userEmail));
+        when(principalCache.load(userEmail)).thenReturn(userDetails);
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
     @Test
@@ -110,13 +162,9 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_InvalidToken() throws ServletException, IOException {
         // Arrange
         String token = "invalid.jwt.token";
-        String userEmail = "test@example.com";
-        UserDetails userDetails = new User(userEmail, "password", Collections.emptyList());
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(userEmail);
-        when(userDetailsService.loadUserByUsername(userEmail)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(false); // Token 無效
+        when(jwtService.parseToken(token)).thenThrow(new ExpiredJwtException(null, null, "JWT expired")); // Token 無效
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -124,6 +172,7 @@ class JwtAuthenticationFilterTest {
         // Assert
         verify(filterChain, times(1)).doFilter(request, response);
         assertNull(SecurityContextHolder.getContext().getAuthentication()); // 驗證沒有設定認證資訊
+        verifyNoInteractions(principalCache);
     }
 
     @Test
@@ -0,0 +1,54 @@
+package org.example.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /actuator/prometheus 不需登入即可抓取，且包含 Service 計時、JWT 驗證、快取命中與連線池指標
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+// @SpringBootTest 預設關閉指標匯出，需明確開啟才會建立 Prometheus registry
+@AutoConfigureObservability(tracing = false)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Prometheus 端點：公開可抓取，並匯出 Service 計時、JWT 驗證、快取與 Hikari 指標")
+    void testPrometheusScrape() throws Exception {
+        mockMvc.perform(get("/api/public/books/search?keyword=grammar"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/user/orders").header("Authorization", "Bearer invalid-token"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("bookstore_service_seconds_count{class=\"org.example.service.BookService\"")))
+                .andExpect(content().string(containsString("method=\"searchOnsaleBooks\"")))
+                .andExpect(content().string(containsString("bookstore_jwt_verify_seconds_count")))
+                .andExpect(content().string(containsString("bookstore_cache_requests_total{cache=\"catalog\",result=\"miss\"")))
+                .andExpect(content().string(containsString("bookstore_cache_hit_ratio{cache=\"principal\"")))
+                .andExpect(content().string(containsString("bookstore_cache_evictions_total{cache=\"reviews\",cause=\"invalidated\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SampledDebugFilterTest {
+
+    private final SampledDebugFilter filter = new SampledDebugFilter();
+    private final LoggerContext context = new LoggerContext();
+    private Logger appLogger;
+    private Logger frameworkLogger;
+
+    @BeforeEach
+    void setUp() {
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        appLogger = context.getLogger("org.example.service.OrderService");
+        frameworkLogger = context.getLogger("org.hibernate.SQL");
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("被抽樣的請求：放行應用程式的 DEBUG 事件")
+    void testSampledRequestAcceptsApplicationDebug() {
+        MDC.put(CorrelationIdFilter.DEBUG_SAMPLED, "true");
+
+        assertEquals(FilterReply.ACCEPT, filter.decide(null, appLogger, Level.DEBUG, "x", null, null));
+    }
+
+    @Test
+    @DisplayName("未被抽樣、框架 logger、TRACE 與 INFO 事件：一律交回一般等級判斷")
+    void testOtherEventsAreNeutral() {
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, appLogger, Level.DEBUG, "x", null, null));
+
+        MDC.put(CorrelationIdFilter.DEBUG_SAMPLED, "true");
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, frameworkLogger, Level.DEBUG, "x", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, appLogger, Level.TRACE, "x", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, appLogger, Level.INFO, "x", null, null));
+    }
+}
@@ -2,7 +2,10 @@ package org.example.controller; // 1. 確保 Package 路徑包含 org.example
 
 import org.example.ForeignLanguagesBookApplication;
 import org.example.controller.AdminBookController;
+import org.example.dto.CursorPage;
 import org.example.entity.Book;
+import org.example.security.PrincipalCache;
+import org.example.service.BookImportService;
 import org.example.service.BookService;
 import org.example.service.JwtService; // 2. 導入 JwtService
 import org.junit.jupiter.api.DisplayName;
@@ -15,12 +18,17 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser; // 3. 導入 Security 測試工具
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 // 4. 指定啟動類別，解決 Unable to find a @SpringBootConfiguration 問題
@@ -34,6 +42,9 @@ class AdminBookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookImportService bookImportService;
+
     // 🌟 修正點 1: Mock 掉 JwtService
     @MockBean
     private JwtService jwtService;
@@ -42,6 +53,10 @@ class AdminBookControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    // JwtAuthenticationFilter 透過登入者快取載入帳號
+    @MockBean
+    private PrincipalCache principalCache;
+
     @Test
     @WithMockUser(roles = "ADMIN") // 6. 模擬管理員權限，否則會噴 403 Forbidden
     @DisplayName("🧪 異常路徑：當 Service 報錯時，Controller 應回傳 400 Bad Request")
@@ -68,4 +83,21 @@ class AdminBookControllerTest {
                         .param("onsale", "true"))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("🧪 書籍列表：分桶庫存的內部欄位不輸出到 JSON")
+    void shouldNotExposeStockBucketFields() throws Exception {
+        Book book = new Book();
+        book.setBookId(1L);
+        book.setTitle("分桶書籍");
+        book.setStockBuckets(4);
+        when(bookService.getAllBooks(any(), any())).thenReturn(new CursorPage<>(List.of(book), null));
+
+        mockMvc.perform(get("/api/admin/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("分桶書籍"))
+                .andExpect(jsonPath("$[0].stockBuckets").doesNotExist())
+                .andExpect(jsonPath("$[0].stockStriped").doesNotExist());
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.controller;
+
+import org.example.ForeignLanguagesBookApplication;
+import org.example.repository.UserRepository;
+import org.example.security.PrincipalCache;
+import org.example.service.JwtService;
+import org.example.service.OrderExportService;
+import org.example.service.OrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@WebMvcTest(AdminOrderController.class)
+@ContextConfiguration(classes = ForeignLanguagesBookApplication.class)
+@TestPropertySource(properties = {
+    "application.export.timeout-ms=600000",
+    "spring.mvc.async.request-timeout=5000"
+})
+class AdminOrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    @MockBean
+    private OrderExportService orderExportService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("🧪 訂單匯出：只有匯出串流使用較長的非同步逾時")
+    void shouldUseExportTimeoutOnlyForExport() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/admin/orders/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(600000L, result.getRequest().getAsyncContext().getTimeout());
+    }
+}
@@ -1,22 +1,40 @@
 package org.example.controller; // 1. 確保 Package 路徑包含 org.example
 
 import org.example.controller.BookController;
+import org.example.dto.BookDetail;
 import org.example.entity.Book;
+import org.example.security.PrincipalCache;
 import org.example.service.BookService;
+import org.example.service.CatalogPages;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.example.service.JwtService;         // 🌟 新增
 import org.example.repository.UserRepository;   // 🌟 新增
-import java.util.Arrays;
-import java.util.List;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,21 +52,119 @@ class BookControllerTest {
 
     @MockBean
     private UserRepository userRepository;
+
+    // JwtAuthenticationFilter 透過登入者快取載入帳號
+    @MockBean
+    private PrincipalCache principalCache;
     @Test
     @WithMockUser
     @DisplayName("🧪 前台測試：根據語言查詢書籍應回傳 200 與資料內容")
     void shouldReturnBooksByLanguage() throws Exception {
-        // 準備模擬資料
-        Book book1 = new Book();
-        book1.setTitle("日語檢定 N1 必勝");
-        List<Book> mockBooks = Arrays.asList(book1);
+        // 模擬 Service 行為：列表直接回傳預先序列化的 BookSummary JSON
+        byte[] json = "[{\"bookId\":1,\"title\":\"日語檢定 N1 必勝\"}]".getBytes(StandardCharsets.UTF_8);
+        when(bookService.getOnsaleBookSummariesByLang("japanese", null, null))
+                .thenReturn(new CatalogPages.Page(json, gzip(json), "next-page"));
 
-        // 模擬 Service 行為
-        when(bookService.getOnsaleBooksByLang("japanese")).thenReturn(mockBooks);
-
-        // 執行請求並驗證
+        // 執行請求並驗證：本文仍是陣列，下一頁游標放在 header
         mockMvc.perform(get("/api/public/books/lang/japanese"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("日語檢定 N1 必勝"));
+                .andExpect(jsonPath("$[0].title").value("日語檢定 N1 必勝"))
+                .andExpect(header().string("X-Next-Cursor", "next-page"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+
+        // 前端支援 gzip 時直接送出預先壓縮的位元組
+        byte[] body = mockMvc.perform(get("/api/public/books/lang/japanese").header("Accept-Encoding", "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("🧪 gzip 表示法：未預先壓縮的頁也回傳 gzip，304 同樣帶 Vary: Accept-Encoding")
+    void shouldCompressAdHocPagesAndVaryNotModified() throws Exception {
+        byte[] json = "[{\"bookId\":2}]".getBytes(StandardCharsets.UTF_8);
+        when(bookService.getCatalogVersion()).thenReturn(3L);
+        when(bookService.getOnsaleBookSummariesByLang("english", null, 7))
+                .thenReturn(new CatalogPages.Page(json, null, null));
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/api/public/books/lang/english")
+                        .param("size", "7").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+        String plainEtag = mockMvc.perform(get("/api/public/books/lang/english").param("size", "7"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(gzipped.getHeader("ETag"), plainEtag);
+
+        mockMvc.perform(get("/api/public/books/lang/english").param("size", "7")
+                        .header("Accept-Encoding", "gzip").header("If-None-Match", gzipped.getHeader("ETag")))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("🧪 Accept-Encoding：依 q 值判斷，gzip;q=0 不回傳 gzip，x-gzip 與 * 視為接受")
+    void shouldHonourAcceptEncodingQValues() throws Exception {
+        byte[] json = "[{\"bookId\":3}]".getBytes(StandardCharsets.UTF_8);
+        when(bookService.getCatalogVersion()).thenReturn(4L);
+        when(bookService.getOnsaleBookSummariesByLang("french", null, null))
+                .thenReturn(new CatalogPages.Page(json, gzip(json), null));
+
+        mockMvc.perform(get("/api/public/books/lang/french").header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().bytes(json));
+
+        assertTrue(BookController.acceptsGzip("x-gzip"));
+        assertTrue(BookController.acceptsGzip("br;q=1.0, GZIP ; q=0.5"));
+        assertTrue(BookController.acceptsGzip("*"));
+        assertFalse(BookController.acceptsGzip("gzip;q=0.000"));
+        assertFalse(BookController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(BookController.acceptsGzip("*;q=0"));
+        assertFalse(BookController.acceptsGzip("br, identity"));
+        assertFalse(BookController.acceptsGzip(null));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("🧪 條件式請求：If-None-Match 與目前版本相同時回 304，且不讀取書籍資料")
+    void shouldReturnNotModifiedForMatchingETag() throws Exception {
+        when(bookService.getBookVersion(1L)).thenReturn(7L);
+        when(bookService.getOnsaleBookById(1L)).thenReturn(Optional.of(BookDetail.from(new Book())));
+
+        MockHttpServletResponse first = mockMvc.perform(get("/api/public/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, public"))
+                .andReturn().getResponse();
+        assertEquals(1, first.getHeaders("ETag").size());
+        String etag = first.getHeader("ETag");
+
+        mockMvc.perform(get("/api/public/books/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        verify(bookService, times(1)).getOnsaleBookById(1L);
+
+        when(bookService.getBookVersion(1L)).thenReturn(8L);
+        mockMvc.perform(get("/api/public/books/1").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    private static byte[] gzip(byte[] json) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package org.example.security;
+
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @InjectMocks
+    private PrincipalCache principalCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUserId(5L);
+        user.setEmail("member@test.com");
+        user.setPassword("hash");
+        user.setRole(Role.USER);
+        user.setIsActive(true);
+    }
+
+    @Test
+    @DisplayName("快取命中：同一帳號第二次驗證不查詢資料庫，且帶有 userId 與角色")
+    void testLoadIsCached() {
+        when(userDetailsService.loadUserByUsername("member@test.com")).thenReturn(user);
+
+        AuthenticatedUser first = principalCache.load("member@test.com");
+        AuthenticatedUser second = principalCache.load("member@test.com");
+
+        assertSame(first, second);
+        assertEquals(5L, first.getUserId());
+        assertEquals("ROLE_USER", first.getAuthorities().iterator().next().getAuthority());
+        assertNull(first.getPassword());
+        verify(userDetailsService, times(1)).loadUserByUsername("member@test.com");
+        assertEquals(1, principalCache.hitCount());
+        assertEquals(1, principalCache.missCount());
+    }
+
+    @Test
+    @DisplayName("逐出：帳號被停用後重新載入，取得最新的啟用狀態")
+    void testEvictReloadsLatestState() {
+        when(userDetailsService.loadUserByUsername("member@test.com")).thenReturn(user);
+        assertTrue(principalCache.load("member@test.com").isEnabled());
+
+        user.setIsActive(false);
+        principalCache.evict("member@test.com");
+
+        assertFalse(principalCache.load("member@test.com").isEnabled());
+        verify(userDetailsService, times(2)).loadUserByUsername("member@test.com");
+    }
+
+    @Test
+    @DisplayName("過期：超過 TTL 後重新查詢資料庫")
+    void testExpiredEntryIsReloaded() {
+        ReflectionTestUtils.setField(principalCache, "ttlMs", 0L);
+        when(userDetailsService.loadUserByUsername("member@test.com")).thenReturn(user);
+
+        principalCache.load("member@test.com");
+        principalCache.load("member@test.com");
+
+        verify(userDetailsService, times(2)).loadUserByUsername("member@test.com");
+    }
+
+    @Test
+    @DisplayName("帳號不存在：拋出 UsernameNotFoundException 且不快取")
+    void testUnknownUserIsNotCached() {
+        when(userDetailsService.loadUserByUsername("ghost@test.com"))
+                .thenThrow(new UsernameNotFoundException("用戶找不到: ghost@test.com"));
+
+        assertThrows(UsernameNotFoundException.class, () -> principalCache.load("ghost@test.com"));
+        assertThrows(UsernameNotFoundException.class, () -> principalCache.load("ghost@test.com"));
+        verify(userDetailsService, times(2)).loadUserByUsername("ghost@test.com");
+    }
+}
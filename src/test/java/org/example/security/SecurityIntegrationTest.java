@@ -1,5 +1,6 @@
 package org.example.security;
 
+import io.jsonwebtoken.Jwts;
 import org.example.service.JwtService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,8 +16,6 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Collections;
 
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
@@ -80,8 +79,7 @@ class SecurityIntegrationTest {
                 .build();
 
         // 模擬 JwtService 行為
-        when(jwtService.extractUsername(validToken)).thenReturn(userEmail);
-        when(jwtService.isTokenValid(anyString(), any(UserDetails.class))).thenReturn(true);
+        when(jwtService.parseToken(validToken)).thenReturn(Jwts.claims().setSubject(userEmail));
         
         // 模擬 UserDetailsService 載入用戶
         when(userDetailsService.loadUserByUsername(userEmail)).thenReturn(userDetails);
@@ -0,0 +1,177 @@
+package org.example.service;
+
+import org.example.dto.BookImportReportDTO;
+import org.example.dto.BookImportRowError;
+import org.example.entity.Book;
+import org.example.entity.Language;
+import org.example.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 書籍批次匯入：逐列驗證並回報錯誤、分批寫入、UPSERT 依 ISBN 更新，匯入後前台快照同步更新
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:book_import;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    "application.book-import.batch-size=2"
+})
+class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    @DisplayName("CSV 新增：合格的資料列分批寫入，不合格的列回報列號與原因")
+    void testCsvInsertReportsRowErrors() {
+        saveBook("9780000000201", "既有書籍", new BigDecimal("100.00"), 5);
+        String csv = "\uFEFFTitle,author,ISBN,price,stock,lang,image_url,is_onsale,published_date\r\n"
+                + "\"Hello, World\",Alice,9780000000202,250.00,3,english,,true,2024-05-01\r\n"
+                + "\"多行\n書名 \"\"引號\"\"\",,9780000000203,100,,JAPANESE,,,\r\n"
+                + ",Bob,9780000000204,100,1,ENGLISH,,,\r\n"
+                + "\r\n"
+                + "負價格,,9780000000205,-1,1,ENGLISH,,,\r\n"
+                + "無效語言,,9780000000206,100,1,KLINGON,,,\r\n"
+                + "重複,,9780000000201,100,1,ENGLISH,,,\r\n"
+                + "沒有 ISBN,,,80,2,FRENCH,,false,\r\n"
+                + "同批重複,,9780000000207,100,1,ENGLISH,,,\r\n"
+                + "同批重複,,9780000000207,100,1,ENGLISH,,,\r\n"
+                + "價格錯誤,,9780000000208,abc,1,ENGLISH,,,\r\n";
+
+        BookImportReportDTO report = bookImportService.importBooks(stream(csv),
+                BookImportService.Format.CSV, BookImportService.Mode.INSERT);
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(10, report.getRowsRead());
+        assertEquals(4, report.getInserted());
+        assertEquals(0, report.getUpdated());
+        assertEquals(6, report.getFailed());
+        assertEquals(List.of(
+                new BookImportRowError(3, "9780000000204", "書名不可為空"),
+                new BookImportRowError(4, "9780000000205", "價格不可為負數"),
+                new BookImportRowError(5, "9780000000206", "無效的語言分類: KLINGON"),
+                // 已存在的 ISBN 在該批寫入時才以 IN 查詢找出
+                new BookImportRowError(6, "9780000000201", "ISBN 國際標準書號已存在"),
+                new BookImportRowError(9, "9780000000207", "ISBN 與第 8 筆重複"),
+                new BookImportRowError(10, "9780000000208", "價格格式錯誤: abc")
+        ), report.getErrors());
+
+        Book hello = findByIsbn("9780000000202");
+        assertEquals("Hello, World", hello.getTitle());
+        assertEquals(0, new BigDecimal("250.00").compareTo(hello.getPrice()));
+        assertEquals(Language.ENGLISH, hello.getLang());
+        assertTrue(hello.getIsOnsale());
+        assertEquals(LocalDate.of(2024, 5, 1), hello.getPublishedDate());
+        assertEquals("多行\n書名 \"引號\"", findByIsbn("9780000000203").getTitle());
+        assertFalse(findByIsbn("9780000000203").getIsOnsale());
+        assertEquals("既有書籍", findByIsbn("9780000000201").getTitle());
+
+        // 匯入結束後前台快照已重建
+        assertTrue(bookService.getOnsaleBookById(hello.getBookId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("JSON Lines 更新：已存在的 ISBN 只更新有填的欄位，格式錯誤的行回報行號")
+    void testNdjsonUpsertUpdatesExistingBooks() {
+        Book existing = saveBook("9780000000301", "舊書名", new BigDecimal("100.00"), 7);
+        String ndjson = "{\"title\":\"新書名\",\"isbn\":\"9780000000301\",\"price\":150.00,\"lang\":\"ENGLISH\"}\n"
+                + "\n"
+                + "{\"title\":\"全新書籍\",\"isbn\":\"9780000000302\",\"price\":90,\"stock\":4,\"lang\":\"french\",\"isOnsale\":true}\n"
+                + "{\"title\":\"壞掉的\",\n";
+
+        BookImportReportDTO report = bookImportService.importBooks(stream(ndjson),
+                BookImportService.Format.NDJSON, BookImportService.Mode.UPSERT);
+
+        assertEquals(3, report.getRowsRead());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getFailed());
+        assertEquals(4, report.getErrors().get(0).row());
+        assertTrue(report.getErrors().get(0).message().startsWith("JSON 格式錯誤"));
+
+        Book updated = bookRepository.findById(existing.getBookId()).orElseThrow();
+        assertEquals("新書名", updated.getTitle());
+        assertEquals(0, new BigDecimal("150.00").compareTo(updated.getPrice()));
+        assertEquals(7, updated.getStock());
+        assertTrue(updated.getIsOnsale());
+        assertEquals(LocalDate.of(2020, 1, 1), updated.getPublishedDate());
+        assertEquals(Language.FRENCH, findByIsbn("9780000000302").getLang());
+        assertEquals("新書名", bookService.getOnsaleBookById(existing.getBookId()).orElseThrow().title());
+    }
+
+    @Test
+    @DisplayName("CSV 缺少必要欄位：整份拒絕，匯入紀錄標示為失敗")
+    void testCsvWithoutRequiredColumnFails() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> bookImportService.importBooks(stream("title,isbn\n書,9780000000401\n"),
+                        BookImportService.Format.CSV, BookImportService.Mode.INSERT));
+
+        assertEquals("CSV 標題列缺少欄位: lang", e.getMessage());
+        BookImportReportDTO latest = bookImportService.getRecentImports().get(0);
+        assertEquals("FAILED", latest.getStatus());
+        assertEquals(e.getMessage(), latest.getError());
+        assertEquals("FAILED", bookImportService.getImport(latest.getImportId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("單筆資料超過字元上限：停止匯入並回報列號，不把整份檔案讀進記憶體")
+    void testOversizedRecordStopsImport() {
+        String huge = "x".repeat(BookImportService.MAX_RECORD_LENGTH + 1);
+
+        IllegalArgumentException csv = assertThrows(IllegalArgumentException.class,
+                () -> bookImportService.importBooks(stream("title,lang\n書,ENGLISH\n\"" + huge + "\n"),
+                        BookImportService.Format.CSV, BookImportService.Mode.INSERT));
+        assertTrue(csv.getMessage().startsWith("第 2 筆: CSV 單筆紀錄超過"), csv.getMessage());
+        assertEquals("FAILED", bookImportService.getRecentImports().get(0).getStatus());
+
+        IllegalArgumentException ndjson = assertThrows(IllegalArgumentException.class,
+                () -> bookImportService.importBooks(stream("\n{\"title\":\"" + huge + "\"}\n"),
+                        BookImportService.Format.NDJSON, BookImportService.Mode.INSERT));
+        assertTrue(ndjson.getMessage().startsWith("第 2 行超過"), ndjson.getMessage());
+        assertEquals("FAILED", bookImportService.getRecentImports().get(0).getStatus());
+    }
+
+    private Book findByIsbn(String isbn) {
+        return bookRepository.findAll().stream()
+                .filter(book -> isbn.equals(book.getIsbn()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Book saveBook(String isbn, String title, BigDecimal price, int stock) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setIsbn(isbn);
+        book.setPrice(price);
+        book.setStock(stock);
+        book.setLang(Language.ENGLISH);
+        book.setIsOnsale(true);
+        book.setPublishedDate(LocalDate.of(2020, 1, 1));
+        return bookRepository.save(book);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
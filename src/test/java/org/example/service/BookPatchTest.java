@@ -0,0 +1,163 @@
+package org.example.service;
+
+import org.example.dto.BookDetail;
+import org.example.dto.BookPatchRequest;
+import org.example.dto.BookPatchResult;
+import org.example.dto.BookPatchResult.Status;
+import org.example.entity.Book;
+import org.example.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 後台批次修改：只更新有填的欄位、每本書各自回報結果，分桶書籍調整子計數器，提交後前台快照同步更新
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:book_patch;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    "application.book-patch.max-size=10"
+})
+class BookPatchTest {
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CatalogReadModel catalogReadModel;
+
+    @Test
+    @DisplayName("批次修改：合格的書籍只改有填的欄位，其餘回報原因且完全不修改")
+    void testPatchReportsPerBookResults() {
+        Book a = TestBooks.create(bookRepository, "9780000000501", 10);
+        Book b = TestBooks.create(bookRepository, "9780000000502", 10);
+        Book c = TestBooks.create(bookRepository, "9780000000503", 10);
+        Book d = TestBooks.create(bookRepository, "9780000000504", 2);
+        // 先讓前台快照載入這幾本書
+        catalogReadModel.rebuild();
+        assertTrue(bookService.getOnsaleBookById(c.getBookId()).isPresent());
+
+        List<BookPatchResult> results = bookService.patchBooks(List.of(
+                patch(a.getBookId(), "320", 5, null),
+                patch(b.getBookId(), "320", null, null),
+                patch(c.getBookId(), null, null, false),
+                patch(d.getBookId(), "320", -3, null),
+                patch(999999L, "320", null, null),
+                patch(a.getBookId(), "1", null, null),
+                patch(null, null, null, null),
+                patch(c.getBookId(), "-1", null, null)
+        ));
+
+        assertEquals(List.of(Status.UPDATED, Status.UPDATED, Status.UPDATED, Status.INSUFFICIENT_STOCK,
+                Status.NOT_FOUND, Status.INVALID, Status.INVALID, Status.INVALID),
+                results.stream().map(BookPatchResult::status).toList());
+        assertEquals("書籍 ID: " + a.getBookId() + " 重複", results.get(5).message());
+        assertEquals("書籍 ID 不可為空", results.get(6).message());
+        assertEquals("價格不可為負數", results.get(7).message());
+
+        Book patchedA = bookRepository.findById(a.getBookId()).orElseThrow();
+        assertEquals(0, new BigDecimal("320").compareTo(patchedA.getPrice()));
+        assertEquals(15, patchedA.getStock());
+        assertEquals(10, bookRepository.findById(b.getBookId()).orElseThrow().getStock());
+        assertFalse(bookRepository.findById(c.getBookId()).orElseThrow().getIsOnsale());
+        assertEquals(0, new BigDecimal("100").compareTo(bookRepository.findById(c.getBookId()).orElseThrow().getPrice()));
+        Book untouchedD = bookRepository.findById(d.getBookId()).orElseThrow();
+        assertEquals(2, untouchedD.getStock());
+        assertEquals(0, new BigDecimal("100").compareTo(untouchedD.getPrice()));
+
+        assertTrue(bookService.getOnsaleBookById(c.getBookId()).isEmpty());
+        assertEquals(0, new BigDecimal("320").compareTo(
+                bookService.getOnsaleBookById(b.getBookId()).orElseThrow().price()));
+    }
+
+    @Test
+    @DisplayName("每本書不同的價格與增減量：各自套用；調整後超出 int 上限的拒絕")
+    void testPatchDistinctValuesAndOverflow() {
+        Book a = TestBooks.create(bookRepository, "9780000000511", 10);
+        Book b = TestBooks.create(bookRepository, "9780000000512", 10);
+        Book c = TestBooks.create(bookRepository, "9780000000513", 10);
+
+        List<BookPatchResult> results = bookService.patchBooks(List.of(
+                patch(a.getBookId(), "110", 1, true),
+                patch(b.getBookId(), "120", -2, false),
+                patch(c.getBookId(), "130", Integer.MAX_VALUE, null)
+        ));
+
+        assertEquals(List.of(Status.UPDATED, Status.UPDATED, Status.INVALID),
+                results.stream().map(BookPatchResult::status).toList());
+        assertEquals("調整後庫存超出上限", results.get(2).message());
+        Book patchedA = bookRepository.findById(a.getBookId()).orElseThrow();
+        Book patchedB = bookRepository.findById(b.getBookId()).orElseThrow();
+        Book untouchedC = bookRepository.findById(c.getBookId()).orElseThrow();
+        assertEquals(0, new BigDecimal("110").compareTo(patchedA.getPrice()));
+        assertEquals(11, patchedA.getStock());
+        assertTrue(patchedA.getIsOnsale());
+        assertEquals(0, new BigDecimal("120").compareTo(patchedB.getPrice()));
+        assertEquals(8, patchedB.getStock());
+        assertFalse(patchedB.getIsOnsale());
+        assertEquals(10, untouchedC.getStock());
+        assertEquals(0, new BigDecimal("100").compareTo(untouchedC.getPrice()));
+    }
+
+    @Test
+    @DisplayName("分桶庫存的書籍：增減量套用到子計數器，總庫存不足時不修改")
+    void testPatchStripedStock() {
+        Book book = TestBooks.create(bookRepository, "9780000000601", 10);
+        inventoryService.enableBuckets(book.getBookId(), 4);
+
+        assertEquals(Status.UPDATED, bookService.patchBooks(List.of(patch(book.getBookId(), null, -7, null)))
+                .get(0).status());
+        assertEquals(3, inventoryService.getStatus(book.getBookId()).getTotalStock());
+
+        assertEquals(Status.UPDATED, bookService.patchBooks(List.of(patch(book.getBookId(), "80", 5, null)))
+                .get(0).status());
+        assertEquals(8, inventoryService.getStatus(book.getBookId()).getTotalStock());
+
+        BookPatchResult rejected = bookService.patchBooks(List.of(patch(book.getBookId(), "1", -100, null))).get(0);
+        assertEquals(Status.INSUFFICIENT_STOCK, rejected.status());
+        assertEquals(8, inventoryService.getStatus(book.getBookId()).getTotalStock());
+        assertEquals(0, new BigDecimal("80").compareTo(bookRepository.findById(book.getBookId()).orElseThrow().getPrice()));
+
+        // 前台快照的庫存 = 書籍列 + 子計數器加總，沒有評論的書評論數為 0
+        catalogReadModel.rebuild();
+        BookDetail detail = bookService.getOnsaleBookById(book.getBookId()).orElseThrow();
+        assertEquals(8, detail.stock());
+        assertEquals(0L, detail.ratingCount());
+        assertNull(detail.ratingAverage());
+    }
+
+    @Test
+    @DisplayName("超過單次上限：整批拒絕")
+    void testRejectsOversizedBatch() {
+        List<BookPatchRequest> patches = new ArrayList<>(Collections.nCopies(11, patch(1L, "1", null, null)));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> bookService.patchBooks(patches));
+        assertEquals("一次最多更新 10 本書", e.getMessage());
+    }
+
+    private static BookPatchRequest patch(Long bookId, String price, Integer stockDelta, Boolean onsale) {
+        BookPatchRequest patch = new BookPatchRequest();
+        patch.setBookId(bookId);
+        patch.setPrice(price == null ? null : new BigDecimal(price));
+        patch.setStockDelta(stockDelta);
+        patch.setIsOnsale(onsale);
+        return patch;
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.service;
+
+import org.example.dto.BookDetail;
+import org.example.entity.Book;
+import org.example.entity.Language;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.rebuild(List.of(
+                BookDetail.from(book(1L, "日本語文法ハンドブック", "佐藤", "978-4-384-05701-2", "初級から上級までの文法解説")),
+                BookDetail.from(book(2L, "English Grammar in Use", "Raymond Murphy", "9780521189064", "Grammar reference with answers")),
+                BookDetail.from(book(3L, "Grammar Drills", "Jane Doe", "9781111111111", "Practice for English learners")),
+                BookDetail.from(book(4L, "한국어 첫걸음", "김민수", "9788999999999", "韓語入門教材"))
+        ));
+    }
+
+    @Test
+    @DisplayName("相關度排序：書名命中的權重高於簡介命中")
+    void testRankedByFieldWeight() {
+        BookSearchIndex.SearchHits hits = index.search("english", 0, 10);
+        assertEquals(2, hits.total());
+        // 書號 2 的書名含 English，書號 3 只在簡介出現
+        assertEquals(List.of(2L, 3L), hits.bookIds());
+    }
+
+    @Test
+    @DisplayName("多個查詢詞為 AND，且最後一個詞支援前綴比對")
+    void testAndWithPrefix() {
+        assertEquals(List.of(2L), index.search("grammar murp", 0, 10).bookIds());
+        assertEquals(0, index.search("grammar 한국어", 0, 10).total());
+    }
+
+    @Test
+    @DisplayName("中日韓與 ISBN 查詢")
+    void testCjkAndIsbn() {
+        assertEquals(List.of(1L), index.search("文法", 0, 10).bookIds());
+        assertEquals(List.of(4L), index.search("한국어", 0, 10).bookIds());
+        assertEquals(List.of(1L), index.search("9784384057012", 0, 10).bookIds());
+    }
+
+    @Test
+    @DisplayName("分頁：offset/limit 與總筆數")
+    void testPagination() {
+        BookSearchIndex.SearchHits second = index.search("grammar", 1, 1);
+        assertEquals(2, second.total());
+        assertEquals(1, second.bookIds().size());
+        assertNotEquals(index.search("grammar", 0, 1).bookIds(), second.bookIds());
+    }
+
+    @Test
+    @DisplayName("分頁邊界：offset 超過總筆數回傳空頁，極大或負數的 offset 不會出錯")
+    void testPaginationBeyondResults() {
+        BookSearchIndex.SearchHits beyond = index.search("grammar", 10, 10);
+        assertEquals(List.of(), beyond.bookIds());
+        assertEquals(2, beyond.total());
+        assertEquals(2, index.search("grammar", Integer.MAX_VALUE - 5, 100).total());
+        assertEquals(0, index.search("grammar", -100, 10).total());
+    }
+
+    @Test
+    @DisplayName("增量更新：修改書名後舊詞不再命中、新詞可以命中")
+    void testIncrementalSync() {
+        CatalogSnapshot before = CatalogSnapshot.of(List.of(
+                book(2L, "English Grammar in Use", "Raymond Murphy", "9780521189064", null)), 1);
+        CatalogSnapshot after = CatalogSnapshot.of(List.of(
+                book(2L, "Essential Vocabulary", "Raymond Murphy", "9780521189064", null)), 2);
+
+        index.sync(before, after, List.of(2L));
+
+        assertFalse(index.search("essential", 0, 10).bookIds().isEmpty());
+        assertFalse(index.search("grammar", 0, 10).bookIds().contains(2L));
+    }
+
+    @Test
+    @DisplayName("前綴展開超過上限時保留文件數最多的詞，而非字典序最前面的詞")
+    void testPrefixExpansionKeepsMostFrequentTerms() {
+        String letters = "bcfgkmpt";
+        List<BookDetail> books = new ArrayList<>();
+        // 70 個只出現一次的罕見詞 zqbbb、zqbbc ...，字典序都在常用詞 zqttt 之前
+        for (int i = 0; i < 70; i++) {
+            String word = "zq" + letters.charAt(i / 64) + letters.charAt(i / 8 % 8) + letters.charAt(i % 8);
+            books.add(BookDetail.from(book(100L + i, word, null, null, null)));
+        }
+        for (long id = 200; id < 203; id++) {
+            books.add(BookDetail.from(book(id, "zqttt", null, null, null)));
+        }
+        index.rebuild(books);
+
+        BookSearchIndex.SearchHits hits = index.search("zq", 0, 100);
+        assertTrue(hits.bookIds().containsAll(List.of(200L, 201L, 202L)));
+        // zqttt (3 本) + 63 個罕見詞 (各 1 本)
+        assertEquals(66, hits.total());
+    }
+
+    private static Book book(Long id, String title, String author, String isbn, String description) {
+        Book book = new Book();
+        book.setBookId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        book.setDescription(description);
+        book.setLang(Language.ENGLISH);
+        book.setIsOnsale(true);
+        return book;
+    }
+}
@@ -1,20 +1,26 @@
 package org.example.service;
 
+import org.example.dto.BookDetail;
 import org.example.dto.BookRequest;
 import org.example.entity.Book;
 import org.example.entity.Language;
+import org.example.event.BookChangedEvent;
 import org.example.repository.BookRepository;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +31,15 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private CatalogReadModel catalog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private InventoryService inventoryService;
+
     @InjectMocks
     private BookService bookService;
 
@@ -113,6 +128,53 @@ class BookServiceTest {
         addReportRow("ISBN 重複攔截", "Isbn = 123456", "拋出重複異常", start);
     }
 
+    @Test
+    @DisplayName("測試上下架切換：應發布書籍異動事件以更新前台快照")
+    void testUpdateBookStatusPublishesChange() {
+        long start = System.currentTimeMillis();
+        Book book = new Book();
+        book.setBookId(7L);
+        book.setIsOnsale(false);
+        when(bookRepository.existsById(7L)).thenReturn(true);
+        when(bookRepository.findAllWithTotalsById(List.of(7L))).thenReturn(List.of(book));
+
+        assertFalse(bookService.updateBookStatus(7L, false).getIsOnsale());
+
+        // 只送出 is_onsale 的 UPDATE，不把載入的整列 (含庫存) 存回
+        verify(bookRepository).updateOnsale(Map.of(7L, false));
+        verify(bookRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(BookChangedEvent.of(7L));
+
+        addReportRow("上下架事件發布", "bookId = 7, onsale = false", "發布 BookChangedEvent", start);
+    }
+
+    @Test
+    @DisplayName("測試前台查詢：應讀取記憶體快照而非資料庫")
+    void testGetOnsaleBookByIdReadsSnapshot() {
+        long start = System.currentTimeMillis();
+        Book book = new Book();
+        book.setBookId(8L);
+        when(catalog.findById(8L)).thenReturn(Optional.of(BookDetail.from(book)));
+
+        assertTrue(bookService.getOnsaleBookById(8L).isPresent());
+        verifyNoInteractions(bookRepository);
+
+        addReportRow("前台快照查詢", "bookId = 8", "不觸發資料庫查詢", start);
+    }
+
+    @Test
+    @DisplayName("測試搜尋分頁邊界：page * size 超過 int 範圍時回報錯誤而非溢位")
+    void testSearchRejectsPageBeyondLimit() {
+        long start = System.currentTimeMillis();
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> bookService.searchOnsaleBooks("grammar", 30_000_000, 100));
+        assertEquals("搜尋結果最多只能瀏覽前 10000 筆", e.getMessage());
+        verifyNoInteractions(catalog);
+
+        addReportRow("搜尋頁碼溢位", "page = 30000000, size = 100", "拋出例外：超過可瀏覽筆數", start);
+    }
+
     // 輔助方法：簡化報告寫入
     private void addReportRow(String name, String data, String expected, long startTime) {
         long duration = System.currentTimeMillis() - startTime;
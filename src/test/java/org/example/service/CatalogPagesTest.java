@@ -0,0 +1,102 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.dto.BookSummary;
+import org.example.entity.Book;
+import org.example.entity.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogPagesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectWriter writer = objectMapper.writerFor(BookSummary.class);
+
+    @Test
+    @DisplayName("預先切頁：預設每頁筆數的頁與逐本 Jackson 序列化結果相同，並附 gzip 壓縮版本與下一頁游標")
+    void testPreparedPagesMatchJackson() throws Exception {
+        List<Book> books = List.of(book(1L, Language.ENGLISH), book(2L, Language.ENGLISH),
+                book(3L, Language.ENGLISH), book(4L, Language.JAPANESE));
+        CatalogPages pages = CatalogPages.build(CatalogSnapshot.of(books, 1), CatalogPages.EMPTY, writer, 2);
+
+        CatalogPages.Page first = pages.page(Language.ENGLISH, 0, 2);
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(
+                BookSummary.from(books.get(0)), BookSummary.from(books.get(1)))), first.json());
+        assertFalse(new String(first.json()).contains("description"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), in.readAllBytes());
+        }
+        assertEquals(PageCursor.encode(2L), first.nextCursor());
+
+        CatalogPages.Page last = pages.page(Language.ENGLISH, 2, 2);
+        assertSame(last, pages.page(Language.ENGLISH, 2, 2));
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    @DisplayName("非預設筆數或游標不在頁界：以各書 JSON 片段即時串接，不壓縮")
+    void testAdHocPagesAreAssembled() throws Exception {
+        List<Book> books = List.of(book(1L, Language.ENGLISH), book(2L, Language.ENGLISH), book(3L, Language.ENGLISH));
+        CatalogPages pages = CatalogPages.build(CatalogSnapshot.of(books, 1), CatalogPages.EMPTY, writer, 2);
+
+        CatalogPages.Page page = pages.page(Language.ENGLISH, 1, 1);
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(BookSummary.from(books.get(1)))), page.json());
+        assertNull(page.gzip());
+        assertEquals(PageCursor.encode(2L), page.nextCursor());
+        assertEquals("[]", new String(pages.page(Language.FRENCH, 0, 2).json()));
+    }
+
+    @Test
+    @DisplayName("重建：書籍版本沒變的沿用上一版 JSON 片段，只有變動的書籍重新序列化")
+    void testRebuildReusesUnchangedFragments() {
+        Book unchanged = book(1L, Language.ENGLISH);
+        CatalogSnapshot v1 = CatalogSnapshot.of(List.of(unchanged, book(2L, Language.ENGLISH)), 1);
+        CatalogPages before = CatalogPages.build(v1, CatalogPages.EMPTY, writer, 1);
+
+        Book renamed = book(2L, Language.ENGLISH);
+        renamed.setTitle("Renamed");
+        CatalogSnapshot v2 = CatalogSnapshot.of(List.of(unchanged, renamed), 2, v1);
+        // 同一個物件版本不變：若被重新序列化就會出現這個標題
+        unchanged.setTitle("Not serialized again");
+        CatalogPages after = CatalogPages.build(v2, before, writer, 1);
+
+        assertArrayEquals(before.page(Language.ENGLISH, 0, 1).json(), after.page(Language.ENGLISH, 0, 1).json());
+        assertTrue(new String(after.page(Language.ENGLISH, 1, 1).json()).contains("Renamed"));
+    }
+
+    @Test
+    @DisplayName("重建：沒有書籍變動的語言沿用上一版切好的頁，不重新串接與壓縮")
+    void testRebuildReusesUnchangedLanguages() {
+        CatalogSnapshot v1 = CatalogSnapshot.of(List.of(book(1L, Language.ENGLISH), book(2L, Language.JAPANESE)), 1);
+        CatalogPages before = CatalogPages.build(v1, CatalogPages.EMPTY, writer, 1);
+
+        Book renamed = book(2L, Language.JAPANESE);
+        renamed.setTitle("Renamed");
+        CatalogSnapshot v2 = CatalogSnapshot.of(List.of(book(1L, Language.ENGLISH), renamed), 2, v1);
+        CatalogPages after = CatalogPages.build(v2, before, writer, 1);
+
+        assertSame(before.page(Language.ENGLISH, 0, 1), after.page(Language.ENGLISH, 0, 1));
+        assertNotSame(before.page(Language.JAPANESE, 0, 1), after.page(Language.JAPANESE, 0, 1));
+        assertTrue(new String(after.page(Language.JAPANESE, 0, 1).json()).contains("Renamed"));
+    }
+
+    private static Book book(Long id, Language lang) {
+        Book book = new Book();
+        book.setBookId(id);
+        book.setTitle("Book " + id);
+        book.setDescription("很長的描述 " + id);
+        book.setPrice(new BigDecimal("100.00"));
+        book.setLang(lang);
+        book.setIsOnsale(true);
+        return book;
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.service;
+
+import org.example.dto.BookDetail;
+import org.example.dto.CatalogStatsDTO;
+import org.example.entity.Book;
+import org.example.entity.Language;
+import org.example.event.BookChangedEvent;
+import org.example.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogReadModelTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Spy
+    private BookSearchIndex searchIndex;
+
+    @Mock
+    private CatalogPageCache pageCache;
+
+    @InjectMocks
+    private CatalogReadModel catalog;
+
+    private Book english;
+    private Book japanese;
+
+    @BeforeEach
+    void setUp() {
+        english = book(1L, "English Grammar in Use", "9780521189064", Language.ENGLISH);
+        japanese = book(2L, "日本語能力試験 N1", "9784384057", Language.JAPANESE);
+        when(bookRepository.findOnsaleWithTotals()).thenReturn(List.of(japanese, english));
+        catalog.rebuild();
+    }
+
+    @Test
+    @DisplayName("快照查詢：依 ID、語言、ISBN 皆可命中且不再查詢資料庫")
+    void testLookupsServedFromSnapshot() {
+        assertEquals(BookDetail.from(english), catalog.findById(1L).orElseThrow());
+        assertEquals(List.of(BookDetail.from(japanese)), catalog.findByLang(Language.JAPANESE));
+        assertEquals(BookDetail.from(japanese), catalog.findByIsbn("9784384057").orElseThrow());
+        assertTrue(catalog.findById(99L).isEmpty());
+
+        verify(bookRepository, times(1)).findOnsaleWithTotals();
+        verifyNoMoreInteractions(bookRepository);
+        // 列表頁在替換快照時就已建好，不留給讀取請求
+        verify(pageCache).sync(catalog.current());
+
+        CatalogStatsDTO stats = catalog.stats();
+        assertEquals(3, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getBookCount());
+        assertEquals(1, stats.getRebuildCount());
+    }
+
+    @Test
+    @DisplayName("增量更新：下架的書籍應自快照移除，並產生新版本")
+    void testBookChangedEventRemovesOffsaleBook() {
+        long before = catalog.current().version();
+        Book offsale = book(1L, "English Grammar in Use", "9780521189064", Language.ENGLISH);
+        offsale.setIsOnsale(false);
+        when(bookRepository.findAllWithTotalsById(anySet())).thenReturn(List.of(offsale));
+
+        catalog.onBookChanged(BookChangedEvent.of(1L));
+
+        assertTrue(catalog.findById(1L).isEmpty());
+        assertTrue(catalog.findByLang(Language.ENGLISH).isEmpty());
+        assertEquals(BookDetail.from(japanese), catalog.findById(2L).orElseThrow());
+        assertEquals(before + 1, catalog.current().version());
+        verify(bookRepository).findAllWithTotalsById(Set.of(1L));
+    }
+
+    @Test
+    @DisplayName("增量更新：舊快照不受新版本影響 (不可變)")
+    void testOldSnapshotIsImmutable() {
+        CatalogSnapshot old = catalog.current();
+        Book added = book(3L, "Français facile", "9782011555", Language.FRENCH);
+        when(bookRepository.findAllWithTotalsById(anySet())).thenReturn(List.of(added));
+
+        catalog.onBookChanged(BookChangedEvent.of(3L));
+
+        assertNull(old.findById(3L));
+        assertEquals(BookDetail.from(added), catalog.findById(3L).orElseThrow());
+        assertThrows(UnsupportedOperationException.class, () -> old.all().add(BookDetail.from(added)));
+
+        // 快照保存的是複本，之後修改實體不影響前台讀到的內容
+        added.setTitle("Modified after snapshot");
+        assertEquals("Français facile", catalog.findById(3L).orElseThrow().title());
+    }
+
+    @Test
+    @DisplayName("全文檢索：快照替換後索引同步更新，下架書籍不再出現在搜尋結果")
+    void testSearchFollowsSnapshot() {
+        assertEquals(List.of(BookDetail.from(english)), catalog.search("grammar", 0, 10).getContent());
+
+        Book offsale = book(1L, "English Grammar in Use", "9780521189064", Language.ENGLISH);
+        offsale.setIsOnsale(false);
+        when(bookRepository.findAllWithTotalsById(anySet())).thenReturn(List.of(offsale));
+        catalog.onBookChanged(BookChangedEvent.of(1L));
+
+        assertTrue(catalog.search("grammar", 0, 10).isEmpty());
+        assertEquals(1, searchIndex.size());
+    }
+
+    @Test
+    @DisplayName("書籍版本：定期重建內容不變時保留版本，只有變動的書籍換成新版本 (HTTP ETag 用)")
+    void testVersionsOnlyChangeWithContent() {
+        CatalogSnapshot before = catalog.current();
+        when(bookRepository.findOnsaleWithTotals()).thenReturn(List.of(
+                book(1L, "English Grammar in Use", "9780521189064", Language.ENGLISH),
+                book(2L, "日本語能力試験 N1", "9784384057", Language.JAPANESE)));
+        catalog.rebuild();
+
+        assertSame(before, catalog.current());
+        assertEquals(2, catalog.stats().getRebuildCount());
+
+        Book renamed = book(2L, "日本語能力試験 N1 改訂版", "9784384057", Language.JAPANESE);
+        when(bookRepository.findOnsaleWithTotals()).thenReturn(List.of(english, renamed));
+        catalog.rebuild();
+
+        CatalogSnapshot after = catalog.current();
+        assertEquals(before.version() + 1, after.version());
+        assertEquals(before.bookVersion(1L), after.bookVersion(1L));
+        assertEquals(after.version(), after.bookVersion(2L));
+        assertEquals(0, after.bookVersion(99L));
+    }
+
+    private static Book book(Long id, String title, String isbn, Language lang) {
+        Book book = new Book();
+        book.setBookId(id);
+        book.setTitle(title);
+        book.setIsbn(isbn);
+        book.setLang(lang);
+        book.setIsOnsale(true);
+        return book;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.service;
+
+import org.example.dto.CheckoutRequest;
+import org.example.entity.Book;
+import org.example.entity.CartItem;
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.OrderRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 超賣壓力測試：200 位會員同時結帳同一本只剩 50 本的書，
+ * 成功的訂單數必須剛好等於庫存，且庫存不可為負數。
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:checkout_concurrency;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER;LOCK_TIMEOUT=30000",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false"
+})
+class CheckoutConcurrencyTest {
+
+    private static final int BUYERS = 200;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Test
+    @DisplayName("並發結帳：200 筆同時搶購 50 本庫存，不可超賣")
+    void testNoOversellUnderConcurrentCheckout() throws Exception {
+        Book book = TestBooks.create(bookRepository, "9780000000001", STOCK);
+
+        runConcurrentCheckouts(book, "plain");
+
+        assertEquals(0, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("分桶庫存並發結帳：庫存分散到 8 個子計數器，仍剛好賣出 50 本")
+    void testNoOversellWithStripedInventory() throws Exception {
+        Book book = TestBooks.create(bookRepository, "9780000000002", STOCK);
+        inventoryService.enableBuckets(book.getBookId(), 8);
+
+        runConcurrentCheckouts(book, "striped");
+
+        assertEquals(0, inventoryService.getStatus(book.getBookId()).getTotalStock());
+        assertTrue(inventoryService.getStatus(book.getBookId()).getBuckets().stream().allMatch(stock -> stock == 0));
+    }
+
+    private void runConcurrentCheckouts(Book book, String prefix) throws Exception {
+        long ordersBefore = orderRepository.count();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            User user = new User();
+            user.setUsername(prefix + i);
+            user.setEmail(prefix + i + "@test.com");
+            user.setPassword("x");
+            user.setRole(Role.USER);
+            user = userRepository.save(user);
+            userIds.add(user.getUserId());
+
+            CartItem item = new CartItem();
+            item.setUser(user);
+            item.setBook(book);
+            item.setQuantity(1);
+            cartItemRepository.save(item);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : userIds) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                CheckoutRequest req = new CheckoutRequest();
+                req.setPaymentMethod("CREDIT_CARD");
+                req.setRecipientName("收件人");
+                req.setShippingAddress("台北市");
+                req.setRecipientPhone("0912345678");
+                try {
+                    orderService.checkout(userId, req);
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().contains("庫存不足"), e.getMessage());
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(STOCK, succeeded.get());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(ordersBefore + STOCK, orderRepository.count());
+    }
+}
@@ -0,0 +1,269 @@
+package org.example.service;
+
+import org.example.dto.CheckoutRequest;
+import org.example.dto.CheckoutResponseDTO;
+import org.example.dto.CheckoutStatusDTO;
+import org.example.entity.*;
+import org.example.exception.CheckoutException;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.OrderRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 帶 Idempotency-Key 的結帳：重送不重複扣庫存、非同步階段建立明細並清空購物車、失敗時回補庫存
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:checkout_pipeline;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER;LOCK_TIMEOUT=30000",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false"
+})
+class CheckoutPipelineTest {
+
+    private static final int STOCK = 10;
+
+    @Autowired
+    private CheckoutPipeline checkoutPipeline;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("重送：同一個 key 回傳第一次的結果，只扣一次庫存、只成立一張訂單")
+    void testRetryReturnsOriginalResponse() throws Exception {
+        Book book = TestBooks.create(bookRepository, "9780000000101", STOCK);
+        User user = createUserWithCart("retry", book, 2);
+
+        CheckoutResponseDTO first = checkoutPipeline.submit(user.getUserId(), "key-retry", request("台北市"));
+        CheckoutResponseDTO retried = checkoutPipeline.submit(user.getUserId(), "key-retry", request("台北市"));
+
+        assertNotNull(first.getOrderId());
+        assertEquals(first, retried);
+        assertEquals(STOCK - 2, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+
+        CheckoutStatusDTO status = awaitStatus(user.getUserId(), "key-retry", "COMPLETED");
+        assertEquals(first.getOrderId(), status.getOrderId());
+        assertEquals(OrderStatus.PENDING.name(), status.getOrderStatus());
+        assertEquals(1, orderItemCount(first.getOrderId()));
+        assertTrue(cartItemRepository.findByUserUserId(user.getUserId()).isEmpty());
+
+        assertEquals(first, checkoutPipeline.submit(user.getUserId(), "key-retry", request("台北市")));
+        assertEquals(STOCK - 2, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("並發重送：同一個 key 同時送出多次，只成立一張訂單")
+    void testConcurrentRetriesCreateOneOrder() throws Exception {
+        Book book = TestBooks.create(bookRepository, "9780000000102", STOCK);
+        User user = createUserWithCart("concurrent", book, 1);
+        long ordersBefore = orderRepository.count();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CheckoutResponseDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return checkoutPipeline.submit(user.getUserId(), "key-concurrent", request("台中市"));
+            }));
+        }
+        start.countDown();
+        List<CheckoutResponseDTO> responses = new ArrayList<>();
+        for (Future<CheckoutResponseDTO> future : futures) {
+            responses.add(future.get(60, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertTrue(responses.stream().allMatch(response -> response.equals(responses.get(0))));
+        assertEquals(ordersBefore + 1, orderRepository.count());
+        assertEquals(STOCK - 1, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("同一個 key 搭配不同的結帳內容：拒絕")
+    void testKeyReusedWithDifferentRequest() {
+        Book book = TestBooks.create(bookRepository, "9780000000103", STOCK);
+        User user = createUserWithCart("conflict", book, 1);
+
+        checkoutPipeline.submit(user.getUserId(), "key-conflict", request("台北市"));
+
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> checkoutPipeline.submit(user.getUserId(), "key-conflict", request("高雄市")));
+    }
+
+    @Test
+    @DisplayName("受理即失敗：同一個 key 重送回傳相同錯誤，不會重新處理")
+    void testRejectedCheckoutIsReplayed() {
+        Book book = TestBooks.create(bookRepository, "9780000000104", STOCK);
+        User user = createUserWithCart("rejected", book, STOCK + 1);
+
+        CheckoutException first = assertThrows(CheckoutException.class,
+                () -> checkoutPipeline.submit(user.getUserId(), "key-rejected", request("台北市")));
+        assertEquals(CheckoutException.Reason.INSUFFICIENT_STOCK, first.getReason());
+
+        // 改成庫存足夠的數量後以同一個 key 重送，仍是第一次的結果
+        CartItem item = cartItemRepository.findByUserUserId(user.getUserId()).get(0);
+        item.setQuantity(1);
+        cartItemRepository.save(item);
+        CheckoutException retried = assertThrows(CheckoutException.class,
+                () -> checkoutPipeline.submit(user.getUserId(), "key-rejected", request("台北市")));
+
+        assertEquals(first.getReason(), retried.getReason());
+        assertEquals(first.getMessage(), retried.getMessage());
+        assertEquals(STOCK, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+        assertEquals("FAILED", checkoutPipeline.status(user.getUserId(), "key-rejected").getStatus());
+    }
+
+    @Test
+    @DisplayName("非同步階段失敗：回補庫存、取消訂單，之後不會再建立明細")
+    void testAbandonRestoresStock() {
+        Book book = TestBooks.create(bookRepository, "9780000000105", STOCK);
+        User user = createUserWithCart("abandon", book, 3);
+
+        CheckoutAttempt attempt = orderService.acceptCheckout(user.getUserId(), "key-abandon",
+                CheckoutPipeline.fingerprint(request("台北市")), request("台北市"));
+        assertEquals(STOCK - 3, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+
+        orderService.abandonCheckout(attempt.getAttemptId(), "測試失敗");
+
+        assertFalse(orderService.materializeCheckout(attempt.getAttemptId()));
+        assertEquals(STOCK, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+        CheckoutStatusDTO status = checkoutPipeline.status(user.getUserId(), "key-abandon");
+        assertEquals("FAILED", status.getStatus());
+        assertEquals(OrderStatus.CANCELLED.name(), status.getOrderStatus());
+        assertEquals("測試失敗", status.getFailureReason());
+        assertEquals(0, orderItemCount(attempt.getOrderId()));
+        assertEquals(1, cartItemRepository.findByUserUserId(user.getUserId()).size());
+    }
+
+    @Test
+    @DisplayName("非同步階段失敗時訂單已付款：保留 PAID 與已扣庫存，結帳紀錄待人工處理")
+    void testAbandonKeepsPaidOrder() {
+        Book book = TestBooks.create(bookRepository, "9780000000108", STOCK);
+        User user = createUserWithCart("abandon-paid", book, 2);
+
+        CheckoutAttempt attempt = orderService.acceptCheckout(user.getUserId(), "key-abandon-paid",
+                CheckoutPipeline.fingerprint(request("台北市")), request("台北市"));
+        assertTrue(orderService.completePayment(attempt.getOrderId()));
+
+        orderService.abandonCheckout(attempt.getAttemptId(), "測試失敗");
+
+        assertEquals(STOCK - 2, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+        CheckoutStatusDTO status = checkoutPipeline.status(user.getUserId(), "key-abandon-paid");
+        assertEquals("NEEDS_ATTENTION", status.getStatus());
+        assertEquals(OrderStatus.PAID.name(), status.getOrderStatus());
+        // 待人工處理的紀錄不會被定期清除
+        orderService.purgeExpiredCheckouts(OffsetDateTime.now().plusDays(1));
+        assertEquals("NEEDS_ATTENTION", checkoutPipeline.status(user.getUserId(), "key-abandon-paid").getStatus());
+    }
+
+    @Test
+    @DisplayName("明細建立前取消訂單：依結帳快照回補庫存，之後不會再建立明細")
+    void testCancelBeforeMaterializeRestoresStock() {
+        Book book = TestBooks.create(bookRepository, "9780000000106", STOCK);
+        User user = createUserWithCart("cancel-early", book, 4);
+
+        CheckoutAttempt attempt = orderService.acceptCheckout(user.getUserId(), "key-cancel-early",
+                CheckoutPipeline.fingerprint(request("台北市")), request("台北市"));
+        assertEquals(STOCK - 4, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+
+        orderService.updateOrderStatus(attempt.getOrderId(), OrderStatus.CANCELLED.name());
+
+        assertEquals(STOCK, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+        assertFalse(orderService.materializeCheckout(attempt.getAttemptId()));
+        CheckoutStatusDTO status = checkoutPipeline.status(user.getUserId(), "key-cancel-early");
+        assertEquals("FAILED", status.getStatus());
+        assertEquals(OrderStatus.CANCELLED.name(), status.getOrderStatus());
+        assertEquals(0, orderItemCount(attempt.getOrderId()));
+        assertEquals(1, cartItemRepository.findByUserUserId(user.getUserId()).size());
+    }
+
+    @Test
+    @DisplayName("明細建立前已付款：建立明細但不會把 PAID 改回 PENDING")
+    void testMaterializeKeepsPaidStatus() {
+        Book book = TestBooks.create(bookRepository, "9780000000107", STOCK);
+        User user = createUserWithCart("paid-early", book, 1);
+
+        CheckoutAttempt attempt = orderService.acceptCheckout(user.getUserId(), "key-paid-early",
+                CheckoutPipeline.fingerprint(request("台北市")), request("台北市"));
+        assertEquals(OrderStatus.ACCEPTED, orderRepository.findById(attempt.getOrderId()).orElseThrow().getStatus());
+        assertTrue(orderService.completePayment(attempt.getOrderId()));
+
+        assertTrue(orderService.materializeCheckout(attempt.getAttemptId()));
+
+        assertEquals(OrderStatus.PAID, orderRepository.findById(attempt.getOrderId()).orElseThrow().getStatus());
+        assertEquals(1, orderItemCount(attempt.getOrderId()));
+        assertEquals(STOCK - 1, bookRepository.findById(book.getBookId()).orElseThrow().getStock());
+    }
+
+    private CheckoutStatusDTO awaitStatus(Long userId, String key, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        CheckoutStatusDTO status = checkoutPipeline.status(userId, key);
+        while (!expected.equals(status.getStatus())) {
+            assertTrue(System.nanoTime() < deadline, "結帳狀態仍為 " + status.getStatus());
+            Thread.sleep(20);
+            status = checkoutPipeline.status(userId, key);
+        }
+        return status;
+    }
+
+    private int orderItemCount(Long orderId) {
+        return transactionTemplate.execute(tx -> orderRepository.findById(orderId).orElseThrow().getItems().size());
+    }
+
+    private static CheckoutRequest request(String address) {
+        CheckoutRequest req = new CheckoutRequest();
+        req.setPaymentMethod("CREDIT_CARD");
+        req.setRecipientName("收件人");
+        req.setShippingAddress(address);
+        req.setRecipientPhone("0912345678");
+        return req;
+    }
+
+    private User createUserWithCart(String name, Book book, int quantity) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@test.com");
+        user.setPassword("x");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+
+        CartItem item = new CartItem();
+        item.setUser(user);
+        item.setBook(book);
+        item.setQuantity(quantity);
+        cartItemRepository.save(item);
+        return user;
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.service;
+
+import org.example.exception.DatabaseOverloadedException;
+import org.example.service.DatabaseLimiter.Lane;
+import org.example.service.DatabaseLimiter.Permit;
+import org.example.service.DatabaseLimiter.Priority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseLimiterTest {
+
+    private static final long WAIT = TimeUnit.SECONDS.toNanos(5);
+
+    private static DatabaseLimiter limiter(int min, int max, long latencyThresholdNanos, long maxWaitNanos) {
+        return new DatabaseLimiter(true, min, max, latencyThresholdNanos, 0.5, Map.of(
+                Priority.CHECKOUT, new Lane(10, maxWaitNanos, 1.0),
+                Priority.BROWSE, new Lane(10, maxWaitNanos, 1.0),
+                Priority.EXPORT, new Lane(10, maxWaitNanos, 0.5)));
+    }
+
+    @Test
+    @DisplayName("上限已滿且不排隊：立即拒絕並計入拒絕次數")
+    void testRejectsWhenFull() {
+        DatabaseLimiter limiter = limiter(2, 2, WAIT, 0);
+        limiter.acquire(Priority.BROWSE);
+        limiter.acquire(Priority.BROWSE);
+
+        assertThrows(DatabaseOverloadedException.class, () -> limiter.acquire(Priority.BROWSE));
+        assertEquals(2, limiter.inFlight());
+        assertEquals(1, limiter.rejectedCount(Priority.BROWSE));
+    }
+
+    @Test
+    @DisplayName("AIMD：同一波慢請求只退讓一次，之後的快速請求逐步加回上限")
+    void testBacksOffOncePerWaveAndRecovers() {
+        DatabaseLimiter slow = limiter(1, 8, 0, 0);
+        Permit first = slow.acquire(Priority.BROWSE);
+        Permit second = slow.acquire(Priority.BROWSE);
+        first.release(false);
+        second.release(false);
+        assertEquals(4, slow.limit());
+
+        DatabaseLimiter limiter = limiter(1, 8, WAIT, 0);
+        limiter.acquire(Priority.BROWSE).release(true);
+        assertEquals(4, limiter.limit());
+        for (int i = 0; i < 20; i++) {
+            List<Permit> permits = List.of(limiter.acquire(Priority.BROWSE), limiter.acquire(Priority.BROWSE),
+                    limiter.acquire(Priority.BROWSE));
+            permits.forEach(permit -> permit.release(false));
+        }
+        assertTrue(limiter.limit() > 4, "limit=" + limiter.limit());
+    }
+
+    @Test
+    @DisplayName("優先順序：名額空出時先交給排隊中的結帳，再輪到瀏覽")
+    void testCheckoutServedBeforeBrowse() throws Exception {
+        DatabaseLimiter limiter = limiter(1, 1, WAIT, WAIT);
+        Permit held = limiter.acquire(Priority.BROWSE);
+        List<Priority> served = new CopyOnWriteArrayList<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CompletableFuture<Void> browse = CompletableFuture.runAsync(() -> {
+            Permit permit = limiter.acquire(Priority.BROWSE);
+            served.add(Priority.BROWSE);
+            permit.release(false);
+        }, pool);
+        awaitQueued(limiter, Priority.BROWSE);
+        CompletableFuture<Void> checkout = CompletableFuture.runAsync(() -> {
+            Permit permit = limiter.acquire(Priority.CHECKOUT);
+            served.add(Priority.CHECKOUT);
+            permit.release(false);
+        }, pool);
+        awaitQueued(limiter, Priority.CHECKOUT);
+
+        held.release(false);
+        CompletableFuture.allOf(browse, checkout).get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(List.of(Priority.CHECKOUT, Priority.BROWSE), served);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    @DisplayName("匯出最多使用一半的上限，其餘名額留給前台")
+    void testExportLimitedToShare() {
+        DatabaseLimiter limiter = limiter(4, 4, WAIT, 0);
+        limiter.acquire(Priority.EXPORT);
+        limiter.acquire(Priority.EXPORT);
+
+        assertThrows(DatabaseOverloadedException.class, () -> limiter.acquire(Priority.EXPORT));
+        limiter.acquire(Priority.BROWSE);
+        limiter.acquire(Priority.CHECKOUT);
+        assertEquals(4, limiter.inFlight());
+    }
+
+    @Test
+    @DisplayName("停用時不限制，也不計入使用中名額")
+    void testDisabled() {
+        DatabaseLimiter limiter = new DatabaseLimiter(false, 1, 1, WAIT, 0.5, Map.of(
+                Priority.CHECKOUT, new Lane(0, 0, 1.0),
+                Priority.BROWSE, new Lane(0, 0, 1.0),
+                Priority.EXPORT, new Lane(0, 0, 1.0)));
+        limiter.acquire(Priority.BROWSE);
+        limiter.acquire(Priority.BROWSE).release(true);
+
+        assertEquals(0, limiter.inFlight());
+        assertEquals(1, limiter.limit());
+    }
+
+    private static void awaitQueued(DatabaseLimiter limiter, Priority priority) throws InterruptedException {
+        long deadline = System.nanoTime() + WAIT;
+        while (limiter.queued(priority) == 0) {
+            assertTrue(System.nanoTime() < deadline, priority + " 沒有進入排隊");
+            Thread.sleep(5);
+        }
+    }
+}
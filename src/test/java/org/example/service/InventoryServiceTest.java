@@ -0,0 +1,128 @@
+package org.example.service;
+
+import org.example.dto.InventoryStatusDTO;
+import org.example.entity.Book;
+import org.example.entity.BookStockBucket;
+import org.example.repository.BookRepository;
+import org.example.repository.BookStockBucketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private BookStockBucketRepository bucketRepository;
+
+    @InjectMocks
+    private InventoryService inventoryService;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = new Book();
+        book.setBookId(7L);
+        book.setStock(10);
+    }
+
+    @Test
+    @DisplayName("開啟分桶：總庫存平均分配到各桶，餘數給前面的桶，書籍列歸零")
+    void testEnableBucketsSplitsStockExactly() {
+        when(bookRepository.lockById(7L)).thenReturn(Optional.of(book));
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(book));
+        when(bucketRepository.lockAllByBookId(7L)).thenReturn(List.of());
+
+        inventoryService.enableBuckets(7L, 4);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BookStockBucket>> saved = ArgumentCaptor.forClass(List.class);
+        verify(bucketRepository).saveAll(saved.capture());
+        assertEquals(List.of(3, 3, 2, 2), saved.getValue().stream().map(BookStockBucket::getStock).toList());
+        assertEquals(0, book.getBaseStock());
+        assertEquals(4, book.getStockBuckets());
+    }
+
+    @Test
+    @DisplayName("開啟分桶：分桶數超出範圍應拒絕")
+    void testEnableBucketsRejectsInvalidCount() {
+        assertThrows(RuntimeException.class, () -> inventoryService.enableBuckets(7L, 1));
+        verifyNoInteractions(bookRepository, bucketRepository);
+    }
+
+    @Test
+    @DisplayName("關閉分桶：所有子計數器加回書籍列並刪除")
+    void testDisableBucketsCollapsesStock() {
+        book.setStock(0);
+        book.setStockBuckets(2);
+        List<BookStockBucket> buckets = List.of(new BookStockBucket(7L, 0, 4), new BookStockBucket(7L, 1, 5));
+        when(bookRepository.lockById(7L)).thenReturn(Optional.of(book));
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(book));
+        when(bucketRepository.lockAllByBookId(7L)).thenReturn(buckets);
+
+        InventoryStatusDTO status = inventoryService.disableBuckets(7L);
+
+        assertEquals(9, book.getBaseStock());
+        assertFalse(book.isStockStriped());
+        assertFalse(status.isStriped());
+        verify(bucketRepository).deleteAllInBatch(buckets);
+    }
+
+    @Test
+    @DisplayName("分桶扣庫存：每一桶單獨都不夠時，鎖定全部桶跨桶扣除")
+    void testReserveFallsBackToMultiBucketTake() {
+        BookStockBucket first = new BookStockBucket(7L, 0, 2);
+        BookStockBucket second = new BookStockBucket(7L, 1, 2);
+        when(bucketRepository.take(eq(7L), anyInt(), eq(3))).thenReturn(0);
+        when(bucketRepository.sumStockByBookId(7L)).thenReturn(4);
+        when(bucketRepository.lockAllByBookId(7L)).thenReturn(List.of(first, second));
+
+        List<Long> rejected = inventoryService.reserve(Map.of(7L, 3), Map.of(7L, 2));
+
+        assertTrue(rejected.isEmpty());
+        assertEquals(0, first.getStock());
+        assertEquals(1, second.getStock());
+        verify(bookRepository).decrementStock(Map.of());
+    }
+
+    @Test
+    @DisplayName("分桶扣庫存：所有桶加總仍不足時直接拒絕，不鎖定任何桶")
+    void testReserveRejectsWhenBucketsInsufficient() {
+        when(bucketRepository.take(eq(7L), anyInt(), eq(2))).thenReturn(0);
+        when(bucketRepository.sumStockByBookId(7L)).thenReturn(1);
+
+        List<Long> rejected = inventoryService.reserve(Map.of(7L, 2), Map.of(7L, 1));
+
+        assertEquals(List.of(7L), rejected);
+        verify(bucketRepository, never()).lockAllByBookId(anyLong());
+    }
+
+    @Test
+    @DisplayName("分桶扣庫存：只買一本且每一桶都扣不到代表已售完，不走跨桶路徑")
+    void testReserveSingleUnitSoldOutSkipsFallback() {
+        when(bucketRepository.take(eq(7L), anyInt(), eq(1))).thenReturn(0);
+
+        List<Long> rejected = inventoryService.reserve(Map.of(7L, 1), Map.of(7L, 4));
+
+        assertEquals(List.of(7L), rejected);
+        verify(bucketRepository, times(4)).take(eq(7L), anyInt(), eq(1));
+        verify(bucketRepository, never()).sumStockByBookId(anyLong());
+        verify(bucketRepository, never()).lockAllByBookId(anyLong());
+    }
+}
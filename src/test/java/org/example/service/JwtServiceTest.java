@@ -1,12 +1,14 @@
 package org.example.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.example.entity.Role;
 import org.example.entity.User;
+import org.example.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -123,6 +125,52 @@ class JwtServiceTest {
         assertEquals("USER", role.toString());
     }
 
+    @Test
+    @DisplayName("單次解析：parseToken 驗證一次即取得 subject、角色與 userId")
+    void testParseTokenOnce() {
+        User user = (User) userDetails;
+        user.setUserId(42L);
+        String token = jwtService.generateToken(user);
+
+        Claims claims = jwtService.parseToken(token);
+
+        assertEquals("test@example.com", claims.getSubject());
+        assertEquals("USER", claims.get("role", String.class));
+        assertEquals(42L, claims.get("uid", Number.class).longValue());
+    }
+
+    @Test
+    @DisplayName("單次解析：簽章被竄改的 Token 應拋出異常")
+    void testParseTokenRejectsTamperedSignature() {
+        String token = jwtService.generateToken((User) userDetails);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.parseToken(tampered));
+    }
+
+    @Test
+    @DisplayName("無狀態模式：直接由 Claims 建立登入者，不需查詢資料庫")
+    void testStatelessPrincipal() {
+        ReflectionTestUtils.setField(jwtService, "stateless", true);
+        User user = (User) userDetails;
+        user.setUserId(42L);
+        Claims claims = jwtService.parseToken(jwtService.generateToken(user));
+
+        AuthenticatedUser principal = jwtService.statelessPrincipal(claims);
+
+        assertEquals(42L, principal.getUserId());
+        assertEquals("test@example.com", principal.getUsername());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    @DisplayName("無狀態模式關閉 (預設) 時不由 Claims 授權")
+    void testStatelessPrincipalDisabledByDefault() {
+        Claims claims = jwtService.parseToken(jwtService.generateToken((User) userDetails));
+
+        assertNull(jwtService.statelessPrincipal(claims));
+    }
+
     // 輔助方法：從 secret key 取得簽名金鑰
     private Key getSigningKey() {
         byte[] keyBytes = Decoders.BASE64.decode(secretKey);
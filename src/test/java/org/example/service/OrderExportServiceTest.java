@@ -0,0 +1,113 @@
+package org.example.service;
+
+import org.example.entity.Order;
+import org.example.entity.OrderStatus;
+import org.example.entity.PaymentMethod;
+import org.example.entity.User;
+import org.example.repository.OrderRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=true"
+})
+class OrderExportServiceTest {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    @Autowired
+    private OrderExportService orderExportService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        User admin = userRepository.findByEmail("admin@test.com").orElseThrow();
+        orderRepository.saveAll(List.of(
+                order(admin, OrderStatus.PAID, "120.50", "2024-03-01T10:00:00Z"),
+                order(admin, OrderStatus.PENDING, "80.00", "2024-03-02T10:00:00Z"),
+                order(admin, OrderStatus.PAID, "300.00", "2024-04-01T10:00:00Z")
+        ));
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("CSV 匯出：依建立時間排序並套用日期區間與狀態篩選")
+    void testCsvExportWithFilters() {
+        OrderExportService.Filter filter =
+                OrderExportService.Filter.of(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), "paid", UTC);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = orderExportService.export(filter, OrderExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, count);
+        assertEquals("order_id,user_id,status,payment_method,total_price,created_at", lines[0]);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains(",PAID,CREDIT_CARD,120.50,"));
+    }
+
+    @Test
+    @DisplayName("NDJSON 匯出：每列一個 JSON 物件，不帶條件時匯出全部")
+    void testNdjsonExportAll() {
+        OrderExportService.Filter filter = OrderExportService.Filter.of(null, null, null, UTC);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = orderExportService.export(filter, OrderExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, count);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"orderId\":"));
+        assertTrue(lines[2].contains("\"totalPrice\":300.00"));
+    }
+
+    @Test
+    @DisplayName("匯出參數錯誤：不支援的格式或狀態應在串流開始前拒絕")
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> OrderExportService.Format.of("xlsx"));
+        assertThrows(IllegalArgumentException.class,
+                () -> OrderExportService.Filter.of(null, null, "LOST", UTC));
+        assertThrows(IllegalArgumentException.class,
+                () -> OrderExportService.Filter.of(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1), null, UTC));
+    }
+
+    private static Order order(User user, OrderStatus status, String total, String createdAt) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setStatus(status);
+        order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+        order.setTotalPrice(new BigDecimal(total));
+        order.setCreatedAt(OffsetDateTime.parse(createdAt));
+        return order;
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.dto.CheckoutRequest;
+import org.example.dto.CursorPage;
+import org.example.dto.OrderListDTO;
+import org.example.entity.Book;
+import org.example.entity.CartItem;
+import org.example.entity.Language;
+import org.example.entity.Order;
+import org.example.entity.OrderStatus;
+import org.example.entity.PaymentMethod;
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.OrderRepository;
+import org.example.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * N+1 回歸測試：以 Hibernate statistics 計算每次列表查詢實際送出的 SQL 數量，
+ * 不論訂單筆數多少都只能有一條查詢；結帳的寫入也不可隨購物車明細數量成長。
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    // 獨立的資料庫名稱，避免 create-drop 影響其他整合測試共用的 testdb
+    "spring.datasource.url=jdbc:h2:mem:order_query_count;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+    // outbox 轉送排程的查詢也會計入 statistics，測試期間不執行
+    "application.outbox.relay-interval-ms=3600000"
+})
+class OrderQueryCountTest {
+
+    private static final int ORDER_COUNT = 12;
+    private static final int CART_LINES = 20;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private List<User> buyers;
+
+    @BeforeEach
+    void setUp() {
+        buyers = new ArrayList<>();
+        for (int u = 0; u < 3; u++) {
+            User user = new User();
+            user.setUsername("buyer" + u);
+            user.setEmail("buyer" + u + "@test.com");
+            user.setPassword("x");
+            user.setRole(Role.USER);
+            buyers.add(userRepository.save(user));
+        }
+        List<Order> orders = new ArrayList<>();
+        OffsetDateTime base = OffsetDateTime.parse("2024-05-01T00:00:00Z");
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = new Order();
+            // 訂單分散在不同會員，若列表觸發 lazy 載入就會多出多條 SELECT user
+            order.setUser(buyers.get(i % buyers.size()));
+            order.setStatus(OrderStatus.PAID);
+            order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+            order.setTotalPrice(new BigDecimal("10.00"));
+            order.setCreatedAt(base.plusMinutes(i));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        cartItemRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll(buyers);
+    }
+
+    @Test
+    @DisplayName("後台訂單列表：一頁只送出一條 SQL，且不載入任何 Order 實體")
+    void testAdminOrderListIsSingleQuery() {
+        CursorPage<OrderListDTO> page = orderService.getAllOrders(null, 5);
+        orderService.getAllOrders(page.getNextCursor(), 5);
+
+        assertEquals(5, page.getItems().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("會員訂單列表：只送出一條 SQL，且不載入任何 Order 實體")
+    void testMemberOrderListIsSingleQuery() {
+        List<OrderListDTO> orders = orderService.getOrdersByUserId(buyers.get(0).getUserId());
+
+        assertEquals(ORDER_COUNT / buyers.size(), orders.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("20 項商品結帳：訂單與明細批次寫入、購物車一條 DELETE 清空，SQL 數量固定")
+    void testCheckoutStatementsDoNotGrowWithCartLines() {
+        User buyer = buyers.get(0);
+        for (int i = 0; i < CART_LINES; i++) {
+            Book book = new Book();
+            book.setTitle("書籍" + i);
+            book.setIsbn("978000000" + String.format("%04d", i));
+            book.setPrice(new BigDecimal("100.00"));
+            book.setStock(10);
+            book.setLang(Language.ENGLISH);
+            book.setIsOnsale(true);
+            book = bookRepository.save(book);
+
+            CartItem item = new CartItem();
+            item.setUser(buyer);
+            item.setBook(book);
+            item.setQuantity(1);
+            cartItemRepository.save(item);
+        }
+        CheckoutRequest req = new CheckoutRequest();
+        req.setPaymentMethod("CREDIT_CARD");
+        req.setRecipientName("收件人");
+        req.setShippingAddress("台北市");
+        req.setRecipientPhone("0912345678");
+        statistics.clear();
+
+        orderService.checkout(buyer.getUserId(), req);
+
+        // 會員、購物車 (含書籍)、訂單與明細的序列配號、訂單、明細與 outbox 事件各一個 batch、清空購物車；
+        // 扣庫存走 JdbcTemplate batch，不在 Hibernate 統計內
+        // outbox：訂單成立 1 筆 + 每本書的扣庫存各 1 筆，為保持各實例間的事件順序逐筆向序列取號
+        int outboxEvents = 1 + CART_LINES;
+        assertEquals(CART_LINES + 1 + outboxEvents, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 8 + outboxEvents,
+                "prepared statements: " + statistics.getPrepareStatementCount());
+        assertTrue(cartItemRepository.findByUserUserId(buyer.getUserId()).isEmpty());
+    }
+}
@@ -1,8 +1,12 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.dto.CheckoutRequest;
 import org.example.dto.CheckoutResponseDTO;
+import org.example.dto.CursorPage;
+import org.example.dto.OrderListDTO;
 import org.example.entity.*;
+import org.example.exception.CheckoutException;
 import org.example.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,16 +14,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,9 +43,18 @@ class OrderServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private InventoryService inventoryService;
+
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private OutboxService outboxService;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private OrderService orderService;
 
@@ -84,7 +102,8 @@ class OrderServiceTest {
 
         // 模擬 Repository 行為
         when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
-        when(cartItemRepository.findByUserUserId(1L)).thenReturn(cartItems);
+        when(cartItemRepository.findWithBookByUserId(1L)).thenReturn(cartItems);
+        when(inventoryService.reserve(Map.of(101L, 2), Map.of())).thenReturn(List.of());
         // 模擬存檔後回傳帶有 ID 的 Order
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
@@ -100,12 +119,19 @@ class OrderServiceTest {
         assertEquals(999L, response.getOrderId());
         assertEquals("結帳成功！訂單 ID: 999", response.getMessage());
 
-        // 驗證庫存是否減少 (10 - 2 = 8)
-        assertEquals(8, mockBook.getStock());
-        verify(bookRepository, times(1)).save(mockBook);
+        // 驗證庫存以條件式 UPDATE 扣除，而不是修改實體後 save
+        verify(inventoryService, times(1)).reserve(Map.of(101L, 2), Map.of());
+        verify(bookRepository, never()).save(any(Book.class));
 
-        // 驗證購物車是否被清空
-        verify(cartItemRepository, times(1)).deleteAll(cartItems);
+        // 驗證購物車以單一 bulk DELETE 清空，而非逐筆刪除
+        verify(cartItemRepository, times(1)).deleteCheckedOut(1L, List.of(mockCartItem.getCartItemId()));
+        verify(cartItemRepository, never()).deleteAll(any());
+
+        // 驗證訂單成立與扣庫存事件寫入 outbox
+        verify(outboxService).orderPlaced(any(Order.class), anyList());
+        verify(outboxService).stockReserved(999L, Map.of(101L, 2));
+
+        assertEquals(1.0, checkoutCount("success", "none"));
     }
 
     @Test
@@ -118,7 +144,7 @@ class OrderServiceTest {
         List<CartItem> cartItems = Collections.singletonList(mockCartItem);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
-        when(cartItemRepository.findByUserUserId(1L)).thenReturn(cartItems);
+        when(cartItemRepository.findWithBookByUserId(1L)).thenReturn(cartItems);
 
         // 準備一個有效的 CheckoutRequest，包含必要的 PaymentMethod
         CheckoutRequest req = new CheckoutRequest();
@@ -130,10 +156,50 @@ class OrderServiceTest {
         });
 
         assertTrue(exception.getMessage().contains("庫存不足"));
+        assertEquals(CheckoutException.Reason.INSUFFICIENT_STOCK, ((CheckoutException) exception).getReason());
+        assertEquals(1.0, checkoutCount("failure", "insufficient_stock"));
 
         // 確保沒有進行存檔操作
         verify(orderRepository, never()).save(any(Order.class));
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(inventoryService, never()).reserve(anyMap(), anyMap());
+    }
+
+    @Test
+    @DisplayName("結帳失敗：預檢通過但並發結帳已先買走，條件式扣庫存失敗應拋出異常")
+    void testCheckout_ConcurrentSaleRejectedByAtomicUpdate() {
+        CheckoutRequest req = new CheckoutRequest();
+        req.setPaymentMethod("CREDIT_CARD");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+        when(cartItemRepository.findWithBookByUserId(1L)).thenReturn(List.of(mockCartItem));
+        // 記憶體中的庫存仍是 10，但資料庫端已被其他交易扣光
+        when(inventoryService.reserve(Map.of(101L, 2), Map.of())).thenReturn(List.of(101L));
+
+        CheckoutException exception = assertThrows(CheckoutException.class, () -> orderService.checkout(1L, req));
+
+        assertTrue(exception.getMessage().contains("庫存不足"));
+        assertEquals(CheckoutException.Reason.INSUFFICIENT_STOCK, exception.getReason());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(cartItemRepository, never()).deleteCheckedOut(anyLong(), anyCollection());
+    }
+
+    @Test
+    @DisplayName("結帳失敗：商品已下架應拋出異常，失敗原因記為 off_sale")
+    void testCheckout_OffSale() {
+        mockBook.setIsOnsale(false);
+        CheckoutRequest req = new CheckoutRequest();
+        req.setPaymentMethod("CREDIT_CARD");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+        when(cartItemRepository.findWithBookByUserId(1L)).thenReturn(List.of(mockCartItem));
+
+        CheckoutException exception = assertThrows(CheckoutException.class, () -> orderService.checkout(1L, req));
+
+        assertEquals(CheckoutException.Reason.OFF_SALE, exception.getReason());
+        assertTrue(exception.getMessage().contains("已下架"));
+        assertEquals(1.0, checkoutCount("failure", "off_sale"));
+        assertEquals(0.0, checkoutCount("success", "none"));
+        verify(inventoryService, never()).reserve(anyMap(), anyMap());
     }
 
     @Test
@@ -141,7 +207,7 @@ class OrderServiceTest {
     void testCheckout_EmptyCart() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
-        when(cartItemRepository.findByUserUserId(1L)).thenReturn(Collections.emptyList());
+        when(cartItemRepository.findWithBookByUserId(1L)).thenReturn(Collections.emptyList());
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -149,6 +215,11 @@ class OrderServiceTest {
         });
 
         assertEquals("購物車是空的，無法結帳", exception.getMessage());
+        assertEquals(1.0, checkoutCount("failure", "empty_cart"));
+    }
+
+    private double checkoutCount(String outcome, String reason) {
+        return meterRegistry.counter(OrderService.CHECKOUT_COUNTER, "outcome", outcome, "reason", reason).count();
     }
 
     // ==========================================
@@ -173,6 +244,7 @@ class OrderServiceTest {
         // Assert
         assertEquals(OrderStatus.SHIPPED, updatedOrder.getStatus());
         verify(orderRepository, times(1)).save(mockOrder);
+        verify(outboxService).orderStatusChanged(mockOrder, OrderStatus.PENDING);
     }
 
     @Test
@@ -199,9 +271,10 @@ class OrderServiceTest {
         // Assert
         assertEquals(OrderStatus.CANCELLED, mockOrder.getStatus());
 
-        // 驗證庫存是否回補 (10 + 3 = 13)
-        assertEquals(13, mockBook.getStock());
-        verify(bookRepository, times(1)).save(mockBook);
+        // 驗證庫存以 stock = stock + 3 原子回補
+        verify(inventoryService, times(1)).release(Map.of(101L, 3), Map.of());
+        verify(outboxService).stockReleased(orderId, Map.of(101L, 3));
+        verify(outboxService).orderStatusChanged(mockOrder, OrderStatus.PENDING);
     }
 
     @Test
@@ -237,13 +310,8 @@ class OrderServiceTest {
         orderService.updateOrderStatus(orderId, "CANCELLED");
 
         // Assert
-        // Book 1: 10 + 2 = 12
-        assertEquals(12, mockBook.getStock());
-        // Book 2: 5 + 1 = 6
-        assertEquals(6, mockBook2.getStock());
-
-        verify(bookRepository).save(mockBook);
-        verify(bookRepository).save(mockBook2);
+        // Book 1 加回 2 本、Book 2 加回 1 本，一次批次回補
+        verify(inventoryService).release(Map.of(101L, 2, 102L, 1), Map.of());
     }
 
     @Test
@@ -268,8 +336,8 @@ class OrderServiceTest {
 
         // Assert
         assertEquals(OrderStatus.CANCELLED, mockOrder.getStatus());
-        // 驗證庫存沒有被保存 (沒有呼叫 save)，表示沒有執行回補
-        verify(bookRepository, never()).save(any(Book.class));
+        // 驗證沒有執行回補
+        verify(inventoryService, never()).release(anyMap(), anyMap());
     }
 
     @Test
@@ -319,4 +387,30 @@ class OrderServiceTest {
             orderService.updateOrderStatus(orderId, "INVALID_STATUS");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("後台訂單列表：Keyset 分頁以上一頁最後一筆的 (createdAt, orderId) 查詢下一頁")
+    void testGetAllOrders_KeysetPaging() {
+        OffsetDateTime now = OffsetDateTime.parse("2024-05-01T12:00:00+08:00");
+        OrderListDTO newest = listRow(3L, now);
+        OrderListDTO middle = listRow(2L, now.minusHours(1));
+        OrderListDTO oldest = listRow(1L, now.minusHours(2));
+
+        when(orderRepository.findLatest(Limit.of(3))).thenReturn(List.of(newest, middle, oldest));
+        CursorPage<OrderListDTO> first = orderService.getAllOrders(null, 2);
+
+        assertEquals(List.of(3L, 2L), first.getItems().stream().map(OrderListDTO::getOrderId).toList());
+        assertTrue(first.hasNext());
+
+        when(orderRepository.findLatestBefore(now.minusHours(1), 2L, Limit.of(3))).thenReturn(List.of(oldest));
+        CursorPage<OrderListDTO> second = orderService.getAllOrders(first.getNextCursor(), 2);
+
+        assertEquals(1L, second.getItems().get(0).getOrderId());
+        assertFalse(second.hasNext());
+        verify(orderRepository, never()).findAll();
+    }
+
+    private static OrderListDTO listRow(Long id, OffsetDateTime createdAt) {
+        return new OrderListDTO(id, OrderStatus.PENDING, new BigDecimal("100.00"), createdAt, PaymentMethod.CREDIT_CARD);
+    }
+}
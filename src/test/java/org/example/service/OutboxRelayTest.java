@@ -0,0 +1,206 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.CheckoutRequest;
+import org.example.entity.*;
+import org.example.event.OutboxMessage;
+import org.example.exception.CheckoutException;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.OutboxEventRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * outbox 與訂單異動同交易寫入，轉送時依序交給程序內、NDJSON 檔與本機訊息佇列，失敗時整批重送
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:outbox_relay;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    // 排程不介入，由測試自行呼叫 drain()
+    "application.outbox.relay-interval-ms=3600000",
+    "application.outbox.file.enabled=true",
+    "application.outbox.file.path=target/outbox-relay-test/events.ndjson",
+    "application.outbox.broker.enabled=true"
+})
+class OutboxRelayTest {
+
+    private static final Path EVENTS_FILE = Path.of("target/outbox-relay-test/events.ndjson");
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private LocalMessageBroker broker;
+    @Autowired
+    private RecordingSink recordingSink;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    static class RecordingSink implements OutboxSink {
+        final List<OutboxMessage> received = new CopyOnWriteArrayList<>();
+        final AtomicBoolean failNext = new AtomicBoolean();
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void deliver(List<OutboxMessage> batch) throws IOException {
+            if (failNext.getAndSet(false)) {
+                throw new IOException("測試用的轉送失敗");
+            }
+            received.addAll(batch);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outboxRelay.drain();
+        recordingSink.received.clear();
+        Files.deleteIfExists(EVENTS_FILE);
+    }
+
+    @Test
+    @DisplayName("結帳與取消：事件依序送到所有 sink，送出後清空 outbox")
+    void testRelaysInOrderToAllSinks() throws Exception {
+        List<OutboxMessage> brokered = new CopyOnWriteArrayList<>();
+        broker.subscribe(BrokerOutboxSink.topicOf(OutboxMessage.ORDER), brokered::add);
+
+        Book book = TestBooks.create(bookRepository, "9780000000201", 10);
+        User user = createUserWithCart("outbox", book, 2);
+        Long orderId = orderService.checkout(user.getUserId(), request()).getOrderId();
+        orderService.updateOrderStatusAndGetDetail(orderId, "CANCELLED");
+
+        assertEquals(4, outboxRelay.drain());
+        assertEquals(0, outboxEventRepository.count());
+
+        List<OutboxMessage> received = recordingSink.received;
+        assertEquals(List.of(OutboxMessage.ORDER_PLACED, OutboxMessage.STOCK_RESERVED,
+                        OutboxMessage.STOCK_RELEASED, OutboxMessage.ORDER_STATUS_CHANGED),
+                received.stream().map(OutboxMessage::eventType).toList());
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i - 1).eventId() < received.get(i).eventId());
+        }
+
+        JsonNode placed = objectMapper.readTree(received.get(0).payload());
+        assertEquals(orderId.longValue(), placed.get("orderId").asLong());
+        assertEquals("PENDING", placed.get("status").asText());
+        assertEquals(book.getBookId().longValue(), placed.get("items").get(0).get("bookId").asLong());
+        assertEquals(2, placed.get("items").get(0).get("quantity").asInt());
+        assertEquals(OutboxMessage.BOOK, received.get(2).aggregateType());
+        assertEquals(book.getBookId(), received.get(2).aggregateId());
+        JsonNode changed = objectMapper.readTree(received.get(3).payload());
+        assertEquals("PENDING", changed.get("from").asText());
+        assertEquals("CANCELLED", changed.get("to").asText());
+
+        List<String> lines = Files.readAllLines(EVENTS_FILE);
+        assertEquals(4, lines.size());
+        assertEquals(received.get(0).eventId().longValue(), objectMapper.readTree(lines.get(0)).get("eventId").asLong());
+        assertEquals(orderId.longValue(), objectMapper.readTree(lines.get(0)).get("payload").get("orderId").asLong());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (brokered.size() < 2) {
+            assertTrue(System.nanoTime() < deadline, "訊息佇列沒有送達");
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(OutboxMessage.ORDER_PLACED, OutboxMessage.ORDER_STATUS_CHANGED),
+                brokered.stream().map(OutboxMessage::eventType).toList());
+    }
+
+    @Test
+    @DisplayName("結帳失敗回滾：不會留下任何事件")
+    void testRolledBackCheckoutWritesNothing() {
+        Book book = TestBooks.create(bookRepository, "9780000000202", 10);
+        User user = createUserWithCart("rollback", book, 99);
+
+        assertThrows(CheckoutException.class, () -> orderService.checkout(user.getUserId(), request()));
+
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    @DisplayName("轉送失敗：整批留在 outbox，下次依相同順序重送")
+    void testFailedBatchIsRetried() {
+        Book book = TestBooks.create(bookRepository, "9780000000203", 10);
+        User user = createUserWithCart("retry", book, 1);
+        Long orderId = orderService.checkout(user.getUserId(), request()).getOrderId();
+
+        recordingSink.failNext.set(true);
+        assertEquals(0, outboxRelay.drain());
+        assertEquals(2, outboxEventRepository.count());
+        assertTrue(recordingSink.received.isEmpty());
+
+        assertTrue(orderService.completePayment(orderId));
+        assertEquals(3, outboxRelay.drain());
+        assertEquals(List.of(OutboxMessage.ORDER_PLACED, OutboxMessage.STOCK_RESERVED,
+                        OutboxMessage.ORDER_STATUS_CHANGED),
+                recordingSink.received.stream().map(OutboxMessage::eventType).toList());
+    }
+
+    private static CheckoutRequest request() {
+        CheckoutRequest req = new CheckoutRequest();
+        req.setPaymentMethod("CASH_ON_DELIVERY");
+        req.setRecipientName("收件人");
+        req.setShippingAddress("台北市");
+        req.setRecipientPhone("0912345678");
+        return req;
+    }
+
+    private User createUserWithCart(String name, Book book, int quantity) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@test.com");
+        user.setPassword("x");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+
+        CartItem item = new CartItem();
+        item.setUser(user);
+        item.setBook(book);
+        item.setQuantity(quantity);
+        cartItemRepository.save(item);
+        return user;
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.service;
+
+import org.example.dto.RatingSummaryDTO;
+import org.example.entity.Book;
+import org.example.entity.BookRatingSummary;
+import org.example.entity.Review;
+import org.example.entity.Role;
+import org.example.entity.User;
+import org.example.repository.BookRatingSummaryRepository;
+import org.example.repository.BookRepository;
+import org.example.repository.ReviewRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 評分彙總：新增評論時增量更新、書籍查詢帶出平均評分，以及依 reviews 對帳修正與回填
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:rating_summary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "application.rating-summary.reconcile-batch-size=2"
+})
+class RatingSummaryServiceTest {
+
+    @Autowired
+    private RatingSummaryService ratingSummaryService;
+    @Autowired
+    private ReviewService reviewService;
+    @Autowired
+    private BookRatingSummaryRepository summaryRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("新增評論：同一交易內增量更新評論數、總分與星等分布，書籍查詢帶出平均評分")
+    void testAddReviewUpdatesSummary() {
+        Book book = TestBooks.create(bookRepository, "9780000001001", 10);
+        User user = createUser("rating-add");
+
+        reviewService.addReview(user.getEmail(), book.getBookId().intValue(), 5, "很棒");
+        reviewService.addReview(user.getEmail(), book.getBookId().intValue(), 4, "不錯");
+        reviewService.addReview(user.getEmail(), book.getBookId().intValue(), 4, "還可以");
+
+        RatingSummaryDTO summary = ratingSummaryService.getSummary(book.getBookId());
+        assertEquals(3, summary.getReviewCount());
+        assertEquals(4.33, summary.getAverage());
+        assertEquals(Map.of(1, 0L, 2, 0L, 3, 0L, 4, 2L, 5, 1L), summary.getHistogram());
+
+        Book reloaded = bookRepository.findAllWithTotalsById(List.of(book.getBookId())).get(0);
+        assertEquals(3L, reloaded.getRatingCount());
+        assertEquals(4.33, reloaded.getRatingAverage());
+    }
+
+    @Test
+    @DisplayName("對帳：依 reviews 分批重新計算，修正漂移的彙總並回填缺少的彙總列")
+    void testReconcileFixesDriftAndBackfills() {
+        User user = createUser("rating-reconcile");
+        Book drifted = TestBooks.create(bookRepository, "9780000001002", 10);
+        Book missing = TestBooks.create(bookRepository, "9780000001003", 10);
+        Book noReviews = TestBooks.create(bookRepository, "9780000001004", 10);
+        reviewService.addReview(user.getEmail(), drifted.getBookId().intValue(), 2, "普通");
+        // 直接寫入 reviews，模擬增量更新之外的資料 (例如匯入)
+        reviewRepository.save(Review.builder().book(missing).user(user).rating(3).content("匯入").build());
+
+        BookRatingSummary summary = summaryRepository.findById(drifted.getBookId()).orElseThrow();
+        summary.setReviewCount(10);
+        summaryRepository.save(summary);
+
+        ratingSummaryService.backfillMissing();
+        assertEquals(3.0, ratingSummaryService.getSummary(missing.getBookId()).getAverage());
+        assertEquals(0, ratingSummaryService.getSummary(noReviews.getBookId()).getReviewCount());
+        assertTrue(summaryRepository.existsById(noReviews.getBookId()));
+        assertEquals(10, summaryRepository.findById(drifted.getBookId()).orElseThrow().getReviewCount());
+
+        ratingSummaryService.reconcileAll();
+        RatingSummaryDTO fixed = ratingSummaryService.getSummary(drifted.getBookId());
+        assertEquals(1, fixed.getReviewCount());
+        assertEquals(2.0, fixed.getAverage());
+        assertEquals(1L, fixed.getHistogram().get(2));
+    }
+
+    private User createUser(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@test.com");
+        user.setPassword("x");
+        user.setRole(Role.USER);
+        return userRepository.save(user);
+    }
+}
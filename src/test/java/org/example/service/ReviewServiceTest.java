@@ -1,9 +1,11 @@
 package org.example.service;
 
+import org.example.dto.CursorPage;
 import org.example.dto.ReviewResponse;
 import org.example.entity.Book;
 import org.example.entity.Review;
 import org.example.entity.User;
+import org.example.event.ReviewChangedEvent;
 import org.example.repository.BookRepository;
 import org.example.repository.ReviewRepository;
 import org.example.repository.UserRepository;
@@ -13,7 +15,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -22,6 +27,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +39,12 @@ class ReviewServiceTest {
     private BookRepository bookRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private RatingSummaryService ratingSummaryService;
+    @Spy
+    private ReviewCache reviewCache = new ReviewCache(1000, 60000);
 
     @InjectMocks
     private ReviewService reviewService;
@@ -84,6 +96,8 @@ class ReviewServiceTest {
         assertEquals(mockBook, result.getBook());
         
         verify(reviewRepository).save(any(Review.class));
+        verify(ratingSummaryService).apply(101L, 5, 1);
+        verify(eventPublisher).publishEvent(new ReviewChangedEvent(101L));
     }
 
     @Test
@@ -100,6 +114,7 @@ class ReviewServiceTest {
 
         assertEquals("評分必須在 1 到 5 之間", exception.getMessage());
         verify(reviewRepository, never()).save(any(Review.class));
+        verifyNoInteractions(ratingSummaryService);
     }
 
     @Test
@@ -147,10 +162,10 @@ class ReviewServiceTest {
         review.setUser(mockUser); // 設定關聯用戶
         review.setBook(mockBook);
 
-        when(reviewRepository.findByBook_BookIdOrderByCreatedAtDesc(101)).thenReturn(List.of(review));
+        when(reviewRepository.findLatestByBookId(eq(101L), any(Limit.class))).thenReturn(List.of(review));
 
         // Act
-        List<ReviewResponse> responses = reviewService.getReviewsByBookId(101);
+        List<ReviewResponse> responses = reviewService.getReviewsByBookId(101, null, null).getItems();
 
         // Assert
         assertNotNull(responses);
@@ -169,12 +184,62 @@ class ReviewServiceTest {
         review.setRating(3);
         review.setUser(null); // 模擬用戶資料遺失
 
-        when(reviewRepository.findByBook_BookIdOrderByCreatedAtDesc(101)).thenReturn(List.of(review));
+        when(reviewRepository.findLatestByBookId(eq(101L), any(Limit.class))).thenReturn(List.of(review));
 
         // Act
-        List<ReviewResponse> responses = reviewService.getReviewsByBookId(101);
+        List<ReviewResponse> responses = reviewService.getReviewsByBookId(101, null, null).getItems();
 
         // Assert
         assertEquals("匿名讀者", responses.get(0).getUsername()); // 驗證防呆邏輯
     }
+
+    @Test
+    @DisplayName("查詢評論分頁：多取一筆判斷下一頁，游標帶回上一頁最後一筆的 (createdAt, reviewId)")
+    void testGetReviewsByBookId_KeysetPaging() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Review newest = Review.builder().reviewId(3).rating(5).content("A").createdAt(now).user(mockUser).build();
+        Review middle = Review.builder().reviewId(2).rating(4).content("B").createdAt(now).user(mockUser).build();
+        Review oldest = Review.builder().reviewId(1).rating(3).content("C").createdAt(now.minusDays(1)).user(mockUser).build();
+
+        // 第一頁一次載入 max-page-size + 1 筆放進快取，再切出本頁
+        when(reviewRepository.findLatestByBookId(101L, Limit.of(101))).thenReturn(List.of(newest, middle, oldest));
+        CursorPage<ReviewResponse> first = reviewService.getReviewsByBookId(101, null, 2);
+
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.hasNext());
+
+        when(reviewRepository.findLatestByBookIdBefore(101L, now, 2, Limit.of(3))).thenReturn(List.of(oldest));
+        CursorPage<ReviewResponse> second = reviewService.getReviewsByBookId(101, first.getNextCursor(), 2);
+
+        assertEquals(1, second.getItems().get(0).getReviewId());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    @DisplayName("評論快取：第一頁命中快取不再查詢資料庫，交易提交後的異動事件逐出該書")
+    void testGetReviewsByBookId_CachedUntilReviewChanged() {
+        Review review = Review.builder().reviewId(1).rating(5).content("A")
+                .createdAt(LocalDateTime.now()).user(mockUser).build();
+        when(reviewRepository.findLatestByBookId(101L, Limit.of(101))).thenReturn(List.of(review));
+
+        reviewService.getReviewsByBookId(101, null, 10);
+        CursorPage<ReviewResponse> cached = reviewService.getReviewsByBookId(101, null, 1);
+        assertEquals(1, cached.getItems().size());
+        assertFalse(cached.hasNext());
+        verify(reviewRepository, times(1)).findLatestByBookId(101L, Limit.of(101));
+
+        reviewCache.onReviewChanged(new ReviewChangedEvent(101L));
+        reviewService.getReviewsByBookId(101, null, 10);
+        verify(reviewRepository, times(2)).findLatestByBookId(101L, Limit.of(101));
+        assertEquals(1, reviewCache.stats().hitCount());
+        assertEquals(1, reviewCache.invalidationCount());
+    }
+
+    @Test
+    @DisplayName("查詢評論分頁：竄改過的游標應拒絕 (400)")
+    void testGetReviewsByBookId_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> reviewService.getReviewsByBookId(101, "not-a-cursor", 10));
+        verifyNoInteractions(reviewRepository);
+    }
 }
@@ -0,0 +1,183 @@
+package org.example.service;
+
+import org.example.dto.CheckoutRequest;
+import org.example.dto.SalesRollupDTO;
+import org.example.dto.TopBookDTO;
+import org.example.entity.*;
+import org.example.entity.SalesRollup.Dimension;
+import org.example.event.OutboxMessage;
+import org.example.repository.BookRepository;
+import org.example.repository.CartItemRepository;
+import org.example.repository.SalesRollupRepository;
+import org.example.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 銷售彙總：由 outbox 訂單事件增量更新，重送不重複計算，清空後可依歷史訂單重建
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:sales_analytics;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=USER",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.show-sql=false",
+    // 排程不介入，由測試自行呼叫 drain()
+    "application.outbox.relay-interval-ms=3600000",
+    "application.analytics.batch-size=2"
+})
+class SalesAnalyticsServiceTest {
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private SalesRollupRepository rollupRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("結帳與取消：各維度依訂單事件增量更新，取消的訂單只留在訂單狀態彙總")
+    void testIncrementalRollups() {
+        outboxRelay.drain();
+        Book english = TestBooks.create(bookRepository, "9780000000301", 100, Language.ENGLISH, "100.00");
+        Book japanese = TestBooks.create(bookRepository, "9780000000302", 100, Language.JAPANESE, "250.00");
+        String today = LocalDate.now().toString();
+        SalesRollupDTO dayBefore = find(salesAnalyticsService.getDaily(LocalDate.now(), LocalDate.now()), today);
+        SalesRollupDTO cancelledBefore = find(salesAnalyticsService.getByDimension(Dimension.STATUS), "CANCELLED");
+
+        Long first = checkout("analytics1", "CREDIT_CARD", english, 2, japanese, 1);
+        checkout("analytics2", "CASH_ON_DELIVERY", japanese, 3, null, 0);
+        outboxRelay.drain();
+
+        SalesRollupDTO day = find(salesAnalyticsService.getDaily(LocalDate.now(), LocalDate.now()), today);
+        assertEquals(dayBefore.getOrders() + 2, day.getOrders());
+        assertEquals(dayBefore.getUnits() + 6, day.getUnits());
+        assertEquals(0, dayBefore.getRevenue().add(new BigDecimal("1200.00")).compareTo(day.getRevenue()));
+
+        List<TopBookDTO> top = salesAnalyticsService.getTopBooks(2, true);
+        assertEquals(japanese.getBookId(), top.get(0).getBookId());
+        assertEquals(japanese.getTitle(), top.get(0).getTitle());
+        assertEquals(4, top.get(0).getUnits());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(top.get(0).getRevenue()));
+
+        orderService.updateOrderStatusAndGetDetail(first, "CANCELLED");
+        outboxRelay.drain();
+
+        day = find(salesAnalyticsService.getDaily(LocalDate.now(), LocalDate.now()), today);
+        assertEquals(dayBefore.getOrders() + 1, day.getOrders());
+        assertEquals(dayBefore.getUnits() + 3, day.getUnits());
+        assertEquals(cancelledBefore.getOrders() + 1,
+                find(salesAnalyticsService.getByDimension(Dimension.STATUS), "CANCELLED").getOrders());
+        assertEquals(1, find(salesAnalyticsService.getByDimension(Dimension.PAYMENT_METHOD),
+                "CASH_ON_DELIVERY").getOrders());
+        TopBookDTO japaneseTop = salesAnalyticsService.getTopBooks(10, false).stream()
+                .filter(book -> book.getBookId().equals(japanese.getBookId()))
+                .findFirst().orElseThrow();
+        assertEquals(3, japaneseTop.getUnits());
+    }
+
+    @Test
+    @DisplayName("事件重送：同一張訂單再同步一次不會重複計算")
+    void testRedeliveredEventIsIdempotent() {
+        outboxRelay.drain();
+        Book book = TestBooks.create(bookRepository, "9780000000303", 100, Language.KOREAN, "80.00");
+        Long orderId = checkout("analytics3", "CREDIT_CARD", book, 1, null, 0);
+        outboxRelay.drain();
+        List<SalesRollupDTO> before = salesAnalyticsService.getByDimension(Dimension.LANGUAGE);
+
+        OutboxMessage replayed = new OutboxMessage(1L, OutboxMessage.ORDER, orderId, OutboxMessage.ORDER_PLACED,
+                "{}", OffsetDateTime.now());
+        salesAnalyticsService.onOutboxMessage(replayed);
+        salesAnalyticsService.onOutboxMessage(replayed);
+
+        assertEquals(before, salesAnalyticsService.getByDimension(Dimension.LANGUAGE));
+    }
+
+    @Test
+    @DisplayName("重建：清空彙總後依歷史訂單分批重算，結果與增量維護相同")
+    void testRebuildMatchesIncremental() throws InterruptedException {
+        Book book = TestBooks.create(bookRepository, "9780000000304", 100, Language.FRENCH, "120.00");
+        checkout("analytics4", "CREDIT_CARD", book, 2, null, 0);
+        checkout("analytics5", "CREDIT_CARD", book, 1, null, 0);
+        outboxRelay.drain();
+        List<SalesRollupDTO> statuses = salesAnalyticsService.getByDimension(Dimension.STATUS);
+        List<SalesRollupDTO> languages = salesAnalyticsService.getByDimension(Dimension.LANGUAGE);
+        List<TopBookDTO> top = salesAnalyticsService.getTopBooks(10, false);
+
+        // 模擬彙總漂移
+        transactionTemplate.executeWithoutResult(status -> rollupRepository.deleteAllInBatch());
+        assertTrue(salesAnalyticsService.getByDimension(Dimension.STATUS).isEmpty());
+
+        assertTrue(salesAnalyticsService.startRebuild());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (salesAnalyticsService.getRebuildStatus().isRunning()) {
+            assertTrue(System.nanoTime() < deadline, "重建逾時");
+            Thread.sleep(20);
+        }
+
+        assertNull(salesAnalyticsService.getRebuildStatus().getError());
+        assertTrue(salesAnalyticsService.getRebuildStatus().getProcessedOrders() >= 2);
+        assertEquals(statuses, salesAnalyticsService.getByDimension(Dimension.STATUS));
+        assertEquals(languages, salesAnalyticsService.getByDimension(Dimension.LANGUAGE));
+        assertEquals(top, salesAnalyticsService.getTopBooks(10, false));
+    }
+
+    private static SalesRollupDTO find(List<SalesRollupDTO> rollups, String key) {
+        return rollups.stream()
+                .filter(rollup -> rollup.getKey().equals(key))
+                .findFirst()
+                .orElseGet(() -> SalesRollupDTO.builder().key(key).revenue(BigDecimal.ZERO).build());
+    }
+
+    private Long checkout(String name, String paymentMethod, Book book, int quantity, Book other, int otherQuantity) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@test.com");
+        user.setPassword("x");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+        addToCart(user, book, quantity);
+        if (other != null) {
+            addToCart(user, other, otherQuantity);
+        }
+
+        CheckoutRequest req = new CheckoutRequest();
+        req.setPaymentMethod(paymentMethod);
+        req.setRecipientName("收件人");
+        req.setShippingAddress("台北市");
+        req.setRecipientPhone("0912345678");
+        return orderService.checkout(user.getUserId(), req).getOrderId();
+    }
+
+    private void addToCart(User user, Book book, int quantity) {
+        CartItem item = new CartItem();
+        item.setUser(user);
+        item.setBook(book);
+        item.setQuantity(quantity);
+        cartItemRepository.save(item);
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTokenizerTest {
+
+    private final SearchTokenizer tokenizer = new SearchTokenizer();
+
+    @Test
+    @DisplayName("拉丁語系：轉小寫、去重音並還原英文字尾")
+    void testLatinWords() {
+        assertEquals(List.of("learn", "english", "grammar", "book"),
+                tokenizer.tokenize("Learning ENGLISH Grammar Books"));
+        assertEquals(List.of("francais", "facile"), tokenizer.tokenize("Français facile"));
+    }
+
+    @Test
+    @DisplayName("中日韓文字：切成 bigram，單字則保留 unigram")
+    void testCjkBigrams() {
+        assertEquals(List.of("日本", "本語"), tokenizer.tokenize("日本語"));
+        assertEquals(List.of("한국", "국어"), tokenizer.tokenize("한국어"));
+        assertEquals(List.of("書"), tokenizer.tokenize("書"));
+        // 混合文字時依文字系統分段
+        assertEquals(List.of("jlpt", "n1", "文法"), tokenizer.tokenize("JLPT N1 文法"));
+    }
+
+    @Test
+    @DisplayName("泰文：母音/聲調符號附著在前一個字上再切 bigram")
+    void testThaiBigrams() {
+        List<String> tokens = tokenizer.tokenize("ภาษาไทย");
+        assertFalse(tokens.isEmpty());
+        tokens.forEach(token -> assertTrue(token.codePointCount(0, token.length()) >= 2));
+    }
+
+    @Test
+    @DisplayName("阿拉伯文：去除母音符號並統一 alef")
+    void testArabicNormalization() {
+        assertEquals(tokenizer.tokenize("اللغة العربية"), tokenizer.tokenize("اللُّغَة العَرَبِيَّة"));
+        assertEquals(List.of("احمد"), tokenizer.tokenize("أحمد"));
+    }
+
+    @Test
+    @DisplayName("ISBN：連字號分隔的數字合併為單一 token")
+    void testIsbnJoined() {
+        assertEquals(List.of("9784384057"), tokenizer.tokenize("978-4-384-057"));
+    }
+}
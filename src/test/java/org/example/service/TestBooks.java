@@ -0,0 +1,31 @@
+package org.example.service;
+
+import org.example.entity.Book;
+import org.example.entity.Language;
+import org.example.repository.BookRepository;
+
+import java.math.BigDecimal;
+
+/**
+ * 整合測試共用的書籍建立方法：上架中的英文書，定價 100.00
+ */
+final class TestBooks {
+
+    private TestBooks() {
+    }
+
+    static Book create(BookRepository bookRepository, String isbn, int stock) {
+        return create(bookRepository, isbn, stock, Language.ENGLISH, "100.00");
+    }
+
+    static Book create(BookRepository bookRepository, String isbn, int stock, Language lang, String price) {
+        Book book = new Book();
+        book.setTitle("測試書籍 " + isbn);
+        book.setIsbn(isbn);
+        book.setPrice(new BigDecimal(price));
+        book.setStock(stock);
+        book.setLang(lang);
+        book.setIsOnsale(true);
+        return bookRepository.save(book);
+    }
+}
@@ -4,6 +4,7 @@ import org.example.dto.*;
 import org.example.entity.Role;
 import org.example.entity.User;
 import org.example.repository.UserRepository;
+import org.example.security.PrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -31,6 +32,8 @@ class UserServiceTest {
     private PasswordEncoder encoder;
     @Mock
     private JwtService jwtService;
+    @Mock
+    private PrincipalCache principalCache;
 
     @InjectMocks
     private UserService userService;
@@ -222,6 +225,7 @@ class UserServiceTest {
         // Assert
         assertEquals("encodedNewPass", mockUser.getPassword());
         verify(userRepo).save(mockUser);
+        verify(principalCache).evict("test@example.com");
     }
 
     @Test
@@ -237,6 +241,7 @@ class UserServiceTest {
         });
 
         assertEquals("舊密碼輸入錯誤，請重新確認。", exception.getMessage());
+        verifyNoInteractions(principalCache);
     }
 
     // ==========================================
@@ -255,6 +260,7 @@ class UserServiceTest {
         // Assert
         assertFalse(mockUser.getIsActive());
         verify(userRepo).save(mockUser);
+        verify(principalCache).evict("test@example.com");
     }
 
     @Test
@@ -270,6 +276,7 @@ class UserServiceTest {
         // Assert
         assertFalse(mockUser.getIsActive()); // 應變為 false
         verify(userRepo).save(mockUser);
+        verify(principalCache).evict("test@example.com");
     }
 
     @Test
@@ -284,5 +291,6 @@ class UserServiceTest {
         // Assert
         assertEquals(Role.ADMIN, mockUser.getRole());
         verify(userRepo).save(mockUser);
+        verify(principalCache).evict("test@example.com");
     }
 }